@@ -0,0 +1,48 @@
+package com.coinbase.exchange.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recorded inputs for the benchmarks, read from src/jmh/resources/fixtures so every run sees the same data.
+ *
+ * level3Snapshot.json - a full (level 3) order book as returned by /products/{id}/book?level=3
+ * websocketFeed.json - full channel websocket frames, one per line
+ * signedRequests.json - request paths, methods and bodies as signed for the REST API
+ */
+public final class Fixtures {
+
+    private Fixtures() { }
+
+    public static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read fixture " + name, e);
+        }
+    }
+
+    public static List<String> lines(String name) {
+        List<String> lines = new ArrayList<>();
+        for (String line : read(name).split("\n")) {
+            if (!line.trim().isEmpty()) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+}
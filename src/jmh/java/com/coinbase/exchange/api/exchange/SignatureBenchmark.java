@@ -0,0 +1,56 @@
+package com.coinbase.exchange.api.exchange;
+
+import com.coinbase.exchange.api.Fixtures;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing the CB-ACCESS-SIGN header for the recorded requests - done once for every authenticated REST call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+
+    // a throwaway base64 secret of the same length as a real API secret
+    private static final String SECRET = "c2VjcmV0LWZvci1iZW5jaG1hcmtzLW9ubHktc2VjcmV0LWZvci1iZW5jaG1hcmtzLW9ubHktc2VjcmV0LWZvci0=";
+    private static final String TIMESTAMP = "1519085035";
+
+    Signature signature;
+    List<Map<String, String>> requests;
+    int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        signature = new Signature(SECRET);
+        requests = new ObjectMapper().readValue(Fixtures.read("signedRequests.json"),
+                new TypeReference<List<Map<String, String>>>() { });
+    }
+
+    @Benchmark
+    public String generate() {
+        if (++cursor == requests.size()) {
+            cursor = 0;
+        }
+        Map<String, String> request = requests.get(cursor);
+        return signature.generate(request.get("requestPath"), request.get("method"), request.get("body"), TIMESTAMP);
+    }
+}
@@ -0,0 +1,75 @@
+package com.coinbase.exchange.api.marketdata;
+
+import com.coinbase.exchange.api.Fixtures;
+import com.coinbase.exchange.api.orderbook.OrderBook;
+import com.coinbase.exchange.api.orderbook.OrderBookSnapshotLoader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the recorded level 3 snapshot: building an OrderItem from every row, binding the whole response the
+ * way MarketDataService used to, and streaming it straight into an OrderBook.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderItemBenchmark {
+
+    ObjectMapper objectMapper;
+    String snapshot;
+    List<List<String>> rows;
+    OrderBookSnapshotLoader loader;
+    OrderBook book;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        snapshot = Fixtures.read("level3Snapshot.json");
+        loader = new OrderBookSnapshotLoader();
+        book = new OrderBook();
+        rows = new ArrayList<>();
+        JsonNode book = objectMapper.readTree(snapshot);
+        for (String side : Arrays.asList("bids", "asks")) {
+            for (JsonNode row : book.get(side)) {
+                rows.add(Arrays.asList(row.get(0).asText(), row.get(1).asText(), row.get(2).asText()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void constructOrderItems(Blackhole blackhole) {
+        for (List<String> row : rows) {
+            blackhole.consume(new OrderItem(row));
+        }
+    }
+
+    @Benchmark
+    public MarketData bindSnapshot() throws IOException {
+        return objectMapper.readValue(snapshot, MarketData.class);
+    }
+
+    @Benchmark
+    public long streamSnapshot() throws IOException {
+        return loader.load(snapshot, book);
+    }
+}
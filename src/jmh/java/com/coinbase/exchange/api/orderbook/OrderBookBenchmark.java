@@ -0,0 +1,93 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.Fixtures;
+import com.coinbase.exchange.api.marketdata.MarketData;
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+
+/**
+ * Applying level 3 feed messages to a book loaded from the recorded full snapshot. Each benchmark opens an order
+ * and takes it off again so the book is the same size on every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    OrderBook book;
+    FeedMessage open;
+    FeedMessage match;
+    FeedMessage cancel;
+
+    @Setup
+    public void setup() throws IOException {
+        MarketData snapshot = new ObjectMapper().readValue(Fixtures.read("level3Snapshot.json"), MarketData.class);
+        book = new OrderBook();
+        for (OrderItem row : snapshot.getBids()) {
+            book.addSnapshotEntry(row, BUY);
+        }
+        for (OrderItem row : snapshot.getAsks()) {
+            book.addSnapshotEntry(row, SELL);
+        }
+        book.setSequence(snapshot.getSequence());
+
+        long price = book.getBids().priceAt(0);
+        long size = FixedPoint.toScaled(snapshot.getBids().get(0).getSize(), SIZE_DECIMAL_PLACES);
+        String orderId = "f5a7d4b0-9d1c-4b8e-8f43-2f6b1c0e9a77";
+
+        open = message(OPEN, orderId, price);
+        open.setRemainingSize(size);
+        match = message(MATCH, null, price);
+        match.setMakerOrderId(orderId);
+        match.setSize(size);
+        cancel = message(DONE, orderId, price);
+        cancel.setReason(CANCELED);
+    }
+
+    private static FeedMessage message(String type, String orderId, long price) {
+        FeedMessage message = new FeedMessage();
+        message.setType(type);
+        message.setSide(BUY);
+        message.setOrderId(orderId);
+        message.setPrice(price);
+        return message;
+    }
+
+    @Benchmark
+    public long openAndCancel() {
+        book.apply(open);
+        book.apply(cancel);
+        return book.getVersion();
+    }
+
+    @Benchmark
+    public long openAndFill() {
+        book.apply(open);
+        book.apply(match);
+        return book.getVersion();
+    }
+
+    @Benchmark
+    public OrderBookSnapshot snapshot() {
+        return book.snapshot();
+    }
+}
@@ -0,0 +1,125 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.Fixtures;
+import com.coinbase.exchange.api.marketdata.MarketData;
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * Cost of keeping one side of the book up to date - the work OrderBookModel.insertInto and insert used to do.
+ * The ladder is seeded with the top levels of the recorded level 3 snapshot and every benchmark leaves it as it
+ * found it, so the depth holds steady for the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceLadderBenchmark {
+
+    // half the smallest price increment in the fixture, so these prices never collide with an existing level
+    private static final long OFF_LEVEL = 500;
+
+    @Param({"10", "100", "500"})
+    int depth;
+
+    PriceLadder bids;
+    long[] prices;
+    long size;
+    int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        MarketData snapshot = new ObjectMapper().readValue(Fixtures.read("level3Snapshot.json"), MarketData.class);
+        bids = new PriceLadder(true);
+        for (OrderItem row : snapshot.getBids()) {
+            long price = FixedPoint.toScaled(row.getPrice(), PRICE_DECIMAL_PLACES);
+            if (bids.depth() == depth && bids.levelOf(price) < 0) {
+                break;
+            }
+            bids.add(price, FixedPoint.toScaled(row.getSize(), SIZE_DECIMAL_PLACES), 1);
+        }
+        if (bids.depth() < depth) {
+            throw new IllegalStateException("Fixture only has " + bids.depth() + " bid levels");
+        }
+        prices = new long[depth];
+        for (int level = 0; level < depth; level++) {
+            prices[level] = bids.priceAt(level);
+        }
+        size = FixedPoint.toScaled(snapshot.getBids().get(0).getSize(), SIZE_DECIMAL_PLACES);
+    }
+
+    private long nextPrice() {
+        if (++cursor == prices.length) {
+            cursor = 0;
+        }
+        return prices[cursor];
+    }
+
+    /**
+     * an order opening and then leaving at a price that's already in the book.
+     */
+    @Benchmark
+    public long updateExistingLevel() {
+        long price = nextPrice();
+        bids.add(price, size, 1);
+        bids.reduce(price, size, 1);
+        return bids.getVersion();
+    }
+
+    /**
+     * a new best bid that's then cancelled - the commonest way the top of the book moves.
+     */
+    @Benchmark
+    public long insertAndRemoveBestLevel() {
+        long price = prices[0] + OFF_LEVEL;
+        bids.add(price, size, 1);
+        bids.reduce(price, size, 1);
+        return bids.getVersion();
+    }
+
+    /**
+     * a level inserted half way down the book.
+     */
+    @Benchmark
+    public long insertAndRemoveMidBookLevel() {
+        long price = prices[prices.length / 2] - OFF_LEVEL;
+        bids.add(price, size, 1);
+        bids.reduce(price, size, 1);
+        return bids.getVersion();
+    }
+
+    /**
+     * a level below the worst bid - the worst case for a sorted array.
+     */
+    @Benchmark
+    public long insertAndRemoveWorstLevel() {
+        long price = prices[prices.length - 1] - OFF_LEVEL;
+        bids.add(price, size, 1);
+        bids.reduce(price, size, 1);
+        return bids.getVersion();
+    }
+
+    @Benchmark
+    public int levelOf() {
+        return bids.levelOf(nextPrice());
+    }
+}
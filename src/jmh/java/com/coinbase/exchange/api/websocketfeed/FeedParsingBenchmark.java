@@ -0,0 +1,72 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.Fixtures;
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.exchange.Signature;
+import com.coinbase.exchange.api.websocketfeed.journal.FeedJournal;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a recorded websocket frame into something the order book can apply: binding an OrderBookMessage
+ * through {@link WebsocketFeed#getObject} against decoding a pooled FeedMessage with {@link FeedMessageDecoder}.
+ * Run with -prof gc to compare allocation per frame as well as time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedParsingBenchmark {
+
+    private static final TypeReference<OrderBookMessage> ORDER_BOOK_MESSAGE = new TypeReference<OrderBookMessage>() { };
+
+    String[] frames;
+    int cursor;
+    WebsocketFeed websocketFeed;
+    FeedMessageDecoder decoder;
+
+    @Setup
+    public void setup() {
+        List<String> lines = Fixtures.lines("websocketFeed.json");
+        frames = lines.toArray(new String[0]);
+        websocketFeed = new WebsocketFeed("wss://localhost/", false, "", "", 16, 500, 30000, new Signature(), new FeedJournal(), new JsonCodec());
+        decoder = new FeedMessageDecoder();
+    }
+
+    private String nextFrame() {
+        if (++cursor == frames.length) {
+            cursor = 0;
+        }
+        return frames[cursor];
+    }
+
+    @Benchmark
+    public OrderBookMessage getObject() {
+        return websocketFeed.getObject(nextFrame(), ORDER_BOOK_MESSAGE);
+    }
+
+    @Benchmark
+    public long decode() throws IOException {
+        FeedMessage message = decoder.decode(nextFrame());
+        long sequence = message.getSequence();
+        message.release();
+        return sequence;
+    }
+}
@@ -2,11 +2,13 @@ package com.coinbase.exchange.api.accounts;
 
 import com.coinbase.exchange.api.entity.Hold;
 import com.coinbase.exchange.api.exchange.GdaxExchange;
+import com.coinbase.exchange.api.exchange.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Created by robevansuk on 25/01/2017.
@@ -23,6 +25,7 @@ public class AccountService {
     }
 
     public static final String ACCOUNTS_ENDPOINT = "/accounts";
+    public static final int PAGE_SIZE = 100;
 
     public List<Account> getAccounts(){
         return exchange.getAsList(ACCOUNTS_ENDPOINT, new ParameterizedTypeReference<Account[]>(){});
@@ -50,6 +53,24 @@ public class AccountService {
                 limit);
     }
 
+    /**
+     * the account's whole ledger, newest entry first, fetched a page at a time as the stream is consumed.
+     */
+    public Stream<AccountHistory> streamAccountHistory(String accountId) {
+        String accountHistoryEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/ledger";
+        return exchange.stream(accountHistoryEndpoint, new ParameterizedTypeReference<AccountHistory[]>(){}, PAGE_SIZE);
+    }
+
+    /**
+     * up to a page of the account's ledger entries newer than the given entry id, newest first - or the newest
+     * page if ledgerId is null. Null if the request failed.
+     */
+    public Page<AccountHistory> getLedgerAfter(String accountId, Long ledgerId) {
+        String accountHistoryEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/ledger";
+        return exchange.getPage(accountHistoryEndpoint, new ParameterizedTypeReference<AccountHistory[]>(){},
+                Page.BEFORE, ledgerId == null ? null : String.valueOf(ledgerId), PAGE_SIZE);
+    }
+
     public List<Hold> getHolds(String accountId) {
         String holdsEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/holds";
         return exchange.getAsList(holdsEndpoint, new ParameterizedTypeReference<Hold[]>(){});
@@ -67,4 +88,8 @@ public class AccountService {
                 limit);
     }
 
+    public Stream<Hold> streamHolds(String accountId) {
+        String holdsEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/holds";
+        return exchange.stream(holdsEndpoint, new ParameterizedTypeReference<Hold[]>(){}, PAGE_SIZE);
+    }
 }
@@ -0,0 +1,69 @@
+package com.coinbase.exchange.api.accounts;
+
+import com.coinbase.exchange.api.entity.Hold;
+import com.coinbase.exchange.api.exchange.AsyncGdaxExchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.coinbase.exchange.api.accounts.AccountService.ACCOUNTS_ENDPOINT;
+
+/**
+ * {@link AccountService} over {@link AsyncGdaxExchange} - e.g. fetch every account's ledger at once rather than
+ * one after another.
+ */
+@Component
+public class AsyncAccountService {
+
+    private AsyncGdaxExchange exchange;
+
+    @Autowired
+    public AsyncAccountService(AsyncGdaxExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public CompletableFuture<List<Account>> getAccounts() {
+        return exchange.getAsList(ACCOUNTS_ENDPOINT, new ParameterizedTypeReference<Account[]>(){});
+    }
+
+    public CompletableFuture<Account> getAccount(String id) {
+        return exchange.get(ACCOUNTS_ENDPOINT + "/" + id, new ParameterizedTypeReference<Account>(){});
+    }
+
+    public CompletableFuture<List<AccountHistory>> getAccountHistory(String accountId) {
+        String accountHistoryEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/ledger";
+        return exchange.getAsList(accountHistoryEndpoint, new ParameterizedTypeReference<AccountHistory[]>(){});
+    }
+
+    public CompletableFuture<List<AccountHistory>> getPagedAccountHistory(String accountId,
+                                                                          String beforeOrAfter,
+                                                                          Integer pageNumber,
+                                                                          Integer limit) {
+        String accountHistoryEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/ledger";
+        return exchange.pagedGetAsList(accountHistoryEndpoint,
+                new ParameterizedTypeReference<AccountHistory[]>(){},
+                beforeOrAfter,
+                pageNumber,
+                limit);
+    }
+
+    public CompletableFuture<List<Hold>> getHolds(String accountId) {
+        String holdsEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/holds";
+        return exchange.getAsList(holdsEndpoint, new ParameterizedTypeReference<Hold[]>(){});
+    }
+
+    public CompletableFuture<List<Hold>> getPagedHolds(String accountId,
+                                                       String beforeOrAfter,
+                                                       Integer pageNumber,
+                                                       Integer limit) {
+        String holdsEndpoint = ACCOUNTS_ENDPOINT + "/" + accountId + "/holds";
+        return exchange.pagedGetAsList(holdsEndpoint,
+                new ParameterizedTypeReference<Hold[]>(){},
+                beforeOrAfter,
+                pageNumber,
+                limit);
+    }
+}
@@ -0,0 +1,61 @@
+package com.coinbase.exchange.api.accounts;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * One currency's balance as {@link BalanceCache} last worked it out. Amounts are longs scaled to
+ * SIZE_DECIMAL_PLACES ({@link FixedPoint}). Never changes once created - the cache replaces it instead.
+ */
+public final class Balance {
+
+    private final String currency;
+    private final long balance;
+    private final long hold;
+
+    public Balance(String currency, long balance, long hold) {
+        this.currency = currency;
+        this.balance = balance;
+        this.hold = hold;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * everything in the account, held or not.
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * reserved for open orders.
+     */
+    public long getHold() {
+        return hold;
+    }
+
+    /**
+     * what can be spent on a new order.
+     */
+    public long getAvailable() {
+        return balance - hold;
+    }
+
+    Balance withBalance(long balance) {
+        return new Balance(currency, balance, hold);
+    }
+
+    Balance withHold(long hold) {
+        return new Balance(currency, balance, hold);
+    }
+
+    @Override
+    public String toString() {
+        return currency + " " + FixedPoint.toString(getAvailable(), SIZE_DECIMAL_PLACES)
+                + " available, " + FixedPoint.toString(hold, SIZE_DECIMAL_PLACES) + " held";
+    }
+}
@@ -0,0 +1,459 @@
+package com.coinbase.exchange.api.accounts;
+
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.exchange.Page;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.orders.FillSynchroniser;
+import com.coinbase.exchange.api.orders.Order;
+import com.coinbase.exchange.api.orders.OrderTracker;
+import com.coinbase.exchange.api.orders.TrackedOrder;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SELL;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * The user's balance and hold in each currency, loaded once from /accounts and then kept up to date from events
+ * rather than by asking again:
+ * <ul>
+ *   <li>a new order seen by the {@link OrderTracker} puts its cost on hold, and the unfilled part is released
+ *   once it's done</li>
+ *   <li>each fill found by the {@link FillSynchroniser} moves the traded amounts and fee between the product's two
+ *   currencies, and releases the filled part of the order's hold</li>
+ *   <li>ledger entries - transfers in and out - are applied by {@link #syncLedgers()}, every ledgerSyncMillis once
+ *   seeded</li>
+ * </ul>
+ * Trades only come from fills for the products the FillSynchroniser has synced. For the rest - every product,
+ * when fill syncing is off - the ledger's match and fee entries move the balances instead, and the filled part of an
+ * order's hold is released as the tracker sees it fill.
+ * Each currency's {@link Balance} is an immutable value swapped into a concurrent map, so reading one never takes a
+ * lock - order entry and risk checks can test funds with {@link #hasFunds} rather than a REST round trip.
+ *
+ * Holds are only estimates: the exchange also holds the taker fee on a limit buy, and nothing is held for a market
+ * buy placed by size since its cost isn't known. {@link #seed()} starts again from /accounts to correct any drift.
+ */
+@Component
+public class BalanceCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCache.class);
+
+    private static final String MATCH_ENTRY = "match";
+    private static final String FEE_ENTRY = "fee";
+
+    public interface BalanceListener {
+        /**
+         * called with the cache locked whenever a currency's balance or hold changes - don't block.
+         */
+        void onBalance(Balance balance);
+    }
+
+    private final AccountService accountService;
+    private final OrderTracker orderTracker;
+    private final FillSynchroniser fillSynchroniser;
+    private final long ledgerSyncMillis;
+    private final ConcurrentHashMap<String, Balance> balances = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private final Map<String, OrderHold> orderHolds = new HashMap<>();
+    private final Map<String, String> accountIds = new HashMap<>();
+    private final Map<String, Long> ledgerCursors = new HashMap<>();
+
+    private volatile BalanceListener[] listeners = new BalanceListener[0];
+    private volatile boolean seeded;
+    private ScheduledExecutorService ledgerSync;
+
+    /**
+     * @param ledgerSyncMillis how often the ledgers are synced once seeded - 0 to leave it to the caller.
+     */
+    @Autowired
+    public BalanceCache(@Value("${balances.ledgerSyncMillis}") long ledgerSyncMillis,
+                        AccountService accountService,
+                        OrderTracker orderTracker,
+                        FillSynchroniser fillSynchroniser) {
+        this.ledgerSyncMillis = ledgerSyncMillis;
+        this.accountService = accountService;
+        this.orderTracker = orderTracker;
+        this.fillSynchroniser = fillSynchroniser;
+        orderTracker.addOrderListener(this::onOrderUpdate);
+        fillSynchroniser.addFillListener(this::onFill);
+    }
+
+    /**
+     * loads every balance from /accounts, replacing whatever's cached. The orders already open are already covered
+     * by the holds reported, and the ledger entries so far by the balances, so only what happens after this is
+     * applied on top.
+     *
+     * @return false if the accounts couldn't be fetched, leaving the cache as it was.
+     */
+    public boolean seed() {
+        List<Account> accounts = accountService.getAccounts();
+        if (accounts == null) {
+            log.warn("Unable to fetch the accounts to seed the balances from");
+            return false;
+        }
+        Map<String, Long> cursors = new HashMap<>();
+        for (String currency : ledgerCurrencies()) {
+            String accountId = accounts.stream()
+                    .filter(account -> currency.equals(account.getCurrency()))
+                    .map(Account::getId)
+                    .findFirst()
+                    .orElse(null);
+            if (accountId != null) {
+                cursors.put(currency, newestLedgerId(accountId));
+            }
+        }
+        synchronized (this) {
+            accountIds.clear();
+            orderHolds.clear();
+            for (Account account : accounts) {
+                accountIds.put(account.getCurrency(), account.getId());
+                publish(new Balance(account.getCurrency(), scaled(account.getBalance()), scaled(account.getHold())));
+            }
+            // replaced rather than cleared, so readers never see a currency go missing part way through
+            balances.keySet().retainAll(accountIds.keySet());
+            for (TrackedOrder order : orderTracker.getOpenOrders()) {
+                OrderHold hold = holdFor(order);
+                if (hold != null) {
+                    orderHolds.put(order.getOrderId(), hold);
+                }
+            }
+            ledgerCursors.clear();
+            ledgerCursors.putAll(cursors);
+            seeded = true;
+            if (ledgerSyncMillis > 0 && ledgerSync == null) {
+                ledgerSync = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "gdax-ledger-sync");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                ledgerSync.scheduleWithFixedDelay(this::syncLedgersQuietly, ledgerSyncMillis, ledgerSyncMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        log.info("Seeded {} balances", accounts.size());
+        return true;
+    }
+
+    private void syncLedgersQuietly() {
+        try {
+            syncLedgers();
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule
+            log.error("Unable to sync the ledgers", e);
+        }
+    }
+
+    private long newestLedgerId(String accountId) {
+        Page<AccountHistory> page = accountService.getLedgerAfter(accountId, null);
+        long newest = 0;
+        if (page != null) {
+            for (AccountHistory entry : page.getItems()) {
+                if (entry.getId() != null) {
+                    newest = Math.max(newest, entry.getId());
+                }
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * the currencies of the products whose orders are tracked - the only accounts whose ledgers are followed.
+     */
+    private Set<String> ledgerCurrencies() {
+        Set<String> currencies = new LinkedHashSet<>();
+        for (String productId : orderTracker.getProductIds()) {
+            currencies.addAll(Arrays.asList(productId.split("-")));
+        }
+        return currencies;
+    }
+
+    /**
+     * applies the transfers and other non-trading entries added to the followed ledgers since the last sync.
+     */
+    public void syncLedgers() {
+        Map<String, Long> cursors;
+        Map<String, String> ids;
+        synchronized (this) {
+            cursors = new HashMap<>(ledgerCursors);
+            ids = new HashMap<>(accountIds);
+        }
+        for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+            String currency = cursor.getKey();
+            Page<AccountHistory> page = accountService.getLedgerAfter(ids.get(currency), cursor.getValue());
+            if (page == null) {
+                log.warn("Unable to fetch the {} ledger after entry {}", currency, cursor.getValue());
+                continue;
+            }
+            page.getItems().stream()
+                    .filter(entry -> entry.getId() != null)
+                    .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                    .forEach(entry -> onLedgerEntry(currency, entry));
+        }
+    }
+
+    /**
+     * applies a ledger entry, once - matches and fees are skipped for products whose fills already account for them.
+     */
+    public synchronized void onLedgerEntry(String currency, AccountHistory entry) {
+        Long cursor = ledgerCursors.get(currency);
+        if (!seeded || entry.getId() == null || entry.getAmount() == null
+                || cursor != null && entry.getId() <= cursor) {
+            return;
+        }
+        ledgerCursors.put(currency, (long) entry.getId());
+        if ((MATCH_ENTRY.equals(entry.getType()) || FEE_ENTRY.equals(entry.getType()))
+                && isTradedFromFills(currency, entry)) {
+            return;
+        }
+        Balance balance = balance(currency);
+        publish(balance.withBalance(balance.getBalance() + scaled(entry.getAmount())));
+    }
+
+    private synchronized void onOrderUpdate(TrackedOrder previous, TrackedOrder order) {
+        if (!seeded) {
+            return;
+        }
+        String orderId = order.getOrderId();
+        OrderHold hold = orderHolds.get(orderId);
+        if (hold == null && previous == null && !order.getState().isDone()) {
+            hold = holdFor(order);
+            if (hold != null) {
+                orderHolds.put(orderId, hold);
+                adjustHold(hold.currency, hold.remaining);
+            }
+        } else if (hold != null && !isTradedFromFills(order.getProductId())) {
+            // no fills coming, so release what filled as the tracker sees it - and everything once done
+            long filled = order.getFilledSize() - (previous == null ? 0 : previous.getFilledSize());
+            hold.done = order.getState().isDone();
+            release(orderId, hold, hold.done ? hold.remaining : hold.amountFor(filled));
+        } else if (hold != null && order.getState().isDone() && !hold.done) {
+            // what filled is released as the fills come in, the rest now
+            hold.done = true;
+            release(orderId, hold, hold.amountFor(order.getSize() - order.getFilledSize()));
+        }
+    }
+
+    /**
+     * whether the ledger entry's product is traded from fills - or if it doesn't say which, any of the currency's.
+     */
+    private boolean isTradedFromFills(String currency, AccountHistory entry) {
+        if (entry.getDetail() != null && entry.getDetail().getProduct_id() != null) {
+            return isTradedFromFills(entry.getDetail().getProduct_id());
+        }
+        return orderTracker.getProductIds().stream()
+                .anyMatch(productId -> Arrays.asList(productId.split("-")).contains(currency)
+                        && isTradedFromFills(productId));
+    }
+
+    /**
+     * whether the product's trades reach the cache as fills, rather than through the ledger.
+     */
+    private boolean isTradedFromFills(String productId) {
+        return productId != null && fillSynchroniser.getLastTradeId(productId) != null;
+    }
+
+    private synchronized void onFill(Fill fill) {
+        if (!seeded || fill.getProduct_id() == null || fill.getSize() == null || fill.getPrice() == null) {
+            return;
+        }
+        String[] currencies = fill.getProduct_id().split("-");
+        long size = scaled(fill.getSize());
+        long notional = scaled(fill.getPrice().multiply(fill.getSize()));
+        long fee = fill.getFee() == null ? 0 : scaled(fill.getFee());
+        if (BUY.equals(fill.getSide())) {
+            adjustBalance(currencies[0], size);
+            adjustBalance(currencies[1], -notional - fee);
+        } else if (SELL.equals(fill.getSide())) {
+            adjustBalance(currencies[0], -size);
+            adjustBalance(currencies[1], notional - fee);
+        }
+        OrderHold hold = orderHolds.get(fill.getOrder_id());
+        if (hold != null) {
+            release(fill.getOrder_id(), hold, hold.amountFor(size));
+        }
+    }
+
+    private void release(String orderId, OrderHold hold, long amount) {
+        long released = Math.min(Math.max(0, amount), hold.remaining);
+        hold.remaining -= released;
+        adjustHold(hold.currency, -released);
+        if (hold.done && hold.remaining == 0) {
+            orderHolds.remove(orderId);
+        }
+    }
+
+    /**
+     * what the exchange holds for the unfilled part of an order - the size of a sell, or price * size of a buy.
+     * Null if it can't be worked out.
+     */
+    private static OrderHold holdFor(TrackedOrder order) {
+        if (order.getProductId() == null || order.getSize() == FeedMessage.ABSENT) {
+            return null;
+        }
+        String[] currencies = order.getProductId().split("-");
+        long unfilled = order.getSize() - order.getFilledSize();
+        if (SELL.equals(order.getSide())) {
+            return new OrderHold(currencies[0], FeedMessage.ABSENT, unfilled);
+        }
+        if (BUY.equals(order.getSide()) && order.getPrice() != FeedMessage.ABSENT) {
+            return new OrderHold(currencies[1], order.getPrice(), notional(order.getPrice(), unfilled));
+        }
+        return null;
+    }
+
+    private void adjustBalance(String currency, long amount) {
+        Balance balance = balance(currency);
+        publish(balance.withBalance(balance.getBalance() + amount));
+    }
+
+    private void adjustHold(String currency, long amount) {
+        Balance balance = balance(currency);
+        publish(balance.withHold(Math.max(0, balance.getHold() + amount)));
+    }
+
+    private Balance balance(String currency) {
+        Balance balance = balances.get(currency);
+        return balance == null ? new Balance(currency, 0, 0) : balance;
+    }
+
+    private void publish(Balance balance) {
+        balances.put(balance.getCurrency(), balance);
+        for (BalanceListener listener : listeners) {
+            try {
+                listener.onBalance(balance);
+            } catch (RuntimeException e) {
+                log.error("Balance listener failed for {}", balance.getCurrency(), e);
+            }
+        }
+    }
+
+    private static long scaled(BigDecimal amount) {
+        return amount == null ? 0 : FixedPoint.toScaled(amount, SIZE_DECIMAL_PLACES);
+    }
+
+    /**
+     * price * size, scaled to SIZE_DECIMAL_PLACES.
+     */
+    static long notional(long price, long size) {
+        return FixedPoint.toScaled(FixedPoint.toBigDecimal(price, PRICE_DECIMAL_PLACES)
+                .multiply(FixedPoint.toBigDecimal(size, SIZE_DECIMAL_PLACES)), SIZE_DECIMAL_PLACES);
+    }
+
+    public synchronized void addBalanceListener(BalanceListener listener) {
+        BalanceListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeBalanceListener(BalanceListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(BalanceListener[]::new);
+    }
+
+    /**
+     * the currency's balance, or null if there's no account in it. Lock free.
+     */
+    public Balance getBalance(String currency) {
+        return balances.get(currency);
+    }
+
+    /**
+     * what's available to spend in the currency, scaled to SIZE_DECIMAL_PLACES - 0 if there's no account in it.
+     * Lock free.
+     */
+    public long getAvailable(String currency) {
+        Balance balance = balances.get(currency);
+        return balance == null ? 0 : balance.getAvailable();
+    }
+
+    public long getHold(String currency) {
+        Balance balance = balances.get(currency);
+        return balance == null ? 0 : balance.getHold();
+    }
+
+    /**
+     * whether there's enough available for an order on the product - the size of a sell, or price * size of a buy.
+     * Price and size are scaled as in the order book; for a market buy pass the price it's expected to fill at, or
+     * {@link FeedMessage#ABSENT} if there isn't one, which always passes.
+     */
+    public boolean hasFunds(String productId, String side, long price, long size) {
+        String[] currencies = productId.split("-");
+        if (SELL.equals(side)) {
+            return getAvailable(currencies[0]) >= size;
+        }
+        return price == FeedMessage.ABSENT || getAvailable(currencies[1]) >= notional(price, size);
+    }
+
+    /**
+     * whether there's enough available to place the order - its funds, if given, or as above. Anything with no
+     * side is taken to be a buy. Passes if the cache hasn't been seeded or the order's amounts can't be read,
+     * leaving the exchange to reject it.
+     */
+    public boolean hasFunds(Order order) {
+        if (!seeded || order.getProduct_id() == null) {
+            return true;
+        }
+        try {
+            if (!SELL.equals(order.getSide()) && !isBlank(order.getFunds())) {
+                return getAvailable(order.getProduct_id().split("-")[1])
+                        >= FixedPoint.parse(order.getFunds(), SIZE_DECIMAL_PLACES);
+            }
+            if (isBlank(order.getSize())) {
+                return true;
+            }
+            long size = FixedPoint.parse(order.getSize(), SIZE_DECIMAL_PLACES);
+            long price = isBlank(order.getPrice()) ? FeedMessage.ABSENT : FixedPoint.parse(order.getPrice(), PRICE_DECIMAL_PLACES);
+            return hasFunds(order.getProduct_id(), order.getSide(), price, size);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * what's still held for one order.
+     */
+    private static final class OrderHold {
+
+        final String currency;
+        // the limit price of a buy, so the hold for part of it can be worked out - ABSENT for a sell
+        final long price;
+        long remaining;
+        boolean done;
+
+        OrderHold(String currency, long price, long remaining) {
+            this.currency = currency;
+            this.price = price;
+            this.remaining = remaining;
+        }
+
+        long amountFor(long size) {
+            return price == FeedMessage.ABSENT ? size : notional(price, size);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.coinbase.exchange.api.config;
 
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -10,8 +14,36 @@ import org.springframework.web.client.RestTemplate;
 @SpringBootConfiguration
 public class GdaxConfiguration {
 
+    @Bean(destroyMethod = "close")
+    public HttpTransport httpTransport(@Value("${gdax.api.http.maxConnections}") int maxConnections,
+                                       @Value("${gdax.api.http.maxConnectionsPerHost}") int maxConnectionsPerHost,
+                                       @Value("${gdax.api.http.keepAliveMillis}") long keepAliveMillis,
+                                       @Value("${gdax.api.http.idleEvictionMillis}") long idleEvictionMillis,
+                                       @Value("${gdax.api.http.connectTimeoutMillis}") int connectTimeoutMillis,
+                                       @Value("${gdax.api.http.readTimeoutMillis}") int readTimeoutMillis,
+                                       @Value("${gdax.api.http.compressResponses}") boolean compressResponses,
+                                       @Value("${gdax.api.http.compressRequests}") boolean compressRequests) {
+        return new HttpTransport(maxConnections,
+                maxConnectionsPerHost,
+                keepAliveMillis,
+                idleEvictionMillis,
+                connectTimeoutMillis,
+                readTimeoutMillis,
+                compressResponses,
+                compressRequests);
+    }
+
+    /**
+     * responses are read with the shared codec's ObjectMapper.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpTransport httpTransport, JsonCodec jsonCodec) {
+        RestTemplate restTemplate = new RestTemplate(httpTransport.requestFactory());
+        for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                ((MappingJackson2HttpMessageConverter) converter).setObjectMapper(jsonCodec.getObjectMapper());
+            }
+        }
+        return restTemplate;
     }
 }
@@ -0,0 +1,148 @@
+package com.coinbase.exchange.api.config;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The pooled, keep-alive HTTP client behind the RestTemplate, so bursts of REST calls reuse open connections rather
+ * than paying a TCP and TLS handshake each.
+ *
+ * Connections are kept alive for as long as the server allows, capped at keepAliveMillis, and a background thread
+ * closes any that have sat idle for idleEvictionMillis. Responses are gzip'd when compressResponses is set;
+ * request bodies only when compressRequests is, since not every endpoint accepts them.
+ *
+ * Counts every request executed and every connection opened, so connection reuse can be watched.
+ */
+public class HttpTransport implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+    private final LongAdder requestsExecuted = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public HttpTransport(int maxConnections,
+                         int maxConnectionsPerHost,
+                         long keepAliveMillis,
+                         long idleEvictionMillis,
+                         int connectTimeoutMillis,
+                         int readTimeoutMillis,
+                         boolean compressResponses,
+                         boolean compressRequests) {
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            connectionsOpened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+        connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                connectionFactory);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+
+        HttpRequestInterceptor countRequests = (request, context) -> requestsExecuted.increment();
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMillis)
+                        .setConnectionRequestTimeout(connectTimeoutMillis)
+                        .setSocketTimeout(readTimeoutMillis)
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionMillis, TimeUnit.MILLISECONDS)
+                .addInterceptorFirst(countRequests);
+        if (!compressResponses) {
+            builder.disableContentCompression();
+        }
+        if (compressRequests) {
+            HttpRequestInterceptor compressBody = (request, context) -> {
+                if (request instanceof HttpEntityEnclosingRequest && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                    HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+                    HttpEntity entity = entityRequest.getEntity();
+                    if (entity != null && entity.getContentLength() != 0) {
+                        entityRequest.setEntity(new GzipCompressingEntity(entity));
+                    }
+                }
+            };
+            builder.addInterceptorFirst(compressBody);
+        }
+        httpClient = builder.build();
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    public long getRequestsExecuted() {
+        return requestsExecuted.sum();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * requests that went out over a connection that was already open.
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, getRequestsExecuted() - getConnectionsOpened());
+    }
+
+    /**
+     * connections leased, idle in the pool, and requests waiting for one, across every host.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.info("Closing HTTP transport: {}", this);
+        httpClient.close();
+    }
+
+    @Override
+    public String toString() {
+        PoolStats pool = getPoolStats();
+        return "HttpTransport{requestsExecuted=" + getRequestsExecuted()
+                + ", connectionsOpened=" + getConnectionsOpened()
+                + ", connectionsReused=" + getConnectionsReused()
+                + ", leased=" + pool.getLeased()
+                + ", available=" + pool.getAvailable()
+                + ", pending=" + pool.getPending()
+                + "}";
+    }
+}
@@ -8,6 +8,7 @@ import java.math.BigDecimal;
 public class Fill {
     private Integer trade_id;
     private String product_id;
+    private BigDecimal price;
     private BigDecimal size;
     private String order_id;
     private String created_at;
@@ -64,6 +65,14 @@ public class Fill {
         this.order_id = order_id;
     }
 
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
     public BigDecimal getSize() {
         return size;
     }
@@ -0,0 +1,19 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking twin of {@link GdaxExchange}. Each call returns as soon as the request is queued and the future
+ * completes on the HTTP client's threads - with null where GdaxExchange would log a 4xx and return null, and
+ * exceptionally for anything else that goes wrong.
+ */
+public interface AsyncGdaxExchange {
+    public <T> CompletableFuture<T> get(String endpoint, ParameterizedTypeReference<T> type);
+    public <T> CompletableFuture<List<T>> getAsList(String endpoint, ParameterizedTypeReference<T[]> type);
+    public <T> CompletableFuture<List<T>> pagedGetAsList(String endpoint, ParameterizedTypeReference<T[]> responseType, String beforeOrAfter, Integer pageNumber, Integer limit);
+    public <T, R> CompletableFuture<T> post(String endpoint, ParameterizedTypeReference<T> type, R jsonObject);
+    public <T> CompletableFuture<T> delete(String endpoint, ParameterizedTypeReference<T> type);
+}
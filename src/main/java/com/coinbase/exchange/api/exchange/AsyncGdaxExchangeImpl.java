@@ -0,0 +1,296 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends requests with the JDK's non-blocking {@link HttpClient}, so waiting on a response doesn't hold a thread.
+ *
+ * Requests wait for the same {@link RateLimiter} as {@link GdaxExchangeImpl} - on a thread of their own, not the
+ * caller's - and a 429 drains it. POSTs and DELETEs invalidate the {@link ResponseCache} before and after they're
+ * sent, as they do there.
+ *
+ * At most maxInFlight requests are on the wire at once. The rest wait in a queue per {@link RequestLane}, unsigned -
+ * each request is signed as it's sent, so a request that queued for a while still goes out with a fresh timestamp.
+ * Headers and signing come from {@link GdaxExchange#securityHeaders}, and responses are read with the shared
+ * {@link JsonCodec}.
+ */
+@Component
+public class AsyncGdaxExchangeImpl implements AsyncGdaxExchange {
+
+    final static Logger log = LoggerFactory.getLogger(AsyncGdaxExchangeImpl.class.getName());
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    // a thread per request waiting on the rate limit, so a cancel is never stuck behind reads for one
+    private static final ExecutorService rateLimitWaiter = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "gdax-async-rate-limit-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final GdaxExchange exchange;
+    private final HttpClient httpClient;
+    private final JsonCodec jsonCodec;
+    private final RateLimiter rateLimiter;
+    private final ResponseCache responseCache;
+    private final Duration readTimeout;
+    private final Semaphore inFlight;
+    private final List<Queue<Runnable>> waiting;
+
+    @Autowired
+    public AsyncGdaxExchangeImpl(GdaxExchange exchange,
+                                 JsonCodec jsonCodec,
+                                 RateLimiter rateLimiter,
+                                 ResponseCache responseCache,
+                                 @Value("${gdax.api.maxInFlight}") int maxInFlight,
+                                 @Value("${gdax.api.http.connectTimeoutMillis}") int connectTimeoutMillis,
+                                 @Value("${gdax.api.http.readTimeoutMillis}") int readTimeoutMillis) {
+        this(exchange, jsonCodec, rateLimiter, responseCache,
+                HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeoutMillis)).build(),
+                maxInFlight, readTimeoutMillis);
+    }
+
+    /**
+     * @param readTimeoutMillis how long to wait for each response before failing it with an HttpTimeoutException.
+     */
+    public AsyncGdaxExchangeImpl(GdaxExchange exchange, JsonCodec jsonCodec, RateLimiter rateLimiter,
+                                 ResponseCache responseCache, HttpClient httpClient, int maxInFlight,
+                                 int readTimeoutMillis) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1 but was " + maxInFlight);
+        }
+        this.exchange = exchange;
+        this.httpClient = httpClient;
+        this.jsonCodec = jsonCodec;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.waiting = new ArrayList<>(RequestLane.values().length);
+        for (int lane = 0; lane < RequestLane.values().length; lane++) {
+            waiting.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        return send(resourcePath, "GET", "", responseType);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getAsList(String resourcePath, ParameterizedTypeReference<T[]> responseType) {
+        return get(resourcePath, responseType).thenApply(AsyncGdaxExchangeImpl::asList);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> pagedGetAsList(String resourcePath,
+                                                         ParameterizedTypeReference<T[]> responseType,
+                                                         String beforeOrAfter,
+                                                         Integer pageNumber,
+                                                         Integer limit) {
+        resourcePath += "?" + beforeOrAfter + "=" + pageNumber + "&limit=" + limit;
+        return getAsList(resourcePath, responseType);
+    }
+
+    @Override
+    public <T, R> CompletableFuture<T> post(String resourcePath, ParameterizedTypeReference<T> responseType, R jsonObj) {
+        // a string rather than the codec's reusable buffer - the body's sent long after this thread moves on
+        return send(resourcePath, "POST", jsonCodec.writeString(jsonObj), responseType);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> delete(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        return send(resourcePath, "DELETE", "", responseType);
+    }
+
+    /**
+     * how many requests are waiting for a slot, having got past the rate limit.
+     */
+    public int getQueuedRequests() {
+        int queued = 0;
+        for (Queue<Runnable> lane : waiting) {
+            queued += lane.size();
+        }
+        return queued;
+    }
+
+    private <T> CompletableFuture<T> send(String resourcePath, String method, String jsonBody,
+                                          ParameterizedTypeReference<T> responseType) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        boolean mutates = !"GET".equals(method);
+        Queue<Runnable> lane = waiting.get(RequestLane.of(method).ordinal());
+        Runnable sendRequest = () -> {
+            if (mutates) {
+                responseCache.invalidate(resourcePath);
+            }
+            CompletableFuture<HttpResponse<byte[]>> response;
+            try {
+                response = httpClient.sendAsync(request(resourcePath, method, jsonBody),
+                        HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException ex) {
+                response = CompletableFuture.failedFuture(ex);
+            }
+            response.thenApply(bind(resourcePath, method, responseType))
+                    .whenComplete((body, failure) -> {
+                        if (mutates) {
+                            // a GET made while this was in flight may have cached what the exchange had before it
+                            responseCache.invalidate(resourcePath);
+                        }
+                        // free the slot before completing, so whatever the caller chains can be sent straight away
+                        inFlight.release();
+                        sendWaiting();
+                        if (failure != null) {
+                            result.completeExceptionally(failure);
+                        } else {
+                            result.complete(body);
+                        }
+                    });
+        };
+        if (!rateLimiter.isEnabled()) {
+            lane.add(sendRequest);
+            sendWaiting();
+            return result;
+        }
+        rateLimitWaiter.execute(() -> {
+            if (awaitRateLimit(resourcePath, method)) {
+                lane.add(sendRequest);
+                sendWaiting();
+            } else {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    private void sendWaiting() {
+        while (isWaiting() && inFlight.tryAcquire()) {
+            Runnable next = pollWaiting();
+            if (next == null) {
+                inFlight.release();
+            } else {
+                next.run();
+            }
+        }
+    }
+
+    private boolean isWaiting() {
+        for (Queue<Runnable> lane : waiting) {
+            if (!lane.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the next request in the highest lane with one waiting.
+     */
+    private Runnable pollWaiting() {
+        for (Queue<Runnable> lane : waiting) {
+            Runnable next = lane.poll();
+            if (next != null) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the thread was interrupted while waiting, in which case the request isn't sent.
+     */
+    private boolean awaitRateLimit(String resourcePath, String method) {
+        try {
+            long waitedNanos = rateLimiter.acquire(resourcePath, method);
+            if (waitedNanos > 0 && log.isDebugEnabled()) {
+                log.debug("{} {} waited {}us for the rate limit", method, resourcePath, waitedNanos / 1000);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.error(method + " request for '" + resourcePath + "' interrupted waiting for the rate limit");
+            return false;
+        }
+    }
+
+    private HttpRequest request(String resourcePath, String method, String jsonBody) {
+        HttpHeaders headers = exchange.securityHeaders(resourcePath, method, jsonBody).getHeaders();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(exchange.getBaseUrl() + resourcePath))
+                .timeout(readTimeout)
+                .method(method, jsonBody.isEmpty()
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                request.header(header.getKey(), value);
+            }
+        }
+        return request.build();
+    }
+
+    private <T> Function<HttpResponse<byte[]>, T> bind(String resourcePath, String method,
+                                                       ParameterizedTypeReference<T> responseType) {
+        Type type = responseType.getType();
+        return response -> {
+            int status = response.statusCode();
+            if (status >= 400 && status < 500) {
+                if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    rateLimiter.rateLimited(resourcePath);
+                }
+                log.error(method + " request Failed for '" + resourcePath + "': "
+                        + new String(response.body(), StandardCharsets.UTF_8));
+                return null;
+            }
+            if (status < 200 || status >= 300) {
+                throw new RestClientResponseException(method + " request Failed for '" + resourcePath + "'",
+                        status, "", null, response.body(), StandardCharsets.UTF_8);
+            }
+            if (type == String.class) {
+                // T is String
+                @SuppressWarnings("unchecked")
+                T body = (T) new String(response.body(), StandardCharsets.UTF_8);
+                return body;
+            }
+            if (response.body().length == 0) {
+                return null;
+            }
+            try {
+                return jsonCodec.read(response.body(), type);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+    private static <T> List<T> asList(T[] result) {
+        return result == null ? Arrays.asList() : Arrays.asList(result);
+    }
+}
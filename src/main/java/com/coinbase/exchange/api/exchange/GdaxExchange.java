@@ -5,11 +5,13 @@ package com.coinbase.exchange.api.exchange;
 
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.web.client.ResponseExtractor;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface GdaxExchange {
     /**
@@ -22,9 +24,13 @@ public interface GdaxExchange {
     public String getBaseUrl();
     public <R> HttpEntity<String> securityHeaders(String endpoint, String method, String body);
     public <T> T get(String endpoint, ParameterizedTypeReference<T> type);
+    public <T> T get(String endpoint, ResponseExtractor<T> responseExtractor);
+    public <T> T getOrThrow(String endpoint, ParameterizedTypeReference<T> type);
     public <T> T pagedGet(String endpoint, ParameterizedTypeReference<T> responseType, String beforeOrAfter, Integer pageNumber, Integer limit);
     public <T> List<T> getAsList(String endpoint, ParameterizedTypeReference<T[]> type);
     public <T> List<T> pagedGetAsList(String endpoint, ParameterizedTypeReference<T[]> responseType, String beforeOrAfter, Integer pageNumber, Integer limit);
+    public <T> Page<T> getPage(String endpoint, ParameterizedTypeReference<T[]> responseType, String beforeOrAfter, String cursor, Integer limit);
+    public <T> Stream<T> stream(String endpoint, ParameterizedTypeReference<T[]> responseType, Integer limit);
     public <T, R> T post(String endpoint, ParameterizedTypeReference<T> type, R jsonObject);
     public <T> T delete(String endpoint, ParameterizedTypeReference<T> type);
 }
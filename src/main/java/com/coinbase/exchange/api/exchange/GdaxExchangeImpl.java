@@ -1,6 +1,5 @@
 package com.coinbase.exchange.api.exchange;
 
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,14 +8,19 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpMethod.GET;
 
@@ -36,21 +40,43 @@ public class GdaxExchangeImpl implements GdaxExchange {
 
     RestTemplate restTemplate;
 
+    RateLimiter rateLimiter;
+
+    ResponseCache responseCache;
+
+    JsonCodec jsonCodec;
+
     @Autowired
     public GdaxExchangeImpl(@Value("${gdax.key}") String publicKey,
                             @Value("${gdax.passphrase}") String passphrase,
                             @Value("${gdax.api.baseUrl}") String baseUrl,
                             Signature signature,
-                            RestTemplate restTemplate) {
+                            RestTemplate restTemplate,
+                            RateLimiter rateLimiter,
+                            ResponseCache responseCache,
+                            JsonCodec jsonCodec) {
         this.publicKey = publicKey;
         this.passphrase = passphrase;
         this.baseUrl = baseUrl;
         this.signature = signature;
         this.restTemplate = restTemplate;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
+        this.jsonCodec = jsonCodec;
     }
 
+    /**
+     * served from the {@link ResponseCache} where it can be.
+     */
     @Override
     public <T> T get(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        return responseCache.get(resourcePath, responseType.getType(), () -> fetch(resourcePath, responseType));
+    }
+
+    private <T> T fetch(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        if (!awaitRateLimit(resourcePath, "GET")) {
+            return null;
+        }
         try {
             ResponseEntity<T> responseEntity = restTemplate.exchange(getBaseUrl() + resourcePath,
                     GET,
@@ -60,6 +86,52 @@ public class GdaxExchangeImpl implements GdaxExchange {
                     responseType);
             return responseEntity.getBody();
         } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
+            log.error("GET request Failed for '" + resourcePath + "': " + ex.getResponseBodyAsString());
+        }
+        return null;
+    }
+
+    /**
+     * like {@link #get(String, ParameterizedTypeReference)}, but throws rather than returning null when the request
+     * fails, so a 404 can be told apart from a request that got no answer. Never cached.
+     *
+     * @throws HttpClientErrorException for a 4xx - {@link HttpClientErrorException.NotFound} for a 404.
+     * @throws RestClientException if the request couldn't be sent, got no answer or was interrupted.
+     */
+    @Override
+    public <T> T getOrThrow(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        if (!awaitRateLimit(resourcePath, "GET")) {
+            throw new RestClientException("GET request for '" + resourcePath + "' interrupted waiting for the rate limit");
+        }
+        try {
+            return restTemplate.exchange(getBaseUrl() + resourcePath,
+                    GET,
+                    securityHeaders(resourcePath, "GET", ""),
+                    responseType).getBody();
+        } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * hands the response body to the extractor as a stream rather than binding it, for responses too large to
+     * want in memory twice.
+     */
+    @Override
+    public <T> T get(String resourcePath, ResponseExtractor<T> responseExtractor) {
+        if (!awaitRateLimit(resourcePath, "GET")) {
+            return null;
+        }
+        HttpHeaders headers = securityHeaders(resourcePath, "GET", "").getHeaders();
+        try {
+            return restTemplate.execute(getBaseUrl() + resourcePath,
+                    GET,
+                    request -> request.getHeaders().putAll(headers),
+                    responseExtractor);
+        } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
             log.error("GET request Failed for '" + resourcePath + "': " + ex.getResponseBodyAsString());
         }
         return null;
@@ -92,8 +164,55 @@ public class GdaxExchangeImpl implements GdaxExchange {
         return result == null ? Arrays.asList() : Arrays.asList(result);
     }
 
+    /**
+     * fetches one page along with the CB-BEFORE/CB-AFTER cursors for the pages either side of it. A null cursor
+     * fetches the first (newest) page.
+     */
+    @Override
+    public <T> Page<T> getPage(String resourcePath,
+                               ParameterizedTypeReference<T[]> responseType,
+                               String beforeOrAfter,
+                               String cursor,
+                               Integer limit) {
+        resourcePath += (resourcePath.contains("?") ? "&" : "?") + "limit=" + limit;
+        if (cursor != null) {
+            resourcePath += "&" + beforeOrAfter + "=" + cursor;
+        }
+        if (!awaitRateLimit(resourcePath, "GET")) {
+            return null;
+        }
+        try {
+            ResponseEntity<T[]> responseEntity = restTemplate.exchange(getBaseUrl() + resourcePath,
+                    GET,
+                    securityHeaders(resourcePath, "GET", ""),
+                    responseType);
+            T[] result = responseEntity.getBody();
+            return new Page<>(result == null ? Arrays.asList() : Arrays.asList(result),
+                    responseEntity.getHeaders().getFirst(Page.BEFORE_HEADER),
+                    responseEntity.getHeaders().getFirst(Page.AFTER_HEADER));
+        } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
+            log.error("GET request Failed for '" + resourcePath + "': " + ex.getResponseBodyAsString());
+        }
+        return null;
+    }
+
+    /**
+     * every item in a paginated list, newest first, fetched a page at a time as the stream is consumed.
+     * See {@link PageIterator}.
+     */
+    @Override
+    public <T> Stream<T> stream(String resourcePath, ParameterizedTypeReference<T[]> responseType, Integer limit) {
+        return PageIterator.stream(after -> getPage(resourcePath, responseType, Page.AFTER, after, limit));
+    }
+
     @Override
     public <T> T delete(String resourcePath, ParameterizedTypeReference<T> responseType) {
+        if (!awaitRateLimit(resourcePath, "DELETE")) {
+            return null;
+        }
+        // whether or not it succeeds the request may have changed something, so nothing cached can be trusted
+        responseCache.invalidate(resourcePath);
         try {
             ResponseEntity<T> response = restTemplate.exchange(getBaseUrl() + resourcePath,
                 HttpMethod.DELETE,
@@ -101,28 +220,75 @@ public class GdaxExchangeImpl implements GdaxExchange {
                 responseType);
             return response.getBody();
         } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
             log.error("DELETE request Failed for '" + resourcePath + "': " + ex.getResponseBodyAsString());
+        } finally {
+            // a GET made while this was in flight may have cached what the exchange had before it
+            responseCache.invalidate(resourcePath);
         }
         return null;
     }
 
     @Override
     public <T, R> T post(String resourcePath,  ParameterizedTypeReference<T> responseType, R jsonObj) {
-        Gson gson = new Gson();
-        String jsonBody = gson.toJson(jsonObj);
-
+        if (!awaitRateLimit(resourcePath, "POST")) {
+            return null;
+        }
+        responseCache.invalidate(resourcePath);
+        // serialized after the wait so the body is still in this thread's buffer - signed and sent from there
+        JsonBody jsonBody = jsonCodec.write(jsonObj);
+        HttpHeaders headers = securityHeaders(resourcePath, "POST", jsonBody);
         try {
-            ResponseEntity<T> response = restTemplate.exchange(getBaseUrl() + resourcePath,
+            ResponseEntity<T> response = restTemplate.execute(getBaseUrl() + resourcePath,
                     HttpMethod.POST,
-                    securityHeaders(resourcePath, "POST", jsonBody),
-                    responseType);
+                    request -> {
+                        request.getHeaders().putAll(headers);
+                        jsonBody.writeTo(request.getBody());
+                    },
+                    restTemplate.responseEntityExtractor(responseType.getType()));
             return response.getBody();
         } catch (HttpClientErrorException ex) {
+            onClientError(resourcePath, ex);
             log.error("POST request Failed for '" + resourcePath + "': " + ex.getResponseBodyAsString());
+        } finally {
+            responseCache.invalidate(resourcePath);
         }
         return null;
     }
 
+    /**
+     * waits for the rate limiter. Cancels jump ahead of new orders, which jump ahead of reads.
+     *
+     * @return false if the thread was interrupted while waiting, in which case the request isn't sent.
+     */
+    private boolean awaitRateLimit(String resourcePath, String method) {
+        try {
+            long waitedNanos = rateLimiter.acquire(resourcePath, method);
+            if (waitedNanos > 0 && log.isDebugEnabled()) {
+                log.debug("{} {} waited {}us for the rate limit", method, resourcePath, waitedNanos / 1000);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.error(method + " request for '" + resourcePath + "' interrupted waiting for the rate limit");
+            return false;
+        }
+    }
+
+    private void onClientError(String resourcePath, HttpClientErrorException ex) {
+        if (ex.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+            rateLimiter.rateLimited(resourcePath);
+        }
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     @Override
     public String getBaseUrl() {
         return baseUrl;
@@ -130,26 +296,39 @@ public class GdaxExchangeImpl implements GdaxExchange {
 
     @Override
     public HttpEntity<String> securityHeaders(String endpoint, String method, String jsonBody) {
-        HttpHeaders headers = new HttpHeaders();
-
         String timestamp = Instant.now().getEpochSecond() + "";
         String resource = endpoint.replace(getBaseUrl(), "");
+        HttpHeaders headers = signedHeaders(timestamp, () -> signature.generate(resource, method, jsonBody, timestamp));
+        if (log.isDebugEnabled()) {
+            curlRequest(method, jsonBody, headers, resource);
+        }
+        return new HttpEntity<>(jsonBody, headers);
+    }
 
+    private HttpHeaders securityHeaders(String resource, String method, JsonBody jsonBody) {
+        String timestamp = Instant.now().getEpochSecond() + "";
+        HttpHeaders headers = signedHeaders(timestamp,
+                () -> signature.generate(resource, method, jsonBody.array(), 0, jsonBody.length(), timestamp));
+        if (log.isDebugEnabled()) {
+            curlRequest(method, jsonBody.toString(), headers, resource);
+        }
+        return headers;
+    }
+
+    private HttpHeaders signedHeaders(String timestamp, Supplier<String> sign) {
+        HttpHeaders headers = new HttpHeaders();
         headers.add("accept", "application/json");
         headers.add("content-type", "application/json");
         headers.add("CB-ACCESS-KEY", publicKey);
         try {
-            headers.add("CB-ACCESS-SIGN", signature.generate(resource, method, jsonBody, timestamp));
+            headers.add("CB-ACCESS-SIGN", sign.get());
         } catch (RuntimeException ex) {
             ex.printStackTrace();
             System.exit(1); // you didn't set your api key/secret/passphrase variables correctly.
         }
         headers.add("CB-ACCESS-TIMESTAMP", timestamp);
         headers.add("CB-ACCESS-PASSPHRASE", passphrase);
-
-        curlRequest(method, jsonBody, headers, resource);
-
-        return new HttpEntity<>(jsonBody, headers);
+        return headers;
     }
 
     private void curlRequest(String method, String jsonBody, HttpHeaders headers, String resource) {
@@ -0,0 +1,35 @@
+package com.coinbase.exchange.api.exchange;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A request body serialized by {@link JsonCodec}, in a buffer the codec reuses for the next body written on the same
+ * thread. The signer and the HTTP request both read the bytes in place, so they must be done with before then.
+ */
+public final class JsonBody extends ByteArrayOutputStream {
+
+    JsonBody() {
+        super(512);
+    }
+
+    /**
+     * the backing array - only the first {@link #length()} bytes are the body.
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    public int length() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+}
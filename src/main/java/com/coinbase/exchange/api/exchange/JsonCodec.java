@@ -0,0 +1,101 @@
+package com.coinbase.exchange.api.exchange;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one place JSON is read and written - REST requests and responses, and the websocket subscribe message.
+ *
+ * Responses are read with the settings Spring's RestTemplate reads them with (the RestTemplate's converter shares
+ * this codec's ObjectMapper). Request bodies are written from the entities' fields, leaving out nulls, as Gson used
+ * to write them. A reader or writer is resolved once per type and reused.
+ */
+@Component
+public class JsonCodec {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper requestMapper;
+    private final ConcurrentHashMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ThreadLocal<JsonBody> bodies = ThreadLocal.withInitial(JsonBody::new);
+
+    public JsonCodec() {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.requestMapper = objectMapper.copy()
+                .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * the mapper responses are read with, for Spring's message converters.
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public ObjectReader reader(Type type) {
+        return readers.computeIfAbsent(type, t -> objectMapper.readerFor(objectMapper.constructType(t)));
+    }
+
+    public <T> T read(byte[] json, Type type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T read(String json, Type type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T read(String json, TypeReference<T> type) throws IOException {
+        return read(json, type.getType());
+    }
+
+    /**
+     * writes the request body into this thread's reusable buffer - valid until the next call on the same thread.
+     * A null value is an empty body.
+     */
+    public JsonBody write(Object value) {
+        JsonBody body = bodies.get();
+        body.reset();
+        if (value != null) {
+            try {
+                writer(value.getClass()).writeValue(body, value);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * a copy of the request body, for when it has to outlive the next write on this thread.
+     */
+    public byte[] writeBytes(Object value) {
+        return write(value).toByteArray();
+    }
+
+    public String writeString(Object value) {
+        try {
+            return value == null ? "" : writer(value.getClass()).writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, requestMapper::writerFor);
+    }
+}
@@ -0,0 +1,50 @@
+package com.coinbase.exchange.api.exchange;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a paginated list, with the cursors the exchange sent for the pages either side of it.
+ * Pass {@link #getAfter()} as the after cursor for the next (older) page, and {@link #getBefore()} as the before
+ * cursor for anything newer.
+ */
+public class Page<T> {
+
+    public static final String BEFORE_HEADER = "CB-BEFORE";
+    public static final String AFTER_HEADER = "CB-AFTER";
+    public static final String BEFORE = "before";
+    public static final String AFTER = "after";
+
+    private final List<T> items;
+    private final String before;
+    private final String after;
+
+    public Page(List<T> items, String before, String after) {
+        this.items = items == null ? Collections.emptyList() : items;
+        this.before = before;
+        this.after = after;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * true if there's nothing older - the last page is empty or comes without an after cursor.
+     */
+    public boolean isLast() {
+        return items.isEmpty() || after == null || after.isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a paginated list from the newest page to the oldest, following the after cursor each page comes with.
+ *
+ * As soon as a page is handed out the next one is fetched in the background, so it's usually there by the time
+ * the consumer gets to it. Only that one page is fetched ahead - a consumer that stops early costs at most one extra
+ * request, and however long the list is no more than two pages are held at once.
+ *
+ * A page that fails to load (the exchange logs why and returns null) ends the iteration.
+ */
+public class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PageIterator.class);
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService prefetcher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "gdax-page-prefetch-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<String, Page<T>> fetchAfter;
+    private Page<T> page;
+    private int index;
+    private CompletableFuture<Page<T>> next;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * @param fetchAfter fetches the page after the given cursor - the first page for a null cursor.
+     */
+    public PageIterator(Function<String, Page<T>> fetchAfter) {
+        this.fetchAfter = fetchAfter;
+    }
+
+    public static <T> Stream<T> stream(Function<String, Page<T>> fetchAfter) {
+        PageIterator<T> iterator = new PageIterator<>(fetchAfter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            advanceTo(fetchAfter.apply(null));
+        }
+        while (page != null && index == page.getItems().size()) {
+            if (next == null) {
+                page = null;
+            } else {
+                advanceTo(await(next));
+            }
+        }
+        return page != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.getItems().get(index++);
+    }
+
+    /**
+     * stops the iteration, dropping whatever page is being fetched ahead.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        page = null;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    private void advanceTo(Page<T> fetched) {
+        page = fetched;
+        index = 0;
+        next = null;
+        if (page != null && !page.isLast()) {
+            String after = page.getAfter();
+            next = CompletableFuture.supplyAsync(() -> fetchAfter.apply(after), prefetcher);
+        }
+    }
+
+    private Page<T> await(CompletableFuture<Page<T>> page) {
+        try {
+            return page.join();
+        } catch (CompletionException ex) {
+            log.error("Failed to fetch the next page", ex.getCause());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps requests under the exchange's rate limits before they're sent, rather than finding out from a 429.
+ * Public (market data) and private (authenticated) endpoints are limited separately, as the exchange does, and
+ * each request waits in the {@link RequestLane} for its method.
+ */
+@Component
+public class RateLimiter {
+
+    private static final String[] PUBLIC_ENDPOINTS = {"/products", "/currencies", "/time"};
+
+    private final boolean enabled;
+    private final TokenBucket publicBucket;
+    private final TokenBucket privateBucket;
+
+    /**
+     * Used by test code - lets everything straight through
+     */
+    public RateLimiter() {
+        this.enabled = false;
+        this.publicBucket = null;
+        this.privateBucket = null;
+    }
+
+    @Autowired
+    public RateLimiter(@Value("${gdax.api.rateLimit.enabled}") boolean enabled,
+                       @Value("${gdax.api.rateLimit.public.requestsPerSecond}") double publicRequestsPerSecond,
+                       @Value("${gdax.api.rateLimit.public.burst}") int publicBurst,
+                       @Value("${gdax.api.rateLimit.private.requestsPerSecond}") double privateRequestsPerSecond,
+                       @Value("${gdax.api.rateLimit.private.burst}") int privateBurst) {
+        this.enabled = enabled;
+        this.publicBucket = new TokenBucket("public", publicRequestsPerSecond, publicBurst);
+        this.privateBucket = new TokenBucket("private", privateRequestsPerSecond, privateBurst);
+    }
+
+    /**
+     * blocks until the request can be sent without going over the limit.
+     *
+     * @return how long it waited, in nanos.
+     */
+    public long acquire(String resourcePath, String method) throws InterruptedException {
+        return enabled ? bucketFor(resourcePath).acquire(RequestLane.of(method)) : 0L;
+    }
+
+    /**
+     * called when the exchange rejects a request with a 429 - nothing more goes out until the bucket refills.
+     */
+    public void rateLimited(String resourcePath) {
+        if (enabled) {
+            bucketFor(resourcePath).drain();
+        }
+    }
+
+    public TokenBucket bucketFor(String resourcePath) {
+        for (String endpoint : PUBLIC_ENDPOINTS) {
+            if (resourcePath.startsWith(endpoint)) {
+                return publicBucket;
+            }
+        }
+        return privateBucket;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TokenBucket getPublicBucket() {
+        return publicBucket;
+    }
+
+    public TokenBucket getPrivateBucket() {
+        return privateBucket;
+    }
+
+    @Override
+    public String toString() {
+        return enabled ? "RateLimiter{" + publicBucket + ", " + privateBucket + "}" : "RateLimiter{disabled}";
+    }
+}
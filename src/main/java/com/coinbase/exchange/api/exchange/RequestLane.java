@@ -0,0 +1,25 @@
+package com.coinbase.exchange.api.exchange;
+
+/**
+ * The priority a request waits for the rate limit with, highest first. A waiting request is only let through once
+ * nothing in a higher lane is waiting, so a cancel never queues behind reads.
+ */
+public enum RequestLane {
+    CANCEL,
+    TRADE,
+    READ;
+
+    /**
+     * DELETEs cancel orders and POSTs place them - everything else only reads.
+     */
+    public static RequestLane of(String method) {
+        switch (method) {
+            case "DELETE":
+                return CANCEL;
+            case "POST":
+                return TRADE;
+            default:
+                return READ;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sits in front of {@link GdaxExchange#get}. Identical GETs made at the same time share one request, and responses
+ * from the endpoints given a TTL are reused until it runs out. The least recently used entries are evicted once
+ * there are more than maxEntries.
+ *
+ * TTLs are configured as a comma separated list of path=millis, e.g. "/products=60000,/accounts=1000". A path
+ * matches when it has the same number of segments, with a * in the configured path matching any one segment.
+ * The query string is ignored.
+ * Paths with no TTL are never cached, but concurrent identical requests for them are still coalesced.
+ *
+ * Cached responses are shared between callers, so must not be modified.
+ */
+@Component
+public class ResponseCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final List<String[]> ttlPatterns = new ArrayList<>();
+    private final List<Long> ttls = new ArrayList<>();
+
+    private final LinkedHashMap<String, CachedResponse> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Used by test code - caches and coalesces nothing
+     */
+    public ResponseCache() {
+        this(false, 0, "");
+    }
+
+    @Autowired
+    public ResponseCache(@Value("${gdax.api.cache.enabled}") boolean enabled,
+                         @Value("${gdax.api.cache.maxEntries}") int maxEntries,
+                         @Value("${gdax.api.cache.ttls}") String ttls) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        for (String ttl : ttls.split(",")) {
+            if (ttl.trim().isEmpty()) {
+                continue;
+            }
+            String[] pathAndMillis = ttl.trim().split("=");
+            ttlPatterns.add(segments(pathAndMillis[0].trim()));
+            this.ttls.add(Long.parseLong(pathAndMillis[1].trim()));
+        }
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * the cached response if there's a fresh one, else the response to a request already in flight, else the
+     * loader's response.
+     */
+    public <T> T get(String resourcePath, Type responseType, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = resourcePath + " " + responseType.getTypeName();
+        long ttl = ttlFor(resourcePath);
+        if (ttl > 0) {
+            Object cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                return cast(cached);
+            }
+        }
+        CompletableFuture<Object> request = new CompletableFuture<>();
+        CompletableFuture<Object> alreadyInFlight = inFlight.putIfAbsent(key, request);
+        if (alreadyInFlight != null) {
+            coalesced.increment();
+            return cast(await(alreadyInFlight));
+        }
+        misses.increment();
+        long startGeneration = generation.get();
+        try {
+            T response = loader.get();
+            if (response != null && ttl > 0) {
+                store(key, response, ttl, startGeneration);
+            }
+            request.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            request.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, request);
+        }
+    }
+
+    /**
+     * forgets everything cached under the path, along with anything an order or transfer there would change.
+     * Requests in flight for them aren't shared with later callers or cached.
+     */
+    public void invalidate(String resourcePath) {
+        if (!enabled) {
+            return;
+        }
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add(collectionOf(resourcePath));
+        prefixes.add("/accounts");
+        if (resourcePath.startsWith("/orders")) {
+            prefixes.add("/fills");
+        }
+        synchronized (entries) {
+            generation.incrementAndGet();
+            for (Iterator<String> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+                if (startsWithAny(keys.next(), prefixes)) {
+                    keys.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+        inFlight.keySet().removeIf(key -> startsWithAny(key, prefixes));
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        inFlight.clear();
+    }
+
+    long ttlFor(String resourcePath) {
+        int query = resourcePath.indexOf('?');
+        String[] path = segments(query < 0 ? resourcePath : resourcePath.substring(0, query));
+        for (int pattern = 0; pattern < ttlPatterns.size(); pattern++) {
+            if (matches(ttlPatterns.get(pattern), path)) {
+                return ttls.get(pattern);
+            }
+        }
+        return 0L;
+    }
+
+    private Object lookup(String key) {
+        synchronized (entries) {
+            CachedResponse entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response;
+        }
+    }
+
+    private void store(String key, Object response, long ttl, long startGeneration) {
+        synchronized (entries) {
+            // something was invalidated while the request was in flight, so the response may already be stale
+            if (generation.get() == startGeneration) {
+                entries.put(key, new CachedResponse(response, System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    private Object await(CompletableFuture<Object> request) {
+        try {
+            return request.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * the key includes the response type, so whatever is cached or in flight under it was returned by a loader for
+     * that same type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object response) {
+        return (T) response;
+    }
+
+    private static String collectionOf(String resourcePath) {
+        int end = resourcePath.indexOf('/', 1);
+        int query = resourcePath.indexOf('?');
+        if (end < 0 || (query >= 0 && query < end)) {
+            end = query;
+        }
+        return end < 0 ? resourcePath : resourcePath.substring(0, end);
+    }
+
+    private static boolean startsWithAny(String key, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] segments(String path) {
+        return path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+    }
+
+    private static boolean matches(String[] pattern, String[] path) {
+        if (pattern.length != path.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (!pattern[i].equals("*") && !pattern[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{hits=" + getHits()
+                + ", misses=" + getMisses()
+                + ", coalesced=" + getCoalesced()
+                + ", evictions=" + getEvictions()
+                + ", invalidations=" + getInvalidations()
+                + ", size=" + size()
+                + "}";
+    }
+
+    private static final class CachedResponse {
+        final Object response;
+        final long expiresAtMillis;
+
+        CachedResponse(Object response, long expiresAtMillis) {
+            this.response = response;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
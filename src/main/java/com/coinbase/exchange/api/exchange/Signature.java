@@ -9,21 +9,27 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.management.RuntimeErrorException;
 import java.security.InvalidKeyException;
+import java.util.Arrays;
 import java.util.Base64;
 
 /**
  * Created by robevansuk on 17/03/2017.
+ *
+ * The secret is decoded once, and each signing thread keeps its own initialised Mac and prehash buffer, so
+ * concurrent requests neither share a Mac nor re-key one per call.
  */
 @Component
 public class Signature {
 
-    private String secretKey;
+    private volatile SecretKeySpec key;
+
+    private final ThreadLocal<Signer> signers = ThreadLocal.withInitial(Signer::new);
 
     public Signature() { }
 
     @Autowired
     public Signature(@Value("${gdax.secret}") String secretKey) {
-        this.secretKey = secretKey;
+        setSecretKey(secretKey);
     }
 
     /**
@@ -39,14 +45,25 @@ public class Signature {
      * @return
      */
     public String generate(String requestPath, String method, String body, String timestamp) {
-        try {
-            String prehash = timestamp + method.toUpperCase() + requestPath + body;
+        return sign(timestamp, method, requestPath, body, null, 0, 0);
+    }
+
+    /**
+     * as above for a body that's already been serialized, e.g. a {@link JsonBody} - signed in place.
+     */
+    public String generate(String requestPath, String method, byte[] body, int offset, int length, String timestamp) {
+        return sign(timestamp, method, requestPath, null, body, offset, length);
+    }
 
-            byte[] secretDecoded = Base64.getDecoder().decode(secretKey);
-            SecretKeySpec keyspec = new SecretKeySpec(secretDecoded, "HmacSHA256");
-            Mac sha256 = (Mac) GdaxConstants.SHARED_MAC.clone();
-            sha256.init(keyspec);
-            return Base64.getEncoder().encodeToString(sha256.doFinal(prehash.getBytes()));
+    private String sign(String timestamp, String method, String requestPath, String body,
+                        byte[] bodyBytes, int offset, int length) {
+        SecretKeySpec key = this.key;
+        if (key == null) {
+            throw new RuntimeErrorException(new Error("Cannot set up authentication headers - no secret key."));
+        }
+        try {
+            return Base64.getEncoder().encodeToString(
+                    signers.get().sign(key, timestamp, method, requestPath, body, bodyBytes, offset, length));
         } catch (CloneNotSupportedException | InvalidKeyException e) {
             e.printStackTrace();
             throw new RuntimeErrorException(new Error("Cannot set up authentication headers."));
@@ -54,6 +71,85 @@ public class Signature {
     }
 
     public void setSecretKey(String secretKey) {
-        this.secretKey = secretKey;
+        // an unset secret only matters once something actually needs signing
+        this.key = secretKey == null || secretKey.isEmpty()
+                ? null
+                : new SecretKeySpec(Base64.getDecoder().decode(secretKey), "HmacSHA256");
+    }
+
+    /**
+     * one thread's Mac, the key it was last initialised with, and the buffer the prehash is encoded into.
+     */
+    private static final class Signer {
+
+        private Mac mac;
+        private SecretKeySpec macKey;
+        private byte[] prehash = new byte[256];
+        private int length;
+
+        byte[] sign(SecretKeySpec key, String timestamp, String method, String requestPath, String body,
+                    byte[] bodyBytes, int offset, int bodyLength)
+                throws CloneNotSupportedException, InvalidKeyException {
+            if (mac == null) {
+                mac = (Mac) GdaxConstants.SHARED_MAC.clone();
+            }
+            if (macKey != key) {
+                mac.init(key);
+                macKey = key;
+            }
+            length = 0;
+            append(timestamp, false);
+            append(method, true);
+            append(requestPath, false);
+            if (bodyBytes == null) {
+                append(body, false);
+            }
+            mac.update(prehash, 0, length);
+            if (bodyBytes != null) {
+                mac.update(bodyBytes, offset, bodyLength);
+            }
+            return mac.doFinal();
+        }
+
+        /**
+         * utf-8 encodes the value onto the end of the prehash - "null" for a null value, as string concatenation did.
+         */
+        private void append(String value, boolean upperCase) {
+            if (value == null) {
+                value = "null";
+            }
+            ensureCapacity(length + value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (upperCase && c >= 'a' && c <= 'z') {
+                        c -= 'a' - 'A';
+                    }
+                    prehash[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    prehash[length++] = (byte) (0xc0 | (c >> 6));
+                    prehash[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    prehash[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    prehash[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    prehash[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    prehash[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    prehash[length++] = '?';
+                } else {
+                    prehash[length++] = (byte) (0xe0 | (c >> 12));
+                    prehash[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    prehash[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > prehash.length) {
+                prehash = Arrays.copyOf(prehash, Math.max(capacity, prehash.length * 2));
+            }
+        }
     }
 }
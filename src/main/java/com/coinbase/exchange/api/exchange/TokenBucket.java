@@ -0,0 +1,167 @@
+package com.coinbase.exchange.api.exchange;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A token bucket that refills at a steady rate up to its burst size, with a queue per {@link RequestLane}.
+ * Requests are let through in lane order, and first come first served within a lane.
+ *
+ * Records how many requests are queued in each lane, how many have been let through and how long they waited.
+ */
+public class TokenBucket {
+
+    private final String name;
+    private final double tokensPerNano;
+    private final double burst;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Deque<Thread>> waiting;
+    private double tokens;
+    private long lastRefillNanos;
+
+    private final LongAdder[] granted;
+    private final LongAdder[] waitNanos;
+    private final AtomicLong[] maxWaitNanos;
+    private final LongAdder drained = new LongAdder();
+
+    public TokenBucket(String name, double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A " + name + " bucket needs a positive rate and a burst of at least 1");
+        }
+        this.name = name;
+        this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        int lanes = RequestLane.values().length;
+        this.waiting = new ArrayList<>(lanes);
+        this.granted = new LongAdder[lanes];
+        this.waitNanos = new LongAdder[lanes];
+        this.maxWaitNanos = new AtomicLong[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            waiting.add(new ArrayDeque<>());
+            granted[lane] = new LongAdder();
+            waitNanos[lane] = new LongAdder();
+            maxWaitNanos[lane] = new AtomicLong();
+        }
+    }
+
+    /**
+     * blocks until the request can be sent.
+     *
+     * @return how long it waited, in nanos.
+     */
+    public long acquire(RequestLane lane) throws InterruptedException {
+        long start = System.nanoTime();
+        Thread self = Thread.currentThread();
+        Deque<Thread> queue = waiting.get(lane.ordinal());
+        lock.lock();
+        try {
+            queue.addLast(self);
+            try {
+                while (true) {
+                    if (queue.peekFirst() == self && !higherLaneWaiting(lane)) {
+                        refill(System.nanoTime());
+                        if (tokens >= 1) {
+                            tokens -= 1;
+                            break;
+                        }
+                        changed.awaitNanos(Math.max(1L, (long) Math.ceil((1 - tokens) / tokensPerNano)));
+                    } else {
+                        changed.await();
+                    }
+                }
+            } finally {
+                queue.remove(self);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        long waited = System.nanoTime() - start;
+        granted[lane.ordinal()].increment();
+        waitNanos[lane.ordinal()].add(waited);
+        maxWaitNanos[lane.ordinal()].accumulateAndGet(waited, Math::max);
+        return waited;
+    }
+
+    /**
+     * empties the bucket, e.g. after the exchange has said we're over its limit anyway.
+     */
+    public void drain() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            tokens = Math.min(tokens, 0);
+            drained.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean higherLaneWaiting(RequestLane lane) {
+        for (int higher = 0; higher < lane.ordinal(); higher++) {
+            if (!waiting.get(higher).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth(RequestLane lane) {
+        lock.lock();
+        try {
+            return waiting.get(lane.ordinal()).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getGranted(RequestLane lane) {
+        return granted[lane.ordinal()].sum();
+    }
+
+    public long getAverageWaitMicros(RequestLane lane) {
+        long count = getGranted(lane);
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos[lane.ordinal()].sum() / count);
+    }
+
+    public long getMaxWaitMicros(RequestLane lane) {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos[lane.ordinal()].get());
+    }
+
+    public long getDrained() {
+        return drained.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name).append("{");
+        for (RequestLane lane : RequestLane.values()) {
+            builder.append(lane).append("[queued=").append(getQueueDepth(lane))
+                    .append(", granted=").append(getGranted(lane))
+                    .append(", avgWaitMicros=").append(getAverageWaitMicros(lane))
+                    .append(", maxWaitMicros=").append(getMaxWaitMicros(lane))
+                    .append("], ");
+        }
+        return builder.append("drained=").append(getDrained()).append("}").toString();
+    }
+}
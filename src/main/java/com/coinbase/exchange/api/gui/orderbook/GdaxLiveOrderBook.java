@@ -2,7 +2,16 @@ package com.coinbase.exchange.api.gui.orderbook;
 
 import com.coinbase.exchange.api.marketdata.MarketData;
 import com.coinbase.exchange.api.marketdata.MarketDataService;
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.coinbase.exchange.api.orderbook.OrderBook;
+import com.coinbase.exchange.api.orderbook.OrderBookSnapshot;
+import com.coinbase.exchange.api.orderbook.PriceLadder;
+import com.coinbase.exchange.api.orderbook.SequenceBuffer;
+import com.coinbase.exchange.api.orderbook.SequenceGapMetrics;
+import com.coinbase.exchange.api.websocketfeed.FeedIngestThread;
 import com.coinbase.exchange.api.websocketfeed.WebsocketFeed;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessagePool;
 import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,11 +19,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import static com.coinbase.exchange.api.constants.GdaxConstants.*;
 
+/**
+ * Keeps the order book for the selected product in step with the websocket feed.
+ * The book is owned by the feed's ingest thread; other threads read the snapshots published from it, which are
+ * refreshed at most once per frame interval while the feed is busy and whenever the ingest thread catches up.
+ */
 @Component
 public class GdaxLiveOrderBook {
 
@@ -23,78 +36,122 @@ public class GdaxLiveOrderBook {
     private MarketDataService marketDataService;
     private WebsocketFeed websocketFeed;
 
-    private OrderBookModel bids;
-    private OrderBookModel asks;
-    private String productId;
+    private OrderBook orderBook;
+    private volatile String productId;
 
     private Boolean isReady;
     private int timeout;
+    private int frameIntervalMillis;
+
+    private volatile OrderBookSnapshot snapshot = OrderBookSnapshot.EMPTY;
+    private long snapshotVersion = -1;
+    private long snapshotTimeStamp;
 
     private long nextSeqIdToExpect;
     private long sequenceLastProcessedTimeStamp;
 
-    private Map<Long, OrderBookMessage> queuedMessages;
+    private SequenceBuffer sequenceBuffer;
+    private final SequenceGapMetrics gapMetrics = new SequenceGapMetrics();
+    private long gapTimeoutMillis;
+    private long gapDetectedTimeStamp;
+    private boolean inGap;
+    private final FeedMessagePool messagePool = new FeedMessagePool(64);
+    private volatile MatchListener[] matchListeners = new MatchListener[0];
 
     public GdaxLiveOrderBook() {
         this.productId = "BTC-GBP";
         this.timeout = 10;
-        queuedMessages = new HashMap<>();
+        this.frameIntervalMillis = 50;
+        this.gapTimeoutMillis = 2000;
+        sequenceBuffer = new SequenceBuffer(4096);
         this.isReady = false;
         sequenceLastProcessedTimeStamp = System.currentTimeMillis();
-        bids = new OrderBookModel();
-        asks = new OrderBookModel();
+        orderBook = new OrderBook();
     }
 
     @Autowired
     public GdaxLiveOrderBook(@Value("${liveorderbook.timeout}") int timeout,
                              @Value("${liveorderbook.defaultProduct}") String productId,
+                             @Value("${liveorderbook.frameIntervalMillis}") int frameIntervalMillis,
+                             @Value("${liveorderbook.sequenceBufferSize}") int sequenceBufferSize,
+                             @Value("${liveorderbook.gapTimeoutMillis}") long gapTimeoutMillis,
                              MarketDataService marketDataService,
                              WebsocketFeed websocketFeed) {
         this.timeout = timeout;
+        this.frameIntervalMillis = frameIntervalMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
         this.productId = productId;
         this.isReady = false;
         this.sequenceLastProcessedTimeStamp = System.currentTimeMillis();
-        this.queuedMessages = new HashMap<>();
-        this.bids = new OrderBookModel();
-        this.asks = new OrderBookModel();
+        this.sequenceBuffer = new SequenceBuffer(sequenceBufferSize);
+        this.orderBook = new OrderBook();
 
         this.marketDataService = marketDataService;
         this.websocketFeed = websocketFeed;
         log.info("GdaxLiveOrderBook almost ready.");
     }
 
+    /**
+     * a separate book for another product with the same settings and services as this one, for tracking several
+     * products at once. The caller is responsible for feeding it and calling {@link #resync()} to load it.
+     */
+    public GdaxLiveOrderBook forProduct(String productId) {
+        return new GdaxLiveOrderBook(timeout, productId, frameIntervalMillis, sequenceBuffer.capacity(),
+                gapTimeoutMillis, marketDataService, websocketFeed);
+    }
+
+    /**
+     * switches the book to the product - the feed replaces the book's previous product rather than adding to it.
+     */
     public void loadLiveOrderBookModel(String productId) {
+        FeedIngestThread ingestThread = websocketFeed.getIngestThread();
+        if (ingestThread.isRunning() && !ingestThread.isIngestThread()) {
+            // frames that arrive whilst the snapshot downloads wait in the ingest buffer
+            ingestThread.execute(() -> loadLiveOrderBookModel(productId));
+            return;
+        }
+        this.productId = productId;
         isReady = false;
-        queuedMessages.clear();
-        bids.clear();
-        asks.clear();
+        sequenceBuffer.clear();
         websocketFeed.subscribe(productId, this);// *** THIS MUST HAPPEN BEFORE INITING THE OB OR MESSAGES WILL LIKELY BE MISSING
-        initBidsAndAsksAndMaxSequenceId(marketDataService.getMarketDataOrderBook(productId, FULL_ORDER_BOOK));
+        resync();
+    }
+
+    /**
+     * rebuilds the book from a fresh snapshot without touching the subscription. Messages buffered whilst waiting
+     * on a gap are kept: those the snapshot already covers are dropped and the rest replayed on top of it.
+     */
+    public void resync() {
+        long start = System.currentTimeMillis();
+        isReady = false;
+        inGap = false;
+        orderBook.clear();
+        Long sequence = marketDataService.loadOrderBook(productId, FULL_ORDER_BOOK, orderBook);
+        if (sequence == null) {
+            // stay not ready - frames keep buffering and the timeout tries again
+            log.error("Unable to load the {} order book", productId);
+            return;
+        }
+        this.nextSeqIdToExpect = sequence + 1;
+        gapMetrics.staleMessagesDropped(sequenceBuffer.dropBefore(nextSeqIdToExpect));
         isReady = true;
-        log.info("GdaxLiveOrderBook ready!");
+        sequenceLastProcessedTimeStamp = System.currentTimeMillis();
+        processNextBatchIfAvailableInCache();
+        publishSnapshot();
+        gapMetrics.resynced(System.currentTimeMillis() - start);
+        log.info("GdaxLiveOrderBook ready! {}", gapMetrics);
     }
 
     public void initBidsAndAsksAndMaxSequenceId(MarketData data) {
         log.info("Init bid/ask data and max sequence ID: {}", data.getSequence());
-        // bids - we want to display best at top (highest), lowest at bottom.
-        // bids come in in that order.
-        for (int i = data.getBids().size() - 1; i >= 0; i--) {
-            getBids().insert(data.getBids().get(i), BUY);
-            log.info("Loading Bid: {} {} {}",
-                    data.getBids().get(i).getPrice(),
-                    data.getBids().get(i).getSize(),
-                    data.getBids().get(i).getNum());
-        }
-        // asks - we want lowest ask to appear at the top of the table.
-        // since asks come in lowest at top biggest at the bottom, add as they are.
-        for (int i = 0; i < data.getAsks().size(); i++) {
-            getAsks().insert(data.getAsks().get(i), SELL);
-            log.info("Loading Ask: {} {} {}",
-                    data.getAsks().get(i).getPrice(),
-                    data.getAsks().get(i).getSize(),
-                    data.getAsks().get(i).getNum());
+        for (OrderItem bid : data.getBids()) {
+            orderBook.addSnapshotEntry(bid, BUY);
+        }
+        for (OrderItem ask : data.getAsks()) {
+            orderBook.addSnapshotEntry(ask, SELL);
         }
 
+        orderBook.setSequence(data.getSequence());
         this.nextSeqIdToExpect = data.getSequence() + 1;
     }
 
@@ -102,126 +159,204 @@ public class GdaxLiveOrderBook {
      * takes incoming messages and routes relevant ones that will cause a material change to the orderbook to updateOrderBook
      */
     public void handleMessages(OrderBookMessage message) {
+        handleMessages(messagePool.acquire().copyFrom(message));
+    }
+
+    public void handleMessages(FeedMessage message) {
         handleMessage(message);
         processNextBatchIfAvailableInCache();
+        if (System.currentTimeMillis() - snapshotTimeStamp >= frameIntervalMillis) {
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * copies the book for readers on other threads if it has changed since the last copy.
+     */
+    public void publishSnapshot() {
+        long version = orderBook.getVersion();
+        if (version != snapshotVersion) {
+            snapshot = orderBook.snapshot();
+            snapshotVersion = version;
+        }
+        snapshotTimeStamp = System.currentTimeMillis();
     }
 
-    public void handleMessage(OrderBookMessage message) {
+    /**
+     * the most recently published copy of the book - safe to read from any thread.
+     */
+    public OrderBookSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void handleMessage(FeedMessage message) {
+        if (!message.hasSequence()) {
+            // subscriptions, errors etc. aren't part of the sequenced book feed
+            message.release();
+            return;
+        }
+        if (message.getProductId() != null && !message.getProductId().equals(productId)) {
+            // another product's sequence - the feed may carry several, e.g. the user's orders on other products
+            message.release();
+            return;
+        }
         if (isTimedOut()) {
             log.error("Message {} not received in time. Restarting Orderbook.", nextSeqIdToExpect);
-            // resubscribe
             sequenceLastProcessedTimeStamp = System.currentTimeMillis();
-            loadLiveOrderBookModel(productId);
-
+            resync();
         }
-        if(message.getType().equals("activate")) {
+        if ("activate".equals(message.getType())) {
             log.error("activate message received {}", message.getSequence());
         }
-        if (isReady) {
-            long sequenceId = message.getSequence();
-            sequenceLastProcessedTimeStamp = System.currentTimeMillis();
-            if (isOutOfSequence(message)) {
-                log.info("out of sequence message queued: {}", message.getSequence());
-                queueMessage(message);
-            } else {
-                if (isMessageTypeWeCareAbout(message)) {
-                    updateOrderBook(message);
-                } else {
-                    log.info("IGNORED: {}, Type {}, {}, price {}", sequenceId, message.getType(),
-                            message.getSize() == null ? "remainingSize " + message.getRemaining_size() : "size " + message.getSize(),
-                            message.getPrice());
-                }
-                if (queuedMessages.containsKey(sequenceId)) {
-                    queuedMessages.remove(nextSeqIdToExpect);
-                }
-                nextSeqIdToExpect = nextSeqIdToExpect + 1;
+        if (!isReady) {
+            log.debug("message queued order book not ready: {}", message);
+            bufferMessage(message);
+            return;
+        }
+        long sequenceId = message.getSequence();
+        if (sequenceId < nextSeqIdToExpect) {
+            gapMetrics.staleMessagesDropped(1);
+            message.release();
+        } else if (sequenceId > nextSeqIdToExpect) {
+            if (!inGap) {
+                inGap = true;
+                gapDetectedTimeStamp = System.currentTimeMillis();
+                gapMetrics.gapDetected();
+                log.info("sequence gap: expected {} but received {}", nextSeqIdToExpect, sequenceId);
+            }
+            if (!bufferMessage(message)) {
+                log.warn("sequence gap from {} wider than the buffer. Resyncing Orderbook.", nextSeqIdToExpect);
+                resync();
+            } else if (System.currentTimeMillis() - gapDetectedTimeStamp >= gapTimeoutMillis) {
+                log.warn("sequence gap from {} not filled in time. Resyncing Orderbook.", nextSeqIdToExpect);
+                resync();
             }
         } else {
-            log.info("message queued order book not ready: {}, {}", message.getSequence(), message);
-            queueMessage(message);
+            applyInSequence(message);
         }
     }
 
+    private void applyInSequence(FeedMessage message) {
+        if (isMessageTypeWeCareAbout(message)) {
+            updateOrderBook(message);
+        } else if (log.isDebugEnabled()) {
+            log.debug("IGNORED: {}", message);
+        }
+        if (isMatchOrder(message)) {
+            for (MatchListener listener : matchListeners) {
+                try {
+                    listener.onMatch(message);
+                } catch (RuntimeException e) {
+                    // the book must still move on and release the message
+                    log.error("Match listener failed for sequence {}", message.getSequence(), e);
+                }
+            }
+        }
+        nextSeqIdToExpect = nextSeqIdToExpect + 1;
+        sequenceLastProcessedTimeStamp = System.currentTimeMillis();
+        message.release();
+    }
+
+    /**
+     * the listener is passed every match applied to the book, in sequence order, on the ingest thread.
+     */
+    public synchronized void addMatchListener(MatchListener listener) {
+        MatchListener[] updated = Arrays.copyOf(matchListeners, matchListeners.length + 1);
+        updated[matchListeners.length] = listener;
+        matchListeners = updated;
+    }
+
+    public synchronized void removeMatchListener(MatchListener listener) {
+        matchListeners = Arrays.stream(matchListeners).filter(l -> l != listener).toArray(MatchListener[]::new);
+    }
+
     public boolean isTimedOut() {
         return (System.currentTimeMillis() - sequenceLastProcessedTimeStamp) / 1000 >= timeout;
     }
 
-    private void queueMessage(OrderBookMessage message) {
-        queuedMessages.put(message.getSequence(), message);
+    private boolean bufferMessage(FeedMessage message) {
+        if (sequenceBuffer.put(message)) {
+            return true;
+        }
+        gapMetrics.messageEvicted();
+        return false;
     }
 
+    /**
+     * applies any buffered messages that are now next in sequence.
+     */
     public void processNextBatchIfAvailableInCache() {
-        while (isReady && queuedMessages.containsKey(nextSeqIdToExpect)) {
-            handleMessage(queuedMessages.get(nextSeqIdToExpect));
+        if (!isReady) {
+            return;
+        }
+        FeedMessage next;
+        while ((next = sequenceBuffer.take(nextSeqIdToExpect)) != null) {
+            applyInSequence(next);
+        }
+        if (inGap && sequenceBuffer.isEmpty()) {
+            inGap = false;
+            gapMetrics.gapHealed();
+            log.info("sequence gap healed after {}ms", System.currentTimeMillis() - gapDetectedTimeStamp);
         }
     }
 
-    private boolean isMessageTypeWeCareAbout(OrderBookMessage message) {
+    private boolean isMessageTypeWeCareAbout(FeedMessage message) {
         return (isOpenOrder(message) || isCancelledOrder(message) || isMatchOrder(message) || isDoneFilledOrder(message) || isChangeWithPrice(message));
     }
 
-    private boolean isChangeWithPrice(OrderBookMessage message) {
-
-        return message.getType() != null && message.getType().equals(CHANGE)
-                && message.getPrice() != null;
+    private boolean isChangeWithPrice(FeedMessage message) {
+        return CHANGE.equals(message.getType()) && message.hasPrice();
     }
 
-    private boolean isDoneFilledOrder(OrderBookMessage message) {
-        return message.getType() != null && message.getType().equals(DONE)
-                && message.getReason() != null && message.getReason().equals(FILLED)
-                && message.getPrice() != null;
+    private boolean isDoneFilledOrder(FeedMessage message) {
+        return DONE.equals(message.getType()) && FILLED.equals(message.getReason()) && message.hasPrice();
     }
 
-    private boolean isOpenOrder(OrderBookMessage message) {
-        return message.getType() != null && message.getType().equals(OPEN);
+    private boolean isOpenOrder(FeedMessage message) {
+        return OPEN.equals(message.getType());
     }
 
-    private boolean isMatchOrder(OrderBookMessage message) {
-        return message.getType() != null && message.getType().equals(MATCH);
+    private boolean isMatchOrder(FeedMessage message) {
+        return MATCH.equals(message.getType());
     }
 
-    private boolean isCancelledOrder(OrderBookMessage message) {
-        return message.getType() != null
-                && message.getType().equals(DONE)
-                && message.getReason() != null
-                && message.getReason().equals(CANCELED);
+    private boolean isCancelledOrder(FeedMessage message) {
+        return DONE.equals(message.getType()) && CANCELED.equals(message.getReason());
     }
 
-    private boolean isOutOfSequence(OrderBookMessage message) {
-        return message.getSequence() != null && message.getSequence().compareTo(nextMessageToExpect()) != 0;
+    public void updateOrderBook(FeedMessage message) {
+        orderBook.apply(message);
     }
 
-    public void updateOrderBook(OrderBookMessage message) {
-        OrderBookModel model = getRelevantOrderBookModel(message);
-        model.insertInto(message);
+    public OrderBook getOrderBook() {
+        return orderBook;
     }
 
-    public OrderBookModel getBids() {
-        return bids;
+    public PriceLadder getBids() {
+        return orderBook.getBids();
     }
 
-    public OrderBookModel getAsks() {
-        return asks;
+    public PriceLadder getAsks() {
+        return orderBook.getAsks();
     }
 
     /**
      * matches indicate opposite side of the trade was done so this is necessary for
      * updating the correct side of the order book.
      */
-    public OrderBookModel getRelevantOrderBookModel(OrderBookMessage message) {
-        if (isEqual(message.getSide(), BUY)) {
-            return bids;
-        } else {
-            return asks;
-        }
+    public PriceLadder getRelevantSide(OrderBookMessage message) {
+        return orderBook.getSide(message.getSide());
     }
 
-    private boolean isEqual(String type, String match) {
-        return type != null && type.equals(match);
+    /**
+     * messages waiting on the book to load or on a gap in the sequence to fill.
+     */
+    public SequenceBuffer getQueuedMessages() {
+        return sequenceBuffer;
     }
 
-    public Map<Long, OrderBookMessage> getQueuedMessages() {
-        return queuedMessages;
+    public SequenceGapMetrics getGapMetrics() {
+        return gapMetrics;
     }
 
     public Long nextMessageToExpect() {
@@ -236,7 +371,19 @@ public class GdaxLiveOrderBook {
         return timeout;
     }
 
+    public int getFrameIntervalMillis() {
+        return frameIntervalMillis;
+    }
+
     public String getSelectedProductId() {
         return productId;
     }
+
+    /**
+     * receives the trades on the feed once they're in sequence. The message is only valid for the duration of the
+     * call - it goes back to the pool afterwards.
+     */
+    public interface MatchListener {
+        void onMatch(FeedMessage match);
+    }
 }
@@ -2,6 +2,7 @@ package com.coinbase.exchange.api.gui.orderbook;
 
 import com.coinbase.exchange.api.entity.Product;
 import com.coinbase.exchange.api.gui.orderbook.ux.GdaxTableCellRenderer;
+import com.coinbase.exchange.api.orderbook.OrderBookSnapshot;
 import com.coinbase.exchange.api.products.ProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.Timer;
 import javax.swing.table.TableColumn;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
@@ -33,6 +35,9 @@ public class OrderBookView extends JPanel {
     private GdaxLiveOrderBook liveOrderBook;
     private JPanel liveOrderBookPanel;
     private JLabel selectedProductLabel;
+    private OrderBookModel bids;
+    private OrderBookModel asks;
+    private Timer refreshTimer;
 
     /**
      * Used by test code
@@ -57,9 +62,27 @@ public class OrderBookView extends JPanel {
         add(reload(), BorderLayout.EAST);
         revalidate();
         repaint();
+        startRefreshTimer();
         return this;
     }
 
+    /**
+     * the tables repaint at a fixed frame rate from whatever the live order book last published,
+     * rather than once per websocket message.
+     */
+    private void startRefreshTimer() {
+        if (refreshTimer == null) {
+            refreshTimer = new Timer(liveOrderBook.getFrameIntervalMillis(), event -> refresh());
+            refreshTimer.start();
+        }
+    }
+
+    private void refresh() {
+        OrderBookSnapshot snapshot = liveOrderBook.getSnapshot();
+        bids.update(snapshot.getBids());
+        asks.update(snapshot.getAsks());
+    }
+
     public JPanel reload() {
         liveOrderBookPanel.removeAll();
         liveOrderBook.loadLiveOrderBookModel(productId);
@@ -72,15 +95,18 @@ public class OrderBookView extends JPanel {
         liveOrderBookPanel = new JPanel();
         liveOrderBookPanel.setLayout(new BoxLayout(liveOrderBookPanel, X_AXIS));
 
-        OrderBookModel bids = liveOrderBook.getBids();
-        OrderBookModel asks = liveOrderBook.getAsks();
+        if (bids == null) {
+            OrderBookSnapshot snapshot = liveOrderBook.getSnapshot();
+            bids = new OrderBookModel(snapshot.getBids());
+            asks = new OrderBookModel(snapshot.getAsks());
+        }
 
-        liveOrderBookPanel.add(getTableInScrollPaneWithLabel(bids));
-        liveOrderBookPanel.add(getTableInScrollPaneWithLabel(asks));
+        liveOrderBookPanel.add(getTableInScrollPaneWithLabel(bids, "Bids"));
+        liveOrderBookPanel.add(getTableInScrollPaneWithLabel(asks, "Asks"));
         return liveOrderBookPanel;
     }
 
-    private JPanel getTableInScrollPaneWithLabel(OrderBookModel orderBookModel) {
+    private JPanel getTableInScrollPaneWithLabel(OrderBookModel orderBookModel, String labelText) {
 
         JTable table = new JTable(orderBookModel);
 
@@ -91,11 +117,7 @@ public class OrderBookView extends JPanel {
         }
         orderBookModel.setCellRenderer(cellRenderer);
 
-        if (orderBookModel.equals(liveOrderBook.getBids())) {
-            return getTableInScrollPaneWithLabel(table, "Bids");
-        } else {
-            return getTableInScrollPaneWithLabel(table, "Asks");
-        }
+        return getTableInScrollPaneWithLabel(table, labelText);
     }
 
     private JPanel getTableInScrollPaneWithLabel(JTable table, String labelText) {
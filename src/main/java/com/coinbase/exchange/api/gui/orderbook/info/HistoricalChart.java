@@ -1,8 +1,11 @@
 package com.coinbase.exchange.api.gui.orderbook.info;
 
 import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.products.CandleAggregator;
+import com.coinbase.exchange.api.products.CandleGranularity;
+import com.coinbase.exchange.api.products.CandleSeries;
+import com.coinbase.exchange.api.products.LiveCandle;
 import com.coinbase.exchange.api.products.ProductService;
-import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.DateAxis;
@@ -10,10 +13,6 @@ import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.Timeline;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.CandlestickRenderer;
-import org.jfree.data.time.Minute;
-import org.jfree.data.time.RegularTimePeriod;
-import org.jfree.data.time.TimeSeries;
-import org.jfree.data.time.TimeSeriesDataItem;
 import org.jfree.data.xy.AbstractXYDataset;
 import org.jfree.data.xy.DefaultOHLCDataset;
 import org.jfree.data.xy.OHLCDataItem;
@@ -23,21 +22,35 @@ import org.springframework.stereotype.Component;
 
 import javax.swing.*;
 import java.awt.*;
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class HistoricalChart extends JPanel {
 
+    // candles come from the local candle store once they've been downloaded, so this is cheap to redraw
+    private static final Duration CHART_PERIOD = Duration.ofHours(6);
+    private static final CandleGranularity CHART_GRANULARITY = CandleGranularity.ONE_MINUTE;
+
     private GdaxLiveOrderBook liveOrderBook;
     private ProductService productService;
     private XYDataset dataset;
     private XYPlot mainPlot;
 
+    // the chart's candles, only touched on the event dispatch thread once the chart is showing
+    private final List<OHLCDataItem> candleItems = new ArrayList<>();
+    private String chartedProductId;
+    // live candles from the feed waiting to be drawn
+    private final Queue<OHLCDataItem> candleUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean redrawPending = new AtomicBoolean();
+    private CandleAggregator candleAggregator;
+
     @Autowired
     public HistoricalChart(GdaxLiveOrderBook liveOrderBook, ProductService productService) {
         super();
@@ -54,12 +67,14 @@ public class HistoricalChart extends JPanel {
 
     private ChartPanel createCandleStickChart() {
         String selectedProductId = liveOrderBook.getSelectedProductId();
-        List<List<BigDecimal>> historicalRates = productService.getHistoricRates(selectedProductId);
+        Instant now = Instant.now();
+        CandleSeries candles = productService.getCandles(selectedProductId, now.minus(CHART_PERIOD), now, CHART_GRANULARITY);
 
         DateAxis domainAxis = new DateAxis("Date");
         NumberAxis rangeAxis = new NumberAxis("Price");
         CandlestickRenderer renderer = new CandlestickRenderer();
-        dataset = getDataSet(selectedProductId, historicalRates);
+        dataset = getDataSet(selectedProductId, candles);
+        followTrades(selectedProductId, candles, now);
 
         mainPlot = new XYPlot(dataset, domainAxis, rangeAxis, renderer);
 
@@ -67,7 +82,9 @@ public class HistoricalChart extends JPanel {
         renderer.setSeriesPaint(0, Color.BLACK);
         renderer.setDrawVolume(true);
         rangeAxis.setAutoRangeIncludesZero(false);
-        domainAxis.setTimeline(getTimeline(selectedProductId, historicalRates));
+        if (!candles.isEmpty()) {
+            domainAxis.setTimeline(getTimeline(selectedProductId, candles));
+        }
 
         // Now create the chart and chart panel
         JFreeChart chart = new JFreeChart("", null, mainPlot, false);
@@ -76,34 +93,17 @@ public class HistoricalChart extends JPanel {
         return chartPanel;
     }
 
-    private Timeline getTimeline(String selectedProductId, List<List<BigDecimal>> historicalRates) {
+    private Timeline getTimeline(String selectedProductId, CandleSeries candles) {
         DateAxis dateAxis = new DateAxis(selectedProductId);
-        Long firstTimeStamp = Long.parseLong(historicalRates.get(0).get(0).toString());
-        Long lastTimeStamp = Long.parseLong(historicalRates.get(historicalRates.size() - 1).get(0).toString());
 
-        dateAxis.setMinimumDate(new Date(firstTimeStamp));
-        dateAxis.setMaximumDate(new Date(lastTimeStamp));
+        dateAxis.setMinimumDate(Date.from(Instant.ofEpochSecond(candles.firstTime())));
+        dateAxis.setMaximumDate(Date.from(Instant.ofEpochSecond(candles.lastTime())));
 
         return dateAxis.getTimeline();
     }
 
-    private TimeSeries getTimeSeries(String selectedProductId, List<List<BigDecimal>> historicalRates) {
-        TimeSeries timeSeries = new TimeSeries(selectedProductId);
-        Long interval = Long.parseLong(historicalRates.get(0).get(0).subtract(historicalRates.get(1).get(0)).toString());
-        // determine what unit of time the interval is.
-
-        for (List<BigDecimal> historicRate : historicalRates) {
-            Long endTime = Long.parseLong(historicRate.get(0).toString());
-            RegularTimePeriod timePeriod = RegularTimePeriod.createInstance(Minute.class, new Date(endTime), TimeZone.getDefault(), Locale.ENGLISH);
-            double one = 1; // TODO what is this param?
-            timeSeries.add(new TimeSeriesDataItem(timePeriod, one));
-        }
-        return timeSeries;
-    }
-
-
-    protected AbstractXYDataset getDataSet(String productId, List<List<BigDecimal>> historicalRates) {
-        OHLCDataItem[] data = toArrayOfOHLCDataItems(historicalRates);
+    protected AbstractXYDataset getDataSet(String productId, CandleSeries candles) {
+        OHLCDataItem[] data = toArrayOfOHLCDataItems(candles);
 
         //Create a dataset: Timestamp: Open, High, Low, Close, Volume
         DefaultOHLCDataset result = new DefaultOHLCDataset(productId, data);
@@ -111,62 +111,62 @@ public class HistoricalChart extends JPanel {
         return result;
     }
 
-    private OHLCDataItem[] toArrayOfOHLCDataItems(List<List<BigDecimal>> historicalRates) {
-        OHLCDataItem[] data = new OHLCDataItem[historicalRates.size()];
-
-        int i = 0;
-        for (List<BigDecimal> historicRate : historicalRates) {
-            Date time = Date.from(Instant.ofEpochSecond(getTime(historicRate)));
-            Double openPrice = getOpenPrice(historicRate);
-            Double highPrice = getHighPrice(historicRate);
-
-            Double lowPrice = getLowPrice(historicRate);
-            Double closePrice = getClosePrice(historicRate);
-            Double volume = getVolume(historicRate);
-
-            data[i] = new OHLCDataItem(time, openPrice, highPrice, lowPrice, closePrice, volume);
-
-            i++;
+    /**
+     * keeps the last candle up to date, and adds new ones, from the trades on the feed rather than polling for them.
+     */
+    private void followTrades(String productId, CandleSeries candles, Instant asOf) {
+        if (candleAggregator != null) {
+            liveOrderBook.removeMatchListener(candleAggregator);
         }
-        return data;
-    }
-
-    private Double getVolume(List<BigDecimal> historicalRate) {
-        String volume = historicalRate.get(5).toString();
-        return Double.parseDouble(volume);
-    }
-
-    private Double getClosePrice(List<BigDecimal> historicalRate) {
-        String closePrice = historicalRate.get(4).toString();
-        return Double.parseDouble(closePrice);
-    }
-
-    private Double getLowPrice(List<BigDecimal> historicalRate) {
-        String lowPrice = historicalRate.get(3).toString();
-        return Double.parseDouble(lowPrice);
-    }
-
-    private Double getHighPrice(List<BigDecimal> historicalRate) {
-        String highPrice = historicalRate.get(2).toString();
-        return Double.parseDouble(highPrice);
-    }
-
-    private Double getOpenPrice(List<BigDecimal> historicalRate) {
-        String openPrice = historicalRate.get(1).toString();
-        return Double.parseDouble(openPrice);
+        chartedProductId = productId;
+        candleItems.clear();
+        candleUpdates.clear();
+        for (OHLCDataItem item : toArrayOfOHLCDataItems(candles)) {
+            candleItems.add(item);
+        }
+        candleAggregator = new CandleAggregator(productId, CHART_GRANULARITY);
+        candleAggregator.backfill(candles, asOf);
+        candleAggregator.addListener((granularity, candle, closed) -> {
+            candleUpdates.add(toOHLCDataItem(candle));
+            if (redrawPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::drawCandleUpdates);
+            }
+        });
+        liveOrderBook.addMatchListener(candleAggregator);
     }
 
-    private String getEndTime(List<BigDecimal> historicalRate) {
-        BigDecimal finalTime = historicalRate.get(0);
-        return finalTime.toString();
+    private void drawCandleUpdates() {
+        redrawPending.set(false);
+        OHLCDataItem update;
+        boolean changed = false;
+        while ((update = candleUpdates.poll()) != null) {
+            int last = candleItems.size() - 1;
+            if (last >= 0 && candleItems.get(last).getDate().equals(update.getDate())) {
+                candleItems.set(last, update);
+            } else if (last < 0 || candleItems.get(last).getDate().before(update.getDate())) {
+                candleItems.add(update);
+            }
+            changed = true;
+        }
+        if (changed && mainPlot != null) {
+            dataset = new DefaultOHLCDataset(chartedProductId, candleItems.toArray(new OHLCDataItem[0]));
+            mainPlot.setDataset(dataset);
+        }
     }
 
-    private Long getTime(List<BigDecimal> historicalRate) {
-        Long finalTime = Long.parseLong(historicalRate.get(0).toString());
-        return finalTime;
+    private static OHLCDataItem toOHLCDataItem(LiveCandle candle) {
+        return new OHLCDataItem(Date.from(Instant.ofEpochSecond(candle.getStart())), candle.getOpen(), candle.getHigh(),
+                candle.getLow(), candle.getClose(), candle.getVolumeAsDouble());
     }
 
-    public void priceTick(OrderBookMessage matchOrder) {
+    private OHLCDataItem[] toArrayOfOHLCDataItems(CandleSeries candles) {
+        OHLCDataItem[] data = new OHLCDataItem[candles.size()];
 
+        for (int i = 0; i < candles.size(); i++) {
+            Date time = Date.from(Instant.ofEpochSecond(candles.timeAt(i)));
+            data[i] = new OHLCDataItem(time, candles.openAt(i), candles.highAt(i), candles.lowAt(i),
+                    candles.closeAt(i), candles.volumeAt(i));
+        }
+        return data;
     }
 }
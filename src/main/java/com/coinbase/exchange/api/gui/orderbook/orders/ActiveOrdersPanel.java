@@ -2,28 +2,32 @@ package com.coinbase.exchange.api.gui.orderbook.orders;
 
 import com.coinbase.exchange.api.orders.Order;
 import com.coinbase.exchange.api.orders.OrderService;
+import com.coinbase.exchange.api.orders.OrderTracker;
+import com.coinbase.exchange.api.orders.TrackedOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.swing.*;
-import javax.swing.event.ListSelectionEvent;
-import javax.swing.event.ListSelectionListener;
 import java.awt.BorderLayout;
-import java.util.List;
-import java.util.Vector;
 
+/**
+ * The user's open orders, kept up to date by the {@link OrderTracker} as the feed reports changes to them.
+ * Selecting an order cancels it.
+ */
 @Component
 public class ActiveOrdersPanel extends JPanel {
 
-    private JList placedOrdersList;
-    private Vector<Order> dataModel;
+    private JList<TrackedOrder> placedOrdersList;
+    private DefaultListModel<TrackedOrder> dataModel;
     private OrderService orderService;
+    private OrderTracker orderTracker;
 
     @Autowired
-    public ActiveOrdersPanel(OrderService orderService) {
+    public ActiveOrdersPanel(OrderService orderService, OrderTracker orderTracker) {
         super();
         this.orderService = orderService;
-        this.dataModel = new Vector<>();
+        this.orderTracker = orderTracker;
+        this.dataModel = new DefaultListModel<>();
     }
 
     public JPanel init() {
@@ -31,8 +35,15 @@ public class ActiveOrdersPanel extends JPanel {
 
         initOutstandingOrders();
 
-        placedOrdersList = new JList(dataModel);
+        placedOrdersList = new JList<>(dataModel);
         placedOrdersList.setVisibleRowCount(5);
+        placedOrdersList.addListSelectionListener(e -> {
+            TrackedOrder selected = placedOrdersList.getSelectedValue();
+            if (!e.getValueIsAdjusting() && selected != null) {
+                // the order leaves the list once the feed reports it done
+                orderService.cancelOrder(selected.getOrderId());
+            }
+        });
 
         JScrollPane scrollPane = new JScrollPane(placedOrdersList);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
@@ -51,19 +62,43 @@ public class ActiveOrdersPanel extends JPanel {
 
     private void initOutstandingOrders() {
         dataModel.clear();
-        List<Order> orders = orderService.getOpenOrders();
-        dataModel.addAll(orders);
+        orderTracker.addOrderListener((previous, order) -> SwingUtilities.invokeLater(() -> show(order.getOrderId())));
+        orderTracker.start();
+        for (TrackedOrder order : orderTracker.getOpenOrders()) {
+            show(order.getOrderId());
+        }
     }
 
-    public void update(Order updateOrder) {
-        dataModel.add(updateOrder);
-        placedOrdersList.addListSelectionListener(new ListSelectionListener() {
-            @Override
-            public void valueChanged(ListSelectionEvent e) {
-                Order o = (Order) e.getSource();
-                String response = orderService.cancelOrder(o.getId());
-                dataModel.remove(e.getSource());
+    /**
+     * shows the order as the tracker has it now - updates can reach the EDT out of order, so the one passed to the
+     * listener may already be out of date. Orders that are done are removed.
+     */
+    private void show(String orderId) {
+        TrackedOrder order = orderTracker.getOrder(orderId);
+        int row = -1;
+        for (int i = 0; i < dataModel.size(); i++) {
+            if (dataModel.get(i).getOrderId().equals(orderId)) {
+                row = i;
+                break;
             }
-        });
+        }
+        if (order == null) {
+            if (row >= 0) {
+                dataModel.remove(row);
+            }
+        } else if (row >= 0) {
+            dataModel.set(row, order);
+        } else {
+            dataModel.addElement(order);
+        }
+    }
+
+    /**
+     * an order that's just been placed - shown straight away rather than once the feed reports it.
+     */
+    public void update(Order updateOrder) {
+        if (updateOrder != null) {
+            orderTracker.track(updateOrder);
+        }
     }
 }
@@ -1,7 +1,8 @@
 package com.coinbase.exchange.api.gui.orderbook.orders;
 
-import com.coinbase.exchange.api.accounts.Account;
-import com.coinbase.exchange.api.accounts.AccountService;
+import com.coinbase.exchange.api.accounts.Balance;
+import com.coinbase.exchange.api.accounts.BalanceCache;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
 import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -9,24 +10,24 @@ import org.springframework.stereotype.Component;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import javax.swing.SwingUtilities;
+import java.math.RoundingMode;
 
 import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
 
+/**
+ * What's available in each of the selected product's currencies, from the {@link BalanceCache} - updated as the
+ * cache is rather than fetched per currency.
+ */
 @Component
 public class BalancePanel extends JPanel {
 
-    private Map<String, String> accountsMap;
     private GdaxLiveOrderBook liveOrderBook;
-    private AccountService accountService;
+    private BalanceCache balanceCache;
 
     private String fromCurrency;
     private String toCurrency;
-    private String toCurrencyBalance;
-    private String fromCurrencyBalance;
 
     private JLabel currencyLabel;
     private JLabel fromBalanceLabel;
@@ -34,11 +35,10 @@ public class BalancePanel extends JPanel {
     private JLabel total;
 
     @Autowired
-    public BalancePanel(GdaxLiveOrderBook liveOrderBook, AccountService accountService) {
+    public BalancePanel(GdaxLiveOrderBook liveOrderBook, BalanceCache balanceCache) {
         super();
         this.liveOrderBook = liveOrderBook;
-        this.accountService = accountService;
-        this.accountsMap = getAccountIdsMap();
+        this.balanceCache = balanceCache;
         this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
     }
 
@@ -54,43 +54,43 @@ public class BalancePanel extends JPanel {
         JPanel fromPanel = new JPanel();
         fromPanel.setLayout(new BoxLayout(fromPanel, BoxLayout.X_AXIS));
 
-        JLabel fromCurrencyLabel = new JLabel(fromCurrency + " ");
-        try {
-            fromCurrencyBalance = accountService.getAccount(accountsMap.get(fromCurrency)).getAvailable().toPlainString();
-        } catch (NullPointerException e) {
-            fromCurrencyBalance = "0";
+        if (!balanceCache.isSeeded()) {
+            balanceCache.seed();
         }
-        BigDecimal fromCurrencyBalanceRounded = new BigDecimal(fromCurrencyBalance).setScale(PRICE_DECIMAL_PLACES, BigDecimal.ROUND_HALF_UP);
 
-        fromBalanceLabel = new JLabel(fromCurrencyBalanceRounded.toString());
+        JLabel fromCurrencyLabel = new JLabel(fromCurrency + " ");
+        fromBalanceLabel = new JLabel(available(fromCurrency));
         fromPanel.add(fromCurrencyLabel);
         fromPanel.add(fromBalanceLabel);
 
         JPanel toPanel = new JPanel();
         toPanel.setLayout(new BoxLayout(toPanel, BoxLayout.X_AXIS));
         JLabel toCurrencyLabel = new JLabel(toCurrency + " ");
-        try {
-            toCurrencyBalance = accountService.getAccount(accountsMap.get(toCurrency)).getAvailable().toPlainString();
-        } catch (NullPointerException e) {
-            toCurrencyBalance = "0";
-        }
-        BigDecimal toCurrencyBalanceRounded = new BigDecimal(toCurrencyBalance).setScale(PRICE_DECIMAL_PLACES, BigDecimal.ROUND_HALF_UP);
-        toBalanceLabel = new JLabel(toCurrencyBalanceRounded.toString());
+        toBalanceLabel = new JLabel(available(toCurrency));
         toPanel.add(toCurrencyLabel);
         toPanel.add(toBalanceLabel);
 
         mainPanel.add(fromPanel);
         mainPanel.add(toPanel);
         this.add(mainPanel);
+
+        balanceCache.addBalanceListener(this::onBalance);
     }
 
-    public Map<String, String> getAccountIdsMap() {
-        Map<String, String> accountIdsMap = new HashMap<>();
-        List<Account> accounts = accountService.getAccounts();
-        for (Account account : accounts) {
-            accountIdsMap.put(account.getCurrency(), account.getId());
+    private void onBalance(Balance balance) {
+        String currency = balance.getCurrency();
+        if (currency.equals(fromCurrency) || currency.equals(toCurrency)) {
+            SwingUtilities.invokeLater(() -> {
+                fromBalanceLabel.setText(available(fromCurrency));
+                toBalanceLabel.setText(available(toCurrency));
+            });
         }
-        return accountIdsMap;
+    }
+
+    private String available(String currency) {
+        return FixedPoint.toBigDecimal(balanceCache.getAvailable(currency), SIZE_DECIMAL_PLACES)
+                .setScale(PRICE_DECIMAL_PLACES, RoundingMode.HALF_UP)
+                .toString();
     }
 
     public JLabel getCurrencyLabel() {
@@ -1,5 +1,6 @@
 package com.coinbase.exchange.api.gui.orderbook.orders;
 
+import com.coinbase.exchange.api.accounts.BalanceCache;
 import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
 import com.coinbase.exchange.api.orders.Order;
 import com.coinbase.exchange.api.orders.OrderService;
@@ -24,6 +25,7 @@ public class LimitOrdersPanel extends JPanel {
     private JTextField funds;
     private OrderService orderService;
     private BalancePanel balancePanel;
+    private BalanceCache balanceCache;
     private ActiveOrdersPanel placeOrdersPanel;
     private JTextField limitPriceField;
     private JTextField amountOfCurrencyField;
@@ -37,11 +39,13 @@ public class LimitOrdersPanel extends JPanel {
     public LimitOrdersPanel(GdaxLiveOrderBook liveOrderBook,
                             OrderService orderService,
                             BalancePanel balancePanel,
+                            BalanceCache balanceCache,
                             ActiveOrdersPanel placeOrdersPanel) {
         super();
         this.liveOrderBook = liveOrderBook;
         this.orderService = orderService;
         this.balancePanel = balancePanel;
+        this.balanceCache = balanceCache;
         this.placeOrdersPanel = placeOrdersPanel;
     }
 
@@ -209,6 +213,10 @@ public class LimitOrdersPanel extends JPanel {
             @Override
             public void mouseClicked(MouseEvent e) {
                 Order marketOrder = createLimitOrder(liveOrderBook.getSelectedProductId());
+                if (!balanceCache.hasFunds(marketOrder)) {
+                    log.warn("Insufficient funds for {}", marketOrder);
+                    return;
+                }
                 Order responseOrder = orderService.createOrder(marketOrder);
                 log.info("ORDER PLACED: {}", responseOrder.toString());
                 placeOrdersPanel.update(responseOrder);
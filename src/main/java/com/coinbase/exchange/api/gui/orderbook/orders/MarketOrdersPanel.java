@@ -1,5 +1,6 @@
 package com.coinbase.exchange.api.gui.orderbook.orders;
 
+import com.coinbase.exchange.api.accounts.BalanceCache;
 import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
 import com.coinbase.exchange.api.orders.Order;
 import com.coinbase.exchange.api.orders.OrderService;
@@ -32,6 +33,7 @@ public class MarketOrdersPanel extends JPanel {
     private JTextField funds;
     private OrderService orderService;
     private BalancePanel balancePanel;
+    private BalanceCache balanceCache;
     private ActiveOrdersPanel placeOrdersPanel;
     private JTextField sizeOfOrder;
     private JButton buyButton;
@@ -44,11 +46,13 @@ public class MarketOrdersPanel extends JPanel {
     public MarketOrdersPanel(GdaxLiveOrderBook liveOrderBook,
                              OrderService orderService,
                              BalancePanel balancePanel,
+                             BalanceCache balanceCache,
                              ActiveOrdersPanel placeOrdersPanel){
         super();
         this.liveOrderBook = liveOrderBook;
         this.orderService = orderService;
         this.balancePanel = balancePanel;
+        this.balanceCache = balanceCache;
         this.placeOrdersPanel = placeOrdersPanel;
     }
 
@@ -174,6 +178,10 @@ public class MarketOrdersPanel extends JPanel {
             public void mouseClicked(MouseEvent e) {
                 try {
                     Order marketOrder = createMarketOrder(liveOrderBook.getSelectedProductId());
+                    if (!balanceCache.hasFunds(marketOrder)) {
+                        log.warn("Insufficient funds for {}", marketOrder);
+                        return;
+                    }
                     Order responseOrder = orderService.createOrder(marketOrder);
                     log.info("ORDER PLACED: {}", responseOrder.toString());
                     placeOrdersPanel.update(responseOrder);
@@ -0,0 +1,37 @@
+package com.coinbase.exchange.api.marketdata;
+
+import com.coinbase.exchange.api.exchange.AsyncGdaxExchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.coinbase.exchange.api.marketdata.MarketDataService.PRODUCT_ENDPOINT;
+
+/**
+ * {@link MarketDataService} over {@link AsyncGdaxExchange}.
+ */
+@Component
+public class AsyncMarketDataService {
+
+    private AsyncGdaxExchange exchange;
+
+    @Autowired
+    public AsyncMarketDataService(AsyncGdaxExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public CompletableFuture<MarketData> getMarketDataOrderBook(String productId, String level) {
+        String marketDataEndpoint = PRODUCT_ENDPOINT + "/" + productId + "/book";
+        if (level != null && !level.equals(""))
+            marketDataEndpoint += "?level=" + level;
+        return exchange.get(marketDataEndpoint, new ParameterizedTypeReference<MarketData>(){});
+    }
+
+    public CompletableFuture<List<Trade>> getTrades(String productId) {
+        String tradesEndpoint = PRODUCT_ENDPOINT + "/" + productId + "/trades";
+        return exchange.getAsList(tradesEndpoint, new ParameterizedTypeReference<Trade[]>(){});
+    }
+}
@@ -1,11 +1,19 @@
 package com.coinbase.exchange.api.marketdata;
 
 import com.coinbase.exchange.api.exchange.GdaxExchange;
+import com.coinbase.exchange.api.exchange.Page;
+import com.coinbase.exchange.api.orderbook.OrderBook;
+import com.coinbase.exchange.api.orderbook.OrderBookSnapshotLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Created by robevansuk on 07/02/2017.
@@ -14,6 +22,7 @@ import java.util.List;
 public class MarketDataService {
 
     private GdaxExchange exchange;
+    private ExecutorService backfillExecutor;
 
     @Autowired
     public MarketDataService(GdaxExchange exchange) {
@@ -29,8 +38,59 @@ public class MarketDataService {
        return exchange.get(marketDataEndpoint, new ParameterizedTypeReference<MarketData>(){});
     }
 
+    /**
+     * streams the product's order book straight into the given book, which is cleared first.
+     * Much cheaper than {@link #getMarketDataOrderBook} for a full (level 3) book.
+     *
+     * @return the snapshot's sequence number, or null if it couldn't be fetched.
+     */
+    public Long loadOrderBook(String productId, String level, OrderBook orderBook) {
+        String marketDataEndpoint = PRODUCT_ENDPOINT + "/" + productId + "/book";
+        if (level != null && !level.equals(""))
+            marketDataEndpoint += "?level=" + level;
+        OrderBookSnapshotLoader loader = new OrderBookSnapshotLoader();
+        return exchange.get(marketDataEndpoint, response -> loader.load(response.getBody(), orderBook));
+    }
+
     public List<Trade> getTrades(String productId) {
         String tradesEndpoint = PRODUCT_ENDPOINT + "/" + productId + "/trades";
         return exchange.getAsList(tradesEndpoint, new ParameterizedTypeReference<Trade[]>(){});
     }
+
+    /**
+     * up to limit of the trades immediately before the given trade id, newest first.
+     */
+    public List<Trade> getTradesBefore(String productId, long tradeId, int limit) {
+        String tradesEndpoint = PRODUCT_ENDPOINT + "/" + productId + "/trades";
+        Page<Trade> page = exchange.getPage(tradesEndpoint, new ParameterizedTypeReference<Trade[]>(){},
+                Page.AFTER, String.valueOf(tradeId), limit);
+        return page == null ? Collections.emptyList() : page.getItems();
+    }
+
+    /**
+     * a tape of the product's trades, started off with its most recent trades and filling any gaps from the trades
+     * endpoint on a background thread. Register it with the product's live order book to keep it up to date.
+     *
+     * @param ingestExecutor runs tasks on the thread applying the product's feed - its FeedIngestThread's execute.
+     */
+    public TradeTape createTradeTape(String productId, int capacity, Executor ingestExecutor, Duration... windows) {
+        TradeTape tradeTape = new TradeTape(productId, capacity, this::getTradesBefore, getBackfillExecutor(),
+                ingestExecutor, windows);
+        List<Trade> recent = getTrades(productId);
+        if (recent != null) {
+            tradeTape.backfill(recent);
+        }
+        return tradeTape;
+    }
+
+    private synchronized Executor getBackfillExecutor() {
+        if (backfillExecutor == null) {
+            backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gdax-trade-backfill");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return backfillExecutor;
+    }
 }
@@ -43,11 +43,12 @@ public class OrderItem implements Comparable {
         }
         price =  new BigDecimal(limitOrders.get(0));
         size = new BigDecimal(limitOrders.get(1));
+        // level 3 rows end in the order id, level 1 and 2 rows in the number of orders at that price
         if (isString(limitOrders.get(2))) {
             orderId = limitOrders.get(2);
             num = new BigDecimal(1);
         } else {
-            num = new BigDecimal(1);
+            num = new BigDecimal(limitOrders.get(2));
         }
     }
 
@@ -96,19 +97,22 @@ public class OrderItem implements Comparable {
         return this.getPrice().compareTo(((OrderItem)o).getPrice()) * -1;
     }
 
+    /**
+     * true unless the value is a plain (optionally decimal) number.
+     */
     public boolean isString(String value) {
         boolean isDecimalSeparatorFound = false;
 
-        for (char c : value.substring( 1 ).toCharArray()) {
+        for (char c : value.toCharArray()) {
             if (!Character.isDigit( c ) ) {
                 if (c == '.' && !isDecimalSeparatorFound) {
                     isDecimalSeparatorFound = true;
                     continue;
                 }
-                return false;
+                return true;
             }
         }
-        return true;
+        return value.isEmpty();
     }
 
     public BigDecimal getRemainingSize() {
@@ -0,0 +1,437 @@
+package com.coinbase.exchange.api.marketdata;
+
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.MATCH;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * The most recent trades for one product, taken from the matches on the websocket feed, with VWAP, volume and
+ * trade count kept up to date over a set of rolling time windows.
+ *
+ * Trades are held in a preallocated ring of primitive columns, so recording one allocates nothing and the oldest
+ * trade is simply overwritten once the ring is full. Each {@link Window} adds a trade as it arrives and subtracts
+ * trades as they fall out of the back of the window, so its statistics never need the tape to be rescanned.
+ *
+ * Trade ids are consecutive per product, so a jump in them means trades were missed - typically whilst the order
+ * book was resyncing. One page of the missing trades is fetched with the {@link TradeSource} on the fetch executor,
+ * so the feed never waits on the request, and handed back through the ingest executor to be recorded ahead of the
+ * new trade. Trades arriving in the meantime are held back until then, keeping the tape in trade id order.
+ *
+ * Register it with {@link GdaxLiveOrderBook#addMatchListener}. Not thread safe - read it on the feed's ingest
+ * thread, where it's written.
+ */
+public class TradeTape implements GdaxLiveOrderBook.MatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeTape.class);
+
+    /**
+     * the most trades fetched to fill a single gap.
+     */
+    public static final int MAX_BACKFILL = 100;
+
+    /**
+     * where missed trades are fetched from - {@link MarketDataService#getTradesBefore} outside of tests.
+     */
+    public interface TradeSource {
+        /**
+         * up to limit of the trades immediately before tradeId, in any order.
+         */
+        List<Trade> tradesBefore(String productId, long tradeId, int limit);
+    }
+
+    private final String productId;
+    private final TradeSource tradeSource;
+    private final Executor fetchExecutor;
+    private final Executor ingestExecutor;
+    private final int mask;
+    private final long[] tradeIds;
+    private final long[] timesMicros;
+    private final long[] prices;
+    private final long[] sizes;
+    private final boolean[] buySides;
+    private final Window[] windows;
+
+    // sequence number of the next trade to be recorded - trade n is at index n & mask
+    private long head;
+    private long lastTradeId = FeedMessage.ABSENT;
+    // the latest trade id to arrive, recorded or held
+    private long lastArrivedTradeId = FeedMessage.ABSENT;
+    // trades that arrived whilst a gap before them was being fetched - {tradeId, timeMicros, price, size, buy ? 1 : 0}
+    private final List<long[]> held = new ArrayList<>();
+    private boolean backfilling;
+    // tells a late backfill apart from the current one, once it's been given up on
+    private long backfillGeneration;
+    private long latestTimeMicros = Long.MIN_VALUE;
+    private long tradesMissed;
+    private long tradesBackfilled;
+
+    /**
+     * @param capacity rounded up to a power of two. Windows only cover trades still on the tape, so it needs to be
+     *                 large enough to hold the busiest stretch of the longest window.
+     * @param tradeSource null to leave gaps unfilled.
+     * @param fetchExecutor where the trade source is called from - not the ingest thread.
+     * @param ingestExecutor hands the fetched trades back to the thread feeding the tape, typically
+     *                       {@link com.coinbase.exchange.api.websocketfeed.FeedIngestThread#execute}.
+     */
+    public TradeTape(String productId, int capacity, TradeSource tradeSource,
+                     Executor fetchExecutor, Executor ingestExecutor, Duration... windows) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.productId = productId;
+        this.tradeSource = tradeSource;
+        this.fetchExecutor = fetchExecutor;
+        this.ingestExecutor = ingestExecutor;
+        this.mask = size - 1;
+        this.tradeIds = new long[size];
+        this.timesMicros = new long[size];
+        this.prices = new long[size];
+        this.sizes = new long[size];
+        this.buySides = new boolean[size];
+        this.windows = new Window[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            this.windows[i] = new Window(windows[i]);
+        }
+    }
+
+    @Override
+    public void onMatch(FeedMessage match) {
+        if (!MATCH.equals(match.getType()) || !productId.equals(match.getProductId())
+                || match.getTimeMicros() == FeedMessage.ABSENT || !match.hasPrice()) {
+            return;
+        }
+        long tradeId = match.getTradeId();
+        boolean gap = false;
+        if (tradeId != FeedMessage.ABSENT && lastArrivedTradeId != FeedMessage.ABSENT) {
+            if (tradeId <= lastArrivedTradeId) {
+                return;
+            }
+            gap = tradeId > lastArrivedTradeId + 1;
+        }
+        long size = match.getSize() == FeedMessage.ABSENT ? 0 : match.getSize();
+        if (!backfilling && !(gap && tradeSource != null)) {
+            countMissedBefore(tradeId);
+            record(tradeId, match.getTimeMicros(), match.getPrice(), size, match.isBuy());
+            return;
+        }
+        held.add(new long[]{tradeId, match.getTimeMicros(), match.getPrice(), size, match.isBuy() ? 1 : 0});
+        if (tradeId != FeedMessage.ABSENT) {
+            lastArrivedTradeId = tradeId;
+        }
+        if (!backfilling) {
+            startBackfill(tradeId);
+        } else if (held.size() > tradeIds.length) {
+            log.warn("Gave up waiting for the {} trades missed before {}", productId, held.get(0)[0]);
+            backfilling = false;
+            backfillGeneration++;
+            releaseHeld();
+        }
+    }
+
+    /**
+     * records trades fetched from the trades endpoint - those the tape already has are skipped.
+     */
+    public void backfill(List<Trade> trades) {
+        backfill(trades, Long.MAX_VALUE);
+    }
+
+    private void backfill(List<Trade> trades, long beforeTradeId) {
+        List<Trade> sorted = new ArrayList<>(trades);
+        sorted.sort(Comparator.comparing(Trade::getTrade_id));
+        for (Trade trade : sorted) {
+            long tradeId = trade.getTrade_id();
+            if ((lastTradeId == FeedMessage.ABSENT || tradeId > lastTradeId) && tradeId < beforeTradeId) {
+                record(tradeId, trade.getTime().getMillis() * 1000L,
+                        FixedPoint.toScaled(trade.getPrice(), PRICE_DECIMAL_PLACES),
+                        FixedPoint.toScaled(trade.getSize(), SIZE_DECIMAL_PLACES), BUY.equals(trade.getSide()));
+                tradesBackfilled++;
+            }
+        }
+    }
+
+    /**
+     * fetches the trades missed before the given one on the fetch executor, without waiting for them.
+     */
+    private void startBackfill(long tradeId) {
+        int limit = (int) Math.min(tradeId - lastTradeId - 1, MAX_BACKFILL);
+        long generation = ++backfillGeneration;
+        backfilling = true;
+        fetchExecutor.execute(() -> {
+            List<Trade> trades;
+            try {
+                trades = tradeSource.tradesBefore(productId, tradeId, limit);
+            } catch (RuntimeException e) {
+                log.error("Unable to fetch the {} trades missed before {}", productId, tradeId, e);
+                trades = new ArrayList<>();
+            }
+            List<Trade> fetched = trades;
+            ingestExecutor.execute(() -> finishBackfill(generation, tradeId, fetched));
+        });
+    }
+
+    private void finishBackfill(long generation, long tradeId, List<Trade> trades) {
+        if (!backfilling || generation != backfillGeneration) {
+            return;
+        }
+        backfilling = false;
+        backfill(trades, tradeId);
+        releaseHeld();
+    }
+
+    /**
+     * records the trades held back whilst backfilling, counting any still missing before them.
+     */
+    private void releaseHeld() {
+        for (long[] trade : held) {
+            countMissedBefore(trade[0]);
+            record(trade[0], trade[1], trade[2], trade[3], trade[4] == 1);
+        }
+        held.clear();
+    }
+
+    private void countMissedBefore(long tradeId) {
+        if (tradeId != FeedMessage.ABSENT && lastTradeId != FeedMessage.ABSENT && tradeId > lastTradeId + 1) {
+            long missing = tradeId - lastTradeId - 1;
+            tradesMissed += missing;
+            log.warn("{} {} trades missed before {}", missing, productId, tradeId);
+        }
+    }
+
+    private void record(long tradeId, long timeMicros, long price, long size, boolean buySide) {
+        long overwritten = head - tradeIds.length;
+        if (overwritten >= 0) {
+            for (Window window : windows) {
+                window.evictThrough(overwritten);
+            }
+        }
+        int index = (int) (head & mask);
+        tradeIds[index] = tradeId;
+        timesMicros[index] = timeMicros;
+        prices[index] = price;
+        sizes[index] = size;
+        buySides[index] = buySide;
+        head++;
+        if (tradeId != FeedMessage.ABSENT) {
+            lastTradeId = tradeId;
+            lastArrivedTradeId = Math.max(lastArrivedTradeId, tradeId);
+        }
+        latestTimeMicros = Math.max(latestTimeMicros, timeMicros);
+        for (Window window : windows) {
+            window.add(price, size);
+            window.expire(latestTimeMicros);
+        }
+    }
+
+    /**
+     * drops trades that have fallen out of the windows as of the given time - trades only move the windows on
+     * as they arrive, so call this to have quiet periods show up.
+     */
+    public void advanceTo(long nowMicros) {
+        latestTimeMicros = Math.max(latestTimeMicros, nowMicros);
+        for (Window window : windows) {
+            window.expire(latestTimeMicros);
+        }
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getCapacity() {
+        return tradeIds.length;
+    }
+
+    /**
+     * number of trades on the tape.
+     */
+    public int size() {
+        return (int) Math.min(head, tradeIds.length);
+    }
+
+    /**
+     * index 0 is the oldest trade on the tape, size() - 1 the latest.
+     */
+    public long tradeIdAt(int index) {
+        return tradeIds[slot(index)];
+    }
+
+    public long timeMicrosAt(int index) {
+        return timesMicros[slot(index)];
+    }
+
+    public long priceAt(int index) {
+        return prices[slot(index)];
+    }
+
+    public long sizeAt(int index) {
+        return sizes[slot(index)];
+    }
+
+    /**
+     * the side of the resting (maker) order, as on the feed.
+     */
+    public boolean isBuySideAt(int index) {
+        return buySides[slot(index)];
+    }
+
+    /**
+     * the latest trade's price, or {@link FeedMessage#ABSENT} before the first trade.
+     */
+    public long getLastPrice() {
+        return head == 0 ? FeedMessage.ABSENT : prices[(int) ((head - 1) & mask)];
+    }
+
+    public long getLastTradeId() {
+        return lastTradeId;
+    }
+
+    public Window[] getWindows() {
+        return windows.clone();
+    }
+
+    /**
+     * the window of exactly the given length, or null if there isn't one.
+     */
+    public Window getWindow(Duration duration) {
+        for (Window window : windows) {
+            if (window.duration.equals(duration)) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * trades that couldn't be fetched to fill a gap in the trade ids.
+     */
+    public long getTradesMissed() {
+        return tradesMissed;
+    }
+
+    public long getTradesBackfilled() {
+        return tradesBackfilled;
+    }
+
+    /**
+     * whether trades are being held back whilst a gap before them is fetched.
+     */
+    public boolean isBackfilling() {
+        return backfilling;
+    }
+
+    private int slot(int index) {
+        int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Trade " + index + " of " + size);
+        }
+        return (int) ((head - size + index) & mask);
+    }
+
+    /**
+     * running totals for the trades in the last {@link #getDuration()} - from the tail of the tape up to the head.
+     */
+    public final class Window {
+
+        private final Duration duration;
+        private final long durationMicros;
+        // sequence number of the oldest trade in the window
+        private long tail;
+        private int tradeCount;
+        private long volume;
+        private double notional;
+        private long truncated;
+
+        Window(Duration duration) {
+            this.duration = duration;
+            this.durationMicros = duration.toNanos() / 1000L;
+        }
+
+        void add(long price, long size) {
+            tradeCount++;
+            volume += size;
+            notional += FixedPoint.toDouble(price, PRICE_DECIMAL_PLACES) * FixedPoint.toDouble(size, SIZE_DECIMAL_PLACES);
+        }
+
+        void expire(long nowMicros) {
+            long cutoff = nowMicros - durationMicros;
+            while (tail < head && timesMicros[(int) (tail & mask)] <= cutoff) {
+                evict();
+            }
+        }
+
+        /**
+         * the trade with this sequence number is about to be overwritten - drop it and anything before it.
+         */
+        void evictThrough(long sequence) {
+            while (tail <= sequence && tail < head) {
+                evict();
+                truncated++;
+            }
+        }
+
+        private void evict() {
+            int index = (int) (tail & mask);
+            tail++;
+            tradeCount--;
+            volume -= sizes[index];
+            if (tradeCount == 0) {
+                // start again from exactly zero rather than carry rounding error forward
+                notional = 0;
+            } else {
+                notional -= FixedPoint.toDouble(prices[index], PRICE_DECIMAL_PLACES)
+                        * FixedPoint.toDouble(sizes[index], SIZE_DECIMAL_PLACES);
+            }
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public int getTradeCount() {
+            return tradeCount;
+        }
+
+        /**
+         * scaled to SIZE_DECIMAL_PLACES.
+         */
+        public long getVolume() {
+            return volume;
+        }
+
+        public double getVolumeAsDouble() {
+            return FixedPoint.toDouble(volume, SIZE_DECIMAL_PLACES);
+        }
+
+        /**
+         * sum of price * size.
+         */
+        public double getNotional() {
+            return notional;
+        }
+
+        /**
+         * volume weighted average price, or NaN if there have been no trades in the window.
+         */
+        public double getVwap() {
+            return volume == 0 ? Double.NaN : notional / getVolumeAsDouble();
+        }
+
+        /**
+         * trades that left the window early because the tape ran out of room for them.
+         */
+        public long getTruncated() {
+            return truncated;
+        }
+    }
+}
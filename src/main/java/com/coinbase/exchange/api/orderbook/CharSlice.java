@@ -0,0 +1,71 @@
+package com.coinbase.exchange.api.orderbook;
+
+/**
+ * A reusable view over part of a char array - typically a JSON parser's text buffer - so decimals can be handed
+ * to {@link FixedPoint#parse(CharSequence, int)} and values compared against constants without creating Strings.
+ * Only valid until whatever owns the array moves on.
+ */
+public final class CharSlice implements CharSequence {
+
+    private char[] buffer;
+    private int offset;
+    private int length;
+
+    public CharSlice wrap(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public boolean contentEquals(String value) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[offset + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * true if the slice is a plain unsigned number, optionally with a decimal point.
+     */
+    public boolean isNumeric() {
+        boolean digitSeen = false;
+        boolean decimalSeparatorSeen = false;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[offset + i];
+            if (c >= '0' && c <= '9') {
+                digitSeen = true;
+            } else if (c == '.' && !decimalSeparatorSeen) {
+                decimalSeparatorSeen = true;
+            } else {
+                return false;
+            }
+        }
+        return digitSeen;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return buffer[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length);
+    }
+}
@@ -0,0 +1,122 @@
+package com.coinbase.exchange.api.orderbook;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between decimal prices/sizes and the scaled longs the order book engine works in.
+ * A price of 9600.12 held with 5 decimal places is stored as 960012000L.
+ * Rounding is always half up, the same as the setScale calls the table models used to make.
+ */
+public final class FixedPoint {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+
+    private FixedPoint() { }
+
+    public static long toScaled(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * parses a plain decimal such as "9600.12" or "-0.5" without allocating.
+     * Digits beyond the requested scale are rounded half up.
+     */
+    public static long parse(CharSequence text, int scale) {
+        return parse(text, 0, text.length(), scale);
+    }
+
+    public static long parse(CharSequence text, int start, int end, int scale) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty decimal");
+        }
+        boolean negative = false;
+        int i = start;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long result = 0;
+        int fractionDigits = -1;
+        boolean roundUp = false;
+        boolean digitSeen = false;
+        for (; i < end; i++) {
+            c = text.charAt(i);
+            if (c == '.') {
+                if (fractionDigits >= 0) {
+                    throw new NumberFormatException("Invalid decimal: " + text.subSequence(start, end));
+                }
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                digitSeen = true;
+                if (fractionDigits < 0) {
+                    result = result * 10 + (c - '0');
+                } else if (fractionDigits < scale) {
+                    result = result * 10 + (c - '0');
+                    fractionDigits++;
+                } else if (fractionDigits == scale) {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else {
+                throw new NumberFormatException("Invalid decimal: " + text.subSequence(start, end));
+            }
+        }
+        if (!digitSeen) {
+            throw new NumberFormatException("Invalid decimal: " + text.subSequence(start, end));
+        }
+        int scaledDigits = Math.max(fractionDigits, 0);
+        if (scaledDigits < scale) {
+            result *= POWERS_OF_TEN[scale - scaledDigits];
+        }
+        if (roundUp) {
+            result++;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * for charts and statistics - not exact, so never feed the result back into the book.
+     */
+    public static double toDouble(long scaled, int scale) {
+        return (double) scaled / POWERS_OF_TEN[scale];
+    }
+
+    public static long fromDouble(double value, int scale) {
+        return Math.round(value * POWERS_OF_TEN[scale]);
+    }
+
+    public static BigDecimal toBigDecimal(long scaled, int scale) {
+        return BigDecimal.valueOf(scaled, scale);
+    }
+
+    /**
+     * formats with exactly {@code scale} decimal places, e.g. 960012000L at scale 5 is "9600.12000".
+     */
+    public static String toString(long scaled, int scale) {
+        StringBuilder sb = new StringBuilder(24);
+        appendTo(sb, scaled, scale);
+        return sb.toString();
+    }
+
+    public static void appendTo(StringBuilder sb, long scaled, int scale) {
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        long unit = POWERS_OF_TEN[scale];
+        sb.append(scaled / unit);
+        if (scale > 0) {
+            sb.append('.');
+            String fraction = Long.toString(scaled % unit);
+            for (int i = fraction.length(); i < scale; i++) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+    }
+}
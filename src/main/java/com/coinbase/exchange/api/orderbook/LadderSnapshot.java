@@ -0,0 +1,77 @@
+package com.coinbase.exchange.api.orderbook;
+
+import java.math.BigDecimal;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * Immutable copy of a {@link PriceLadder}, best price first, that can be handed to other threads.
+ */
+public class LadderSnapshot {
+
+    public static final LadderSnapshot EMPTY_BIDS = new LadderSnapshot(true, new long[0], new long[0], new int[0]);
+    public static final LadderSnapshot EMPTY_ASKS = new LadderSnapshot(false, new long[0], new long[0], new int[0]);
+
+    private final boolean bidSide;
+    private final long[] prices;
+    private final long[] sizes;
+    private final int[] orderCounts;
+
+    LadderSnapshot(boolean bidSide, long[] prices, long[] sizes, int[] orderCounts) {
+        this.bidSide = bidSide;
+        this.prices = prices;
+        this.sizes = sizes;
+        this.orderCounts = orderCounts;
+    }
+
+    public boolean isBidSide() {
+        return bidSide;
+    }
+
+    public int depth() {
+        return prices.length;
+    }
+
+    public long priceAt(int level) {
+        return prices[level];
+    }
+
+    public long sizeAt(int level) {
+        return sizes[level];
+    }
+
+    public int orderCountAt(int level) {
+        return orderCounts[level];
+    }
+
+    public BigDecimal getPrice(int level) {
+        return FixedPoint.toBigDecimal(prices[level], PRICE_DECIMAL_PLACES);
+    }
+
+    public BigDecimal getSize(int level) {
+        return FixedPoint.toBigDecimal(sizes[level], SIZE_DECIMAL_PLACES);
+    }
+
+    /**
+     * @return the level holding this price, or (-(insertion level) - 1) if there is no such level.
+     */
+    public int levelOf(long price) {
+        int low = 0;
+        int high = prices.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            // best first: descending for bids, ascending for asks
+            int cmp = bidSide ? Long.compare(price, midPrice) : Long.compare(midPrice, price);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
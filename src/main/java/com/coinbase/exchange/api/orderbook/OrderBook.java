@@ -0,0 +1,256 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+
+/**
+ * Headless order book for a single product: a bid and an ask {@link PriceLadder} plus the sequence number
+ * the book is up to. Knows nothing about Swing - the table models are adapters that read from the ladders.
+ *
+ * Once a level 3 snapshot (one row per order) has been loaded, every resting order is indexed by order_id and
+ * open/match/change/done messages are applied exactly against the size the book holds for that order, so the
+ * levels can't drift from the exchange. A book seeded from level 1 or 2 data has no order ids to go on, so
+ * messages are applied in aggregated form instead, adjusting their price level by the sizes they carry.
+ */
+public class OrderBook {
+
+    private static final int INITIAL_ORDER_CAPACITY = 1 << 16;
+
+    private final PriceLadder bids;
+    private final PriceLadder asks;
+    private final Map<String, RestingOrder> orders;
+    private final FeedMessage scratch = new FeedMessage();
+    private boolean level3;
+    private long sequence;
+
+    public OrderBook() {
+        this.bids = new PriceLadder(true);
+        this.asks = new PriceLadder(false);
+        this.orders = new HashMap<>(INITIAL_ORDER_CAPACITY);
+    }
+
+    public PriceLadder getBids() {
+        return bids;
+    }
+
+    public PriceLadder getAsks() {
+        return asks;
+    }
+
+    public PriceLadder getSide(String side) {
+        return BUY.equals(side) ? bids : asks;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * changes whenever either side of the book does.
+     */
+    public long getVersion() {
+        return bids.getVersion() + asks.getVersion();
+    }
+
+    public OrderBookSnapshot snapshot() {
+        return new OrderBookSnapshot(sequence, bids.snapshot(), asks.snapshot());
+    }
+
+    /**
+     * true once orders are being tracked individually by order_id.
+     */
+    public boolean isLevel3() {
+        return level3;
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    public boolean containsOrder(String orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    /**
+     * @return the scaled size still resting for this order, or -1 if the book doesn't hold it.
+     */
+    public long getRemainingSize(String orderId) {
+        RestingOrder order = orders.get(orderId);
+        return order == null ? -1L : order.remainingSize;
+    }
+
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        orders.clear();
+        level3 = false;
+        sequence = 0;
+    }
+
+    /**
+     * adds a row of a level 2 or level 3 snapshot to the book.
+     */
+    public void addSnapshotEntry(OrderItem item, String side) {
+        long price = FixedPoint.toScaled(item.getPrice(), PRICE_DECIMAL_PLACES);
+        long size = FixedPoint.toScaled(item.getSize(), SIZE_DECIMAL_PLACES);
+        if (item.getOrderId() != null) {
+            level3 = true;
+            openOrder(item.getOrderId(), BUY.equals(side), price, size);
+        } else {
+            getSide(side).add(price, size, item.getNum().intValue());
+        }
+    }
+
+    /**
+     * indexes an order from a level 3 snapshot without touching the ladders - {@link OrderBookSnapshotLoader}
+     * builds those in bulk.
+     */
+    void restOrder(String orderId, boolean bid, long price, long size) {
+        level3 = true;
+        orders.put(orderId, new RestingOrder(bid, price, size));
+    }
+
+    /**
+     * applies a bound websocket feed message. Only kept for callers that still have an OrderBookMessage -
+     * the feed itself decodes straight to {@link FeedMessage}s.
+     */
+    public void apply(OrderBookMessage message) {
+        apply(scratch.copyFrom(message));
+    }
+
+    /**
+     * applies a websocket feed message to the relevant side of the book.
+     */
+    public void apply(FeedMessage message) {
+        if (message.getType() == null) {
+            return;
+        }
+        if (level3) {
+            applyToOrder(message);
+        } else if (message.hasPrice()) {
+            applyToLevel(message);
+        }
+        if (message.hasSequence()) {
+            sequence = message.getSequence();
+        }
+    }
+
+    private void applyToOrder(FeedMessage message) {
+        switch (message.getType()) {
+            case OPEN:
+                if (message.getOrderId() != null && message.hasPrice()) {
+                    openOrder(message.getOrderId(), message.isBuy(), message.getPrice(), sizeOrZero(message.getRemainingSize()));
+                }
+                break;
+            case MATCH:
+                fillOrder(message.getMakerOrderId(), sizeOrZero(message.getSize()));
+                break;
+            case DONE:
+                removeOrder(message.getOrderId());
+                break;
+            case CHANGE:
+                if (message.getNewSize() != FeedMessage.ABSENT) {
+                    resizeOrder(message.getOrderId(), message.getNewSize());
+                }
+                break;
+            default:
+                // received, activate etc. don't rest on the book
+                break;
+        }
+    }
+
+    private void openOrder(String orderId, boolean bid, long price, long size) {
+        removeOrder(orderId);
+        orders.put(orderId, new RestingOrder(bid, price, size));
+        ladderFor(bid).add(price, size, 1);
+    }
+
+    /**
+     * a maker order filled down to nothing leaves the book with the match rather than waiting for its done
+     * message, so the level's size and order count reach zero together.
+     */
+    private void fillOrder(String orderId, long filledSize) {
+        RestingOrder order = orderId == null ? null : orders.get(orderId);
+        if (order == null) {
+            return;
+        }
+        long filled = Math.min(filledSize, order.remainingSize);
+        order.remainingSize -= filled;
+        if (order.remainingSize == 0) {
+            orders.remove(orderId);
+            ladderFor(order.bid).reduce(order.price, filled, 1);
+        } else {
+            ladderFor(order.bid).reduce(order.price, filled, 0);
+        }
+    }
+
+    /**
+     * done messages for orders we don't hold are for market orders or orders filled on receipt,
+     * which never rested on the book, so there's nothing to take off.
+     */
+    private void removeOrder(String orderId) {
+        RestingOrder order = orderId == null ? null : orders.remove(orderId);
+        if (order != null) {
+            ladderFor(order.bid).reduce(order.price, order.remainingSize, 1);
+        }
+    }
+
+    private void resizeOrder(String orderId, long newSize) {
+        RestingOrder order = orderId == null ? null : orders.get(orderId);
+        if (order != null) {
+            ladderFor(order.bid).adjust(order.price, newSize - order.remainingSize, 0);
+            order.remainingSize = newSize;
+        }
+    }
+
+    private PriceLadder ladderFor(boolean bid) {
+        return bid ? bids : asks;
+    }
+
+    /**
+     * Matches carry the maker's side, so they reduce the resting side the same way a cancel does.
+     */
+    private void applyToLevel(FeedMessage message) {
+        PriceLadder ladder = getSide(message.getSide());
+        long price = message.getPrice();
+
+        switch (message.getType()) {
+            case OPEN:
+                ladder.add(price, sizeOrZero(message.getRemainingSize()), 1);
+                break;
+            case MATCH:
+                ladder.reduce(price, sizeOrZero(message.getSize()), 0);
+                break;
+            case DONE:
+                if (CANCELED.equals(message.getReason())) {
+                    ladder.reduce(price, sizeOrZero(message.getRemainingSize()), 1);
+                } else if (FILLED.equals(message.getReason())) {
+                    // the matches that filled this order have already taken its size off the level
+                    ladder.reduce(price, 0L, 1);
+                }
+                break;
+            case CHANGE:
+                if (message.getOldSize() != FeedMessage.ABSENT && message.getNewSize() != FeedMessage.ABSENT) {
+                    ladder.adjust(price, message.getNewSize() - message.getOldSize(), 0);
+                }
+                break;
+            default:
+                // received, activate etc. don't rest on the book
+                break;
+        }
+    }
+
+    private static long sizeOrZero(long size) {
+        return size == FeedMessage.ABSENT ? 0L : size;
+    }
+}
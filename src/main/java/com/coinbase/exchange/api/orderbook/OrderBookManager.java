@@ -0,0 +1,227 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.websocketfeed.FeedIngestThread;
+import com.coinbase.exchange.api.websocketfeed.FeedMessageDecoder;
+import com.coinbase.exchange.api.websocketfeed.WebsocketFeed;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the order books of many products over the one websocket connection.
+ *
+ * All the products are subscribed to in a single subscribe message. The feed's ingest thread only looks far enough
+ * into each frame to find its product_id and hands the raw frame to the worker that owns that product; the worker
+ * decodes it and applies it to the product's book. Products are dealt out to the workers round robin, each has its
+ * own {@link GdaxLiveOrderBook} and so its own sequence tracking and gap recovery, and each book is only ever
+ * touched by its worker thread.
+ */
+@Component
+public class OrderBookManager {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBookManager.class);
+
+    private static final String PRODUCT_ID_FIELD = "\"product_id\"";
+
+    private final WebsocketFeed websocketFeed;
+    private final String[] productIds;
+    private final Worker[] workersByProduct;
+    private final List<Worker> workers;
+    private final Map<String, GdaxLiveOrderBook> books;
+    private final WebsocketFeed.MessageHandler router = this::dispatch;
+    private boolean started;
+
+    @Autowired
+    public OrderBookManager(@Value("${orderbookmanager.enabled}") boolean isEnabled,
+                            @Value("${orderbookmanager.products}") String products,
+                            @Value("${orderbookmanager.workerThreads}") int workerThreads,
+                            @Value("${websocket.bufferSize}") int bufferSize,
+                            GdaxLiveOrderBook liveOrderBook,
+                            WebsocketFeed websocketFeed) {
+        this.websocketFeed = websocketFeed;
+        this.productIds = Arrays.stream(products.split(","))
+                .map(String::trim)
+                .filter(productId -> !productId.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+        this.books = new LinkedHashMap<>();
+        this.workers = new ArrayList<>();
+        this.workersByProduct = new Worker[productIds.length];
+
+        int workerCount = Math.max(1, Math.min(workerThreads, productIds.length));
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new Worker(i, bufferSize));
+        }
+        for (int i = 0; i < productIds.length; i++) {
+            GdaxLiveOrderBook book = liveOrderBook.forProduct(productIds[i]);
+            Worker worker = workers.get(i % workerCount);
+            worker.books.put(productIds[i], book);
+            workersByProduct[i] = worker;
+            books.put(productIds[i], book);
+        }
+        if (isEnabled && productIds.length > 0) {
+            start();
+        }
+    }
+
+    /**
+     * starts the workers, subscribes to every product and loads each book from a snapshot on its own worker.
+     * Frames that arrive whilst a book loads are buffered by the book and replayed once it's ready.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (Worker worker : workers) {
+            worker.ingestThread.start();
+        }
+        websocketFeed.subscribe(Arrays.asList(productIds), router);
+        for (Worker worker : workers) {
+            for (GdaxLiveOrderBook book : worker.books.values()) {
+                worker.ingestThread.execute(book::resync);
+            }
+        }
+        log.info("Tracking {} products across {} workers", productIds.length, workers.size());
+    }
+
+    public synchronized void stop() {
+        started = false;
+        websocketFeed.removeMessageHandler(router);
+        for (Worker worker : workers) {
+            worker.ingestThread.stop();
+        }
+    }
+
+    /**
+     * routes a raw frame to the worker owning its product. Frames for other products, or without one, are dropped.
+     */
+    public void dispatch(String json) {
+        int product = productIndexOf(json);
+        if (product < 0) {
+            log.debug("No tracked product for frame {}", json);
+            return;
+        }
+        workersByProduct[product].ingestThread.publish(json);
+    }
+
+    /**
+     * finds which of the tracked products a frame is for by matching the product_id value in place,
+     * so routing a frame doesn't create any Strings.
+     *
+     * @return the product's index, or -1.
+     */
+    int productIndexOf(String json) {
+        int field = json.indexOf(PRODUCT_ID_FIELD);
+        if (field < 0) {
+            return -1;
+        }
+        int i = skipWhitespace(json, field + PRODUCT_ID_FIELD.length());
+        if (i >= json.length() || json.charAt(i) != ':') {
+            return -1;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i >= json.length() || json.charAt(i) != '"') {
+            return -1;
+        }
+        int start = i + 1;
+        for (int product = 0; product < productIds.length; product++) {
+            String productId = productIds[product];
+            int end = start + productId.length();
+            if (end < json.length() && json.charAt(end) == '"' && json.startsWith(productId, start)) {
+                return product;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    public List<String> getProductIds() {
+        return Collections.unmodifiableList(Arrays.asList(productIds));
+    }
+
+    /**
+     * the live book for a product, or null if it isn't tracked. Read it through {@link GdaxLiveOrderBook#getSnapshot()}
+     * from anywhere other than its worker.
+     */
+    public GdaxLiveOrderBook getOrderBook(String productId) {
+        return books.get(productId);
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * the ingest thread applying the given product's feed, or null if it isn't tracked.
+     */
+    public FeedIngestThread getWorker(String productId) {
+        for (int i = 0; i < productIds.length; i++) {
+            if (productIds[i].equals(productId)) {
+                return workersByProduct[i].ingestThread;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * one worker thread with its own decoder and message pool, applying the frames for the products it owns.
+     */
+    private static class Worker implements WebsocketFeed.MessageHandler {
+
+        private final FeedIngestThread ingestThread;
+        private final FeedMessageDecoder decoder = new FeedMessageDecoder();
+        private final Map<String, GdaxLiveOrderBook> books = new HashMap<>();
+
+        Worker(int index, int bufferSize) {
+            this.ingestThread = new FeedIngestThread(bufferSize, "gdax-orderbook-worker-" + index);
+            this.ingestThread.setMessageHandler(this);
+        }
+
+        @Override
+        public void handleMessage(String json) {
+            FeedMessage message;
+            try {
+                message = decoder.decode(json);
+            } catch (IOException e) {
+                log.error("Unable to decode websocket frame: {}", json, e);
+                return;
+            }
+            if (message == null) {
+                return;
+            }
+            GdaxLiveOrderBook book = books.get(message.getProductId());
+            if (book == null) {
+                message.release();
+            } else {
+                book.handleMessages(message);
+            }
+        }
+
+        @Override
+        public void onIdle() {
+            for (GdaxLiveOrderBook book : books.values()) {
+                book.publishSnapshot();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.coinbase.exchange.api.orderbook;
+
+/**
+ * Immutable copy of both sides of an {@link OrderBook} as at a given sequence number.
+ */
+public class OrderBookSnapshot {
+
+    public static final OrderBookSnapshot EMPTY = new OrderBookSnapshot(0L, LadderSnapshot.EMPTY_BIDS, LadderSnapshot.EMPTY_ASKS);
+
+    private final long sequence;
+    private final LadderSnapshot bids;
+    private final LadderSnapshot asks;
+
+    OrderBookSnapshot(long sequence, LadderSnapshot bids, LadderSnapshot asks) {
+        this.sequence = sequence;
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public LadderSnapshot getBids() {
+        return bids;
+    }
+
+    public LadderSnapshot getAsks() {
+        return asks;
+    }
+}
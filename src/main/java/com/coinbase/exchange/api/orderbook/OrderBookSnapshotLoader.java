@@ -0,0 +1,153 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * Streams a /products/{id}/book response straight into an {@link OrderBook}, without binding it to
+ * MarketData and an OrderItem per row first.
+ *
+ * Prices and sizes are parsed from the parser's buffer into scaled longs, and rows are aggregated into price levels
+ * as they're read - the exchange sends each side best price first - so each ladder is filled in a single pass once
+ * its side has been read. For level 3 books every row's order is also indexed by its order_id; level 1 and 2 rows
+ * carry the number of orders at the price instead.
+ *
+ * Not thread safe - the arrays the levels are gathered in are reused from one load to the next.
+ */
+public class OrderBookSnapshotLoader {
+
+    private final JsonFactory jsonFactory;
+    private final CharSlice slice = new CharSlice();
+    private final Levels levels = new Levels();
+
+    public OrderBookSnapshotLoader() {
+        this(new JsonFactory());
+    }
+
+    public OrderBookSnapshotLoader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * replaces the contents of the book with the snapshot.
+     *
+     * @return the snapshot's sequence number, which the book is also set to.
+     */
+    public long load(InputStream body, OrderBook book) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return load(parser, book);
+        }
+    }
+
+    public long load(String body, OrderBook book) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return load(parser, book);
+        }
+    }
+
+    private long load(JsonParser parser, OrderBook book) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an order book object but got " + parser.getCurrentToken());
+        }
+        book.clear();
+        Long sequence = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "sequence":
+                    sequence = value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : Long.parseLong(parser.getText());
+                    break;
+                case "bids":
+                    readSide(parser, book, book.getBids());
+                    break;
+                case "asks":
+                    readSide(parser, book, book.getAsks());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (sequence == null) {
+            throw new IOException("Order book snapshot has no sequence");
+        }
+        book.setSequence(sequence);
+        return sequence;
+    }
+
+    private void readSide(JsonParser parser, OrderBook book, PriceLadder ladder) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected an array of rows but got " + parser.getCurrentToken());
+        }
+        boolean bid = ladder.isBidSide();
+        levels.clear();
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            long price = FixedPoint.parse(text(parser), PRICE_DECIMAL_PLACES);
+            parser.nextToken();
+            long size = FixedPoint.parse(text(parser), SIZE_DECIMAL_PLACES);
+            JsonToken third = parser.nextToken();
+            int orders;
+            if (third == JsonToken.VALUE_NUMBER_INT) {
+                orders = parser.getIntValue();
+            } else if (third == JsonToken.VALUE_STRING && !text(parser).isNumeric()) {
+                book.restOrder(parser.getText(), bid, price, size);
+                orders = 1;
+            } else {
+                orders = Integer.parseInt(parser.getText());
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            if (size > 0 && orders > 0) {
+                levels.add(price, size, orders);
+            }
+        }
+        ladder.load(levels.prices, levels.sizes, levels.orderCounts, levels.count);
+    }
+
+    private CharSlice text(JsonParser parser) throws IOException {
+        return slice.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    /**
+     * one side's price levels in the order they were read, with consecutive rows at the same price merged.
+     */
+    private static final class Levels {
+
+        long[] prices = new long[1024];
+        long[] sizes = new long[1024];
+        int[] orderCounts = new int[1024];
+        int count;
+
+        void clear() {
+            count = 0;
+        }
+
+        void add(long price, long size, int orders) {
+            if (count > 0 && prices[count - 1] == price) {
+                sizes[count - 1] += size;
+                orderCounts[count - 1] += orders;
+                return;
+            }
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+                orderCounts = Arrays.copyOf(orderCounts, count * 2);
+            }
+            prices[count] = price;
+            sizes[count] = size;
+            orderCounts[count] = orders;
+            count++;
+        }
+    }
+}
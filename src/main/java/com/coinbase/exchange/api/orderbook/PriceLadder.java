@@ -0,0 +1,248 @@
+package com.coinbase.exchange.api.orderbook;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * One side of the order book aggregated by price level.
+ *
+ * Prices are held as scaled long ticks ({@link FixedPoint}) in parallel primitive arrays kept in sorted order,
+ * so lookups are a binary search and nothing is parsed or boxed per update. Levels are stored worst price first
+ * and best price last: most activity happens at the top of the book, so inserts and removals there only shift
+ * a handful of elements.
+ *
+ * Public accessors take a level where 0 is the best price (highest bid, lowest ask).
+ * Not thread safe - a ladder belongs to the thread applying the feed, anyone else reads a {@link #snapshot()}.
+ */
+public class PriceLadder {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final boolean bidSide;
+
+    // keys are the price for bids and the negated price for asks so both sides sort ascending towards the best price
+    private long[] keys;
+    private long[] sizes;
+    private int[] orderCounts;
+    private int depth;
+    private long version;
+
+    public PriceLadder(boolean bidSide) {
+        this.bidSide = bidSide;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.sizes = new long[INITIAL_CAPACITY];
+        this.orderCounts = new int[INITIAL_CAPACITY];
+    }
+
+    public boolean isBidSide() {
+        return bidSide;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    /**
+     * incremented on every change so readers can cheaply tell whether anything moved since they last looked.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the level holding this price, or (-(insertion level) - 1) if there is no such level.
+     */
+    public int levelOf(long price) {
+        int index = indexOf(keyOf(price));
+        if (index >= 0) {
+            return depth - 1 - index;
+        }
+        int insertionIndex = -index - 1;
+        return -(depth - insertionIndex) - 1;
+    }
+
+    public long priceAt(int level) {
+        return priceOf(keys[indexOfLevel(level)]);
+    }
+
+    public long sizeAt(int level) {
+        return sizes[indexOfLevel(level)];
+    }
+
+    public int orderCountAt(int level) {
+        return orderCounts[indexOfLevel(level)];
+    }
+
+    public BigDecimal getPrice(int level) {
+        return FixedPoint.toBigDecimal(priceAt(level), PRICE_DECIMAL_PLACES);
+    }
+
+    public BigDecimal getSize(int level) {
+        return FixedPoint.toBigDecimal(sizeAt(level), SIZE_DECIMAL_PLACES);
+    }
+
+    /**
+     * size resting at the given price, 0 if there is no level there.
+     */
+    public long sizeAtPrice(long price) {
+        int index = indexOf(keyOf(price));
+        return index >= 0 ? sizes[index] : 0L;
+    }
+
+    public void add(long price, long size, int orders) {
+        adjust(price, size, orders);
+    }
+
+    public void reduce(long price, long size, int orders) {
+        adjust(price, -size, -orders);
+    }
+
+    /**
+     * applies a size and order count delta to a price level.
+     * A level is only created when both deltas are positive - anything else aimed at a price we don't hold is
+     * ignored - and a level is removed as soon as its size or order count drops to zero.
+     */
+    public void adjust(long price, long sizeDelta, int orderDelta) {
+        long key = keyOf(price);
+        int index = indexOf(key);
+        if (index < 0) {
+            if (sizeDelta > 0 && orderDelta > 0) {
+                insertAt(-index - 1, key, sizeDelta, orderDelta);
+            }
+            return;
+        }
+        long size = sizes[index] + sizeDelta;
+        int orders = orderCounts[index] + orderDelta;
+        if (size <= 0 || orders <= 0) {
+            removeAt(index);
+        } else {
+            sizes[index] = size;
+            orderCounts[index] = orders;
+            version++;
+        }
+    }
+
+    /**
+     * replaces whatever is held at this price. A size of zero or less removes the level.
+     */
+    public void set(long price, long size, int orders) {
+        long key = keyOf(price);
+        int index = indexOf(key);
+        if (size <= 0 || orders <= 0) {
+            if (index >= 0) {
+                removeAt(index);
+            }
+        } else if (index < 0) {
+            insertAt(-index - 1, key, size, orders);
+        } else {
+            sizes[index] = size;
+            orderCounts[index] = orders;
+            version++;
+        }
+    }
+
+    public void clear() {
+        depth = 0;
+        version++;
+    }
+
+    /**
+     * replaces the whole ladder with the given levels in one pass. Levels are expected best price first with no
+     * price repeated, which is how the exchange orders its snapshots - anything else is added a level at a time.
+     */
+    public void load(long[] levelPrices, long[] levelSizes, int[] levelOrderCounts, int count) {
+        ensureCapacity(count);
+        boolean sorted = true;
+        for (int level = 0, index = count - 1; level < count; level++, index--) {
+            keys[index] = keyOf(levelPrices[level]);
+            sizes[index] = levelSizes[level];
+            orderCounts[index] = levelOrderCounts[level];
+            if (level > 0 && keys[index] >= keys[index + 1]) {
+                sorted = false;
+            }
+        }
+        depth = sorted ? count : 0;
+        version++;
+        if (!sorted) {
+            for (int level = 0; level < count; level++) {
+                adjust(levelPrices[level], levelSizes[level], levelOrderCounts[level]);
+            }
+        }
+    }
+
+    /**
+     * copies the ladder, best price first, so it can be read from another thread.
+     */
+    public LadderSnapshot snapshot() {
+        long[] prices = new long[depth];
+        long[] levelSizes = new long[depth];
+        int[] levelOrderCounts = new int[depth];
+        for (int level = 0, index = depth - 1; index >= 0; level++, index--) {
+            prices[level] = priceOf(keys[index]);
+            levelSizes[level] = sizes[index];
+            levelOrderCounts[level] = orderCounts[index];
+        }
+        return new LadderSnapshot(bidSide, prices, levelSizes, levelOrderCounts);
+    }
+
+    private void insertAt(int index, long key, long size, int orders) {
+        ensureCapacity(depth + 1);
+        int toShift = depth - index;
+        if (toShift > 0) {
+            System.arraycopy(keys, index, keys, index + 1, toShift);
+            System.arraycopy(sizes, index, sizes, index + 1, toShift);
+            System.arraycopy(orderCounts, index, orderCounts, index + 1, toShift);
+        }
+        keys[index] = key;
+        sizes[index] = size;
+        orderCounts[index] = orders;
+        depth++;
+        version++;
+    }
+
+    private void removeAt(int index) {
+        int toShift = depth - index - 1;
+        if (toShift > 0) {
+            System.arraycopy(keys, index + 1, keys, index, toShift);
+            System.arraycopy(sizes, index + 1, sizes, index, toShift);
+            System.arraycopy(orderCounts, index + 1, orderCounts, index, toShift);
+        }
+        depth--;
+        version++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            sizes = Arrays.copyOf(sizes, newCapacity);
+            orderCounts = Arrays.copyOf(orderCounts, newCapacity);
+        }
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, depth, key);
+    }
+
+    private int indexOfLevel(int level) {
+        if (level < 0 || level >= depth) {
+            throw new IndexOutOfBoundsException("Level " + level + " outside depth " + depth);
+        }
+        return depth - 1 - level;
+    }
+
+    private long keyOf(long price) {
+        return bidSide ? price : -price;
+    }
+
+    private long priceOf(long key) {
+        return bidSide ? key : -key;
+    }
+}
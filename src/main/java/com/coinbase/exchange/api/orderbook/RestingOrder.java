@@ -0,0 +1,17 @@
+package com.coinbase.exchange.api.orderbook;
+
+/**
+ * An individual order resting on a level 3 book. Price and remaining size are scaled longs.
+ */
+final class RestingOrder {
+
+    final boolean bid;
+    final long price;
+    long remainingSize;
+
+    RestingOrder(boolean bid, long price, long remainingSize) {
+        this.bid = bid;
+        this.price = price;
+        this.remainingSize = remainingSize;
+    }
+}
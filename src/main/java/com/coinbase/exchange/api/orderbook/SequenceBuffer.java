@@ -0,0 +1,143 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+
+/**
+ * Fixed size ring of feed messages indexed by sequence number, used to hold messages that can't be applied yet -
+ * those that arrive whilst the book is loading or ahead of a gap in the sequence.
+ *
+ * A message lives in slot (sequence % capacity) so lookups of the next expected sequence are a single array read.
+ * Two messages only compete for a slot when their sequences are at least capacity apart; the older one is evicted,
+ * so the buffer keeps the most recent window of the feed and its memory never grows. Evicted and dropped messages
+ * are released back to their pool.
+ *
+ * Not thread safe - the buffer belongs to the thread applying the feed.
+ */
+public class SequenceBuffer {
+
+    private final FeedMessage[] slots;
+    private final int mask;
+    private int size;
+    private long evicted;
+
+    /**
+     * @param capacity rounded up to the next power of two.
+     */
+    public SequenceBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int slotCount = Integer.highestOneBit(capacity);
+        if (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+        this.slots = new FeedMessage[slotCount];
+        this.mask = slotCount - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * total number of messages pushed out by newer ones over the lifetime of the buffer.
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * buffers the message, replacing any earlier copy of the same sequence.
+     *
+     * @return false if a message had to be evicted to make room, i.e. the buffered span of the feed is now wider
+     * than the buffer and whatever was evicted can no longer be replayed.
+     */
+    public boolean put(FeedMessage message) {
+        int slot = slotOf(message.getSequence());
+        FeedMessage occupant = slots[slot];
+        if (occupant == null) {
+            slots[slot] = message;
+            size++;
+            return true;
+        }
+        if (occupant.getSequence() == message.getSequence()) {
+            slots[slot] = message;
+            if (occupant != message) {
+                occupant.release();
+            }
+            return true;
+        }
+        evicted++;
+        if (occupant.getSequence() < message.getSequence()) {
+            slots[slot] = message;
+            occupant.release();
+        } else {
+            message.release();
+        }
+        return false;
+    }
+
+    /**
+     * @return the message buffered for this sequence without removing it, or null.
+     */
+    public FeedMessage get(long sequence) {
+        FeedMessage message = slots[slotOf(sequence)];
+        return message != null && message.getSequence() == sequence ? message : null;
+    }
+
+    /**
+     * removes and returns the message buffered for this sequence, or null if there isn't one.
+     * The caller is responsible for releasing it.
+     */
+    public FeedMessage take(long sequence) {
+        int slot = slotOf(sequence);
+        FeedMessage message = slots[slot];
+        if (message == null || message.getSequence() != sequence) {
+            return null;
+        }
+        slots[slot] = null;
+        size--;
+        return message;
+    }
+
+    /**
+     * releases every buffered message with a sequence lower than the one given.
+     *
+     * @return the number of messages dropped.
+     */
+    public int dropBefore(long sequence) {
+        int dropped = 0;
+        for (int slot = 0; slot < slots.length && size > 0; slot++) {
+            FeedMessage message = slots[slot];
+            if (message != null && message.getSequence() < sequence) {
+                slots[slot] = null;
+                size--;
+                dropped++;
+                message.release();
+            }
+        }
+        return dropped;
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < slots.length && size > 0; slot++) {
+            if (slots[slot] != null) {
+                slots[slot].release();
+                slots[slot] = null;
+                size--;
+            }
+        }
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence & mask);
+    }
+}
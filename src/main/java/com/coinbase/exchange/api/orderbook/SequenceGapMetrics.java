@@ -0,0 +1,87 @@
+package com.coinbase.exchange.api.orderbook;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing how well a book is keeping up with the feed's sequence numbers.
+ * Written by the thread applying the feed, safe to read from any other.
+ */
+public class SequenceGapMetrics {
+
+    private final AtomicLong gapsDetected = new AtomicLong();
+    private final AtomicLong gapsHealed = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong staleMessagesDropped = new AtomicLong();
+    private final AtomicLong messagesEvicted = new AtomicLong();
+    private final AtomicLong lastResyncMillis = new AtomicLong();
+
+    public void gapDetected() {
+        gapsDetected.incrementAndGet();
+    }
+
+    public void gapHealed() {
+        gapsHealed.incrementAndGet();
+    }
+
+    public void resynced(long durationMillis) {
+        resyncs.incrementAndGet();
+        lastResyncMillis.set(durationMillis);
+    }
+
+    public void staleMessagesDropped(int count) {
+        staleMessagesDropped.addAndGet(count);
+    }
+
+    public void messageEvicted() {
+        messagesEvicted.incrementAndGet();
+    }
+
+    /**
+     * number of times a message arrived ahead of the one expected next.
+     */
+    public long getGapsDetected() {
+        return gapsDetected.get();
+    }
+
+    /**
+     * number of gaps closed by the missing messages turning up late, without needing a new snapshot.
+     */
+    public long getGapsHealed() {
+        return gapsHealed.get();
+    }
+
+    /**
+     * number of times the book had to be reloaded from a fresh snapshot.
+     */
+    public long getResyncs() {
+        return resyncs.get();
+    }
+
+    /**
+     * messages at or below a sequence already applied - duplicates, or buffered messages a snapshot superseded.
+     */
+    public long getStaleMessagesDropped() {
+        return staleMessagesDropped.get();
+    }
+
+    /**
+     * buffered messages pushed out because the gap was wider than the sequence buffer.
+     */
+    public long getMessagesEvicted() {
+        return messagesEvicted.get();
+    }
+
+    public long getLastResyncMillis() {
+        return lastResyncMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "gapsDetected=" + getGapsDetected()
+                + " gapsHealed=" + getGapsHealed()
+                + " resyncs=" + getResyncs()
+                + " staleMessagesDropped=" + getStaleMessagesDropped()
+                + " messagesEvicted=" + getMessagesEvicted()
+                + " lastResyncMillis=" + getLastResyncMillis();
+    }
+}
@@ -0,0 +1,83 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.entity.Hold;
+import com.coinbase.exchange.api.exchange.AsyncGdaxExchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.coinbase.exchange.api.orders.OrderService.ORDERS_ENDPOINT;
+
+/**
+ * {@link OrderService} over {@link AsyncGdaxExchange}, so orders for many products can be placed or cancelled
+ * concurrently.
+ */
+@Component
+public class AsyncOrderService {
+
+    private AsyncGdaxExchange exchange;
+
+    @Autowired
+    public AsyncOrderService(AsyncGdaxExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public CompletableFuture<List<Hold>> getHolds(String accountId) {
+        return exchange.getAsList(ORDERS_ENDPOINT + "/" + accountId + "/holds", new ParameterizedTypeReference<Hold[]>(){});
+    }
+
+    public CompletableFuture<List<Order>> getOpenOrders(String accountId) {
+        return exchange.getAsList(ORDERS_ENDPOINT + "/" + accountId + "/orders", new ParameterizedTypeReference<Order[]>(){});
+    }
+
+    public CompletableFuture<Order> getOrder(String orderId) {
+        return exchange.get(ORDERS_ENDPOINT + "/" + orderId, new ParameterizedTypeReference<Order>(){});
+    }
+
+    public CompletableFuture<Order> createOrder(Order order) {
+        return exchange.post(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order>(){}, order);
+    }
+
+    /**
+     * sends every order at once. The future completes when they all have, with the created orders in the same order
+     * as the requests - null for any the exchange rejected.
+     */
+    public CompletableFuture<List<Order>> createOrders(List<Order> orders) {
+        List<CompletableFuture<Order>> created = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            created.add(createOrder(order));
+        }
+        return CompletableFuture.allOf(created.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Order> result = new ArrayList<>(created.size());
+            for (CompletableFuture<Order> order : created) {
+                result.add(order.join());
+            }
+            return result;
+        });
+    }
+
+    public CompletableFuture<String> cancelOrder(String orderId) {
+        String deleteEndpoint = ORDERS_ENDPOINT + "/" + orderId;
+        return exchange.delete(deleteEndpoint, new ParameterizedTypeReference<String>(){});
+    }
+
+    public CompletableFuture<List<Order>> getOpenOrders() {
+        return exchange.getAsList(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order[]>(){});
+    }
+
+    public CompletableFuture<List<Order>> cancelAllOpenOrders() {
+        return exchange.delete(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order[]>(){})
+                .thenApply(cancelled -> cancelled == null ? Arrays.asList() : Arrays.asList(cancelled));
+    }
+
+    public CompletableFuture<List<Fill>> getAllFills() {
+        String fillsEndpoint = "/fills";
+        return exchange.getAsList(fillsEndpoint, new ParameterizedTypeReference<Fill[]>(){});
+    }
+}
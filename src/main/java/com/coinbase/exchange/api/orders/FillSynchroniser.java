@@ -0,0 +1,251 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.exchange.Page;
+import com.coinbase.exchange.api.exchange.PageIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an in-memory copy of the user's fills, indexed by order and by product, by fetching only the fills that
+ * are newer than the last one seen rather than the whole list each time.
+ *
+ * The first sync of a product walks back through every page of its fills - if the newest page can't be fetched the
+ * product is left unsynced until the next sync. From then on the highest trade_id seen is used as the before cursor, so a sync with nothing new costs one request returning an empty page. Listeners
+ * are told of each new fill, oldest first - but not of the history found by the first sync.
+ *
+ * When started, every configured product is synced on a single background thread every intervalMillis.
+ */
+@Component
+public class FillSynchroniser {
+
+    private static final Logger log = LoggerFactory.getLogger(FillSynchroniser.class);
+
+    private static final Comparator<Fill> BY_TRADE_ID = Comparator.comparingLong(fill -> fill.getTrade_id());
+
+    public interface FillListener {
+        /**
+         * called on the thread that synced, once the fill has been indexed.
+         */
+        void onFill(Fill fill);
+    }
+
+    private final boolean isEnabled;
+    private final List<String> productIds;
+    private final long intervalMillis;
+    private final OrderService orderService;
+
+    // guarded by this
+    private final Map<String, Long> lastTradeIds = new HashMap<>();
+    private final Map<String, List<Fill>> fillsByOrder = new HashMap<>();
+    private final Map<String, List<Fill>> fillsByProduct = new HashMap<>();
+
+    private volatile FillListener[] listeners = new FillListener[0];
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public FillSynchroniser(@Value("${fills.sync.enabled}") boolean isEnabled,
+                            @Value("${fills.sync.products}") String products,
+                            @Value("${fills.sync.intervalMillis}") long intervalMillis,
+                            OrderService orderService) {
+        this.isEnabled = isEnabled;
+        this.productIds = Arrays.stream(products.split(","))
+                .map(String::trim)
+                .filter(productId -> !productId.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        this.intervalMillis = intervalMillis;
+        this.orderService = orderService;
+        if (isEnabled && !productIds.isEmpty()) {
+            start();
+        }
+    }
+
+    /**
+     * syncs every product now and then every intervalMillis, until stopped.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gdax-fill-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncAll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Syncing fills for {} every {}ms", productIds, intervalMillis);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * syncs each configured product in turn - one failing doesn't stop the others, or the next run.
+     */
+    public void syncAll() {
+        for (String productId : productIds) {
+            try {
+                sync(productId);
+            } catch (RuntimeException e) {
+                log.error("Unable to sync {} fills", productId, e);
+            }
+        }
+    }
+
+    /**
+     * fetches the product's fills newer than the last one seen and indexes them.
+     *
+     * @return how many new fills were found.
+     */
+    public int sync(String productId) {
+        Long lastTradeId = getLastTradeId(productId);
+        if (lastTradeId == null) {
+            List<Fill> history = loadHistory(productId);
+            if (history == null) {
+                return 0;
+            }
+            merge(productId, history);
+            log.info("Loaded {} {} fills", history.size(), productId);
+            return history.size();
+        }
+        List<Fill> added = merge(productId, fetchAfter(productId, lastTradeId));
+        for (Fill fill : added) {
+            for (FillListener listener : listeners) {
+                try {
+                    listener.onFill(fill);
+                } catch (RuntimeException e) {
+                    log.error("Fill listener failed for trade {}", fill.getTrade_id(), e);
+                }
+            }
+        }
+        return added.size();
+    }
+
+    /**
+     * every one of the product's fills, or null if the newest page failed - without it there's no knowing where to
+     * sync on from. An older page failing only ends the history early, as the cursor comes from the newest.
+     */
+    private List<Fill> loadHistory(String productId) {
+        Page<Fill> newest = orderService.getFillsPage(productId, null);
+        if (newest == null) {
+            log.warn("Unable to fetch the newest {} fills, leaving it unsynced", productId);
+            return null;
+        }
+        return PageIterator.stream(after -> after == null ? newest : orderService.getFillsPage(productId, after))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * every fill after the given trade id, a page at a time until a page comes back short. If a request fails the
+     * fills fetched so far are still returned - they're the oldest of the new ones, so the next sync carries on
+     * from them without leaving a gap.
+     */
+    private List<Fill> fetchAfter(String productId, long tradeId) {
+        List<Fill> fills = new ArrayList<>();
+        long cursor = tradeId;
+        while (true) {
+            Page<Fill> page = orderService.getFillsAfterTrade(productId, cursor);
+            if (page == null) {
+                log.warn("Unable to fetch {} fills after trade {}", productId, cursor);
+                break;
+            }
+            long previous = cursor;
+            for (Fill fill : page.getItems()) {
+                if (fill.getTrade_id() != null) {
+                    fills.add(fill);
+                    cursor = Math.max(cursor, fill.getTrade_id());
+                }
+            }
+            if (page.getItems().size() < OrderService.PAGE_SIZE || cursor == previous) {
+                break;
+            }
+        }
+        return fills;
+    }
+
+    /**
+     * indexes the fills newer than the product's last trade id, oldest first, and moves the cursor on.
+     */
+    private synchronized List<Fill> merge(String productId, List<Fill> fills) {
+        long lastTradeId = lastTradeIds.getOrDefault(productId, 0L);
+        List<Fill> sorted = fills.stream()
+                .filter(fill -> fill.getTrade_id() != null)
+                .sorted(BY_TRADE_ID)
+                .collect(Collectors.toList());
+        List<Fill> added = new ArrayList<>();
+        for (Fill fill : sorted) {
+            // both sides of a trade between two of the user's orders share its trade id, so compare against
+            // where this sync started rather than the previous fill
+            if (fill.getTrade_id() <= lastTradeId) {
+                continue;
+            }
+            fillsByOrder.computeIfAbsent(fill.getOrder_id(), id -> new ArrayList<>()).add(fill);
+            fillsByProduct.computeIfAbsent(productId, id -> new ArrayList<>()).add(fill);
+            added.add(fill);
+        }
+        long newLastTradeId = added.isEmpty() ? lastTradeId : added.get(added.size() - 1).getTrade_id();
+        lastTradeIds.put(productId, newLastTradeId);
+        return added;
+    }
+
+    public synchronized void addFillListener(FillListener listener) {
+        FillListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeFillListener(FillListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(FillListener[]::new);
+    }
+
+    /**
+     * the highest trade id synced for the product - 0 if it has no fills - or null if it's never been synced.
+     */
+    public synchronized Long getLastTradeId(String productId) {
+        return lastTradeIds.get(productId);
+    }
+
+    /**
+     * the order's fills, oldest first.
+     */
+    public synchronized List<Fill> getFills(String orderId) {
+        List<Fill> fills = fillsByOrder.get(orderId);
+        return fills == null ? Collections.emptyList() : new ArrayList<>(fills);
+    }
+
+    /**
+     * the product's fills, oldest first.
+     */
+    public synchronized List<Fill> getFillsForProduct(String productId) {
+        List<Fill> fills = fillsByProduct.get(productId);
+        return fills == null ? Collections.emptyList() : new ArrayList<>(fills);
+    }
+
+    public List<String> getProductIds() {
+        return Collections.unmodifiableList(productIds);
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+}
@@ -3,12 +3,16 @@ package com.coinbase.exchange.api.orders;
 import com.coinbase.exchange.api.entity.Fill;
 import com.coinbase.exchange.api.entity.Hold;
 import com.coinbase.exchange.api.exchange.GdaxExchange;
+import com.coinbase.exchange.api.exchange.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Created by robevansuk on 03/02/2017.
@@ -25,6 +29,8 @@ public class OrderService {
     }
 
     public static final String ORDERS_ENDPOINT = "/orders";
+    public static final String FILLS_ENDPOINT = "/fills";
+    public static final int PAGE_SIZE = 100;
 
     public List<Hold> getHolds(String accountId) {
         return exchange.getAsList(ORDERS_ENDPOINT + "/" + accountId + "/holds", new ParameterizedTypeReference<Hold[]>(){});
@@ -38,6 +44,20 @@ public class OrderService {
         return exchange.get(ORDERS_ENDPOINT + "/" + orderId,new ParameterizedTypeReference<Order>(){});
     }
 
+    /**
+     * the order, or null if the exchange no longer knows of it - as happens to one canceled before anything filled.
+     * Unlike {@link #getOrder}, a request that fails for any other reason throws rather than returning null.
+     *
+     * @throws RestClientException if the request failed, e.g. it was rate limited or got no answer.
+     */
+    public Order findOrder(String orderId) {
+        try {
+            return exchange.getOrThrow(ORDERS_ENDPOINT + "/" + orderId, new ParameterizedTypeReference<Order>(){});
+        } catch (HttpClientErrorException.NotFound ex) {
+            return null;
+        }
+    }
+
     public Order createOrder(Order order) {
         return exchange.post(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order>(){}, order);
     }
@@ -55,10 +75,47 @@ public class OrderService {
         return Arrays.asList(exchange.delete(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order[]>(){}));
     }
 
+    /**
+     * just the most recent page of fills - use {@link #streamFills()}, or {@link FillSynchroniser} to keep up with them.
+     */
     public List<Fill> getAllFills() {
         String fillsEndpoint = "/fills";
         return exchange.getAsList(fillsEndpoint, new ParameterizedTypeReference<Fill[]>(){});
     }
-}
 
+    /**
+     * every open order, newest first, fetched a page at a time as the stream is consumed.
+     */
+    public Stream<Order> streamOpenOrders() {
+        return exchange.stream(ORDERS_ENDPOINT, new ParameterizedTypeReference<Order[]>(){}, PAGE_SIZE);
+    }
+
+    /**
+     * every fill, newest first, fetched a page at a time as the stream is consumed.
+     */
+    public Stream<Fill> streamFills() {
+        return exchange.stream(FILLS_ENDPOINT, new ParameterizedTypeReference<Fill[]>(){}, PAGE_SIZE);
+    }
+
+    public Stream<Fill> streamFills(String productId) {
+        return exchange.stream(FILLS_ENDPOINT + "?product_id=" + productId, new ParameterizedTypeReference<Fill[]>(){}, PAGE_SIZE);
+    }
+
+    /**
+     * a page of the product's fills, newest first - the newest page for a null cursor, else the page after it.
+     * Null if the request failed.
+     */
+    public Page<Fill> getFillsPage(String productId, String after) {
+        return exchange.getPage(FILLS_ENDPOINT + "?product_id=" + productId, new ParameterizedTypeReference<Fill[]>(){},
+                Page.AFTER, after, PAGE_SIZE);
+    }
 
+    /**
+     * up to a page of the product's fills newer than the given trade id, newest first - the page's before cursor
+     * picks up from there. Null if the request failed.
+     */
+    public Page<Fill> getFillsAfterTrade(String productId, long tradeId) {
+        return exchange.getPage(FILLS_ENDPOINT + "?product_id=" + productId, new ParameterizedTypeReference<Fill[]>(){},
+                Page.BEFORE, String.valueOf(tradeId), PAGE_SIZE);
+    }
+}
@@ -0,0 +1,28 @@
+package com.coinbase.exchange.api.orders;
+
+/**
+ * Where an order is in its life, as tracked by {@link OrderTracker}. An order only ever moves forwards through
+ * these - a partially filled order never goes back to being open, and done is final.
+ */
+public enum OrderState {
+    /**
+     * accepted by the exchange but not yet on the book - or, for a market order, not yet filled.
+     */
+    RECEIVED,
+    /**
+     * resting on the book with nothing filled.
+     */
+    OPEN,
+    /**
+     * some of it has filled.
+     */
+    PARTIALLY_FILLED,
+    /**
+     * filled or canceled, and off the book.
+     */
+    DONE;
+
+    public boolean isDone() {
+        return this == DONE;
+    }
+}
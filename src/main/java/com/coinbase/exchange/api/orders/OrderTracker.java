@@ -0,0 +1,406 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.FeedMessageDecoder;
+import com.coinbase.exchange.api.websocketfeed.WebsocketFeed;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.CANCELED;
+import static com.coinbase.exchange.api.constants.GdaxConstants.CHANGE;
+import static com.coinbase.exchange.api.constants.GdaxConstants.DONE;
+import static com.coinbase.exchange.api.constants.GdaxConstants.FILLED;
+import static com.coinbase.exchange.api.constants.GdaxConstants.MATCH;
+import static com.coinbase.exchange.api.constants.GdaxConstants.OPEN;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.RECEIVED;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * Keeps the state of the user's open orders up to date from the websocket feed's user channel, rather than polling
+ * the orders endpoint for it.
+ *
+ * Each order is moved through received, open, partially filled and done ({@link OrderState}) as the feed's
+ * messages about it arrive, and listeners are told of every change. Orders are held by id, so looking one up is a
+ * single map lookup, and done orders are dropped.
+ *
+ * The REST API is only used to find the orders that are already open when tracking starts, and by
+ * {@link #reconcile()} to catch up on anything missed whilst the feed was disconnected. Neither the feed nor
+ * REST can move an order backwards, so it doesn't matter which of them reports a change first.
+ *
+ * Changes are applied one at a time, on the user channel's ingest thread or whichever thread reconciles, and the
+ * orders can be read from any thread.
+ */
+@Component
+public class OrderTracker implements WebsocketFeed.MessageHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderTracker.class);
+
+    /**
+     * how many finished orders are remembered, so a late REST response can't bring one back.
+     */
+    public static final int RECENTLY_DONE = 1024;
+
+    /**
+     * told of every change to a tracked order, whilst the tracker is locked - so changes arrive in order, and
+     * listeners shouldn't block.
+     */
+    public interface OrderListener {
+        /**
+         * @param previous the order before the change, or null if it's just started being tracked.
+         */
+        void onOrderUpdate(TrackedOrder previous, TrackedOrder order);
+    }
+
+    private final boolean isEnabled;
+    private final List<String> productIds;
+    private final WebsocketFeed websocketFeed;
+    private final OrderService orderService;
+    private final FeedMessageDecoder decoder = new FeedMessageDecoder();
+    private final ConcurrentHashMap<String, TrackedOrder> orders = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> recentlyDone = new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENTLY_DONE;
+        }
+    };
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile OrderListener[] listeners = new OrderListener[0];
+    private volatile long messagesApplied;
+    private volatile long duplicatesSkipped;
+
+    @Autowired
+    public OrderTracker(@Value("${orders.tracker.enabled}") boolean isEnabled,
+                        @Value("${orders.tracker.products}") String products,
+                        WebsocketFeed websocketFeed,
+                        OrderService orderService) {
+        this.isEnabled = isEnabled;
+        this.productIds = Arrays.stream(products.split(","))
+                .map(String::trim)
+                .filter(productId -> !productId.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        this.websocketFeed = websocketFeed;
+        this.orderService = orderService;
+    }
+
+    /**
+     * subscribes to the user channel, then loads the orders that are already open. Only the first call does anything.
+     * Whatever happened to the orders whilst the feed was down is caught up on the same way, each time it reconnects.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        if (isEnabled && websocketFeed != null && !productIds.isEmpty()) {
+            try {
+                websocketFeed.subscribeToUserChannel(productIds, this);
+                websocketFeed.addConnectionListener(downtimeMillis -> reconcile());
+            } catch (RuntimeException e) {
+                // most likely no API key - the orders open now are still worth showing
+                log.error("Unable to subscribe to the user channel, orders won't be updated", e);
+            }
+        }
+        reconcile();
+    }
+
+    @Override
+    public void handleMessage(String json) {
+        FeedMessage message;
+        try {
+            message = decoder.decode(json);
+        } catch (IOException e) {
+            log.error("Unable to decode user channel frame: {}", json, e);
+            return;
+        }
+        if (message == null) {
+            return;
+        }
+        try {
+            apply(message);
+        } finally {
+            message.release();
+        }
+    }
+
+    /**
+     * applies a message from the feed to the order(s) it's about. Messages already applied are skipped, as are
+     * matches against orders that aren't being tracked - the other side of a trade with one of the user's orders.
+     */
+    public synchronized void apply(FeedMessage message) {
+        String type = message.getType();
+        if (MATCH.equals(type)) {
+            applyMatch(message, message.getMakerOrderId());
+            applyMatch(message, message.getTakerOrderId());
+            return;
+        }
+        String orderId = message.getOrderId();
+        if (orderId == null || recentlyDone.containsKey(orderId)
+                || !(RECEIVED.equals(type) || OPEN.equals(type) || CHANGE.equals(type) || DONE.equals(type))) {
+            return;
+        }
+        TrackedOrder previous = orders.get(orderId);
+        if (isApplied(previous, message)) {
+            return;
+        }
+        TrackedOrder order = previous == null ? newOrder(orderId, message) : previous.copy();
+        if (RECEIVED.equals(type)) {
+            if (message.getSize() != FeedMessage.ABSENT) {
+                order.setSize(message.getSize());
+            }
+        } else if (OPEN.equals(type)) {
+            if (message.getRemainingSize() != FeedMessage.ABSENT) {
+                order.setRemainingSize(message.getRemainingSize());
+            }
+            advance(order, order.getFilledSize() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN);
+        } else if (CHANGE.equals(type)) {
+            if (message.getNewSize() != FeedMessage.ABSENT) {
+                order.setRemainingSize(message.getNewSize());
+                order.setSize(order.getFilledSize() + message.getNewSize());
+            }
+        } else {
+            if (message.getRemainingSize() != FeedMessage.ABSENT) {
+                order.setRemainingSize(message.getRemainingSize());
+            }
+            order.setDoneReason(message.getReason());
+            order.setState(OrderState.DONE);
+        }
+        applied(order, message);
+        update(previous, order);
+    }
+
+    private void applyMatch(FeedMessage match, String orderId) {
+        TrackedOrder previous = orderId == null ? null : orders.get(orderId);
+        if (previous == null || isApplied(previous, match) || match.getSize() == FeedMessage.ABSENT) {
+            return;
+        }
+        TrackedOrder order = previous.copy();
+        order.setFilledSize(order.getFilledSize() + match.getSize());
+        if (order.getRemainingSize() != FeedMessage.ABSENT) {
+            order.setRemainingSize(Math.max(0, order.getRemainingSize() - match.getSize()));
+        }
+        advance(order, OrderState.PARTIALLY_FILLED);
+        applied(order, match);
+        update(previous, order);
+    }
+
+    private boolean isApplied(TrackedOrder order, FeedMessage message) {
+        // sequence numbers are per product, and an order only ever trades the one product
+        if (order != null && message.hasSequence() && order.getSequence() != FeedMessage.ABSENT
+                && message.getSequence() <= order.getSequence()) {
+            duplicatesSkipped++;
+            return true;
+        }
+        return false;
+    }
+
+    private TrackedOrder newOrder(String orderId, FeedMessage message) {
+        TrackedOrder order = new TrackedOrder(orderId);
+        order.setProductId(message.getProductId());
+        order.setSide(message.getSide());
+        order.setOrderType(message.getOrderType());
+        order.setPrice(message.getPrice());
+        return order;
+    }
+
+    private void applied(TrackedOrder order, FeedMessage message) {
+        if (message.hasSequence()) {
+            order.setSequence(message.getSequence());
+        }
+        if (message.getTimeMicros() != FeedMessage.ABSENT) {
+            order.setTimeMicros(message.getTimeMicros());
+        }
+        messagesApplied++;
+    }
+
+    /**
+     * refreshes the tracked orders from REST - after a reconnect, when feed messages may have been missed.
+     * Open orders that aren't tracked yet are added, and any tracked order that's no longer open is looked up
+     * with {@link OrderService#findOrder} to see how it finished. One the exchange no longer knows of was canceled
+     * before anything filled. One that couldn't be looked up is left as it is until the next reconcile.
+     *
+     * Called on the calling thread - the REST requests are made without the tracker locked, so the feed keeps
+     * being applied meanwhile.
+     */
+    public void reconcile() {
+        Map<String, TrackedOrder> before = new HashMap<>(orders);
+        List<Order> open = orderService.getOpenOrders();
+        if (open == null) {
+            log.warn("Unable to fetch the open orders to reconcile against");
+            return;
+        }
+        Set<String> openIds = new HashSet<>();
+        for (Order order : open) {
+            openIds.add(order.getId());
+            track(order);
+        }
+        for (TrackedOrder order : before.values()) {
+            if (openIds.contains(order.getOrderId())) {
+                continue;
+            }
+            Order latest;
+            try {
+                latest = orderService.findOrder(order.getOrderId());
+            } catch (RestClientException ex) {
+                log.warn("Unable to look up order {}, leaving it until the next reconcile: {}",
+                        order.getOrderId(), ex.getMessage());
+                continue;
+            }
+            if (latest != null) {
+                track(latest);
+            } else {
+                canceledIfUnchanged(order);
+            }
+        }
+        log.info("Reconciled {} open orders", orders.size());
+    }
+
+    /**
+     * merges an order returned by the REST API - e.g. one that's just been placed - into what's tracked.
+     */
+    public synchronized void track(Order rest) {
+        String orderId = rest.getId();
+        if (orderId == null || recentlyDone.containsKey(orderId)) {
+            return;
+        }
+        TrackedOrder previous = orders.get(orderId);
+        TrackedOrder order;
+        if (previous == null) {
+            order = new TrackedOrder(orderId);
+            order.setProductId(rest.getProduct_id());
+            order.setSide(rest.getSide());
+            order.setOrderType(rest.getType());
+            order.setPrice(scaled(rest.getPrice(), PRICE_DECIMAL_PLACES));
+            order.setSize(scaled(rest.getSize(), SIZE_DECIMAL_PLACES));
+        } else {
+            order = previous.copy();
+        }
+        boolean changed = previous == null;
+        long filledSize = scaled(rest.getFilled_size(), SIZE_DECIMAL_PLACES);
+        if (filledSize != FeedMessage.ABSENT && filledSize > order.getFilledSize()) {
+            order.setFilledSize(filledSize);
+            if (order.getSize() != FeedMessage.ABSENT) {
+                order.setRemainingSize(Math.max(0, order.getSize() - filledSize));
+            }
+            changed = true;
+        }
+        OrderState state = stateOf(rest.getStatus(), order.getFilledSize());
+        if (state.ordinal() > order.getState().ordinal()) {
+            if (state.isDone()) {
+                order.setDoneReason(order.getSize() != FeedMessage.ABSENT && order.getFilledSize() >= order.getSize()
+                        ? FILLED : CANCELED);
+            }
+            order.setState(state);
+            changed = true;
+        }
+        if (changed) {
+            update(previous, order);
+        }
+    }
+
+    private synchronized void canceledIfUnchanged(TrackedOrder expected) {
+        if (orders.get(expected.getOrderId()) != expected) {
+            // the feed got there first
+            return;
+        }
+        TrackedOrder order = expected.copy();
+        order.setDoneReason(CANCELED);
+        order.setState(OrderState.DONE);
+        update(expected, order);
+    }
+
+    private static OrderState stateOf(String status, long filledSize) {
+        if (DONE.equals(status)) {
+            return OrderState.DONE;
+        }
+        if (OPEN.equals(status) || "active".equals(status)) {
+            return filledSize > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+        }
+        return OrderState.RECEIVED;
+    }
+
+    private static void advance(TrackedOrder order, OrderState state) {
+        if (state.ordinal() > order.getState().ordinal()) {
+            order.setState(state);
+        }
+    }
+
+    private static long scaled(String value, int scale) {
+        return value == null || value.isEmpty() ? FeedMessage.ABSENT : FixedPoint.parse(value, scale);
+    }
+
+    private void update(TrackedOrder previous, TrackedOrder order) {
+        if (order.getState().isDone()) {
+            orders.remove(order.getOrderId());
+            recentlyDone.put(order.getOrderId(), Boolean.TRUE);
+        } else {
+            orders.put(order.getOrderId(), order);
+        }
+        for (OrderListener listener : listeners) {
+            try {
+                listener.onOrderUpdate(previous, order);
+            } catch (RuntimeException e) {
+                log.error("Order listener failed for {}", order.getOrderId(), e);
+            }
+        }
+    }
+
+    public synchronized void addOrderListener(OrderListener listener) {
+        OrderListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeOrderListener(OrderListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(OrderListener[]::new);
+    }
+
+    /**
+     * the tracked order with this id, or null if it isn't tracked or is done.
+     */
+    public TrackedOrder getOrder(String orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * every order that isn't done yet.
+     */
+    public List<TrackedOrder> getOpenOrders() {
+        return new ArrayList<>(orders.values());
+    }
+
+    public List<String> getProductIds() {
+        return Collections.unmodifiableList(productIds);
+    }
+
+    public long getMessagesApplied() {
+        return messagesApplied;
+    }
+
+    /**
+     * messages seen more than once - every message about the user's orders comes on the full channel as well.
+     */
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+}
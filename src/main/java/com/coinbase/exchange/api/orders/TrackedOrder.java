@@ -0,0 +1,172 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * One of the user's orders as {@link OrderTracker} last saw it. Prices and sizes are scaled longs
+ * ({@link FixedPoint}), {@link FeedMessage#ABSENT} when they aren't known - a market order has no price, for one.
+ *
+ * The tracker copies an order before changing it, so an instance never changes once it's been handed out and can
+ * be read from any thread.
+ */
+public class TrackedOrder {
+
+    private final String orderId;
+    private String productId;
+    private String side;
+    private String orderType;
+    private long price = FeedMessage.ABSENT;
+    private long size = FeedMessage.ABSENT;
+    private long filledSize;
+    private long remainingSize = FeedMessage.ABSENT;
+    private OrderState state = OrderState.RECEIVED;
+    private String doneReason;
+    private long sequence = FeedMessage.ABSENT;
+    private long timeMicros = FeedMessage.ABSENT;
+
+    TrackedOrder(String orderId) {
+        this.orderId = orderId;
+    }
+
+    TrackedOrder copy() {
+        TrackedOrder copy = new TrackedOrder(orderId);
+        copy.productId = productId;
+        copy.side = side;
+        copy.orderType = orderType;
+        copy.price = price;
+        copy.size = size;
+        copy.filledSize = filledSize;
+        copy.remainingSize = remainingSize;
+        copy.state = state;
+        copy.doneReason = doneReason;
+        copy.sequence = sequence;
+        copy.timeMicros = timeMicros;
+        return copy;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    void setSide(String side) {
+        this.side = side;
+    }
+
+    public boolean isBuy() {
+        return BUY.equals(side);
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    void setOrderType(String orderType) {
+        this.orderType = orderType;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    void setPrice(long price) {
+        this.price = price;
+    }
+
+    /**
+     * the size the order was placed for, or changed to.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getFilledSize() {
+        return filledSize;
+    }
+
+    void setFilledSize(long filledSize) {
+        this.filledSize = filledSize;
+    }
+
+    /**
+     * how much is still on the book.
+     */
+    public long getRemainingSize() {
+        return remainingSize;
+    }
+
+    void setRemainingSize(long remainingSize) {
+        this.remainingSize = remainingSize;
+    }
+
+    public OrderState getState() {
+        return state;
+    }
+
+    void setState(OrderState state) {
+        this.state = state;
+    }
+
+    /**
+     * filled or canceled once the order is done, otherwise null.
+     */
+    public String getDoneReason() {
+        return doneReason;
+    }
+
+    void setDoneReason(String doneReason) {
+        this.doneReason = doneReason;
+    }
+
+    /**
+     * the feed sequence number of the last message applied, or {@link FeedMessage#ABSENT} if the order has only
+     * been seen over REST.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * when the last message applied was sent, microseconds since the epoch.
+     */
+    public long getTimeMicros() {
+        return timeMicros;
+    }
+
+    void setTimeMicros(long timeMicros) {
+        this.timeMicros = timeMicros;
+    }
+
+    @Override
+    public String toString() {
+        return side + ": " + productId
+                + ": " + (price == FeedMessage.ABSENT ? "market" : FixedPoint.toString(price, PRICE_DECIMAL_PLACES))
+                + ": " + (size == FeedMessage.ABSENT ? "-" : FixedPoint.toString(size, SIZE_DECIMAL_PLACES))
+                + ": " + FixedPoint.toString(filledSize, SIZE_DECIMAL_PLACES) + " filled"
+                + ": " + state;
+    }
+}
@@ -0,0 +1,194 @@
+package com.coinbase.exchange.api.products;
+
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.MATCH;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * Builds candles for one product from the trades on the websocket feed, so charts keep up to date without polling
+ * the candles endpoint. Each trade updates the open candle at every granularity - constant work and no allocation
+ * per trade - and when a trade lands in a later interval the open candle is closed into the history.
+ *
+ * Register it with {@link GdaxLiveOrderBook#addMatchListener} to receive the product's matches in sequence order
+ * (once each, even across resyncs), and start it off with {@link #backfill} from the candles endpoint. A candle
+ * only closes when a later trade arrives, and intervals without trades have no candle, as on the exchange.
+ *
+ * Not thread safe - everything but adding and removing listeners should happen on the feed's ingest thread.
+ */
+public class CandleAggregator implements GdaxLiveOrderBook.MatchListener {
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    private final String productId;
+    private final CandleGranularity[] granularities;
+    private final LiveCandle[] current;
+    private final CandleSeries[] history;
+    private volatile CandleListener[] listeners = new CandleListener[0];
+
+    private long lastTradeId = FeedMessage.ABSENT;
+    private long backfilledUntilMicros = Long.MIN_VALUE;
+    private long tradesAggregated;
+    private long lateTrades;
+
+    public CandleAggregator(String productId, CandleGranularity... granularities) {
+        this.productId = productId;
+        this.granularities = granularities.clone();
+        this.current = new LiveCandle[granularities.length];
+        this.history = new CandleSeries[granularities.length];
+        for (int i = 0; i < granularities.length; i++) {
+            current[i] = new LiveCandle(granularities[i]);
+            history[i] = new CandleSeries(granularities[i], 1024);
+        }
+    }
+
+    public synchronized void addListener(CandleListener listener) {
+        CandleListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(CandleListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(CandleListener[]::new);
+    }
+
+    /**
+     * seeds the history from downloaded candles. The candle still in progress at asOf becomes the open candle,
+     * and trades from before asOf are ignored - they're already in the candles.
+     */
+    public void backfill(CandleSeries candles, Instant asOf) {
+        int index = indexOf(candles.getGranularity());
+        if (index < 0) {
+            return;
+        }
+        long asOfSeconds = asOf.getEpochSecond();
+        int seconds = candles.getGranularity().getSeconds();
+        for (int i = 0; i < candles.size(); i++) {
+            long start = candles.timeAt(i);
+            if (start + seconds <= asOfSeconds) {
+                history[index].add(start, candles.openAt(i), candles.highAt(i), candles.lowAt(i),
+                        candles.closeAt(i), candles.volumeAt(i));
+            } else if (start <= asOfSeconds) {
+                LiveCandle candle = current[index];
+                candle.begin(start, FixedPoint.fromDouble(candles.openAt(i), PRICE_DECIMAL_PLACES),
+                        FixedPoint.fromDouble(candles.volumeAt(i), SIZE_DECIMAL_PLACES));
+                candle.trade(FixedPoint.fromDouble(candles.highAt(i), PRICE_DECIMAL_PLACES), 0);
+                candle.trade(FixedPoint.fromDouble(candles.lowAt(i), PRICE_DECIMAL_PLACES), 0);
+                candle.trade(FixedPoint.fromDouble(candles.closeAt(i), PRICE_DECIMAL_PLACES), 0);
+            }
+        }
+        backfilledUntilMicros = Math.max(backfilledUntilMicros, asOfSeconds * MICROS_PER_SECOND + asOf.getNano() / 1000);
+    }
+
+    @Override
+    public void onMatch(FeedMessage match) {
+        if (!MATCH.equals(match.getType()) || !productId.equals(match.getProductId())
+                || match.getTimeMicros() == FeedMessage.ABSENT || !match.hasPrice()) {
+            return;
+        }
+        if (match.getTradeId() != FeedMessage.ABSENT) {
+            if (match.getTradeId() <= lastTradeId) {
+                return;
+            }
+            lastTradeId = match.getTradeId();
+        }
+        onTrade(match.getTimeMicros(), match.getPrice(), match.getSize() == FeedMessage.ABSENT ? 0 : match.getSize());
+    }
+
+    /**
+     * adds a trade to the open candle at every granularity.
+     *
+     * @param price scaled to PRICE_DECIMAL_PLACES
+     * @param size  scaled to SIZE_DECIMAL_PLACES
+     */
+    public void onTrade(long timeMicros, long price, long size) {
+        if (timeMicros <= backfilledUntilMicros) {
+            return;
+        }
+        long second = Math.floorDiv(timeMicros, MICROS_PER_SECOND);
+        boolean late = false;
+        CandleListener[] listeners = this.listeners;
+        for (int i = 0; i < granularities.length; i++) {
+            CandleGranularity granularity = granularities[i];
+            long start = second - Math.floorMod(second, granularity.getSeconds());
+            LiveCandle candle = current[i];
+            if (candle.isOpen() && start < candle.getStart()) {
+                // its candle has already closed
+                late = true;
+                continue;
+            }
+            if (candle.isOpen() && start > candle.getStart()) {
+                close(i, listeners);
+            }
+            if (candle.isOpen()) {
+                candle.trade(price, size);
+            } else {
+                candle.begin(start, price, size);
+            }
+            for (CandleListener listener : listeners) {
+                listener.onCandle(granularity, candle, false);
+            }
+        }
+        if (late) {
+            lateTrades++;
+        } else {
+            tradesAggregated++;
+        }
+    }
+
+    private void close(int index, CandleListener[] listeners) {
+        LiveCandle candle = current[index];
+        history[index].add(candle.getStart(), candle.getOpen(), candle.getHigh(), candle.getLow(), candle.getClose(),
+                candle.getVolumeAsDouble());
+        for (CandleListener listener : listeners) {
+            listener.onCandle(granularities[index], candle, true);
+        }
+        candle.clear();
+    }
+
+    private int indexOf(CandleGranularity granularity) {
+        for (int i = 0; i < granularities.length; i++) {
+            if (granularities[i] == granularity) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    /**
+     * the candle being built at the granularity, or null if it isn't aggregated.
+     */
+    public LiveCandle getCurrent(CandleGranularity granularity) {
+        int index = indexOf(granularity);
+        return index < 0 ? null : current[index];
+    }
+
+    /**
+     * the closed candles at the granularity, oldest first, or null if it isn't aggregated.
+     */
+    public CandleSeries getHistory(CandleGranularity granularity) {
+        int index = indexOf(granularity);
+        return index < 0 ? null : history[index];
+    }
+
+    public long getTradesAggregated() {
+        return tradesAggregated;
+    }
+
+    /**
+     * trades that arrived after their candle had closed, and so were left out of it.
+     */
+    public long getLateTrades() {
+        return lateTrades;
+    }
+}
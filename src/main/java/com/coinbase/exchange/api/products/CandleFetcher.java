@@ -0,0 +1,200 @@
+package com.coinbase.exchange.api.products;
+
+import com.coinbase.exchange.api.exchange.GdaxExchange;
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.coinbase.exchange.api.products.ProductService.PRODUCTS_ENDPOINT;
+
+/**
+ * Fetches candles for any time range. The exchange serves at most {@link #MAX_CANDLES_PER_REQUEST} candles a
+ * request, so the range is split into chunks of that size. The chunks are fetched concurrently (each still waits
+ * its turn with the rate limiter) and parsed straight into primitive columns, then joined oldest first into a single
+ * {@link CandleSeries}.
+ *
+ * With the {@link CandleStore} enabled only the ranges it doesn't already hold are downloaded. Each chunk is stored
+ * as it arrives, and the series is then read back from the store - apart from the candle still in progress, which
+ * is always downloaded and never stored.
+ *
+ * A chunk that fails to load is logged and left out, so the series will have a gap. It isn't recorded as
+ * downloaded, so the next fetch tries it again.
+ */
+@Component
+public class CandleFetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleFetcher.class);
+
+    public static final int MAX_CANDLES_PER_REQUEST = 300;
+
+    private final GdaxExchange exchange;
+    private final JsonFactory jsonFactory;
+    private final CandleStore candleStore;
+    private final ExecutorService executor;
+
+    @Autowired
+    public CandleFetcher(GdaxExchange exchange,
+                         JsonCodec jsonCodec,
+                         CandleStore candleStore,
+                         @Value("${candles.fetchThreads}") int fetchThreads) {
+        this.exchange = exchange;
+        this.jsonFactory = jsonCodec.getObjectMapper().getFactory();
+        this.candleStore = candleStore;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(fetchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "gdax-candle-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * every candle starting from start up to (but not including) end - start and end are widened to whole candles.
+     */
+    public CandleSeries fetch(String productId, Instant start, Instant end, CandleGranularity granularity) {
+        int seconds = granularity.getSeconds();
+        long from = Math.floorDiv(start.getEpochSecond(), seconds) * seconds;
+        long to = -Math.floorDiv(-end.getEpochSecond(), seconds) * seconds;
+        if (!candleStore.isEnabled()) {
+            return join(download(productId, from, to, granularity), granularity);
+        }
+
+        // the latest candle is still changing, so only the ones before it are kept
+        long closed = Math.max(from, Math.min(to, Math.floorDiv(Instant.now().getEpochSecond(), seconds) * seconds));
+        List<Chunk> missing = new ArrayList<>();
+        for (long[] range : candleStore.missing(productId, granularity, from, closed)) {
+            missing.addAll(download(productId, range[0], range[1], granularity));
+        }
+        List<Chunk> inProgress = download(productId, closed, to, granularity);
+
+        boolean stored = true;
+        for (Chunk chunk : missing) {
+            CandleSeries candles = chunk.candles.join();
+            if (candles != null) {
+                stored &= candleStore.write(productId, granularity, chunk.from, chunk.to, candles);
+            }
+        }
+        if (!stored) {
+            log.warn("Downloading all of the {} candles as they couldn't all be stored", productId);
+            return join(download(productId, from, to, granularity), granularity);
+        }
+        CandleSeries result = candleStore.read(productId, granularity, from, closed);
+        result.addAll(join(inProgress, granularity));
+        return result;
+    }
+
+    private List<Chunk> download(String productId, long from, long to, CandleGranularity granularity) {
+        long chunkSeconds = (long) MAX_CANDLES_PER_REQUEST * granularity.getSeconds();
+        List<Chunk> chunks = new ArrayList<>();
+        for (long chunkStart = from; chunkStart < to; chunkStart += chunkSeconds) {
+            chunks.add(new Chunk(productId, chunkStart, Math.min(chunkStart + chunkSeconds, to), granularity));
+        }
+        return chunks;
+    }
+
+    private CandleSeries join(List<Chunk> chunks, CandleGranularity granularity) {
+        List<CandleSeries> loaded = new ArrayList<>(chunks.size());
+        int candles = 0;
+        for (Chunk chunk : chunks) {
+            CandleSeries series = chunk.candles.join();
+            if (series != null) {
+                loaded.add(series);
+                candles += series.size();
+            }
+        }
+        CandleSeries result = new CandleSeries(granularity, candles);
+        for (CandleSeries series : loaded) {
+            result.addAll(series);
+        }
+        return result;
+    }
+
+    /**
+     * @return null if the chunk couldn't be loaded.
+     */
+    private CandleSeries fetchChunk(String productId, long from, long to, CandleGranularity granularity) {
+        // the exchange's end is inclusive - stop a candle short so chunks don't overlap
+        long last = Math.max(from, to - granularity.getSeconds());
+        String candlesEndpoint = PRODUCTS_ENDPOINT + "/" + productId + "/candles"
+                + "?start=" + Instant.ofEpochSecond(from)
+                + "&end=" + Instant.ofEpochSecond(last)
+                + "&granularity=" + granularity.getSeconds();
+        CandleSeries chunk = exchange.get(candlesEndpoint, response -> parse(response.getBody(), granularity));
+        if (chunk == null) {
+            log.warn("Unable to load {} candles from {} to {}", productId, Instant.ofEpochSecond(from), Instant.ofEpochSecond(last));
+        }
+        return chunk;
+    }
+
+    /**
+     * one request's worth of candles, [from, to), being downloaded.
+     */
+    private final class Chunk {
+
+        final long from;
+        final long to;
+        final CompletableFuture<CandleSeries> candles;
+
+        Chunk(String productId, long from, long to, CandleGranularity granularity) {
+            this.from = from;
+            this.to = to;
+            this.candles = CompletableFuture.supplyAsync(() -> fetchChunk(productId, from, to, granularity), executor);
+        }
+    }
+
+    /**
+     * reads a candles response - rows of [time, low, high, open, close, volume], newest first.
+     */
+    CandleSeries parse(InputStream body, CandleGranularity granularity) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of candles but got " + parser.getCurrentToken());
+            }
+            int rows = 0;
+            long[] times = new long[MAX_CANDLES_PER_REQUEST];
+            double[][] values = new double[5][MAX_CANDLES_PER_REQUEST];
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                if (rows == times.length) {
+                    times = Arrays.copyOf(times, rows * 2);
+                    for (int column = 0; column < values.length; column++) {
+                        values[column] = Arrays.copyOf(values[column], rows * 2);
+                    }
+                }
+                parser.nextToken();
+                times[rows] = parser.getValueAsLong();
+                for (int column = 0; column < values.length; column++) {
+                    parser.nextToken();
+                    values[column][rows] = parser.getValueAsDouble();
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    parser.skipChildren();
+                }
+                rows++;
+            }
+            CandleSeries series = new CandleSeries(granularity, rows);
+            boolean newestFirst = rows > 1 && times[0] > times[rows - 1];
+            for (int i = 0; i < rows; i++) {
+                int row = newestFirst ? rows - 1 - i : i;
+                series.add(times[row], values[2][row], values[1][row], values[0][row], values[3][row], values[4][row]);
+            }
+            return series;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.coinbase.exchange.api.products;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One product's candles at one granularity, kept on disk for {@link CandleStore}.
+ *
+ * The candles are a single memory mapped file laid out a column at a time, oldest candle first:
+ * <pre>
+ *   int  magic
+ *   int  version
+ *   int  granularity, seconds
+ *   int  capacity, candles per column
+ *   int  count of candles held
+ *   int  1 while the columns are being rewritten
+ *   long reserved
+ *   long[capacity] times, then open, high, low, close and volume as double[capacity] each
+ * </pre>
+ * The time ranges that have been downloaded are kept alongside in a small .ranges file of [from, to) pairs - the
+ * exchange leaves out candles for intervals with no trades, so the candles alone can't say what's been fetched.
+ * A range is only recorded once its candles are in place, and a file left half rewritten is emptied when it's next
+ * opened, so a crash costs a download rather than a gap.
+ */
+final class CandleFile implements Closeable {
+
+    static final int MAGIC = 0x43444c53;
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 32;
+    static final int COLUMNS = 6;
+    static final int INITIAL_CAPACITY = 1024;
+
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int COUNT_OFFSET = 16;
+    private static final int DIRTY_OFFSET = 20;
+
+    private final Path path;
+    private final Path rangesPath;
+    private final CandleGranularity granularity;
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    // sorted, non overlapping [from, to) pairs
+    private long[] ranges = new long[0];
+
+    private CandleFile(Path path, Path rangesPath, CandleGranularity granularity) {
+        this.path = path;
+        this.rangesPath = rangesPath;
+        this.granularity = granularity;
+    }
+
+    static CandleFile open(Path directory, String productId, CandleGranularity granularity) throws IOException {
+        String name = productId + "-" + granularity.getSeconds();
+        CandleFile file = new CandleFile(directory.resolve(name + ".candles"), directory.resolve(name + ".ranges"), granularity);
+        file.init();
+        return file;
+    }
+
+    private void init() throws IOException {
+        if (!Files.exists(path)) {
+            map(INITIAL_CAPACITY);
+            capacity = INITIAL_CAPACITY;
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, granularity.getSeconds());
+            buffer.putInt(CAPACITY_OFFSET, INITIAL_CAPACITY);
+            Files.deleteIfExists(rangesPath);
+            return;
+        }
+        long size = Files.size(path);
+        if (size < HEADER_LENGTH) {
+            throw new IOException(path + " is too short to be a candle file");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != granularity.getSeconds()) {
+            throw new IOException(path + " isn't a version " + VERSION + " file of " + granularity + " candles");
+        }
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+        if (size < HEADER_LENGTH + (long) COLUMNS * capacity * 8) {
+            throw new IOException(path + " is shorter than its capacity of " + capacity + " candles");
+        }
+        if (buffer.getInt(DIRTY_OFFSET) != 0) {
+            // interrupted part way through a write - start again rather than trust any of it
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putInt(DIRTY_OFFSET, 0);
+            Files.deleteIfExists(rangesPath);
+        }
+        count = buffer.getInt(COUNT_OFFSET);
+        if (Files.exists(rangesPath)) {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(rangesPath));
+            ranges = new long[bytes.remaining() / 16 * 2];
+            bytes.asLongBuffer().get(ranges);
+        }
+    }
+
+    /**
+     * the parts of [start, end) that haven't been downloaded yet, oldest first.
+     */
+    synchronized List<long[]> missing(long start, long end) {
+        List<long[]> missing = new ArrayList<>();
+        long cursor = start;
+        for (int i = 0; i < ranges.length && cursor < end; i += 2) {
+            if (ranges[i + 1] <= cursor) {
+                continue;
+            }
+            if (ranges[i] > cursor) {
+                missing.add(new long[]{cursor, Math.min(ranges[i], end)});
+            }
+            cursor = Math.max(cursor, ranges[i + 1]);
+        }
+        if (cursor < end) {
+            missing.add(new long[]{cursor, end});
+        }
+        return missing;
+    }
+
+    /**
+     * the candles held from start up to (but not including) end.
+     */
+    synchronized CandleSeries read(long start, long end) {
+        int from = lowerBound(start);
+        int to = Math.max(from, lowerBound(end));
+        CandleSeries series = new CandleSeries(granularity, to - from);
+        for (int i = from; i < to; i++) {
+            series.add(buffer.getLong(offset(0, i, capacity)),
+                    buffer.getDouble(offset(1, i, capacity)),
+                    buffer.getDouble(offset(2, i, capacity)),
+                    buffer.getDouble(offset(3, i, capacity)),
+                    buffer.getDouble(offset(4, i, capacity)),
+                    buffer.getDouble(offset(5, i, capacity)));
+        }
+        return series;
+    }
+
+    /**
+     * replaces whatever's held from start up to end with the given candles and records the range as downloaded.
+     * Usually the range is later than anything held, and the candles are simply appended.
+     */
+    synchronized void write(long start, long end, CandleSeries candles) throws IOException {
+        int from = lowerBound(start);
+        int to = Math.max(from, lowerBound(end));
+        int first = insertionPoint(candles, start);
+        int last = insertionPoint(candles, end);
+        int added = last - first;
+        int gap = added - (to - from);
+
+        int newCapacity = capacity;
+        while (count + gap > newCapacity) {
+            newCapacity *= 2;
+        }
+        buffer.putInt(DIRTY_OFFSET, 1);
+        if (newCapacity != capacity) {
+            map(newCapacity);
+        }
+        shift(to, gap, newCapacity);
+        capacity = newCapacity;
+        for (int i = 0; i < added; i++) {
+            int index = from + i;
+            buffer.putLong(offset(0, index, capacity), candles.timeAt(first + i));
+            buffer.putDouble(offset(1, index, capacity), candles.openAt(first + i));
+            buffer.putDouble(offset(2, index, capacity), candles.highAt(first + i));
+            buffer.putDouble(offset(3, index, capacity), candles.lowAt(first + i));
+            buffer.putDouble(offset(4, index, capacity), candles.closeAt(first + i));
+            buffer.putDouble(offset(5, index, capacity), candles.volumeAt(first + i));
+        }
+        count += gap;
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, count);
+        buffer.putInt(DIRTY_OFFSET, 0);
+
+        addRange(start, end);
+        writeRanges();
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * moves the candles from index at onwards by gap places, and every column to where it belongs at newCapacity.
+     * When anything moves later it's copied from the end of the file backwards, so nothing is overwritten before
+     * it's been moved.
+     */
+    private void shift(int at, int gap, int newCapacity) {
+        if (gap >= 0) {
+            for (int column = COLUMNS - 1; column >= 0; column--) {
+                for (int i = count - 1; i >= 0; i--) {
+                    int index = i >= at ? i + gap : i;
+                    if (column > 0 && newCapacity != capacity || index != i) {
+                        buffer.putLong(offset(column, index, newCapacity), buffer.getLong(offset(column, i, capacity)));
+                    } else if (i < at) {
+                        break;
+                    }
+                }
+            }
+        } else {
+            for (int column = 0; column < COLUMNS; column++) {
+                for (int i = at; i < count; i++) {
+                    buffer.putLong(offset(column, i + gap, capacity), buffer.getLong(offset(column, i, capacity)));
+                }
+            }
+        }
+    }
+
+    private void addRange(long start, long end) {
+        long[] merged = new long[ranges.length + 2];
+        int length = 0;
+        boolean added = false;
+        for (int i = 0; i <= ranges.length; i += 2) {
+            long from;
+            long to;
+            if (!added && (i == ranges.length || ranges[i] > start)) {
+                from = start;
+                to = end;
+                added = true;
+                i -= 2;
+            } else if (i == ranges.length) {
+                break;
+            } else {
+                from = ranges[i];
+                to = ranges[i + 1];
+            }
+            if (length > 0 && from <= merged[length - 1]) {
+                merged[length - 1] = Math.max(merged[length - 1], to);
+            } else {
+                merged[length++] = from;
+                merged[length++] = to;
+            }
+        }
+        ranges = Arrays.copyOf(merged, length);
+    }
+
+    private void writeRanges() throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(ranges.length * 8);
+        bytes.asLongBuffer().put(ranges);
+        Path temp = rangesPath.resolveSibling(rangesPath.getFileName() + ".tmp");
+        Files.write(temp, bytes.array());
+        Files.move(temp, rangesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void map(int newCapacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH + (long) COLUMNS * newCapacity * 8);
+        }
+    }
+
+    /**
+     * the index of the first candle held at or after time.
+     */
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(offset(0, mid, capacity)) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int insertionPoint(CandleSeries candles, long time) {
+        int index = candles.indexOf(time);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int offset(int column, int index, int capacity) {
+        return HEADER_LENGTH + (column * capacity + index) * 8;
+    }
+
+    /**
+     * asks the OS to write the candles to disk.
+     */
+    synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+    }
+}
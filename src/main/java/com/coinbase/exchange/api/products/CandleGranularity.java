@@ -0,0 +1,32 @@
+package com.coinbase.exchange.api.products;
+
+/**
+ * The candle widths the exchange serves.
+ */
+public enum CandleGranularity {
+    ONE_MINUTE(60),
+    FIVE_MINUTES(300),
+    FIFTEEN_MINUTES(900),
+    ONE_HOUR(3600),
+    SIX_HOURS(21600),
+    ONE_DAY(86400);
+
+    private final int seconds;
+
+    CandleGranularity(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public static CandleGranularity ofSeconds(int seconds) {
+        for (CandleGranularity granularity : values()) {
+            if (granularity.seconds == seconds) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException("No candle granularity of " + seconds + "s");
+    }
+}
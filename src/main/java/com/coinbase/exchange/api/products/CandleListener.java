@@ -0,0 +1,14 @@
+package com.coinbase.exchange.api.products;
+
+/**
+ * Receives the candles a {@link CandleAggregator} builds. Called on the thread feeding the aggregator - the feed's
+ * ingest thread - so implementations should be quick, and must copy the candle rather than keep it.
+ */
+public interface CandleListener {
+
+    /**
+     * @param candle the candle a trade has just updated, or one that's just closed.
+     * @param closed true once the candle is complete - it won't be passed again.
+     */
+    void onCandle(CandleGranularity granularity, LiveCandle candle, boolean closed);
+}
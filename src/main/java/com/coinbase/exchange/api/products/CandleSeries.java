@@ -0,0 +1,161 @@
+package com.coinbase.exchange.api.products;
+
+import java.util.Arrays;
+
+/**
+ * Candles stored a column per field, oldest first - a few primitive arrays rather than an object (or a list of
+ * BigDecimals) per candle. Times are the epoch second each candle starts at, and are strictly increasing.
+ *
+ * Not thread safe while it's being added to.
+ */
+public class CandleSeries {
+
+    private final CandleGranularity granularity;
+    private long[] times;
+    private double[] opens;
+    private double[] highs;
+    private double[] lows;
+    private double[] closes;
+    private double[] volumes;
+    private int size;
+
+    public CandleSeries(CandleGranularity granularity, int initialCapacity) {
+        this.granularity = granularity;
+        int capacity = Math.max(initialCapacity, 1);
+        this.times = new long[capacity];
+        this.opens = new double[capacity];
+        this.highs = new double[capacity];
+        this.lows = new double[capacity];
+        this.closes = new double[capacity];
+        this.volumes = new double[capacity];
+    }
+
+    /**
+     * appends a candle later than every candle so far.
+     *
+     * @return false, and the candle is ignored, if it isn't later than the last candle.
+     */
+    public boolean add(long time, double open, double high, double low, double close, double volume) {
+        if (size > 0 && time <= times[size - 1]) {
+            return false;
+        }
+        if (size == times.length) {
+            grow(size * 2);
+        }
+        times[size] = time;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        volumes[size] = volume;
+        size++;
+        return true;
+    }
+
+    /**
+     * appends the candles from other that are later than the last candle in this series.
+     */
+    public void addAll(CandleSeries other) {
+        grow(size + other.size);
+        for (int i = 0; i < other.size; i++) {
+            add(other.times[i], other.opens[i], other.highs[i], other.lows[i], other.closes[i], other.volumes[i]);
+        }
+    }
+
+    /**
+     * the index of the candle starting at the given time, or -(insertion point) - 1 if there isn't one.
+     */
+    public int indexOf(long time) {
+        return Arrays.binarySearch(times, 0, size, time);
+    }
+
+    public CandleGranularity getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timeAt(int index) {
+        return times[checkIndex(index)];
+    }
+
+    public double openAt(int index) {
+        return opens[checkIndex(index)];
+    }
+
+    public double highAt(int index) {
+        return highs[checkIndex(index)];
+    }
+
+    public double lowAt(int index) {
+        return lows[checkIndex(index)];
+    }
+
+    public double closeAt(int index) {
+        return closes[checkIndex(index)];
+    }
+
+    public double volumeAt(int index) {
+        return volumes[checkIndex(index)];
+    }
+
+    public long firstTime() {
+        return timeAt(0);
+    }
+
+    public long lastTime() {
+        return timeAt(size - 1);
+    }
+
+    /**
+     * copies of the columns, trimmed to size.
+     */
+    public long[] getTimes() {
+        return Arrays.copyOf(times, size);
+    }
+
+    public double[] getOpens() {
+        return Arrays.copyOf(opens, size);
+    }
+
+    public double[] getHighs() {
+        return Arrays.copyOf(highs, size);
+    }
+
+    public double[] getLows() {
+        return Arrays.copyOf(lows, size);
+    }
+
+    public double[] getCloses() {
+        return Arrays.copyOf(closes, size);
+    }
+
+    public double[] getVolumes() {
+        return Arrays.copyOf(volumes, size);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Candle " + index + " of " + size);
+        }
+        return index;
+    }
+
+    private void grow(int capacity) {
+        if (capacity <= times.length) {
+            return;
+        }
+        times = Arrays.copyOf(times, capacity);
+        opens = Arrays.copyOf(opens, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        closes = Arrays.copyOf(closes, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+    }
+}
@@ -0,0 +1,126 @@
+package com.coinbase.exchange.api.products;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps every candle that's been downloaded on disk, a memory mapped {@link CandleFile} per product and
+ * granularity, along with the time ranges already fetched - so {@link CandleFetcher} only ever downloads the
+ * ranges it's missing and history is read back from the page cache rather than the exchange.
+ *
+ * If a file can't be opened or written the store logs it and behaves as though it holds nothing for that product.
+ */
+@Component
+public class CandleStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleStore.class);
+
+    private static final Pattern PRODUCT_ID = Pattern.compile("[A-Za-z0-9-]+");
+
+    private final boolean isEnabled;
+    private final Path directory;
+    private final Map<String, CandleFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * Used by test code - a store that keeps nothing.
+     */
+    public CandleStore() {
+        this(false, "candles");
+    }
+
+    @Autowired
+    public CandleStore(@Value("${candles.store.enabled}") boolean isEnabled,
+                       @Value("${candles.store.directory}") String directory) {
+        this.isEnabled = isEnabled;
+        this.directory = Paths.get(directory);
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * the parts of [start, end), in epoch seconds, that haven't been downloaded yet - each a [from, to) pair.
+     */
+    public List<long[]> missing(String productId, CandleGranularity granularity, long start, long end) {
+        CandleFile file = file(productId, granularity);
+        return file == null ? Collections.singletonList(new long[]{start, end}) : file.missing(start, end);
+    }
+
+    /**
+     * the candles held from start up to (but not including) end.
+     */
+    public CandleSeries read(String productId, CandleGranularity granularity, long start, long end) {
+        CandleFile file = file(productId, granularity);
+        return file == null ? new CandleSeries(granularity, 0) : file.read(start, end);
+    }
+
+    /**
+     * keeps the candles downloaded for [start, end), replacing any held for that range.
+     *
+     * @return false if they couldn't be written.
+     */
+    public boolean write(String productId, CandleGranularity granularity, long start, long end, CandleSeries candles) {
+        CandleFile file = file(productId, granularity);
+        if (file == null) {
+            return false;
+        }
+        try {
+            file.write(start, end, candles);
+            return true;
+        } catch (IOException e) {
+            log.error("Unable to store {} {} candles", productId, granularity, e);
+            return false;
+        }
+    }
+
+    private CandleFile file(String productId, CandleGranularity granularity) {
+        if (!isEnabled) {
+            return null;
+        }
+        if (!PRODUCT_ID.matcher(productId).matches()) {
+            throw new IllegalArgumentException("Not a product id: " + productId);
+        }
+        String key = productId + "-" + granularity.getSeconds();
+        CandleFile file = files.get(key);
+        if (file != null) {
+            return file;
+        }
+        synchronized (files) {
+            file = files.get(key);
+            if (file == null) {
+                try {
+                    Files.createDirectories(directory);
+                    file = CandleFile.open(directory, productId, granularity);
+                    files.put(key, file);
+                } catch (IOException e) {
+                    log.error("Unable to open the {} {} candle store in {}", productId, granularity, directory.toAbsolutePath(), e);
+                }
+            }
+            return file;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        files.values().forEach(CandleFile::close);
+    }
+}
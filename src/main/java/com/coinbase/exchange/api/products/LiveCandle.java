@@ -0,0 +1,133 @@
+package com.coinbase.exchange.api.products;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+
+/**
+ * The candle a {@link CandleAggregator} is currently building for one granularity. Prices and volume are kept as
+ * scaled longs ({@link FixedPoint}) so volume adds up exactly; the double getters are for charts.
+ *
+ * Reused from one candle to the next - copy anything that's needed beyond the {@link CandleListener} call.
+ */
+public class LiveCandle {
+
+    private final CandleGranularity granularity;
+    private boolean open;
+    private long start;
+    private long openPrice;
+    private long highPrice;
+    private long lowPrice;
+    private long closePrice;
+    private long volume;
+    private int trades;
+
+    public LiveCandle(CandleGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    void begin(long start, long price, long size) {
+        this.open = true;
+        this.start = start;
+        this.openPrice = price;
+        this.highPrice = price;
+        this.lowPrice = price;
+        this.closePrice = price;
+        this.volume = size;
+        this.trades = 1;
+    }
+
+    void trade(long price, long size) {
+        if (price > highPrice) {
+            highPrice = price;
+        }
+        if (price < lowPrice) {
+            lowPrice = price;
+        }
+        closePrice = price;
+        volume += size;
+        trades++;
+    }
+
+    void clear() {
+        open = false;
+        trades = 0;
+    }
+
+    public CandleGranularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * false until the first trade, and again between a candle closing and the next trade.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * epoch second the candle starts at.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    public long getOpenPrice() {
+        return openPrice;
+    }
+
+    public long getHighPrice() {
+        return highPrice;
+    }
+
+    public long getLowPrice() {
+        return lowPrice;
+    }
+
+    public long getClosePrice() {
+        return closePrice;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+
+    /**
+     * trades seen on the feed - a backfilled candle counts as one.
+     */
+    public int getTrades() {
+        return trades;
+    }
+
+    public double getOpen() {
+        return FixedPoint.toDouble(openPrice, PRICE_DECIMAL_PLACES);
+    }
+
+    public double getHigh() {
+        return FixedPoint.toDouble(highPrice, PRICE_DECIMAL_PLACES);
+    }
+
+    public double getLow() {
+        return FixedPoint.toDouble(lowPrice, PRICE_DECIMAL_PLACES);
+    }
+
+    public double getClose() {
+        return FixedPoint.toDouble(closePrice, PRICE_DECIMAL_PLACES);
+    }
+
+    public double getVolumeAsDouble() {
+        return FixedPoint.toDouble(volume, SIZE_DECIMAL_PLACES);
+    }
+
+    @Override
+    public String toString() {
+        return "LiveCandle{" + granularity + " at " + start + (open ? "" : " (closed)")
+                + ", open=" + FixedPoint.toString(openPrice, PRICE_DECIMAL_PLACES)
+                + ", high=" + FixedPoint.toString(highPrice, PRICE_DECIMAL_PLACES)
+                + ", low=" + FixedPoint.toString(lowPrice, PRICE_DECIMAL_PLACES)
+                + ", close=" + FixedPoint.toString(closePrice, PRICE_DECIMAL_PLACES)
+                + ", volume=" + FixedPoint.toString(volume, SIZE_DECIMAL_PLACES)
+                + ", trades=" + trades + "}";
+    }
+}
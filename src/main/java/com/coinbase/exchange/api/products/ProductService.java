@@ -7,6 +7,7 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,10 +19,12 @@ public class ProductService {
 
 
     private GdaxExchange exchange;
+    private CandleFetcher candleFetcher;
 
     @Autowired
-    public ProductService(GdaxExchange exchange) {
+    public ProductService(GdaxExchange exchange, CandleFetcher candleFetcher) {
         this.exchange = exchange;
+        this.candleFetcher = candleFetcher;
     }
 
     public static final String PRODUCTS_ENDPOINT = "/products";
@@ -47,4 +50,11 @@ public class ProductService {
         }
         return result;
     }
+
+    /**
+     * every candle from start up to end, however many requests that takes - oldest first.
+     */
+    public CandleSeries getCandles(String productId, Instant start, Instant end, CandleGranularity granularity) {
+        return candleFetcher.fetch(productId, start, end, granularity);
+    }
 }
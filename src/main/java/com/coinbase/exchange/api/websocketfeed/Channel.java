@@ -0,0 +1,70 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+/**
+ * The channels the feed can be subscribed to, cheapest first, and the message types each carries.
+ * A consumer should ask for the cheapest one that has what it needs - the full channel is every order on the book.
+ */
+public enum Channel {
+
+    /**
+     * a message a second per product with its latest sequence and trade id - just enough to know the feed is alive.
+     */
+    HEARTBEAT("heartbeat", "heartbeat"),
+
+    /**
+     * a message per trade with the best bid and ask at the time, and 24 hour stats.
+     */
+    TICKER("ticker", "ticker"),
+
+    /**
+     * every trade - the most recent one is sent as last_match on subscribing.
+     */
+    MATCHES("matches", "match", "last_match"),
+
+    /**
+     * the aggregated book - a snapshot on subscribing, then the new size at each price level as it changes.
+     */
+    LEVEL2("level2", "snapshot", "l2update"),
+
+    /**
+     * every order received, opened, changed, matched and done.
+     */
+    FULL("full", "received", "open", "done", "match", "change", "activate"),
+
+    /**
+     * the full channel's messages, but only those for the authenticated user's own orders.
+     */
+    USER("user", "received", "open", "done", "match", "change", "activate");
+
+    private final String name;
+    private final String[] types;
+
+    Channel(String name, String... types) {
+        this.name = name;
+        this.types = types;
+    }
+
+    /**
+     * what the channel is called in the subscribe message.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean carries(String type) {
+        for (String carried : types) {
+            if (carried.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * whether only the lighter channels send messages of this type - they aren't part of the sequenced order feed
+     * the books are built from.
+     */
+    public static boolean isOutsideFullChannel(String type) {
+        return type != null && !FULL.carries(type) && !"error".equals(type);
+    }
+}
@@ -0,0 +1,273 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.websocketfeed.message.ErrorOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.HeartBeat;
+import com.coinbase.exchange.api.websocketfeed.message.Level2SnapshotMessage;
+import com.coinbase.exchange.api.websocketfeed.message.Level2UpdateMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderChangeOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderDoneOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderMatchOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderOpenOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderReceivedOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.TickerMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands the frames of the lighter channels to the {@link ChannelListener}s subscribed to them, as the typed message
+ * classes. A frame is only parsed if some listener's channel carries its type, then once for all of them, so
+ * consumers that only need the ticker or the trades never pay for parsing the full channel.
+ *
+ * The exchange sends a message once per channel it's on, so the same match can arrive on the matches, full and user
+ * channels. Each listener is passed it once - the first to arrive. The parsed message is shared between the
+ * listeners, so mustn't be changed by them.
+ *
+ * Not thread safe - frames are handled on the channel ingest thread.
+ */
+public class ChannelDispatcher implements WebsocketFeed.MessageHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelDispatcher.class);
+
+    private static final String TYPE_FIELD = "\"type\"";
+    private static final String USER_ID_FIELD = "\"user_id\"";
+    private static final String ERROR = "error";
+
+    // what each type is parsed as - types missing here are never dispatched
+    private static final Map<String, Class<? extends OrderBookMessage>> MESSAGE_CLASSES = new HashMap<>();
+    static {
+        MESSAGE_CLASSES.put("heartbeat", HeartBeat.class);
+        MESSAGE_CLASSES.put("ticker", TickerMessage.class);
+        MESSAGE_CLASSES.put("snapshot", Level2SnapshotMessage.class);
+        MESSAGE_CLASSES.put("l2update", Level2UpdateMessage.class);
+        MESSAGE_CLASSES.put("match", OrderMatchOrderBookMessage.class);
+        MESSAGE_CLASSES.put("last_match", OrderMatchOrderBookMessage.class);
+        MESSAGE_CLASSES.put("received", OrderReceivedOrderBookMessage.class);
+        MESSAGE_CLASSES.put("open", OrderOpenOrderBookMessage.class);
+        MESSAGE_CLASSES.put("done", OrderDoneOrderBookMessage.class);
+        MESSAGE_CLASSES.put("change", OrderChangeOrderBookMessage.class);
+        MESSAGE_CLASSES.put(ERROR, ErrorOrderBookMessage.class);
+    }
+
+    // every type a frame can have, so typeOf can return one of these rather than a new String
+    private static final String[] TYPES = {"heartbeat", "ticker", "snapshot", "l2update", "match", "last_match",
+            "received", "open", "done", "change", "activate", "subscriptions", ERROR};
+
+    // how many of the latest sequence numbers are remembered per product to spot the same message on another channel
+    private static final int RECENT_SEQUENCES = 64;
+
+    private final JsonCodec jsonCodec;
+    private volatile Registration[] registrations = new Registration[0];
+
+    public ChannelDispatcher(JsonCodec jsonCodec) {
+        this.jsonCodec = jsonCodec;
+    }
+
+    /**
+     * from now on the listener is passed the channel's messages for the given products.
+     */
+    public synchronized void addListener(Channel channel, Collection<String> productIds, ChannelListener listener) {
+        Registration[] updated = Arrays.copyOf(registrations, registrations.length + 1);
+        updated[registrations.length] = new Registration(channel, productIds, listener);
+        registrations = updated;
+    }
+
+    /**
+     * stops passing the listener anything, for every channel it was added with.
+     */
+    public synchronized void removeListener(ChannelListener listener) {
+        registrations = Arrays.stream(registrations)
+                .filter(registration -> registration.listener != listener)
+                .toArray(Registration[]::new);
+    }
+
+    /**
+     * whether any listener wants frames of this type - safe to call from any thread, to avoid queueing the rest.
+     */
+    public boolean wants(String type) {
+        if (type == null || !MESSAGE_CLASSES.containsKey(type)) {
+            return false;
+        }
+        for (Registration registration : registrations) {
+            if (ERROR.equals(type) || registration.channel.carries(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void handleMessage(String json) {
+        String type = typeOf(json);
+        Class<? extends OrderBookMessage> messageClass = type == null ? null : MESSAGE_CLASSES.get(type);
+        if (messageClass == null) {
+            return;
+        }
+        boolean isError = ERROR.equals(type);
+        OrderBookMessage message = null;
+        for (Registration registration : registrations) {
+            if (!isError && !registration.accepts(type, json)) {
+                continue;
+            }
+            if (message == null) {
+                try {
+                    message = jsonCodec.read(json, messageClass);
+                } catch (IOException e) {
+                    log.error("Unable to decode websocket frame: {}", json, e);
+                    return;
+                }
+            }
+            if (!isError && (!registration.isFor(message) || !registration.isFirstSight(message))) {
+                continue;
+            }
+            try {
+                dispatch(type, message, registration.listener);
+            } catch (RuntimeException e) {
+                log.error("{} listener failed for {}", registration.channel, json, e);
+            }
+        }
+    }
+
+    private static void dispatch(String type, OrderBookMessage message, ChannelListener listener) {
+        switch (type) {
+            case "heartbeat":
+                listener.onHeartbeat((HeartBeat) message);
+                break;
+            case "ticker":
+                listener.onTicker((TickerMessage) message);
+                break;
+            case "snapshot":
+                listener.onLevel2Snapshot((Level2SnapshotMessage) message);
+                break;
+            case "l2update":
+                listener.onLevel2Update((Level2UpdateMessage) message);
+                break;
+            case "match":
+            case "last_match":
+                listener.onMatch((OrderMatchOrderBookMessage) message);
+                break;
+            case "received":
+                listener.onReceived((OrderReceivedOrderBookMessage) message);
+                break;
+            case "open":
+                listener.onOpen((OrderOpenOrderBookMessage) message);
+                break;
+            case "done":
+                listener.onDone((OrderDoneOrderBookMessage) message);
+                break;
+            case "change":
+                listener.onChange((OrderChangeOrderBookMessage) message);
+                break;
+            default:
+                listener.onError((ErrorOrderBookMessage) message);
+        }
+    }
+
+    /**
+     * finds a frame's type by matching the type value in place, so it doesn't create any Strings.
+     *
+     * @return one of the known types, or null.
+     */
+    public static String typeOf(String json) {
+        int field = json.indexOf(TYPE_FIELD);
+        if (field < 0) {
+            return null;
+        }
+        int i = skipWhitespace(json, field + TYPE_FIELD.length());
+        if (i >= json.length() || json.charAt(i) != ':') {
+            return null;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i >= json.length() || json.charAt(i) != '"') {
+            return null;
+        }
+        int start = i + 1;
+        for (String type : TYPES) {
+            int end = start + type.length();
+            if (end < json.length() && json.charAt(end) == '"' && json.startsWith(type, start)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Registration {
+
+        private final Channel channel;
+        private final Set<String> productIds;
+        private final ChannelListener listener;
+        private final Map<String, RecentSequences> recentSequences = new HashMap<>();
+
+        Registration(Channel channel, Collection<String> productIds, ChannelListener listener) {
+            this.channel = channel;
+            this.productIds = new HashSet<>(productIds);
+            this.listener = listener;
+        }
+
+        /**
+         * whether the channel carries this type - and for the user channel, whether it's about the user's orders.
+         */
+        boolean accepts(String type, String json) {
+            return channel.carries(type) && (channel != Channel.USER || json.contains(USER_ID_FIELD));
+        }
+
+        boolean isFor(OrderBookMessage message) {
+            return productIds.contains(message.getProduct_id());
+        }
+
+        /**
+         * whether the message hasn't already been passed on from another channel. Heartbeats and tickers share their
+         * sequence with the message they follow, so aren't checked.
+         */
+        boolean isFirstSight(OrderBookMessage message) {
+            Long sequence = message.getSequence();
+            if (sequence == null || channel == Channel.HEARTBEAT || channel == Channel.TICKER) {
+                return true;
+            }
+            return recentSequences.computeIfAbsent(message.getProduct_id(), id -> new RecentSequences()).add(sequence);
+        }
+    }
+
+    /**
+     * the latest sequence numbers passed on for one product, in a ring.
+     */
+    private static final class RecentSequences {
+
+        private final long[] sequences = new long[RECENT_SEQUENCES];
+        private int next;
+
+        RecentSequences() {
+            Arrays.fill(sequences, Long.MIN_VALUE);
+        }
+
+        /**
+         * @return false if the sequence was already there.
+         */
+        boolean add(long sequence) {
+            for (long seen : sequences) {
+                if (seen == sequence) {
+                    return false;
+                }
+            }
+            sequences[next] = sequence;
+            next = (next + 1) % sequences.length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.websocketfeed.message.ErrorOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.HeartBeat;
+import com.coinbase.exchange.api.websocketfeed.message.Level2SnapshotMessage;
+import com.coinbase.exchange.api.websocketfeed.message.Level2UpdateMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderChangeOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderDoneOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderMatchOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderOpenOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderReceivedOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.TickerMessage;
+
+/**
+ * Receives the typed messages of the channel it was subscribed with, via
+ * {@link WebsocketFeed#subscribe(Channel, java.util.Collection, ChannelListener)}. Only the methods for the types
+ * the channel carries are ever called. Always called on the channel ingest thread.
+ */
+public interface ChannelListener {
+
+    default void onHeartbeat(HeartBeat heartBeat) { }
+
+    default void onTicker(TickerMessage ticker) { }
+
+    /**
+     * a trade, from the matches, full or user channel - the last_match sent on subscribing to matches included.
+     */
+    default void onMatch(OrderMatchOrderBookMessage match) { }
+
+    default void onLevel2Snapshot(Level2SnapshotMessage snapshot) { }
+
+    default void onLevel2Update(Level2UpdateMessage update) { }
+
+    default void onReceived(OrderReceivedOrderBookMessage received) { }
+
+    default void onOpen(OrderOpenOrderBookMessage open) { }
+
+    default void onDone(OrderDoneOrderBookMessage done) { }
+
+    default void onChange(OrderChangeOrderBookMessage change) { }
+
+    /**
+     * the exchange rejected something, typically a subscribe message. Passed to every listener.
+     */
+    default void onError(ErrorOrderBookMessage error) { }
+}
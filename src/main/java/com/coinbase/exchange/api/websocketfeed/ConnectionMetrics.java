@@ -0,0 +1,91 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing how often the feed's connection has dropped and how long it took to get it back.
+ * Written by the {@link ConnectionSupervisor}, safe to read from any other thread.
+ */
+public class ConnectionMetrics {
+
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong lastDowntimeMillis = new AtomicLong();
+    private final AtomicLong maxDowntimeMillis = new AtomicLong();
+    private final AtomicLong totalDowntimeMillis = new AtomicLong();
+    private final AtomicLong lastConnectMillis = new AtomicLong();
+
+    public void disconnected() {
+        disconnects.incrementAndGet();
+    }
+
+    public void failedAttempt() {
+        failedAttempts.incrementAndGet();
+    }
+
+    public void connected(long connectMillis) {
+        lastConnectMillis.set(connectMillis);
+    }
+
+    public void reconnected(long downtimeMillis) {
+        reconnects.incrementAndGet();
+        lastDowntimeMillis.set(downtimeMillis);
+        maxDowntimeMillis.accumulateAndGet(downtimeMillis, Math::max);
+        totalDowntimeMillis.addAndGet(downtimeMillis);
+    }
+
+    /**
+     * number of times the connection closed without being asked to, including failing to connect at all.
+     */
+    public long getDisconnects() {
+        return disconnects.get();
+    }
+
+    /**
+     * number of times the connection came back after a disconnect.
+     */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * number of attempts to reconnect that failed and had to back off and try again.
+     */
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    /**
+     * how long the feed was down for last time - from the disconnect to being connected again.
+     */
+    public long getLastDowntimeMillis() {
+        return lastDowntimeMillis.get();
+    }
+
+    public long getMaxDowntimeMillis() {
+        return maxDowntimeMillis.get();
+    }
+
+    public long getTotalDowntimeMillis() {
+        return totalDowntimeMillis.get();
+    }
+
+    /**
+     * how long the last successful connect took, handshake included.
+     */
+    public long getLastConnectMillis() {
+        return lastConnectMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "disconnects=" + getDisconnects()
+                + " reconnects=" + getReconnects()
+                + " failedAttempts=" + getFailedAttempts()
+                + " lastDowntimeMillis=" + getLastDowntimeMillis()
+                + " maxDowntimeMillis=" + getMaxDowntimeMillis()
+                + " totalDowntimeMillis=" + getTotalDowntimeMillis()
+                + " lastConnectMillis=" + getLastConnectMillis();
+    }
+}
@@ -0,0 +1,203 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the feed connected. Whenever the connection drops - or can't be made in the first place - it's retried on a
+ * single background thread with a jittered exponential backoff, until it's back or the supervisor is stopped.
+ *
+ * Once reconnected the subscriptions are replayed and then the listeners told, both on that same thread. Nothing is
+ * reloaded here: the first messages on the new connection are ahead of what each book expects, so the book's own
+ * sequence gap handling buffers them and resyncs, keeping everything that arrives in the meantime.
+ */
+public class ConnectionSupervisor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionSupervisor.class);
+
+    /**
+     * makes the connection, returning once it's open or throwing if it can't be made.
+     */
+    interface Connector {
+        void connect() throws Exception;
+    }
+
+    public interface ConnectionListener {
+        /**
+         * called on the supervisor's thread once the feed is connected again and its subscriptions replayed.
+         */
+        void onReconnected(long downtimeMillis);
+    }
+
+    private final String name;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final Connector connector;
+    private final Runnable resubscribe;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+
+    private volatile ConnectionListener[] listeners = new ConnectionListener[0];
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean connected;
+    private volatile boolean stopped;
+    // when the connection was lost, or 0 whilst it's up
+    private volatile long downSince;
+    private volatile int attempts;
+
+    ConnectionSupervisor(String name, long initialDelayMillis, long maxDelayMillis,
+                         Connector connector, Runnable resubscribe) {
+        this.name = name;
+        this.initialDelayMillis = Math.max(1, initialDelayMillis);
+        this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+        this.connector = connector;
+        this.resubscribe = resubscribe;
+    }
+
+    /**
+     * connects on the calling thread, falling back to retrying in the background if that fails.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        stopped = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        attempt();
+    }
+
+    /**
+     * stops reconnecting - a connection closing after this is left closed.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * to be called once the connection is open.
+     */
+    public void connected() {
+        connected = true;
+        attempts = 0;
+        long since = downSince;
+        if (since == 0) {
+            return;
+        }
+        downSince = 0;
+        long downtimeMillis = System.currentTimeMillis() - since;
+        metrics.reconnected(downtimeMillis);
+        log.info("Reconnected after {}ms. {}", downtimeMillis, metrics);
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.execute(() -> recovered(downtimeMillis));
+        }
+    }
+
+    /**
+     * to be called whenever the connection closes. Unless stopped, a reconnect is scheduled.
+     */
+    public void disconnected() {
+        connected = false;
+        if (stopped) {
+            return;
+        }
+        markDown();
+        scheduleReconnect();
+    }
+
+    private void attempt() {
+        if (stopped || connected) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            connector.connect();
+            metrics.connected(System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            markDown();
+            metrics.failedAttempt();
+            log.warn("Unable to connect: {}", e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    private void markDown() {
+        if (downSince == 0) {
+            downSince = System.currentTimeMillis();
+            metrics.disconnected();
+        }
+    }
+
+    private void scheduleReconnect() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null || stopped || !reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delayMillis = nextDelayMillis();
+        log.info("Reconnecting in {}ms", delayMillis);
+        executor.schedule(() -> {
+            reconnectScheduled.set(false);
+            attempt();
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * doubles with each failed attempt up to maxDelayMillis. Never less than half of that, so a flapping connection
+     * still backs off, with the rest random so that clients dropped together don't all come back at once.
+     */
+    long nextDelayMillis() {
+        int attempt = Math.min(attempts, 30);
+        attempts = attempt + 1;
+        long ceiling = Math.min(maxDelayMillis, initialDelayMillis << attempt);
+        long floor = ceiling / 2;
+        return floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1);
+    }
+
+    private void recovered(long downtimeMillis) {
+        try {
+            resubscribe.run();
+        } catch (RuntimeException e) {
+            log.error("Unable to resubscribe after reconnecting", e);
+        }
+        for (ConnectionListener listener : listeners) {
+            try {
+                listener.onReconnected(downtimeMillis);
+            } catch (RuntimeException e) {
+                log.error("Connection listener failed", e);
+            }
+        }
+    }
+
+    public synchronized void addConnectionListener(ConnectionListener listener) {
+        ConnectionListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeConnectionListener(ConnectionListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(ConnectionListener[]::new);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+}
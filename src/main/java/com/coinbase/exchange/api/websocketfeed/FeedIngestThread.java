@@ -0,0 +1,147 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single writer for everything downstream of the websocket. Frames are handed over through a bounded ring
+ * buffer and a dedicated thread parses and applies them one at a time, in the order they arrived, so the order
+ * book is only ever touched by this thread.
+ *
+ * When the buffer is full the websocket thread blocks rather than dropping frames - a dropped frame is a sequence
+ * gap and costs far more to recover from than the stall.
+ */
+public class FeedIngestThread implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedIngestThread.class);
+
+    private static final long IDLE_POLL_MILLIS = 50;
+
+    private final BlockingQueue<String> frames;
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong producerStalls = new AtomicLong();
+
+    private final String threadName;
+
+    private volatile WebsocketFeed.MessageHandler messageHandler;
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public FeedIngestThread(int capacity) {
+        this(capacity, "gdax-feed-ingest");
+    }
+
+    public FeedIngestThread(int capacity, String threadName) {
+        this.threadName = threadName;
+        this.frames = new ArrayBlockingQueue<>(capacity);
+        this.tasks = new ConcurrentLinkedQueue<>();
+    }
+
+    public synchronized void start() {
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public void setMessageHandler(WebsocketFeed.MessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * called by the websocket thread for every frame received.
+     */
+    public void publish(String frame) {
+        framesReceived.incrementAndGet();
+        if (!frames.offer(frame)) {
+            producerStalls.incrementAndGet();
+            try {
+                frames.put(frame);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted whilst waiting for space in the feed buffer - frame dropped");
+            }
+        }
+    }
+
+    /**
+     * runs the task on the ingest thread ahead of any frames still waiting in the buffer.
+     * Anything that needs to touch the order book from another thread has to go through here.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isIngestThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public int getBacklog() {
+        return frames.size();
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    /**
+     * number of frames that arrived when the buffer was already full.
+     */
+    public long getProducerStalls() {
+        return producerStalls.get();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                runPendingTasks();
+                String frame = frames.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                WebsocketFeed.MessageHandler handler = messageHandler;
+                if (handler == null) {
+                    continue;
+                }
+                if (frame != null) {
+                    handler.handleMessage(frame);
+                }
+                if (frames.isEmpty()) {
+                    handler.onIdle();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // one bad frame mustn't kill the only thread applying the feed
+                log.error("Failed to process websocket frame", e);
+            }
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.orderbook.CharSlice;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessagePool;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+
+/**
+ * Decodes websocket frames straight into pooled {@link FeedMessage}s with Jackson's streaming parser.
+ *
+ * Only the fields the order book uses are read; everything else is skipped without being materialised.
+ * Prices and sizes are parsed from the parser's character buffer into scaled longs, and the small set of
+ * values type, side, reason and product_id can take are matched against constants rather than copied, so
+ * the only Strings created per frame are the order ids.
+ *
+ * Not thread safe - a decoder belongs to the feed's ingest thread.
+ */
+public class FeedMessageDecoder {
+
+    private static final String[] TYPES = {OPEN, DONE, MATCH, RECEIVED, CHANGE, "heartbeat", "activate",
+            "ticker", "l2update", "snapshot", "subscriptions", "last_match", "error"};
+    private static final String[] SIDES = {BUY, SELL};
+    private static final String[] REASONS = {CANCELED, FILLED};
+    private static final String[] ORDER_TYPES = {"limit", "market", "stop"};
+
+    private final JsonFactory jsonFactory;
+    private final FeedMessagePool pool;
+    private final CharSlice slice = new CharSlice();
+    private String[] productIds = new String[0];
+
+    public FeedMessageDecoder() {
+        this(new JsonFactory(), new FeedMessagePool(1024));
+    }
+
+    public FeedMessageDecoder(JsonFactory jsonFactory, FeedMessagePool pool) {
+        this.jsonFactory = jsonFactory;
+        this.pool = pool;
+    }
+
+    public FeedMessagePool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return a message from the pool that the caller must release, or null if the frame isn't a JSON object.
+     */
+    public FeedMessage decode(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            FeedMessage message = pool.acquire();
+            try {
+                readFields(parser, message);
+            } catch (IOException | RuntimeException e) {
+                message.release();
+                throw e;
+            }
+            return message;
+        }
+    }
+
+    private void readFields(JsonParser parser, FeedMessage message) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "type":
+                    message.setType(known(parser, TYPES));
+                    break;
+                case "side":
+                    message.setSide(known(parser, SIDES));
+                    break;
+                case "reason":
+                    message.setReason(known(parser, REASONS));
+                    break;
+                case "order_type":
+                    message.setOrderType(known(parser, ORDER_TYPES));
+                    break;
+                case "product_id":
+                    message.setProductId(productId(parser));
+                    break;
+                case "order_id":
+                    message.setOrderId(parser.getText());
+                    break;
+                case "maker_order_id":
+                    message.setMakerOrderId(parser.getText());
+                    break;
+                case "taker_order_id":
+                    message.setTakerOrderId(parser.getText());
+                    break;
+                case "sequence":
+                    message.setSequence(longValue(parser, value));
+                    break;
+                case "trade_id":
+                    message.setTradeId(longValue(parser, value));
+                    break;
+                case "time":
+                    message.setTimeMicros(parseTimeMicros(text(parser)));
+                    break;
+                case "price":
+                    message.setPrice(decimal(parser, PRICE_DECIMAL_PLACES));
+                    break;
+                case "size":
+                    message.setSize(decimal(parser, SIZE_DECIMAL_PLACES));
+                    break;
+                case "remaining_size":
+                    message.setRemainingSize(decimal(parser, SIZE_DECIMAL_PLACES));
+                    break;
+                case "new_size":
+                    message.setNewSize(decimal(parser, SIZE_DECIMAL_PLACES));
+                    break;
+                case "old_size":
+                    message.setOldSize(decimal(parser, SIZE_DECIMAL_PLACES));
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Unexpected token " + token + " in websocket frame");
+        }
+    }
+
+    private CharSlice text(JsonParser parser) throws IOException {
+        return slice.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private long decimal(JsonParser parser, int scale) throws IOException {
+        CharSlice text = text(parser);
+        return FixedPoint.parse(text, 0, text.length(), scale);
+    }
+
+    private long longValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        return FixedPoint.parse(text(parser), 0);
+    }
+
+    private String known(JsonParser parser, String[] candidates) throws IOException {
+        CharSlice text = text(parser);
+        for (String candidate : candidates) {
+            if (text.contentEquals(candidate)) {
+                return candidate;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * product ids are remembered the first time they're seen so later frames reuse the same String.
+     */
+    private String productId(JsonParser parser) throws IOException {
+        CharSlice text = text(parser);
+        for (String productId : productIds) {
+            if (text.contentEquals(productId)) {
+                return productId;
+            }
+        }
+        String productId = text.toString();
+        productIds = Arrays.copyOf(productIds, productIds.length + 1);
+        productIds[productIds.length - 1] = productId;
+        return productId;
+    }
+
+    /**
+     * parses the feed's ISO-8601 UTC timestamps, e.g. 2017-11-08T21:16:17.659000Z, to microseconds since the epoch.
+     *
+     * @return {@link FeedMessage#ABSENT} if the timestamp isn't in that form.
+     */
+    static long parseTimeMicros(CharSequence text) {
+        int length = text.length();
+        if (length < 20 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return FeedMessage.ABSENT;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || day < 1 || hour < 0 || minute < 0 || second < 0) {
+            return FeedMessage.ABSENT;
+        }
+        long micros = 0;
+        int i = 19;
+        if (text.charAt(i) == '.') {
+            int scale = 100_000;
+            for (i++; i < length && Character.isDigit(text.charAt(i)); i++) {
+                micros += (text.charAt(i) - '0') * scale;
+                scale /= 10;
+            }
+        }
+        long epochSeconds = daysFromCivil(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+        return epochSeconds * 1_000_000L + micros;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // days since 1970-01-01 for a proleptic Gregorian date
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
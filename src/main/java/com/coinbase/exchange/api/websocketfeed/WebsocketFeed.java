@@ -1,27 +1,29 @@
 package com.coinbase.exchange.api.websocketfeed;
 
+import com.coinbase.exchange.api.exchange.JsonCodec;
 import com.coinbase.exchange.api.exchange.Signature;
 import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
-import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.journal.FeedJournal;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
 import com.coinbase.exchange.api.websocketfeed.message.Subscribe;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.swing.*;
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Websocketfeed adapted from someone else's code
@@ -34,43 +36,109 @@ public class WebsocketFeed {
 
     static Logger log = LoggerFactory.getLogger(WebsocketFeed.class);
 
+    /**
+     * the channel carrying the messages for the authenticated user's own orders.
+     */
+    public static final String USER_CHANNEL = "user";
+
+    // the exchange adds this to every message about the authenticated user's own orders
+    private static final String USER_ID_FIELD = "\"user_id\"";
+    private static final String PRODUCT_ID_FIELD = "\"product_id\"";
+    // what the subscribe message is signed against to authenticate the feed
+    private static final String VERIFY_PATH = "/users/self/verify";
+
     Signature signature;
 
-    Session userSession = null;
-    MessageHandler messageHandler;
+    volatile Session userSession = null;
+    FeedIngestThread ingestThread;
+    FeedIngestThread userIngestThread;
+    FeedIngestThread channelIngestThread;
+    FeedJournal journal;
+    ConnectionSupervisor supervisor;
 
     String websocketUrl;
 
+    // the products on the full channel for consumers other than the selected book - the OrderBookManager's
     private Set<String> subscribedChannels;
+    // the product the selected book is showing, replaced each time another is selected
+    private volatile String bookProduct;
+    // every product currently wanted on the full channel, for matching frames against without a lock or creating
+    // Strings
+    private volatile String[] fullChannelProducts = new String[0];
+    private Set<String> userChannelProducts;
+    private Map<Channel, Set<String>> channelProducts;
+
+    // what the main ingest thread passes frames to - the selected book, and the OrderBookManager
+    private volatile MessageHandler bookHandler;
+    private volatile MessageHandler[] productsHandlers = new MessageHandler[0];
 
     private Boolean isEnabled;
 
     private String key;
     private String passphrase;
 
+    private final JsonCodec jsonCodec;
+    private final FeedMessageDecoder decoder = new FeedMessageDecoder();
+    private final ChannelDispatcher channelDispatcher;
+
     @Autowired
     public WebsocketFeed(@Value("${websocket.baseUrl}") String websocketUrl,
                          @Value("${websocket.enabled}") Boolean isEnabled,
                          @Value("${gdax.key}") String key,
                          @Value("${gdax.passphrase}") String passphrase,
-                         Signature signature) {
+                         @Value("${websocket.bufferSize}") int bufferSize,
+                         @Value("${websocket.reconnect.initialDelayMillis}") long reconnectInitialDelayMillis,
+                         @Value("${websocket.reconnect.maxDelayMillis}") long reconnectMaxDelayMillis,
+                         Signature signature,
+                         FeedJournal journal,
+                         JsonCodec jsonCodec) {
         this.key = key;
         this.passphrase = passphrase;
         this.signature = signature;
+        this.journal = journal;
+        this.jsonCodec = jsonCodec;
         this.websocketUrl = websocketUrl;
         this.isEnabled = isEnabled;
-        this.subscribedChannels = new HashSet<>();
+        this.subscribedChannels = ConcurrentHashMap.newKeySet();
+        this.userChannelProducts = ConcurrentHashMap.newKeySet();
+        this.channelProducts = new ConcurrentHashMap<>();
+        this.ingestThread = new FeedIngestThread(bufferSize);
+        this.ingestThread.setMessageHandler(new FullChannelHandler());
+        this.userIngestThread = new FeedIngestThread(bufferSize, "gdax-user-feed");
+        this.channelDispatcher = new ChannelDispatcher(jsonCodec);
+        this.channelIngestThread = new FeedIngestThread(bufferSize, "gdax-channel-feed");
+        this.channelIngestThread.setMessageHandler(channelDispatcher);
+        this.supervisor = new ConnectionSupervisor("gdax-feed-reconnect", reconnectInitialDelayMillis,
+                reconnectMaxDelayMillis, this::connect, this::resubscribe);
         init();
     }
 
+    /**
+     * connects, and keeps reconnecting whenever the connection drops, until closed.
+     */
     public void init() {
         if (isEnabled) {
+            ingestThread.start();
+            supervisor.start();
+        }
+    }
+
+    private void connect() throws Exception {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.connectToServer(this, new URI(websocketUrl));
+    }
+
+    /**
+     * closes the connection for good - it won't be reconnected.
+     */
+    public void close() {
+        supervisor.stop();
+        Session session = userSession;
+        if (session != null) {
             try {
-                WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-                container.connectToServer(this, new URI(websocketUrl));
-            } catch (Exception e) {
-                log.error("Could not connect to remote server: " + e.getMessage() + ", " + e.getLocalizedMessage());
-                e.printStackTrace();
+                session.close();
+            } catch (IOException e) {
+                log.warn("Unable to close websocket", e);
             }
         }
     }
@@ -84,6 +152,7 @@ public class WebsocketFeed {
     public void onOpen(Session userSession) {
         log.info("opening websocket");
         this.userSession = userSession;
+        supervisor.connected();
     }
 
     /**
@@ -96,63 +165,149 @@ public class WebsocketFeed {
     public void onClose(Session userSession, CloseReason reason) {
         log.info("closing websocket: {}", reason);
         this.userSession = null;
+        supervisor.disconnected();
     }
 
     /**
      * Callback hook for events. This method will be invoked when a client sends a message.
+     * Frames are only journalled and buffered here - parsing and applying them happens on the ingest thread.
+     * Once the user channel is subscribed to, frames about the user's own orders are also handed to its own
+     * ingest thread, so the order books never wait on whatever's tracking the orders. They only go to the main ingest
+     * thread too if they're for a product subscribed to on the full channel. Likewise frames wanted by a
+     * {@link ChannelListener} go to the channel ingest thread. Those only the lighter channels send - heartbeats,
+     * tickers, level2 - are kept off the main ingest thread, as they aren't part of the order feed.
      */
     @OnMessage
     public void onMessage(String message) {
-        if (this.messageHandler != null) {
-            this.messageHandler.handleMessage(message);
+        if (journal.isEnabled()) {
+            journal.append(message);
+        }
+        String type = ChannelDispatcher.typeOf(message);
+        if (channelIngestThread.isRunning() && channelDispatcher.wants(type)) {
+            channelIngestThread.publish(message);
+        }
+        if (userIngestThread.isRunning() && message.contains(USER_ID_FIELD)) {
+            userIngestThread.publish(message);
+        }
+        // the matches and user channels send full channel types too, for products the books may not be following
+        if (!Channel.isOutsideFullChannel(type) && isForFullChannelProduct(message)) {
+            ingestThread.publish(message);
         }
     }
 
     @OnError
     public void onError(Session s, Throwable t){
-        log.error("WebsocketFeed error!!!");
-        t.printStackTrace();
+        log.error("WebsocketFeed error!!!", t);
+    }
+
+    /**
+     * whether the frame is for one of the products the books follow on the full channel, matching the product_id
+     * value in place. Frames without a product_id aren't about any one product, so pass.
+     */
+    boolean isForFullChannelProduct(String json) {
+        int start = productIdStart(json);
+        if (start < 0) {
+            return true;
+        }
+        for (String productId : fullChannelProducts) {
+            if (isProductAt(json, start, productId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * where the product_id value starts, or -1 if the frame has none.
+     */
+    private static int productIdStart(String json) {
+        int field = json.indexOf(PRODUCT_ID_FIELD);
+        if (field < 0) {
+            return -1;
+        }
+        int colon = json.indexOf(':', field + PRODUCT_ID_FIELD.length());
+        int quote = colon < 0 ? -1 : json.indexOf('"', colon);
+        return quote < 0 ? -1 : quote + 1;
     }
 
-    public void setMessageHandler(MessageHandler msgHandler) {
-        this.messageHandler = msgHandler;
+    private static boolean isProductAt(String json, int start, String productId) {
+        int end = start + productId.length();
+        return end < json.length() && json.charAt(end) == '"' && json.startsWith(productId, start);
     }
 
+    public FeedIngestThread getIngestThread() {
+        return ingestThread;
+    }
+
+    /**
+     * sends the message if connected. Whilst disconnected it's dropped - subscriptions are replayed on reconnecting.
+     */
     public void sendMessage(String message) {
         if(isEnabled) {
-            this.userSession.getAsyncRemote().sendText(message);
+            Session session = this.userSession;
+            if (session == null) {
+                log.warn("Not connected, dropping message: {}", message);
+                return;
+            }
+            session.getAsyncRemote().sendText(message);
         }
     }
 
+    /**
+     * replays the current subscriptions, freshly signed, after reconnecting.
+     */
+    void resubscribe() {
+        String[] products = fullChannelProducts;
+        if (products.length > 0) {
+            log.info("WebSocketFeed resubscribing to {}", Arrays.toString(products));
+            sendMessage(signObject(new Subscribe(products)));
+        }
+        if (!userChannelProducts.isEmpty()) {
+            log.info("WebSocketFeed resubscribing to the user channel for {}", userChannelProducts);
+            sendMessage(signObject(new Subscribe(userChannelProducts.toArray(new String[0]), USER_CHANNEL)));
+        }
+        channelProducts.forEach((channel, productIds) -> {
+            log.info("WebSocketFeed resubscribing to the {} channel for {}", channel.getName(), productIds);
+            sendMessage(signObject(new Subscribe(productIds.toArray(new String[0]), channel.getName())));
+        });
+    }
+
+    /**
+     * switches the selected book over to the product, unsubscribing from the one it showed before unless something
+     * else still wants it.
+     */
     public void subscribe(String productId, GdaxLiveOrderBook liveOrderBook) {
         log.info("Subscribing to {}", productId);
-        setSubscribedChannels(productId);
-        Subscribe msg = new Subscribe((String[]) Arrays.asList(productId).toArray());
+        String previous = replaceBookProduct(productId);
+        if (previous != null && !previous.equals(productId) && !Arrays.asList(fullChannelProducts).contains(previous)) {
+            log.info("Unsubscribing from {}", previous);
+            Subscribe unsubscribe = new Subscribe(new String[]{previous}, Channel.FULL.getName());
+            unsubscribe.setType("unsubscribe");
+            sendMessage(signObject(unsubscribe));
+        }
+        Subscribe msg = new Subscribe(new String[]{productId});
         String jsonSubscribeMessage = signObject(msg);
 
-        setMessageHandler(json -> {
-            SwingWorker<Void, OrderBookMessage> worker = new SwingWorker<Void, OrderBookMessage>() {
-                @Override
-                public Void doInBackground() {
-                    log.info(json);
-                    OrderBookMessage message = getObject(json, new TypeReference<OrderBookMessage>() {
-                    });
-//                    log.info("Message Recieved: {}", message.getSequence());
-                    publish(message);
-                    return null;
+        bookHandler = new MessageHandler() {
+            @Override
+            public void handleMessage(String json) {
+                FeedMessage message;
+                try {
+                    message = decoder.decode(json);
+                } catch (IOException e) {
+                    log.error("Unable to decode websocket frame: {}", json, e);
+                    return;
                 }
-
-                @Override
-                protected void process(List<OrderBookMessage> chunks) {
-                    if (chunks != null && chunks.size() > 0) {
-                        for (OrderBookMessage message : chunks) {
-                            liveOrderBook.handleMessages(message);
-                        }
-                    }
+                if (message != null) {
+                    liveOrderBook.handleMessages(message);
                 }
-            };
-            worker.execute();
-        });
+            }
+
+            @Override
+            public void onIdle() {
+                liveOrderBook.publishSnapshot();
+            }
+        };
 
         sendMessage(jsonSubscribeMessage);
 
@@ -161,47 +316,206 @@ public class WebsocketFeed {
 
     public void subscribe(String productId) {
         log.info("WebSocketFeed subscribing to {}", productId);
-        setSubscribedChannels(productId);
-        Subscribe msg = new Subscribe((String[]) Arrays.asList(productId).toArray());
+        addSubscribedChannels(productId);
+        Subscribe msg = new Subscribe(new String[]{productId});
         String jsonSubscribeMessage = signObject(msg);
         sendMessage(jsonSubscribeMessage);
         log.info("WebSocketFeed subscribtion message sent");
     }
 
-    public String signObject(Subscribe jsonObj) {
-        Gson gson = new Gson();
-        String jsonString = gson.toJson(jsonObj);
+    /**
+     * subscribes to all the products in a single subscribe message, with every full channel frame from then on also
+     * going to the handler - alongside the selected book's, not instead of it. The handler picks out its own
+     * products' frames.
+     */
+    public void subscribe(Collection<String> productIds, MessageHandler messageHandler) {
+        log.info("WebSocketFeed subscribing to {}", productIds);
+        String[] products = productIds.toArray(new String[0]);
+        addSubscribedChannels(products);
+        addMessageHandler(messageHandler);
+        sendMessage(signObject(new Subscribe(products)));
+    }
+
+    private synchronized void addMessageHandler(MessageHandler messageHandler) {
+        MessageHandler[] updated = Arrays.copyOf(productsHandlers, productsHandlers.length + 1);
+        updated[productsHandlers.length] = messageHandler;
+        productsHandlers = updated;
+    }
+
+    /**
+     * stops passing frames to a handler given to {@link #subscribe(Collection, MessageHandler)}. The feed stays
+     * subscribed to its products.
+     */
+    public synchronized void removeMessageHandler(MessageHandler messageHandler) {
+        productsHandlers = Arrays.stream(productsHandlers)
+                .filter(handler -> handler != messageHandler)
+                .toArray(MessageHandler[]::new);
+    }
 
+    /**
+     * subscribes to the user channel for the given products - an authenticated subscription that carries just the
+     * messages for the user's own orders. They're handed to the handler on a separate ingest thread.
+     * They also arrive on the full channel, so handlers should expect to see a message more than once.
+     */
+    public void subscribeToUserChannel(Collection<String> productIds, MessageHandler messageHandler) {
+        log.info("WebSocketFeed subscribing to the user channel for {}", productIds);
+        userChannelProducts.addAll(productIds);
+        userIngestThread.setMessageHandler(messageHandler);
+        if (isEnabled) {
+            userIngestThread.start();
+        }
+        sendMessage(signObject(new Subscribe(productIds.toArray(new String[0]), USER_CHANNEL)));
+    }
+
+    /**
+     * subscribes to just the one channel for the given products, with its messages passed to the listener as the
+     * typed message classes on the channel ingest thread. Ask for the cheapest channel with what's needed - the
+     * ticker for top of book, matches for trades - rather than the full channel.
+     */
+    public void subscribe(Channel channel, Collection<String> productIds, ChannelListener listener) {
+        log.info("WebSocketFeed subscribing to the {} channel for {}", channel.getName(), productIds);
+        channelProducts.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).addAll(productIds);
+        channelDispatcher.addListener(channel, productIds, listener);
+        if (isEnabled) {
+            channelIngestThread.start();
+        }
+        sendMessage(signObject(new Subscribe(productIds.toArray(new String[0]), channel.getName())));
+    }
+
+    /**
+     * stops passing the listener messages. The feed stays subscribed to its channel.
+     */
+    public void removeChannelListener(ChannelListener listener) {
+        channelDispatcher.removeListener(listener);
+    }
+
+    public FeedIngestThread getChannelIngestThread() {
+        return channelIngestThread;
+    }
+
+    public FeedIngestThread getUserIngestThread() {
+        return userIngestThread;
+    }
+
+    /**
+     * the listener is told each time the feed reconnects, once its subscriptions have been replayed.
+     */
+    public void addConnectionListener(ConnectionSupervisor.ConnectionListener listener) {
+        supervisor.addConnectionListener(listener);
+    }
+
+    public void removeConnectionListener(ConnectionSupervisor.ConnectionListener listener) {
+        supervisor.removeConnectionListener(listener);
+    }
+
+    public ConnectionMetrics getConnectionMetrics() {
+        return supervisor.getMetrics();
+    }
+
+    public String signObject(Subscribe jsonObj) {
         String timestamp = Instant.now().getEpochSecond() + "";
         jsonObj.setTimestamp(timestamp);
-        jsonObj.setSignature(signature.generate("", "GET", jsonString, timestamp));
+        jsonObj.setSignature(signature.generate(VERIFY_PATH, "GET", "", timestamp));
         jsonObj.setPassphrase(passphrase);
         jsonObj.setKey(key);
 
-        return gson.toJson(jsonObj);
+        return jsonCodec.writeString(jsonObj);
     }
 
     public <T> T getObject(String json, TypeReference<T> type) {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.readValue(json, type);
+            return jsonCodec.read(json, type);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return null;
     }
 
-    public void setSubscribedChannels(String subscribedProducts) {
-        this.subscribedChannels.clear();
+    /**
+     * adds products wanted on the full channel by consumers other than the selected book.
+     */
+    public synchronized void addSubscribedChannels(String... subscribedProducts) {
         this.subscribedChannels.addAll(Arrays.asList(subscribedProducts));
+        refreshFullChannelProducts();
+    }
+
+    private synchronized String replaceBookProduct(String productId) {
+        String previous = bookProduct;
+        bookProduct = productId;
+        refreshFullChannelProducts();
+        return previous;
+    }
+
+    private void refreshFullChannelProducts() {
+        Set<String> products = new LinkedHashSet<>(subscribedChannels);
+        if (bookProduct != null) {
+            products.add(bookProduct);
+        }
+        fullChannelProducts = products.toArray(new String[0]);
+    }
+
+    /**
+     * every product currently wanted on the full channel - what's replayed on reconnecting.
+     */
+    public Set<String> getSubscribedChannels() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(fullChannelProducts)));
     }
 
     /**
      * OrderBookMessage handler. Functional Interface.
+     * Always called on the ingest thread.
      *
      * @author Jiji_Sasidharan
      */
+    /**
+     * the main ingest thread's handler - passes the selected book the frames for its product, and every other
+     * handler every frame. One failing doesn't stop the rest being passed the frame.
+     */
+    private class FullChannelHandler implements MessageHandler {
+
+        @Override
+        public void handleMessage(String json) {
+            MessageHandler book = bookHandler;
+            if (book != null && isForBook(json)) {
+                handle(book, json);
+            }
+            for (MessageHandler handler : productsHandlers) {
+                handle(handler, json);
+            }
+        }
+
+        @Override
+        public void onIdle() {
+            MessageHandler book = bookHandler;
+            if (book != null) {
+                book.onIdle();
+            }
+            for (MessageHandler handler : productsHandlers) {
+                handler.onIdle();
+            }
+        }
+
+        private boolean isForBook(String json) {
+            String productId = bookProduct;
+            int start = productIdStart(json);
+            return start < 0 || (productId != null && isProductAt(json, start, productId));
+        }
+
+        private void handle(MessageHandler handler, String json) {
+            try {
+                handler.handleMessage(json);
+            } catch (RuntimeException e) {
+                log.error("Failed to process websocket frame {}", json, e);
+            }
+        }
+    }
+
     public interface MessageHandler {
         public void handleMessage(String message);
+
+        /**
+         * called whenever the ingest thread has caught up with the feed.
+         */
+        default void onIdle() { }
     }
 }
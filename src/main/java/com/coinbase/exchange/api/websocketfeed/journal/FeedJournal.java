@@ -0,0 +1,202 @@
+package com.coinbase.exchange.api.websocketfeed.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every raw websocket frame to a journal on disk so a session can be replayed later with
+ * {@link FeedJournalReader}, to reproduce order book bugs or measure throughput offline.
+ *
+ * The journal is a directory of fixed size, memory mapped segment files. Each record is
+ * <pre>
+ *   int  length of the frame in bytes
+ *   long journal sequence number, counting frames from 0
+ *   long receive time, microseconds since the epoch
+ *   byte[length] the frame, UTF-8
+ * </pre>
+ * and a length of zero marks the end of a segment. An append encodes the frame straight into the mapped segment
+ * and writes the length last, so it is a memory copy with no allocation or system call - the OS writes the pages
+ * back in its own time. The only allocation is mapping a new segment when the current one fills up.
+ *
+ * Not thread safe - frames must be appended by one thread at a time, which is how the websocket delivers them.
+ */
+@Component
+public class FeedJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedJournal.class);
+
+    static final int HEADER_LENGTH = 4 + 8 + 8;
+    static final String SEGMENT_PREFIX = "feed-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private final boolean isEnabled;
+    private final Path directory;
+    private final int segmentSize;
+
+    private final long startEpochMicros;
+    private final long startNanos;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private long nextSequence;
+    private long framesDropped;
+
+    /**
+     * Used by test code - a journal that records nothing.
+     */
+    public FeedJournal() {
+        this(false, ".", HEADER_LENGTH);
+    }
+
+    @Autowired
+    public FeedJournal(@Value("${websocket.journal.enabled}") boolean isEnabled,
+                       @Value("${websocket.journal.directory}") String directory,
+                       @Value("${websocket.journal.segmentSize}") int segmentSize) {
+        this.isEnabled = isEnabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.startEpochMicros = System.currentTimeMillis() * 1000L;
+        this.startNanos = System.nanoTime();
+        if (isEnabled) {
+            init();
+        }
+    }
+
+    private void init() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = FeedJournalReader.segments(directory);
+            // never overwrite an earlier session - carry on after its last segment
+            segmentIndex = existing.isEmpty() ? 0 : segmentIndexOf(existing.get(existing.size() - 1)) + 1;
+            log.info("Journalling websocket frames to {} from segment {}", directory.toAbsolutePath(), segmentIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open feed journal in " + directory, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return false if the frame couldn't be journalled, either because it's larger than a segment or because
+     * a new segment couldn't be created.
+     */
+    public boolean append(String frame) {
+        long receivedMicros = startEpochMicros + (System.nanoTime() - startNanos) / 1000L;
+        // worst case for UTF-8 is three bytes per char
+        int maxLength = HEADER_LENGTH + frame.length() * 3;
+        if (maxLength > segmentSize) {
+            framesDropped++;
+            log.warn("Frame of {} chars is too large for a {} byte journal segment", frame.length(), segmentSize);
+            return false;
+        }
+        if (segment == null || segment.remaining() < maxLength) {
+            if (!roll()) {
+                framesDropped++;
+                return false;
+            }
+        }
+        MappedByteBuffer buffer = segment;
+        int start = buffer.position();
+        buffer.position(start + HEADER_LENGTH);
+        int length = encode(frame, buffer);
+        buffer.putLong(start + 4, nextSequence++);
+        buffer.putLong(start + 12, receivedMicros);
+        // the length goes in last so a reader following the journal never sees half a record
+        buffer.putInt(start, length);
+        return true;
+    }
+
+    private boolean roll() {
+        Path path = directory.resolve(segmentName(segmentIndex));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segmentIndex++;
+            return true;
+        } catch (IOException e) {
+            log.error("Unable to create journal segment {}", path, e);
+            segment = null;
+            return false;
+        }
+    }
+
+    private static int encode(String frame, MappedByteBuffer buffer) {
+        int start = buffer.position();
+        int length = frame.length();
+        for (int i = 0; i < length; i++) {
+            char c = frame.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(frame.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, frame.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate - same substitution String.getBytes makes
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * asks the OS to write the current segment to disk. Not needed for the journal to be read back by another process.
+     */
+    public void flush() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        segment = null;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getFramesJournalled() {
+        return nextSequence;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    static int segmentIndexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.coinbase.exchange.api.websocketfeed.journal;
+
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.websocketfeed.FeedMessageDecoder;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.coinbase.exchange.api.websocketfeed.journal.FeedJournal.HEADER_LENGTH;
+import static com.coinbase.exchange.api.websocketfeed.journal.FeedJournal.SEGMENT_PREFIX;
+import static com.coinbase.exchange.api.websocketfeed.journal.FeedJournal.SEGMENT_SUFFIX;
+
+/**
+ * Replays a journal written by {@link FeedJournal}, either at the pace the frames were originally received or as
+ * fast as they can be read.
+ */
+public class FeedJournalReader {
+
+    /**
+     * receives each journalled frame in the order it was recorded.
+     */
+    public interface FrameHandler {
+        void onFrame(long sequence, long receivedMicros, String frame);
+    }
+
+    private final Path directory;
+    private byte[] bytes = new byte[4096];
+
+    public FeedJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param realTime true to wait between frames for as long as passed between them when they were received,
+     *                 false to replay as fast as possible.
+     * @return the number of frames replayed.
+     */
+    public long replay(FrameHandler handler, boolean realTime) throws IOException {
+        long frames = 0;
+        long firstReceivedMicros = 0;
+        long replayStartNanos = System.nanoTime();
+        for (Path path : segments(directory)) {
+            MappedByteBuffer segment = map(path);
+            while (segment.remaining() >= HEADER_LENGTH) {
+                int start = segment.position();
+                int length = segment.getInt(start);
+                if (length <= 0) {
+                    break;
+                }
+                long sequence = segment.getLong(start + 4);
+                long receivedMicros = segment.getLong(start + 12);
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                segment.position(start + HEADER_LENGTH);
+                segment.get(bytes, 0, length);
+
+                if (frames == 0) {
+                    firstReceivedMicros = receivedMicros;
+                } else if (realTime) {
+                    long dueNanos = replayStartNanos + TimeUnit.MICROSECONDS.toNanos(receivedMicros - firstReceivedMicros);
+                    long waitNanos;
+                    while ((waitNanos = dueNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                }
+                handler.onFrame(sequence, receivedMicros, new String(bytes, 0, length, StandardCharsets.UTF_8));
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * decodes and applies every journalled frame to the book on the calling thread, publishing a snapshot at the end.
+     * The book should already hold the snapshot the recorded session started from (or be left not ready, in which
+     * case the frames are buffered) - the journal only holds the websocket frames.
+     *
+     * @return the number of frames replayed.
+     */
+    public long replay(GdaxLiveOrderBook liveOrderBook, boolean realTime) throws IOException {
+        FeedMessageDecoder decoder = new FeedMessageDecoder();
+        long frames = replay((sequence, receivedMicros, frame) -> {
+            FeedMessage message;
+            try {
+                message = decoder.decode(frame);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable frame " + sequence + " in journal: " + frame, e);
+            }
+            if (message != null) {
+                liveOrderBook.handleMessages(message);
+            }
+        }, realTime);
+        liveOrderBook.publishSnapshot();
+        return frames;
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * the segment files in the directory, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("No journal directory " + directory);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.coinbase.exchange.api.websocketfeed.message;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+
+import java.math.BigDecimal;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+
+/**
+ * Mutable, reusable form of a websocket feed message holding just the fields the order book needs.
+ * Prices and sizes are scaled longs ({@link FixedPoint}), {@link #ABSENT} when the field wasn't in the frame.
+ * Type, side and reason are the shared constants from GdaxConstants so they can be compared by equals as before
+ * without a String being created per message.
+ *
+ * Instances handed out by the feed decoder come from a pool - call {@link #release()} once done with one,
+ * and don't hold on to it afterwards.
+ */
+public class FeedMessage {
+
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    private final FeedMessagePool pool;
+
+    private String type;
+    private String side;
+    private String productId;
+    private String orderId;
+    private String makerOrderId;
+    private String takerOrderId;
+    private String reason;
+    private String orderType;
+    private long sequence;
+    private long tradeId;
+    private long timeMicros;
+    private long price;
+    private long size;
+    private long remainingSize;
+    private long newSize;
+    private long oldSize;
+
+    public FeedMessage() {
+        this(null);
+    }
+
+    FeedMessage(FeedMessagePool pool) {
+        this.pool = pool;
+        reset();
+    }
+
+    public FeedMessage reset() {
+        type = null;
+        side = null;
+        productId = null;
+        orderId = null;
+        makerOrderId = null;
+        takerOrderId = null;
+        reason = null;
+        orderType = null;
+        sequence = ABSENT;
+        tradeId = ABSENT;
+        timeMicros = ABSENT;
+        price = ABSENT;
+        size = ABSENT;
+        remainingSize = ABSENT;
+        newSize = ABSENT;
+        oldSize = ABSENT;
+        return this;
+    }
+
+    /**
+     * returns this message to the pool it came from. Does nothing for messages created directly.
+     */
+    public void release() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
+    /**
+     * copies the fields the order book uses out of a bound OrderBookMessage.
+     */
+    public FeedMessage copyFrom(OrderBookMessage message) {
+        reset();
+        type = constantOrSelf(message.getType(), RECEIVED, OPEN, DONE, MATCH, CHANGE);
+        side = constantOrSelf(message.getSide(), BUY, SELL);
+        reason = constantOrSelf(message.getReason(), CANCELED, FILLED);
+        productId = message.getProduct_id();
+        orderId = message.getOrder_id();
+        makerOrderId = message.getMaker_order_id();
+        takerOrderId = message.getTaker_order_id();
+        orderType = message.getOrder_type();
+        sequence = message.getSequence() == null ? ABSENT : message.getSequence();
+        tradeId = message.getTrade_id() == null ? ABSENT : Long.parseLong(message.getTrade_id());
+        price = scaled(message.getPrice(), PRICE_DECIMAL_PLACES);
+        size = scaled(message.getSize(), SIZE_DECIMAL_PLACES);
+        remainingSize = scaled(message.getRemaining_size(), SIZE_DECIMAL_PLACES);
+        newSize = scaled(message.getNew_size(), SIZE_DECIMAL_PLACES);
+        oldSize = scaled(message.getOld_size(), SIZE_DECIMAL_PLACES);
+        return this;
+    }
+
+    private static long scaled(BigDecimal value, int scale) {
+        return value == null ? ABSENT : FixedPoint.toScaled(value, scale);
+    }
+
+    private static String constantOrSelf(String value, String... constants) {
+        for (String constant : constants) {
+            if (constant.equals(value)) {
+                return constant;
+            }
+        }
+        return value;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public void setSide(String side) {
+        this.side = side;
+    }
+
+    public boolean isBuy() {
+        return BUY.equals(side);
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getMakerOrderId() {
+        return makerOrderId;
+    }
+
+    public void setMakerOrderId(String makerOrderId) {
+        this.makerOrderId = makerOrderId;
+    }
+
+    public String getTakerOrderId() {
+        return takerOrderId;
+    }
+
+    public void setTakerOrderId(String takerOrderId) {
+        this.takerOrderId = takerOrderId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    public void setOrderType(String orderType) {
+        this.orderType = orderType;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean hasSequence() {
+        return sequence != ABSENT;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getTradeId() {
+        return tradeId;
+    }
+
+    public void setTradeId(long tradeId) {
+        this.tradeId = tradeId;
+    }
+
+    /**
+     * microseconds since the epoch.
+     */
+    public long getTimeMicros() {
+        return timeMicros;
+    }
+
+    public void setTimeMicros(long timeMicros) {
+        this.timeMicros = timeMicros;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public boolean hasPrice() {
+        return price != ABSENT;
+    }
+
+    public void setPrice(long price) {
+        this.price = price;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getRemainingSize() {
+        return remainingSize;
+    }
+
+    public void setRemainingSize(long remainingSize) {
+        this.remainingSize = remainingSize;
+    }
+
+    public long getNewSize() {
+        return newSize;
+    }
+
+    public void setNewSize(long newSize) {
+        this.newSize = newSize;
+    }
+
+    public long getOldSize() {
+        return oldSize;
+    }
+
+    public void setOldSize(long oldSize) {
+        this.oldSize = oldSize;
+    }
+
+    @Override
+    public String toString() {
+        return "FeedMessage{type=" + type + ", side=" + side + ", productId=" + productId
+                + ", sequence=" + sequence + ", orderId=" + orderId
+                + ", price=" + (price == ABSENT ? "-" : FixedPoint.toString(price, PRICE_DECIMAL_PLACES))
+                + ", size=" + (size == ABSENT ? "-" : FixedPoint.toString(size, SIZE_DECIMAL_PLACES))
+                + ", remainingSize=" + (remainingSize == ABSENT ? "-" : FixedPoint.toString(remainingSize, SIZE_DECIMAL_PLACES))
+                + ", reason=" + reason + "}";
+    }
+}
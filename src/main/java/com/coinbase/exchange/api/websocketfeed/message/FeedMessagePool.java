@@ -0,0 +1,41 @@
+package com.coinbase.exchange.api.websocketfeed.message;
+
+import java.util.ArrayDeque;
+
+/**
+ * Free list of {@link FeedMessage}s so the feed doesn't allocate a message per frame.
+ * Not thread safe - a pool belongs to the feed's ingest thread.
+ */
+public class FeedMessagePool {
+
+    private final ArrayDeque<FeedMessage> free;
+    private final int maxRetained;
+    private long created;
+
+    public FeedMessagePool(int maxRetained) {
+        this.free = new ArrayDeque<>(maxRetained);
+        this.maxRetained = maxRetained;
+    }
+
+    public FeedMessage acquire() {
+        FeedMessage message = free.pollFirst();
+        if (message == null) {
+            created++;
+            return new FeedMessage(this);
+        }
+        return message;
+    }
+
+    void release(FeedMessage message) {
+        if (free.size() < maxRetained) {
+            free.addFirst(message.reset());
+        }
+    }
+
+    /**
+     * number of messages this pool has had to allocate - flat once the feed is warmed up.
+     */
+    public long getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,36 @@
+package com.coinbase.exchange.api.websocketfeed.message;
+
+/**
+ * Sent on the level2 channel once per product on subscribing - the size at every price level of the book.
+ * Each level is a [price, size] pair, left as strings.
+ *
+ * {
+ *     "type": "snapshot",                    // inherited
+ *     "product_id": "BTC-EUR",               // inherited
+ *     "bids": [["6500.11", "0.45054140"]],
+ *     "asks": [["6500.15", "0.57753524"]]
+ * }
+ */
+public class Level2SnapshotMessage extends OrderBookMessage {
+
+    String[][] bids;
+    String[][] asks;
+
+    public Level2SnapshotMessage() { }
+
+    public String[][] getBids() {
+        return bids;
+    }
+
+    public void setBids(String[][] bids) {
+        this.bids = bids;
+    }
+
+    public String[][] getAsks() {
+        return asks;
+    }
+
+    public void setAsks(String[][] asks) {
+        this.asks = asks;
+    }
+}
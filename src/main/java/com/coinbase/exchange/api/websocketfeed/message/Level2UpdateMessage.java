@@ -0,0 +1,27 @@
+package com.coinbase.exchange.api.websocketfeed.message;
+
+/**
+ * Sent on the level2 channel whenever price levels change. Each change is a [side, price, size] triple, left as
+ * strings, where size is the new total at that price - a size of "0" means the level has gone.
+ *
+ * {
+ *     "type": "l2update",                    // inherited
+ *     "product_id": "BTC-EUR",               // inherited
+ *     "time": "2019-08-14T20:42:27.265Z",    // inherited
+ *     "changes": [["buy", "6500.09", "0.84702376"], ["sell", "6507.00", "1.88933140"]]
+ * }
+ */
+public class Level2UpdateMessage extends OrderBookMessage {
+
+    String[][] changes;
+
+    public Level2UpdateMessage() { }
+
+    public String[][] getChanges() {
+        return changes;
+    }
+
+    public void setChanges(String[][] changes) {
+        this.changes = changes;
+    }
+}
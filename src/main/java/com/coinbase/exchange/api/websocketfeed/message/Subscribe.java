@@ -7,12 +7,14 @@ public class Subscribe {
 
     String type;
     String[] product_ids;
+    // null for the exchange's default - the full channel
+    String[] channels;
 
     // Used for signing the subscribe message to the Websocket feed
     String signature;
     String passphrase;
     String timestamp;
-    String apiKey;
+    String key;
 
     public Subscribe() { }
 
@@ -21,6 +23,11 @@ public class Subscribe {
         this.product_ids = product_ids;
     }
 
+    public Subscribe(String[] product_ids, String... channels) {
+        this(product_ids);
+        this.channels = channels;
+    }
+
     public String getType() {
         return type;
     }
@@ -37,6 +44,14 @@ public class Subscribe {
         this.product_ids = product_ids;
     }
 
+    public String[] getChannels() {
+        return channels;
+    }
+
+    public void setChannels(String[] channels) {
+        this.channels = channels;
+    }
+
     public Subscribe setSignature(String signature) {
         this.signature = signature;
         return this;
@@ -53,7 +68,7 @@ public class Subscribe {
     }
 
     public Subscribe setKey(String apiKey) {
-        this.apiKey = apiKey;
+        this.key = apiKey;
         return this;
     }
 
@@ -0,0 +1,102 @@
+package com.coinbase.exchange.api.websocketfeed.message;
+
+import java.math.BigDecimal;
+
+/**
+ * Sent on the ticker channel each time there's a trade, with the best bid and ask once it's done.
+ *
+ * {
+ *     "type": "ticker",                      // inherited
+ *     "trade_id": 20153558,                  // inherited
+ *     "sequence": 3262786978,                // inherited
+ *     "time": "2017-09-02T17:05:49.250000Z", // inherited
+ *     "product_id": "BTC-USD",               // inherited
+ *     "price": "4388.01000000",              // inherited
+ *     "side": "buy",                         // inherited - the taker's side
+ *     "last_size": "0.03000000",
+ *     "best_bid": "4388",
+ *     "best_ask": "4388.01",
+ *     "open_24h": "4250.00000000",
+ *     "volume_24h": "12125.69530584",
+ *     "low_24h": "4200.00000000",
+ *     "high_24h": "4400.00000000",
+ *     "volume_30d": "383210.19498431"
+ * }
+ */
+public class TickerMessage extends OrderBookMessage {
+
+    BigDecimal last_size;
+    BigDecimal best_bid;
+    BigDecimal best_ask;
+    BigDecimal open_24h;
+    BigDecimal volume_24h;
+    BigDecimal low_24h;
+    BigDecimal high_24h;
+    BigDecimal volume_30d;
+
+    public TickerMessage() { }
+
+    public BigDecimal getLast_size() {
+        return last_size;
+    }
+
+    public void setLast_size(BigDecimal last_size) {
+        this.last_size = last_size;
+    }
+
+    public BigDecimal getBest_bid() {
+        return best_bid;
+    }
+
+    public void setBest_bid(BigDecimal best_bid) {
+        this.best_bid = best_bid;
+    }
+
+    public BigDecimal getBest_ask() {
+        return best_ask;
+    }
+
+    public void setBest_ask(BigDecimal best_ask) {
+        this.best_ask = best_ask;
+    }
+
+    public BigDecimal getOpen_24h() {
+        return open_24h;
+    }
+
+    public void setOpen_24h(BigDecimal open_24h) {
+        this.open_24h = open_24h;
+    }
+
+    public BigDecimal getVolume_24h() {
+        return volume_24h;
+    }
+
+    public void setVolume_24h(BigDecimal volume_24h) {
+        this.volume_24h = volume_24h;
+    }
+
+    public BigDecimal getLow_24h() {
+        return low_24h;
+    }
+
+    public void setLow_24h(BigDecimal low_24h) {
+        this.low_24h = low_24h;
+    }
+
+    public BigDecimal getHigh_24h() {
+        return high_24h;
+    }
+
+    public void setHigh_24h(BigDecimal high_24h) {
+        this.high_24h = high_24h;
+    }
+
+    public BigDecimal getVolume_30d() {
+        return volume_30d;
+    }
+
+    public void setVolume_30d(BigDecimal volume_30d) {
+        this.volume_30d = volume_30d;
+    }
+}
@@ -0,0 +1,182 @@
+package com.coinbase.exchange.api.MarketData;
+
+import com.coinbase.exchange.api.marketdata.Trade;
+import com.coinbase.exchange.api.marketdata.TradeTape;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.MATCH;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SELL;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TradeTapeTest {
+
+    static final long SECOND = 1_000_000L;
+    static final long T0 = 1_500_000_000L * SECOND;
+
+    List<String> fetched;
+    // the backfill's fetch and hand back, run when the test says
+    List<Runnable> pending;
+    TradeTape testObject;
+
+    @Before
+    public void setup() {
+        fetched = new ArrayList<>();
+        pending = new ArrayList<>();
+        testObject = new TradeTape("BTC-GBP", 8, (productId, tradeId, limit) -> {
+            fetched.add(tradeId + "/" + limit);
+            List<Trade> trades = new ArrayList<>();
+            for (long id = tradeId - 1; id >= tradeId - limit; id--) {
+                trades.add(new Trade(new DateTime((T0 + id * SECOND) / 1000), id, new BigDecimal("50"),
+                        new BigDecimal("1"), SELL));
+            }
+            return trades;
+        }, pending::add, pending::add, Duration.ofSeconds(10), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void shouldKeepRollingStatsOverEachWindow() {
+        match(1, T0, "100", "1");
+        match(2, T0 + 5 * SECOND, "110", "3");
+        match(3, T0 + 12 * SECOND, "90", "2");
+
+        TradeTape.Window tenSeconds = testObject.getWindow(Duration.ofSeconds(10));
+        assertThat(tenSeconds.getTradeCount()).isEqualTo(2);
+        assertThat(tenSeconds.getVolumeAsDouble()).isEqualTo(5);
+        assertThat(tenSeconds.getVwap()).isCloseTo((110 * 3 + 90 * 2) / 5.0, within(1e-9));
+
+        TradeTape.Window minute = testObject.getWindow(Duration.ofMinutes(1));
+        assertThat(minute.getTradeCount()).isEqualTo(3);
+        assertThat(minute.getVwap()).isCloseTo((100 + 110 * 3 + 90 * 2) / 6.0, within(1e-9));
+
+        testObject.advanceTo(T0 + 30 * SECOND);
+        assertThat(tenSeconds.getTradeCount()).isEqualTo(0);
+        assertThat(tenSeconds.getVolume()).isEqualTo(0);
+        assertThat(tenSeconds.getVwap()).isNaN();
+        assertThat(minute.getTradeCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldOverwriteTheOldestTradesWhenFull() {
+        for (int id = 1; id <= 10; id++) {
+            match(id, T0 + id * 1000L, String.valueOf(100 + id), "1");
+        }
+
+        assertThat(testObject.getCapacity()).isEqualTo(8);
+        assertThat(testObject.size()).isEqualTo(8);
+        assertThat(testObject.tradeIdAt(0)).isEqualTo(3);
+        assertThat(testObject.tradeIdAt(7)).isEqualTo(10);
+        assertThat(testObject.getLastPrice()).isEqualTo(FixedPoint.parse("110", PRICE_DECIMAL_PLACES));
+        TradeTape.Window minute = testObject.getWindow(Duration.ofMinutes(1));
+        assertThat(minute.getTradeCount()).isEqualTo(8);
+        assertThat(minute.getTruncated()).isEqualTo(2);
+        assertThat(minute.getVwap()).isCloseTo(106.5, within(1e-9));
+    }
+
+    @Test
+    public void shouldFetchMissedTradesToFillAGap() {
+        match(1, T0 + SECOND, "100", "1");
+        match(5, T0 + 5 * SECOND, "100", "1");
+        match(6, T0 + 6 * SECOND, "100", "1");
+
+        // nothing fetched or recorded on the feed's thread
+        assertThat(fetched).isEmpty();
+        assertThat(testObject.isBackfilling()).isTrue();
+        assertThat(testObject.size()).isEqualTo(1);
+
+        runPending();
+
+        assertThat(fetched).containsExactly("5/3");
+        assertThat(testObject.isBackfilling()).isFalse();
+        assertThat(testObject.tradeIdAt(5)).isEqualTo(6);
+        assertThat(testObject.size()).isEqualTo(6);
+        for (int i = 0; i < 6; i++) {
+            assertThat(testObject.tradeIdAt(i)).isEqualTo(i + 1);
+        }
+        assertThat(testObject.timeMicrosAt(2)).isEqualTo(T0 + 3 * SECOND);
+        assertThat(testObject.getTradesBackfilled()).isEqualTo(3);
+        assertThat(testObject.getTradesMissed()).isEqualTo(0);
+        assertThat(testObject.getWindow(Duration.ofMinutes(1)).getVwap()).isCloseTo(75, within(1e-9));
+    }
+
+    @Test
+    public void shouldRecordTheHeldTradesWhenTheBackfillFails() {
+        testObject = new TradeTape("BTC-GBP", 8, (productId, tradeId, limit) -> {
+            throw new IllegalStateException("rate limited");
+        }, pending::add, pending::add, Duration.ofMinutes(1));
+        match(1, T0 + SECOND, "100", "1");
+        match(4, T0 + 4 * SECOND, "100", "1");
+        match(4, T0 + 4 * SECOND, "100", "1");
+
+        runPending();
+
+        assertThat(testObject.size()).isEqualTo(2);
+        assertThat(testObject.tradeIdAt(1)).isEqualTo(4);
+        assertThat(testObject.getTradesMissed()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreRepeatedTradesAndOtherMessages() {
+        match(1, T0, "100", "1");
+        match(1, T0, "100", "1");
+        FeedMessage open = message(2, T0, "100", "1");
+        open.setType("open");
+        testObject.onMatch(open);
+        FeedMessage otherProduct = message(2, T0, "100", "1");
+        otherProduct.setProductId("BTC-EUR");
+        testObject.onMatch(otherProduct);
+
+        assertThat(testObject.size()).isEqualTo(1);
+        assertThat(testObject.isBuySideAt(0)).isTrue();
+    }
+
+    @Test
+    public void shouldStartFromRecentTrades() {
+        List<Trade> recent = new ArrayList<>();
+        recent.add(new Trade(new DateTime(T0 / 1000 + 2000), 12L, new BigDecimal("10"), new BigDecimal("2"), BUY));
+        recent.add(new Trade(new DateTime(T0 / 1000 + 1000), 11L, new BigDecimal("20"), new BigDecimal("1"), SELL));
+
+        testObject.backfill(recent);
+        match(13, T0 + 3 * SECOND, "30", "1");
+
+        assertThat(testObject.size()).isEqualTo(3);
+        assertThat(testObject.tradeIdAt(0)).isEqualTo(11);
+        assertThat(testObject.isBuySideAt(1)).isTrue();
+        assertThat(testObject.getWindow(Duration.ofMinutes(1)).getVwap()).isCloseTo(17.5, within(1e-9));
+        assertThat(fetched).isEmpty();
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    private void match(long tradeId, long timeMicros, String price, String size) {
+        testObject.onMatch(message(tradeId, timeMicros, price, size));
+    }
+
+    private FeedMessage message(long tradeId, long timeMicros, String price, String size) {
+        FeedMessage message = new FeedMessage();
+        message.setType(MATCH);
+        message.setProductId("BTC-GBP");
+        message.setSide(BUY);
+        message.setTradeId(tradeId);
+        message.setTimeMicros(timeMicros);
+        message.setPrice(FixedPoint.parse(price, PRICE_DECIMAL_PLACES));
+        message.setSize(FixedPoint.parse(size, SIZE_DECIMAL_PLACES));
+        return message;
+    }
+}
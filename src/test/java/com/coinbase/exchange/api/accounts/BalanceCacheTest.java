@@ -0,0 +1,281 @@
+package com.coinbase.exchange.api.accounts;
+
+import com.coinbase.exchange.api.entity.Detail;
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.exchange.Page;
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.orders.FillSynchroniser;
+import com.coinbase.exchange.api.orders.Order;
+import com.coinbase.exchange.api.orders.OrderService;
+import com.coinbase.exchange.api.orders.OrderTracker;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SELL;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BalanceCacheTest {
+
+    List<Account> accounts;
+    List<AccountHistory> ledger;
+    List<AccountHistory> btcLedger;
+    List<Fill> fills;
+    List<String> changed;
+    OrderTracker orderTracker;
+    FillSynchroniser fillSynchroniser;
+    AccountService accountService;
+    BalanceCache testObject;
+
+    @Before
+    public void setup() {
+        accounts = new ArrayList<>();
+        ledger = new ArrayList<>();
+        btcLedger = new ArrayList<>();
+        fills = new ArrayList<>();
+        changed = new ArrayList<>();
+        OrderService orderService = new OrderService(null) {
+            @Override
+            public List<Order> getOpenOrders() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public Page<Fill> getFillsPage(String productId, String after) {
+                return new Page<>(new ArrayList<>(fills), null, null);
+            }
+
+            @Override
+            public Page<Fill> getFillsAfterTrade(String productId, long tradeId) {
+                return new Page<>(fills.stream().filter(fill -> fill.getTrade_id() > tradeId)
+                        .collect(Collectors.toList()), null, null);
+            }
+        };
+        accountService = new AccountService(null) {
+            @Override
+            public List<Account> getAccounts() {
+                return new ArrayList<>(accounts);
+            }
+
+            @Override
+            public Page<AccountHistory> getLedgerAfter(String accountId, Long ledgerId) {
+                List<AccountHistory> entries = accountId.equals("gbp-account") ? ledger
+                        : accountId.equals("btc-account") ? btcLedger : new ArrayList<>();
+                return new Page<>(entries.stream().filter(entry -> ledgerId == null || entry.getId() > ledgerId)
+                        .collect(Collectors.toList()), null, null);
+            }
+        };
+        orderTracker = new OrderTracker(false, "BTC-GBP", null, orderService);
+        fillSynchroniser = new FillSynchroniser(false, "BTC-GBP", 1000, orderService);
+        testObject = new BalanceCache(0, accountService, orderTracker, fillSynchroniser);
+        testObject.addBalanceListener(balance -> changed.add(balance.getCurrency()));
+
+        accounts.add(new Account("gbp-account", "GBP", new BigDecimal("1000"), new BigDecimal("1000"), BigDecimal.ZERO, "p"));
+        accounts.add(new Account("btc-account", "BTC", new BigDecimal("2"), new BigDecimal("1.5"), new BigDecimal("0.5"), "p"));
+        ledger.add(entry(10, "transfer", "1000"));
+        fillSynchroniser.sync("BTC-GBP");
+    }
+
+    @Test
+    public void shouldSeedFromTheAccounts() {
+        assertThat(testObject.getAvailable("GBP")).isZero();
+
+        assertThat(testObject.seed()).isTrue();
+
+        assertThat(testObject.getAvailable("GBP")).isEqualTo(amount("1000"));
+        assertThat(testObject.getBalance("BTC").getBalance()).isEqualTo(amount("2"));
+        assertThat(testObject.getHold("BTC")).isEqualTo(amount("0.5"));
+        assertThat(testObject.getAvailable("BTC")).isEqualTo(amount("1.5"));
+        assertThat(testObject.getBalance("ETH")).isNull();
+    }
+
+    @Test
+    public void shouldHoldForNewOrdersAndMoveBalancesAsTheyFill() {
+        testObject.seed();
+
+        feed("{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"order_type\":\"limit\",\"price\":\"100\",\"size\":\"1\",\"sequence\":1}");
+
+        assertThat(testObject.getHold("GBP")).isEqualTo(amount("100"));
+        assertThat(testObject.getAvailable("GBP")).isEqualTo(amount("900"));
+        assertThat(testObject.hasFunds("BTC-GBP", BUY, price("950"), amount("1"))).isFalse();
+        assertThat(testObject.hasFunds("BTC-GBP", BUY, price("900"), amount("1"))).isTrue();
+
+        fill(1, "a", BUY, "100", "0.4", "0.1");
+        fillSynchroniser.sync("BTC-GBP");
+
+        assertThat(testObject.getBalance("BTC").getBalance()).isEqualTo(amount("2.4"));
+        assertThat(testObject.getBalance("GBP").getBalance()).isEqualTo(amount("959.9"));
+        assertThat(testObject.getHold("GBP")).isEqualTo(amount("60"));
+
+        feed("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"reason\":\"canceled\","
+                + "\"remaining_size\":\"0.6\",\"sequence\":3}");
+
+        assertThat(testObject.getHold("GBP")).isZero();
+        assertThat(testObject.getAvailable("GBP")).isEqualTo(amount("959.9"));
+        assertThat(changed).contains("GBP", "BTC");
+    }
+
+    @Test
+    public void shouldReleaseAFilledOrdersHoldAsItsFillsArrive() {
+        testObject.seed();
+        feed("{\"type\":\"received\",\"order_id\":\"s\",\"product_id\":\"BTC-GBP\",\"side\":\"sell\","
+                + "\"order_type\":\"limit\",\"price\":\"100\",\"size\":\"1\",\"sequence\":1}");
+        assertThat(testObject.getAvailable("BTC")).isEqualTo(amount("0.5"));
+
+        feed("{\"type\":\"match\",\"maker_order_id\":\"s\",\"taker_order_id\":\"x\",\"product_id\":\"BTC-GBP\","
+                + "\"side\":\"sell\",\"price\":\"100\",\"size\":\"1\",\"sequence\":2}");
+        feed("{\"type\":\"done\",\"order_id\":\"s\",\"product_id\":\"BTC-GBP\",\"reason\":\"filled\","
+                + "\"remaining_size\":\"0\",\"sequence\":3}");
+
+        // still held until the fill says where it went
+        assertThat(testObject.getHold("BTC")).isEqualTo(amount("1.5"));
+
+        fill(2, "s", SELL, "100", "1", "0");
+        fillSynchroniser.sync("BTC-GBP");
+
+        assertThat(testObject.getHold("BTC")).isEqualTo(amount("0.5"));
+        assertThat(testObject.getBalance("BTC").getBalance()).isEqualTo(amount("1"));
+        assertThat(testObject.getBalance("GBP").getBalance()).isEqualTo(amount("1100"));
+    }
+
+    @Test
+    public void shouldNotHoldAgainForOrdersOpenWhenSeeded() {
+        feed("{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"order_type\":\"limit\",\"price\":\"100\",\"size\":\"1\",\"sequence\":1}");
+        accounts.set(0, new Account("gbp-account", "GBP", new BigDecimal("1000"), new BigDecimal("900"), new BigDecimal("100"), "p"));
+
+        testObject.seed();
+        feed("{\"type\":\"open\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"price\":\"100\",\"remaining_size\":\"1\",\"sequence\":2}");
+
+        assertThat(testObject.getHold("GBP")).isEqualTo(amount("100"));
+
+        feed("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"reason\":\"canceled\","
+                + "\"remaining_size\":\"1\",\"sequence\":3}");
+
+        assertThat(testObject.getHold("GBP")).isZero();
+    }
+
+    @Test
+    public void shouldApplyTransfersFromTheLedgerOnce() {
+        testObject.seed();
+        ledger.add(entry(11, "transfer", "-250"));
+        ledger.add(entry(12, "match", "-40"));
+        ledger.add(entry(13, "fee", "-0.1"));
+
+        testObject.syncLedgers();
+        testObject.syncLedgers();
+
+        assertThat(testObject.getBalance("GBP").getBalance()).isEqualTo(amount("750"));
+    }
+
+    @Test
+    public void shouldCheckAnOrdersFundsFromItsFundsOrPriceAndSize() {
+        Order order = new Order();
+        order.setProduct_id("BTC-GBP");
+        order.setFunds("1500");
+        // nothing to check against yet
+        assertThat(testObject.hasFunds(order)).isTrue();
+
+        testObject.seed();
+
+        assertThat(testObject.hasFunds(order)).isFalse();
+        order.setFunds("1000");
+        assertThat(testObject.hasFunds(order)).isTrue();
+
+        Order sell = new Order();
+        sell.setProduct_id("BTC-GBP");
+        sell.setSide(SELL);
+        sell.setPrice("100");
+        sell.setSize("1.6");
+        assertThat(testObject.hasFunds(sell)).isFalse();
+        sell.setSize("1.5");
+        assertThat(testObject.hasFunds(sell)).isTrue();
+        assertThat(testObject.hasFunds("BTC-GBP", BUY, FeedMessage.ABSENT, amount("100"))).isTrue();
+    }
+
+    @Test
+    public void shouldTakeTradesFromTheLedgerWhenFillsArentSynced() {
+        // as configured by default - fill syncing is off, so the fills are never synced
+        FillSynchroniser idle = new FillSynchroniser(false, "BTC-GBP", 1000, orderService());
+        testObject = new BalanceCache(0, accountService, orderTracker, idle);
+        testObject.seed();
+        feed("{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"order_type\":\"limit\",\"price\":\"100\",\"size\":\"1\",\"sequence\":1}");
+        feed("{\"type\":\"match\",\"maker_order_id\":\"a\",\"taker_order_id\":\"x\",\"product_id\":\"BTC-GBP\","
+                + "\"side\":\"buy\",\"price\":\"100\",\"size\":\"0.4\",\"sequence\":2}");
+
+        assertThat(testObject.getHold("GBP")).isEqualTo(amount("60"));
+
+        feed("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"reason\":\"canceled\","
+                + "\"remaining_size\":\"0.6\",\"sequence\":3}");
+        ledger.add(entry(11, "match", "-40", "BTC-GBP"));
+        ledger.add(entry(12, "fee", "-0.1", "BTC-GBP"));
+        ledger.add(entry(13, "transfer", "-100"));
+        btcLedger.add(entry(5, "match", "0.4", "BTC-GBP"));
+        testObject.syncLedgers();
+
+        assertThat(testObject.getHold("GBP")).isZero();
+        assertThat(testObject.getBalance("GBP").getBalance()).isEqualTo(amount("859.9"));
+        assertThat(testObject.getBalance("BTC").getBalance()).isEqualTo(amount("2.4"));
+        assertThat(testObject.getHold("BTC")).isEqualTo(amount("0.5"));
+    }
+
+    private OrderService orderService() {
+        return new OrderService(null) {
+            @Override
+            public List<Order> getOpenOrders() {
+                return new ArrayList<>();
+            }
+        };
+    }
+
+    private void feed(String json) {
+        orderTracker.handleMessage(json);
+    }
+
+    private void fill(int tradeId, String orderId, String side, String price, String size, String fee) {
+        Fill fill = new Fill();
+        fill.setTrade_id(tradeId);
+        fill.setOrder_id(orderId);
+        fill.setProduct_id("BTC-GBP");
+        fill.setSide(side);
+        fill.setPrice(new BigDecimal(price));
+        fill.setSize(new BigDecimal(size));
+        fill.setFee(new BigDecimal(fee));
+        fills.add(fill);
+    }
+
+    private static AccountHistory entry(int id, String type, String amount, String productId) {
+        AccountHistory entry = entry(id, type, amount);
+        Detail detail = new Detail();
+        detail.setProduct_id(productId);
+        entry.setDetail(detail);
+        return entry;
+    }
+
+    private static AccountHistory entry(int id, String type, String amount) {
+        AccountHistory entry = new AccountHistory();
+        entry.setId(id);
+        entry.setType(type);
+        entry.setAmount(new BigDecimal(amount));
+        return entry;
+    }
+
+    private static long amount(String amount) {
+        return FixedPoint.parse(amount, SIZE_DECIMAL_PLACES);
+    }
+
+    private static long price(String price) {
+        return FixedPoint.parse(price, PRICE_DECIMAL_PLACES);
+    }
+}
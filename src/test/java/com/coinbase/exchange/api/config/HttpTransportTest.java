@@ -0,0 +1,122 @@
+package com.coinbase.exchange.api.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpTransportTest {
+
+    HttpServer server;
+    String baseUrl;
+    List<String> contentEncodings;
+    List<String> requestBodies;
+    HttpTransport testObject;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+        contentEncodings = Collections.synchronizedList(new ArrayList<>());
+        requestBodies = Collections.synchronizedList(new ArrayList<>());
+        server.createContext("/products", exchange -> write(exchange, "[\"BTC-GBP\"]"));
+        server.createContext("/orders", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            contentEncodings.add(encoding);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if ("gzip".equals(encoding)) {
+                body = new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes();
+            }
+            requestBodies.add(new String(body, StandardCharsets.UTF_8));
+            write(exchange, "{}");
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (testObject != null) {
+            testObject.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldReuseTheConnectionForConsecutiveRequests() {
+        testObject = transport(false);
+        RestTemplate restTemplate = new RestTemplate(testObject.requestFactory());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(restTemplate.getForObject(baseUrl + "/products", String.class)).isEqualTo("[\"BTC-GBP\"]");
+        }
+
+        assertThat(testObject.getRequestsExecuted()).isEqualTo(5);
+        assertThat(testObject.getConnectionsOpened()).isEqualTo(1);
+        assertThat(testObject.getConnectionsReused()).isEqualTo(4);
+        assertThat(testObject.getPoolStats().getAvailable()).isEqualTo(1);
+        assertThat(testObject.getPoolStats().getLeased()).isZero();
+    }
+
+    @Test
+    public void shouldDecompressGzippedResponses() {
+        server.createContext("/gzipped", exchange -> {
+            assertThat(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("{\"compressed\":true}".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            send(exchange, compressed.toByteArray());
+        });
+        testObject = transport(false);
+
+        String response = new RestTemplate(testObject.requestFactory()).getForObject(baseUrl + "/gzipped", String.class);
+
+        assertThat(response).isEqualTo("{\"compressed\":true}");
+    }
+
+    @Test
+    public void shouldOnlyCompressRequestBodiesWhenAskedTo() throws IOException {
+        testObject = transport(false);
+        new RestTemplate(testObject.requestFactory()).postForObject(baseUrl + "/orders", "{\"size\":\"0.01\"}", String.class);
+        testObject.close();
+
+        testObject = transport(true);
+        new RestTemplate(testObject.requestFactory()).postForObject(baseUrl + "/orders", "{\"size\":\"0.02\"}", String.class);
+
+        assertThat(contentEncodings).containsExactly(null, "gzip");
+        assertThat(requestBodies).containsExactly("{\"size\":\"0.01\"}", "{\"size\":\"0.02\"}");
+    }
+
+    private HttpTransport transport(boolean compressRequests) {
+        return new HttpTransport(8, 4, 60000, 30000, 2000, 2000, true, compressRequests);
+    }
+
+    private void write(HttpExchange exchange, String body) throws IOException {
+        send(exchange, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.coinbase.exchange.api.exchange;
+
+import com.coinbase.exchange.api.accounts.Account;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class AsyncGdaxExchangeImplTest {
+
+    private static final String SECRET = "MTIzNDU2Nzg5MA==";
+
+    HttpServer server;
+    List<Map<String, List<String>>> requestHeaders;
+    List<String> requestBodies;
+    RateLimiter rateLimiter = new RateLimiter();
+    ResponseCache responseCache = new ResponseCache();
+    int readTimeoutMillis = 5000;
+    AsyncGdaxExchangeImpl testObject;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        requestHeaders = Collections.synchronizedList(new ArrayList<>());
+        requestBodies = Collections.synchronizedList(new ArrayList<>());
+        server.start();
+        testObject = exchange(4);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldSendSignedRequestsAndBindTheResponse() throws Exception {
+        respond("/accounts", 200, "[{\"id\":\"a1\",\"currency\":\"BTC\",\"balance\":\"1.5\",\"unknown_field\":true},"
+                + "{\"id\":\"a2\",\"currency\":\"GBP\",\"balance\":\"10\"}]");
+
+        List<Account> accounts = testObject.getAsList("/accounts", new ParameterizedTypeReference<Account[]>(){})
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(accounts).extracting(Account::getId).containsExactly("a1", "a2");
+        assertThat(accounts.get(0).getBalance()).isEqualByComparingTo("1.5");
+        Map<String, List<String>> headers = requestHeaders.get(0);
+        assertThat(headers.get("Cb-access-key")).containsExactly("key");
+        assertThat(headers.get("Cb-access-passphrase")).containsExactly("passphrase");
+        assertThat(headers.get("Cb-access-sign")).hasSize(1);
+        assertThat(headers.get("Cb-access-timestamp")).hasSize(1);
+    }
+
+    @Test
+    public void shouldPostTheObjectAsJson() throws Exception {
+        respond("/orders", 200, "\"ok\"");
+
+        String response = testObject.post("/orders", new ParameterizedTypeReference<String>(){},
+                Collections.singletonMap("size", "0.01")).get(5, TimeUnit.SECONDS);
+
+        assertThat(response).isEqualTo("\"ok\"");
+        assertThat(requestBodies).containsExactly("{\"size\":\"0.01\"}");
+    }
+
+    @Test
+    public void shouldCompleteWithNullForAClientError() throws Exception {
+        respond("/orders/missing", 404, "{\"message\":\"NotFound\"}");
+
+        assertThat(testObject.delete("/orders/missing", new ParameterizedTypeReference<String>(){})
+                .get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyForAServerError() throws Exception {
+        respond("/accounts", 503, "{\"message\":\"unavailable\"}");
+
+        try {
+            testObject.get("/accounts", new ParameterizedTypeReference<Account[]>(){}).get(5, TimeUnit.SECONDS);
+            fail("expected the request to fail");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause()).isInstanceOf(RestClientResponseException.class);
+            assertThat(((RestClientResponseException) ex.getCause()).getRawStatusCode()).isEqualTo(503);
+        }
+    }
+
+    @Test
+    public void shouldNeverHaveMoreThanMaxInFlightRequestsOnTheWire() throws Exception {
+        testObject = exchange(2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/products", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            write(exchange, 200, "[]");
+        });
+
+        List<CompletableFuture<List<Account>>> responses = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            responses.add(testObject.getAsList("/products/" + i, new ParameterizedTypeReference<Account[]>(){}));
+        }
+        Thread.sleep(200);
+        assertThat(testObject.getQueuedRequests()).isEqualTo(4);
+        release.countDown();
+
+        for (CompletableFuture<List<Account>> response : responses) {
+            assertThat(response.get(5, TimeUnit.SECONDS)).isEmpty();
+        }
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(testObject.getQueuedRequests()).isZero();
+    }
+
+    @Test
+    public void shouldWaitForTheRateLimitAndDrainItOnA429() throws Exception {
+        rateLimiter = new RateLimiter(true, 100, 10, 100, 10);
+        testObject = exchange(4);
+        respond("/orders", 429, "{\"message\":\"Rate limit exceeded\"}");
+
+        assertThat(testObject.delete("/orders", new ParameterizedTypeReference<String>(){})
+                .get(5, TimeUnit.SECONDS)).isNull();
+
+        TokenBucket bucket = rateLimiter.getPrivateBucket();
+        assertThat(bucket.getGranted(RequestLane.CANCEL)).isEqualTo(1);
+        assertThat(bucket.getDrained()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidateTheCachedReadsAnOrderChanges() throws Exception {
+        responseCache = new ResponseCache(true, 16, "/accounts=60000");
+        testObject = exchange(4);
+        respond("/orders", 200, "\"ok\"");
+        responseCache.get("/accounts", String.class, () -> "before the order");
+
+        testObject.post("/orders", new ParameterizedTypeReference<String>(){}, Collections.singletonMap("size", "0.01"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(responseCache.get("/accounts", String.class, () -> "after the order")).isEqualTo("after the order");
+    }
+
+    @Test
+    public void shouldFreeTheSlotOfARequestThatTimesOut() throws Exception {
+        readTimeoutMillis = 100;
+        testObject = exchange(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/accounts", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            write(exchange, 200, "[]");
+        });
+        respond("/products", 200, "[]");
+
+        try {
+            testObject.get("/accounts", new ParameterizedTypeReference<Account[]>(){}).get(5, TimeUnit.SECONDS);
+            fail("expected the request to time out");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause()).isInstanceOf(HttpTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(testObject.getAsList("/products", new ParameterizedTypeReference<Account[]>(){})
+                .get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    private AsyncGdaxExchangeImpl exchange(int maxInFlight) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        GdaxExchange exchange = new GdaxExchangeImpl("key", "passphrase", baseUrl, new Signature(SECRET), new RestTemplate(),
+                rateLimiter, responseCache, new JsonCodec());
+        return new AsyncGdaxExchangeImpl(exchange, new JsonCodec(), rateLimiter, responseCache,
+                HttpClient.newHttpClient(), maxInFlight, readTimeoutMillis);
+    }
+
+    private void respond(String path, int status, String body) {
+        server.createContext(path, exchange -> {
+            requestHeaders.add(exchange.getRequestHeaders());
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            write(exchange, status, body);
+        });
+    }
+
+    private void write(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
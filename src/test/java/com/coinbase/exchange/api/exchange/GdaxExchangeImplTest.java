@@ -0,0 +1,171 @@
+package com.coinbase.exchange.api.exchange;
+
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.entity.NewLimitOrderSingle;
+import com.coinbase.exchange.api.orders.Order;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class GdaxExchangeImplTest {
+
+    HttpServer server;
+    List<String> queries;
+    volatile String posted;
+    volatile Headers postedHeaders;
+    CountDownLatch postArrived = new CountDownLatch(1);
+    CountDownLatch releasePost = new CountDownLatch(0);
+    Signature signature = new Signature("MTIzNDU2Nzg5MA==");
+    GdaxExchangeImpl testObject;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        queries = Collections.synchronizedList(new ArrayList<>());
+        // three pages of fills - trade ids 6,5 then 4,3 then 2,1 - with the cursors the exchange would send
+        server.createContext("/fills", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            int newest = query.contains("after=") ? Integer.parseInt(query.substring(query.indexOf("after=") + 6)) - 1 : 6;
+            String body = "[{\"trade_id\":" + newest + "},{\"trade_id\":" + (newest - 1) + "}]";
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("CB-BEFORE", String.valueOf(newest));
+            if (newest > 2) {
+                exchange.getResponseHeaders().add("CB-AFTER", String.valueOf(newest - 1));
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/orders", exchange -> {
+            String order = "{\"id\":\"o1\",\"status\":\"pending\"}";
+            String body;
+            if ("GET".equals(exchange.getRequestMethod())) {
+                body = posted == null ? "[]" : "[" + order + "]";
+            } else {
+                postArrived.countDown();
+                await(releasePost);
+                postedHeaders = exchange.getRequestHeaders();
+                posted = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                body = order;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/orders/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        // a thread per request, so a GET can be served while a POST is held
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        testObject = new GdaxExchangeImpl("key", "passphrase", "http://localhost:" + server.getAddress().getPort(),
+                signature, new RestTemplate(), new RateLimiter(), new ResponseCache(), new JsonCodec());
+    }
+
+    @After
+    public void tearDown() {
+        releasePost.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldReturnThePageWithItsCursors() {
+        Page<Fill> page = testObject.getPage("/fills?product_id=BTC-GBP", new ParameterizedTypeReference<Fill[]>(){},
+                Page.AFTER, "5", 2);
+
+        assertThat(page.getItems()).extracting(Fill::getTrade_id).containsExactly(4, 3);
+        assertThat(page.getBefore()).isEqualTo("4");
+        assertThat(page.getAfter()).isEqualTo("3");
+        assertThat(queries).containsExactly("product_id=BTC-GBP&limit=2&after=5");
+    }
+
+    @Test
+    public void shouldStreamEveryPageByFollowingTheAfterCursor() {
+        List<Integer> tradeIds = testObject.stream("/fills", new ParameterizedTypeReference<Fill[]>(){}, 2)
+                .map(Fill::getTrade_id)
+                .collect(Collectors.toList());
+
+        assertThat(tradeIds).containsExactly(6, 5, 4, 3, 2, 1);
+        assertThat(queries).containsExactly("limit=2", "limit=2&after=5", "limit=2&after=3");
+    }
+
+    @Test
+    public void shouldSendTheBodyItSigned() {
+        NewLimitOrderSingle order = new NewLimitOrderSingle(new BigDecimal("0.01"), new BigDecimal("9870.5"), true,
+                null, "limit", "buy", "BTC-GBP", null, null);
+
+        Order created = testObject.post("/orders", new ParameterizedTypeReference<Order>(){}, order);
+
+        assertThat(created.getId()).isEqualTo("o1");
+        assertThat(posted).contains("\"product_id\":\"BTC-GBP\"").doesNotContain("client_oid");
+        assertThat(postedHeaders.getFirst("CB-ACCESS-SIGN")).isEqualTo(
+                signature.generate("/orders", "POST", posted, postedHeaders.getFirst("CB-ACCESS-TIMESTAMP")));
+    }
+
+    @Test
+    public void shouldThrowNotFoundRatherThanReturnNull() {
+        try {
+            testObject.getOrThrow("/orders/missing", new ParameterizedTypeReference<Order>(){});
+            fail("expected the request to fail");
+        } catch (HttpClientErrorException.NotFound expected) {
+            assertThat(expected.getRawStatusCode()).isEqualTo(404);
+        }
+        assertThat(testObject.get("/orders/missing", new ParameterizedTypeReference<Order>(){})).isNull();
+    }
+
+    @Test
+    public void shouldNotKeepAReadCachedWhilstAnOrderWasBeingPlaced() throws Exception {
+        GdaxExchangeImpl cached = new GdaxExchangeImpl("key", "passphrase", testObject.getBaseUrl(), signature,
+                new RestTemplate(), new RateLimiter(), new ResponseCache(true, 16, "/orders=60000"), new JsonCodec());
+        ParameterizedTypeReference<Order[]> orders = new ParameterizedTypeReference<Order[]>(){};
+        NewLimitOrderSingle order = new NewLimitOrderSingle(new BigDecimal("0.01"), new BigDecimal("9870.5"), true,
+                null, "limit", "buy", "BTC-GBP", null, null);
+        releasePost = new CountDownLatch(1);
+
+        CompletableFuture<Order> placing = CompletableFuture.supplyAsync(
+                () -> cached.post("/orders", new ParameterizedTypeReference<Order>(){}, order));
+        assertThat(postArrived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cached.getAsList("/orders", orders)).isEmpty();
+        releasePost.countDown();
+        placing.get(5, TimeUnit.SECONDS);
+
+        assertThat(cached.getAsList("/orders", orders)).extracting(Order::getId).containsExactly("o1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
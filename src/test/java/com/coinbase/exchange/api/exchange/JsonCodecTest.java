@@ -0,0 +1,69 @@
+package com.coinbase.exchange.api.exchange;
+
+import com.coinbase.exchange.api.accounts.Account;
+import com.coinbase.exchange.api.entity.NewLimitOrderSingle;
+import com.coinbase.exchange.api.websocketfeed.message.Subscribe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonCodecTest {
+
+    JsonCodec testObject = new JsonCodec();
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldWriteRequestBodiesTheWayGsonDid() throws IOException {
+        NewLimitOrderSingle order = new NewLimitOrderSingle(new BigDecimal("0.01"), new BigDecimal("9870.5"), true,
+                "client-oid", "limit", "buy", "BTC-GBP", null, null);
+
+        String json = testObject.write(order).toString();
+
+        assertThat(objectMapper.readTree(json)).isEqualTo(objectMapper.readTree(new Gson().toJson(order)));
+        assertThat(json).doesNotContain("stp").doesNotContain("funds");
+    }
+
+    @Test
+    public void shouldWriteTheSubscribeMessageFromItsFields() throws IOException {
+        Subscribe subscribe = new Subscribe(new String[]{"BTC-GBP", "ETH-BTC"}).setKey("key");
+
+        assertThat(objectMapper.readTree(testObject.writeString(subscribe)))
+                .isEqualTo(objectMapper.readTree(new Gson().toJson(subscribe)));
+    }
+
+    @Test
+    public void shouldReuseTheBufferForEachBodyWrittenOnAThread() {
+        JsonBody first = testObject.write(new Subscribe(new String[]{"BTC-GBP"}));
+        byte[] copy = first.toByteArray();
+
+        JsonBody second = testObject.write(new Subscribe(new String[]{"ETH-BTC"}));
+
+        assertThat(second).isSameAs(first);
+        assertThat(new String(copy)).contains("BTC-GBP");
+        assertThat(second.toString()).contains("ETH-BTC").doesNotContain("BTC-GBP");
+        assertThat(testObject.write(null).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldReadResponsesIgnoringUnknownFields() throws IOException {
+        Account account = testObject.read("{\"id\":\"a1\",\"balance\":\"1.5\",\"trading_enabled\":true}", Account.class);
+
+        assertThat(account.getId()).isEqualTo("a1");
+        assertThat(account.getBalance()).isEqualByComparingTo("1.5");
+        assertThat(testObject.reader(Account.class)).isSameAs(testObject.reader(Account.class));
+    }
+
+    @Test
+    public void shouldSignTheBodyInPlaceTheSameAsTheString() {
+        Signature signature = new Signature("MTIzNDU2Nzg5MA==");
+        JsonBody body = testObject.write(new NewLimitOrderSingle(new BigDecimal("1"), new BigDecimal("2"), false));
+
+        assertThat(signature.generate("/orders", "POST", body.array(), 0, body.length(), "1519085035"))
+                .isEqualTo(signature.generate("/orders", "POST", body.toString(), "1519085035"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageIteratorTest {
+
+    List<String> cursorsFetched = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void shouldFollowTheAfterCursorUntilTheLastPage() {
+        List<Integer> items = PageIterator.stream(pages(3, 4)).collect(Collectors.toList());
+
+        assertThat(items).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(cursorsFetched).containsExactly(null, "1", "2");
+    }
+
+    @Test
+    public void shouldFetchTheNextPageWhileTheCurrentOneIsConsumed() throws InterruptedException {
+        CountDownLatch secondPageFetched = new CountDownLatch(1);
+        Function<String, Page<Integer>> pages = pages(2, 2);
+        PageIterator<Integer> testObject = new PageIterator<>(after -> {
+            Page<Integer> page = pages.apply(after);
+            if ("1".equals(after)) {
+                secondPageFetched.countDown();
+            }
+            return page;
+        });
+
+        assertThat(testObject.next()).isEqualTo(0);
+
+        assertThat(secondPageFetched.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(testObject.next()).isEqualTo(1);
+        assertThat(testObject.next()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldStopFetchingWhenTheConsumerStops() throws InterruptedException {
+        List<Integer> items;
+        try (Stream<Integer> stream = PageIterator.stream(pages(100, 10))) {
+            items = stream.limit(15).collect(Collectors.toList());
+        }
+        Thread.sleep(50);
+
+        assertThat(items).hasSize(15);
+        // the page being read, and at most the one after it
+        assertThat(cursorsFetched).startsWith(null, "1").isSubsetOf(null, "1", "2");
+    }
+
+    @Test
+    public void shouldEndWhenAPageFailsToLoad() {
+        Function<String, Page<Integer>> pages = pages(5, 2);
+
+        List<Integer> items = PageIterator.stream((String after) -> "2".equals(after) ? null : pages.apply(after))
+                .collect(Collectors.toList());
+
+        assertThat(items).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    public void shouldHandleAnEmptyList() {
+        PageIterator<Integer> testObject = new PageIterator<>(after -> new Page<>(Collections.emptyList(), null, null));
+
+        assertThat(testObject.hasNext()).isFalse();
+        assertThat(testObject.hasNext()).isFalse();
+    }
+
+    /**
+     * pageCount pages of pageSize sequential ints, the cursor after page n being n + 1.
+     */
+    private Function<String, Page<Integer>> pages(int pageCount, int pageSize) {
+        return after -> {
+            cursorsFetched.add(after);
+            int page = after == null ? 0 : Integer.parseInt(after);
+            Integer[] items = new Integer[pageSize];
+            for (int i = 0; i < pageSize; i++) {
+                items[i] = page * pageSize + i;
+            }
+            String next = page + 1 < pageCount ? String.valueOf(page + 1) : null;
+            return new Page<>(Arrays.asList(items), String.valueOf(page), next);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+    RateLimiter testObject = new RateLimiter(true, 3, 6, 5, 10);
+
+    @Test
+    public void shouldLimitMarketDataAgainstThePublicBucket() {
+        assertThat(testObject.bucketFor("/products/BTC-GBP/book?level=3")).isSameAs(testObject.getPublicBucket());
+        assertThat(testObject.bucketFor("/currencies")).isSameAs(testObject.getPublicBucket());
+        assertThat(testObject.bucketFor("/time")).isSameAs(testObject.getPublicBucket());
+    }
+
+    @Test
+    public void shouldLimitAuthenticatedRequestsAgainstThePrivateBucket() {
+        assertThat(testObject.bucketFor("/orders")).isSameAs(testObject.getPrivateBucket());
+        assertThat(testObject.bucketFor("/accounts/a1/ledger")).isSameAs(testObject.getPrivateBucket());
+    }
+
+    @Test
+    public void shouldQueueEachRequestInTheLaneForItsMethod() throws InterruptedException {
+        testObject.acquire("/orders/o1", "DELETE");
+        testObject.acquire("/orders", "POST");
+        testObject.acquire("/accounts", "GET");
+
+        assertThat(testObject.getPrivateBucket().getGranted(RequestLane.CANCEL)).isEqualTo(1);
+        assertThat(testObject.getPrivateBucket().getGranted(RequestLane.TRADE)).isEqualTo(1);
+        assertThat(testObject.getPrivateBucket().getGranted(RequestLane.READ)).isEqualTo(1);
+        assertThat(testObject.getPublicBucket().getGranted(RequestLane.READ)).isZero();
+    }
+
+    @Test
+    public void shouldLetEverythingThroughWhenDisabled() throws InterruptedException {
+        RateLimiter disabled = new RateLimiter();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(disabled.acquire("/orders", "POST")).isZero();
+        }
+        disabled.rateLimited("/orders");
+    }
+}
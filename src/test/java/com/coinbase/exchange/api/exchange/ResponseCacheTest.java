@@ -0,0 +1,165 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ResponseCacheTest {
+
+    ResponseCache testObject = new ResponseCache(true, 3, "/products=60000, /products/*/candles=50, /accounts=60000, /orders=60000");
+    AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    public void shouldMatchTtlsSegmentBySegment() {
+        assertThat(testObject.ttlFor("/products")).isEqualTo(60000L);
+        assertThat(testObject.ttlFor("/products/BTC-GBP/candles?granularity=60")).isEqualTo(50L);
+        assertThat(testObject.ttlFor("/products/BTC-GBP/book?level=3")).isZero();
+        assertThat(testObject.ttlFor("/products/BTC-GBP")).isZero();
+    }
+
+    @Test
+    public void shouldServeRepeatGetsFromTheCache() {
+        assertThat(get("/products")).isEqualTo("/products#1");
+        assertThat(get("/products")).isEqualTo("/products#1");
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(testObject.getHits()).isEqualTo(1);
+        assertThat(testObject.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFetchAgainOnceTheTtlRunsOut() throws InterruptedException {
+        get("/products/BTC-GBP/candles");
+        Thread.sleep(80);
+
+        assertThat(get("/products/BTC-GBP/candles")).isEqualTo("/products/BTC-GBP/candles#2");
+    }
+
+    @Test
+    public void shouldNeverCachePathsWithoutATtl() {
+        get("/products/BTC-GBP/book");
+        get("/products/BTC-GBP/book");
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(testObject.size()).isZero();
+    }
+
+    @Test
+    public void shouldShareOneRequestBetweenConcurrentIdenticalGets() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(CompletableFuture.supplyAsync(() -> testObject.get("/products/BTC-GBP/book", String.class, () -> {
+                await(release);
+                return "book#" + requests.incrementAndGet();
+            })));
+        }
+        while (testObject.getCoalesced() < 4) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> response : responses) {
+            assertThat(response.get(5, TimeUnit.SECONDS)).isEqualTo("book#1");
+        }
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldHandTheFailureToEveryoneWaitingOnTheRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> testObject.get("/orders", String.class, () -> {
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        while (testObject.getMisses() < 1) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> get("/orders"));
+        while (testObject.getCoalesced() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> response : List.of(first, second)) {
+            try {
+                response.get(5, TimeUnit.SECONDS);
+                fail("expected the request to fail");
+            } catch (ExecutionException ex) {
+                assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class);
+            }
+        }
+        assertThat(get("/orders")).isEqualTo("/orders#1");
+    }
+
+    @Test
+    public void shouldInvalidateWhatAnOrderChanges() {
+        get("/products");
+        get("/accounts");
+        get("/orders");
+
+        testObject.invalidate("/orders");
+
+        assertThat(get("/products")).isEqualTo("/products#1");
+        assertThat(get("/accounts")).isEqualTo("/accounts#4");
+        assertThat(get("/orders")).isEqualTo("/orders#5");
+        assertThat(testObject.getInvalidations()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotCacheAResponseThatWasInFlightWhenInvalidated() {
+        testObject.get("/orders", String.class, () -> {
+            testObject.invalidate("/orders/some-order");
+            return "stale";
+        });
+
+        assertThat(get("/orders")).isEqualTo("/orders#1");
+    }
+
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedEntries() {
+        get("/products");
+        get("/accounts");
+        get("/orders");
+        get("/products");
+
+        get("/products/BTC-GBP/candles");
+
+        assertThat(testObject.size()).isEqualTo(3);
+        assertThat(testObject.getEvictions()).isEqualTo(1);
+        assertThat(get("/products")).isEqualTo("/products#1");
+        assertThat(get("/accounts")).isEqualTo("/accounts#5");
+    }
+
+    @Test
+    public void shouldPassStraightThroughWhenDisabled() {
+        ResponseCache disabled = new ResponseCache();
+
+        disabled.get("/products", String.class, () -> "" + requests.incrementAndGet());
+        disabled.get("/products", String.class, () -> "" + requests.incrementAndGet());
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(disabled.getMisses()).isZero();
+    }
+
+    private String get(String resourcePath) {
+        return testObject.get(resourcePath, String.class, () -> resourcePath + "#" + requests.incrementAndGet());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SignatureTest {
+
+    private static final String SECRET = "c2VjcmV0LWZvci10ZXN0cy1vbmx5LXNlY3JldC1mb3ItdGVzdHMtb25seS1zZWNyZXQtZm9yLXRlc3RzLW9ubHk=";
+    private static final String OTHER_SECRET = "MTIzNDU2Nzg5MA==";
+    private static final String TIMESTAMP = "1519085035";
+
+    @Test
+    public void shouldSignTheConcatenatedPrehash() throws Exception {
+        Signature testObject = new Signature(SECRET);
+
+        assertThat(testObject.generate("/accounts", "get", "", TIMESTAMP))
+                .isEqualTo(expected(SECRET, TIMESTAMP + "GET/accounts"));
+        assertThat(testObject.generate("/orders", "POST", "{\"size\":\"0.01\"}", TIMESTAMP))
+                .isEqualTo(expected(SECRET, TIMESTAMP + "POST/orders{\"size\":\"0.01\"}"));
+    }
+
+    @Test
+    public void shouldEncodeTheBodyAsUtf8() throws Exception {
+        Signature testObject = new Signature(SECRET);
+        String body = "{\"note\":\"\u20ac \u00e9 \ud83d\ude00\"}";
+
+        assertThat(testObject.generate("/orders", "POST", body, TIMESTAMP))
+                .isEqualTo(expected(SECRET, TIMESTAMP + "POST/orders" + body));
+    }
+
+    @Test
+    public void shouldGrowThePrehashBufferForLargeBodies() throws Exception {
+        Signature testObject = new Signature(SECRET);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            body.append("{\"client_oid\":\"").append(i).append("\"},");
+        }
+
+        assertThat(testObject.generate("/orders", "POST", body.toString(), TIMESTAMP))
+                .isEqualTo(expected(SECRET, TIMESTAMP + "POST/orders" + body));
+        assertThat(testObject.generate("/accounts", "GET", "", TIMESTAMP))
+                .isEqualTo(expected(SECRET, TIMESTAMP + "GET/accounts"));
+    }
+
+    @Test
+    public void shouldSignWithANewSecretOnceItIsSet() throws Exception {
+        Signature testObject = new Signature(SECRET);
+        testObject.generate("/accounts", "GET", "", TIMESTAMP);
+
+        testObject.setSecretKey(OTHER_SECRET);
+
+        assertThat(testObject.generate("/accounts", "GET", "", TIMESTAMP))
+                .isEqualTo(expected(OTHER_SECRET, TIMESTAMP + "GET/accounts"));
+    }
+
+    @Test
+    public void shouldSignConcurrentlyFromManyThreads() throws Exception {
+        Signature testObject = new Signature(SECRET);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String path = "/orders/" + i;
+                String expected = expected(SECRET, TIMESTAMP + "DELETE" + path);
+                tasks.add(() -> {
+                    for (int n = 0; n < 1000; n++) {
+                        if (!expected.equals(testObject.generate(path, "DELETE", "", TIMESTAMP))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String expected(String secret, String prehash) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(prehash.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.coinbase.exchange.api.exchange;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+
+    @Test
+    public void shouldLetABurstThroughThenPaceRequestsAtTheRate() throws InterruptedException {
+        TokenBucket testObject = new TokenBucket("private", 20, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(testObject.acquire(RequestLane.READ)).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        long waited = testObject.acquire(RequestLane.READ);
+
+        assertThat(waited).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(30));
+        assertThat(testObject.getGranted(RequestLane.READ)).isEqualTo(4);
+        assertThat(testObject.getMaxWaitMicros(RequestLane.READ)).isGreaterThan(30000);
+    }
+
+    @Test
+    public void shouldLetCancelsJumpAheadOfQueuedReads() throws InterruptedException {
+        TokenBucket testObject = new TokenBucket("private", 10, 1);
+        testObject.acquire(RequestLane.READ);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            threads.add(start(testObject, RequestLane.READ, "read-" + i, order));
+            awaitQueueDepth(testObject, RequestLane.READ, i + 1);
+        }
+        threads.add(start(testObject, RequestLane.TRADE, "trade", order));
+        threads.add(start(testObject, RequestLane.CANCEL, "cancel", order));
+        awaitQueueDepth(testObject, RequestLane.CANCEL, 1);
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertThat(order).containsExactly("cancel", "trade", "read-0", "read-1", "read-2");
+        assertThat(testObject.getQueueDepth(RequestLane.READ)).isZero();
+        assertThat(testObject.getGranted(RequestLane.CANCEL)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldWaitForTheBucketToRefillOnceDrained() throws InterruptedException {
+        TokenBucket testObject = new TokenBucket("public", 20, 5);
+
+        testObject.drain();
+
+        assertThat(testObject.acquire(RequestLane.CANCEL)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(30));
+        assertThat(testObject.getDrained()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldStopWaitingWhenInterrupted() throws InterruptedException {
+        TokenBucket testObject = new TokenBucket("private", 0.1, 1);
+        testObject.acquire(RequestLane.READ);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread waiting = start(testObject, RequestLane.READ, "read", order);
+        awaitQueueDepth(testObject, RequestLane.READ, 1);
+
+        waiting.interrupt();
+        waiting.join(5000);
+
+        assertThat(order).containsExactly("interrupted");
+        assertThat(testObject.getQueueDepth(RequestLane.READ)).isZero();
+    }
+
+    private Thread start(TokenBucket bucket, RequestLane lane, String name, List<String> order) {
+        Thread thread = new Thread(() -> {
+            try {
+                bucket.acquire(lane);
+                order.add(name);
+            } catch (InterruptedException e) {
+                order.add("interrupted");
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    private void awaitQueueDepth(TokenBucket bucket, RequestLane lane, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bucket.getQueueDepth(lane) < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
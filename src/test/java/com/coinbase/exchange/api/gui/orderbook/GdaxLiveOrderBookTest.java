@@ -1,8 +1,8 @@
 package com.coinbase.exchange.api.gui.orderbook;
 
-import com.coinbase.exchange.api.constants.GdaxConstants;
 import com.coinbase.exchange.api.marketdata.MarketData;
 import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.coinbase.exchange.api.orderbook.PriceLadder;
 import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
 import com.google.gson.Gson;
 import org.junit.Before;
@@ -46,13 +46,13 @@ public class GdaxLiveOrderBookTest {
 
     @Test
     public void shouldEnsureBidMarketDataIsDisplayedInOrderHighestAtTopLowestAtBottom() {
-        OrderBookModel bids = testObject.getBids();
-        assertThat(bids.size()).isGreaterThan(2);
+        PriceLadder bids = testObject.getBids();
+        assertThat(bids.depth()).isGreaterThan(2);
         //ensure ordering is correct
         int firstRow = 0;
-        BigDecimal previousBid = new BigDecimal((String)bids.getValueAt(firstRow, GdaxConstants.PRICE_COL));
-        for (int i = 1; i < bids.size(); i++) { // move down the list from 1 to size()-1: 0th item is the starting item to compare
-            BigDecimal thisOrderPrice = new BigDecimal((String)bids.getValueAt(i, GdaxConstants.PRICE_COL));
+        BigDecimal previousBid = bids.getPrice(firstRow);
+        for (int i = 1; i < bids.depth(); i++) { // move down the list from 1 to size()-1: 0th item is the starting item to compare
+            BigDecimal thisOrderPrice = bids.getPrice(i);
             assertThat(previousBid.compareTo(thisOrderPrice)).isGreaterThan(0);
             previousBid = thisOrderPrice; // get ready for the next
         }
@@ -60,16 +60,16 @@ public class GdaxLiveOrderBookTest {
 
     @Test
     public void shouldEnsureAskMarketDataIsHeldInDescendingOrderLowestAtTopHighestAtBottom() {
-        OrderBookModel asks = testObject.getAsks();
+        PriceLadder asks = testObject.getAsks();
 
         // quick check to ensure there are enough orders for a comparison to be made
-        assertThat(asks.size()).isGreaterThan(2);
+        assertThat(asks.depth()).isGreaterThan(2);
 
         //ensure ordering is correct
         int firstRow = 0;
-        BigDecimal previousAsk = new BigDecimal((String)asks.getValueAt(firstRow, GdaxConstants.PRICE_COL));
-        for (int i = 1; i < asks.size(); i++) {
-            BigDecimal thisOrderPrice = new BigDecimal((String)asks.getValueAt(i, GdaxConstants.PRICE_COL));
+        BigDecimal previousAsk = asks.getPrice(firstRow);
+        for (int i = 1; i < asks.depth(); i++) {
+            BigDecimal thisOrderPrice = asks.getPrice(i);
 
             assertThat(previousAsk.compareTo(thisOrderPrice)).isLessThan(0);
 
@@ -80,11 +80,11 @@ public class GdaxLiveOrderBookTest {
     @Test
     public void shouldEnsureMarketDataIsHeldInTheModelInAggregatedFormBeforeOrderBookIsReadyToTakeLiveFeed(){
         // bid entrys in the model should become aggregated so there will
-        OrderBookModel bids = testObject.getBids();
-        OrderBookModel asks = testObject.getAsks();
+        PriceLadder bids = testObject.getBids();
+        PriceLadder asks = testObject.getAsks();
 
-        assertThat(bids.size()).isEqualTo(8); // aggregated
-        assertThat(asks.size()).isEqualTo(5); // aggregated
+        assertThat(bids.depth()).isEqualTo(8); // aggregated
+        assertThat(asks.depth()).isEqualTo(5); // aggregated
     }
 
     @Test
@@ -95,8 +95,8 @@ public class GdaxLiveOrderBookTest {
             testObject.handleMessages(order);
         }
 
-        assertThat(testObject.getBids().size()).isEqualTo(8);
-        assertThat(testObject.getAsks().size()).isEqualTo(5);
+        assertThat(testObject.getBids().depth()).isEqualTo(8);
+        assertThat(testObject.getAsks().depth()).isEqualTo(5);
         assertThat(testObject.getQueuedMessages().size()).isEqualTo(16);
     }
 
@@ -163,8 +163,8 @@ public class GdaxLiveOrderBookTest {
 
         testObject.setReady(true);
 
-        assertThat(testObject.getBids().size()).isEqualTo(8);
-        assertThat(testObject.getAsks().size()).isEqualTo(5);
+        assertThat(testObject.getBids().depth()).isEqualTo(8);
+        assertThat(testObject.getAsks().depth()).isEqualTo(5);
     }
 
 
@@ -176,7 +176,7 @@ public class GdaxLiveOrderBookTest {
         message.setPrice(new BigDecimal(1.0));
         message.setRemaining_size(BigDecimal.ZERO);
 
-        OrderBookModel result = testObject.getRelevantOrderBookModel(message);
+        PriceLadder result = testObject.getRelevantSide(message);
 
         assertThat(result).isEqualTo(testObject.getBids());
     }
@@ -187,7 +187,7 @@ public class GdaxLiveOrderBookTest {
         message.setPrice(new BigDecimal(1.0));
         message.setRemaining_size(BigDecimal.ZERO);
 
-        OrderBookModel result = testObject.getRelevantOrderBookModel(message);
+        PriceLadder result = testObject.getRelevantSide(message);
 
         assertThat(result).isEqualTo(testObject.getAsks());
     }
@@ -238,7 +238,7 @@ public class GdaxLiveOrderBookTest {
         testObject.handleMessages(message1);
 
         assertThat(testObject.getQueuedMessages().size()).isEqualTo(1);
-        assertThat(testObject.getQueuedMessages().get(INITIAL_MAX_SEQUENCE_ID+offset)).isEqualTo(message1);
+        assertThat(testObject.getQueuedMessages().get(INITIAL_MAX_SEQUENCE_ID+offset).getSequence()).isEqualTo(message1.getSequence());
 
         // insert another 2nd order out of sequence - effect should be about the same but need to assert
         // additional messages are queued up.
@@ -270,8 +270,8 @@ public class GdaxLiveOrderBookTest {
 
         testObject.handleMessages(message);
 
-        assertThat(testObject.getAsks().getValueAt(0, GdaxConstants.PRICE_COL)).isEqualTo("9600.00000");
-        assertThat(testObject.getAsks().getValueAt(0, GdaxConstants.NUM_ORDERS_COL)).isEqualTo("2");
+        assertThat(testObject.getAsks().getPrice(0).toPlainString()).isEqualTo("9600.00000");
+        assertThat(testObject.getAsks().orderCountAt(0)).isEqualTo(2);
         // we can't make any assertions about size remaining for done orders. This is because the remaining_size
         // only applies to the current order, not all orders at the current price entry point.
     }
@@ -287,9 +287,9 @@ public class GdaxLiveOrderBookTest {
 
         testObject.handleMessages(message);
 
-        assertThat(testObject.getAsks().getValueAt(0, GdaxConstants.PRICE_COL)).isEqualTo("9600.00000");
-        assertThat(testObject.getAsks().getValueAt(0, GdaxConstants.SIZE_COL)).isEqualTo("0.10000000");
-        assertThat(testObject.getAsks().getValueAt(0, GdaxConstants.NUM_ORDERS_COL)).isEqualTo("2");
+        assertThat(testObject.getAsks().getPrice(0).toPlainString()).isEqualTo("9600.00000");
+        assertThat(testObject.getAsks().getSize(0).toPlainString()).isEqualTo("0.10000000");
+        assertThat(testObject.getAsks().orderCountAt(0)).isEqualTo(2);
     }
 
     @Test
@@ -302,8 +302,51 @@ public class GdaxLiveOrderBookTest {
 
         // should be no queued messages left
         assertThat(testObject.getQueuedMessages().size()).isEqualTo(0);
-        assertThat(testObject.getBids().size()).isEqualTo(11);
-        assertThat(testObject.getAsks().size()).isEqualTo(6);
+        assertThat(testObject.getBids().depth()).isEqualTo(11);
+        assertThat(testObject.getAsks().depth()).isEqualTo(6);
+    }
+
+    @Test
+    public void shouldRecordGapsThatHealWhenMissingMessagesArriveLate() {
+        List<OrderBookMessage> orders = getWebSocketFeedOrders("/testdata/incomingWebsocketFeed.json", BTC_GBP_PRODUCT);
+
+        for (OrderBookMessage order: orders) {
+            testObject.handleMessages(order);
+        }
+
+        // the feed delivers 123462 before 123461 and 123467 before 123466 and 123465
+        assertThat(testObject.getGapMetrics().getGapsDetected()).isEqualTo(2);
+        assertThat(testObject.getGapMetrics().getGapsHealed()).isEqualTo(2);
+        assertThat(testObject.getGapMetrics().getResyncs()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldDropMessagesAlreadyApplied() {
+        OrderBookMessage message = sellMessage();
+        message.setPrice(new BigDecimal(9620.0));
+        message.setRemaining_size(new BigDecimal(0.5));
+        message.setSequence(INITIAL_MAX_SEQUENCE_ID);
+
+        testObject.handleMessages(message);
+
+        assertThat(testObject.nextMessageToExpect()).isEqualTo(INITIAL_MAX_SEQUENCE_ID+1);
+        assertThat(testObject.getQueuedMessages().size()).isEqualTo(0);
+        assertThat(testObject.getGapMetrics().getStaleMessagesDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldIgnoreMessagesForOtherProducts() {
+        OrderBookMessage message = sellMessage();
+        message.setProduct_id("ETH-GBP");
+        message.setPrice(new BigDecimal(9620.0));
+        message.setRemaining_size(new BigDecimal(0.5));
+        message.setSequence(INITIAL_MAX_SEQUENCE_ID + 5);
+
+        testObject.handleMessages(message);
+
+        assertThat(testObject.nextMessageToExpect()).isEqualTo(INITIAL_MAX_SEQUENCE_ID + 1);
+        assertThat(testObject.getQueuedMessages().size()).isEqualTo(0);
+        assertThat(testObject.getGapMetrics().getGapsDetected()).isEqualTo(0);
     }
 
     @Test
@@ -314,8 +357,8 @@ public class GdaxLiveOrderBookTest {
         // remaining size - the outstanding amount of the order to cancel.
         testObject.handleMessages(canceledBuy); // price: 9870, remaining_size: 0.16
 
-        assertThat(testObject.getBids().getValueAt(index, PRICE_COL)).isEqualTo("9870.00000");
-        assertThat(testObject.getBids().getValueAt(index, SIZE_COL)).isEqualTo("0.00310000");
+        assertThat(testObject.getBids().getPrice(index).toPlainString()).isEqualTo("9870.00000");
+        assertThat(testObject.getBids().getSize(index).toPlainString()).isEqualTo("0.00310000");
     }
 
     @Test
@@ -327,8 +370,8 @@ public class GdaxLiveOrderBookTest {
         // remaining size - the outstanding amount of the order to cancel.
         testObject.handleMessages(canceledSell); // price: 9610, remaining_size: 0.01000000
 
-        assertThat(testObject.getAsks().getValueAt(index, PRICE_COL)).isEqualTo("9610.00000");
-        assertThat(testObject.getAsks().getValueAt(index, SIZE_COL)).isEqualTo("0.04000000");
+        assertThat(testObject.getAsks().getPrice(index).toPlainString()).isEqualTo("9610.00000");
+        assertThat(testObject.getAsks().getSize(index).toPlainString()).isEqualTo("0.04000000");
     }
 
     @Test
@@ -364,8 +407,8 @@ public class GdaxLiveOrderBookTest {
         // remaining size - the outstanding amount of the order to cancel.
         testObject.handleMessages(matchedBuy); // price: 9879, size: 0.00100000
 
-        assertThat(testObject.getBids().getValueAt(index, PRICE_COL)).isEqualTo("9879.00000");
-        assertThat(testObject.getBids().getValueAt(index, SIZE_COL)).isEqualTo("0.04900000");
+        assertThat(testObject.getBids().getPrice(index).toPlainString()).isEqualTo("9879.00000");
+        assertThat(testObject.getBids().getSize(index).toPlainString()).isEqualTo("0.04900000");
     }
 
     @Test
@@ -378,8 +421,23 @@ public class GdaxLiveOrderBookTest {
         // remaining size - the outstanding amount of the order to cancel.
         testObject.handleMessages(matchedSell); // price: 9600, size: 0.05000000
 
-        assertThat(testObject.getAsks().getValueAt(index, PRICE_COL)).isEqualTo("9600.00000");
-        assertThat(testObject.getAsks().getValueAt(index, SIZE_COL)).isEqualTo("0.08000000");
+        assertThat(testObject.getAsks().getPrice(index).toPlainString()).isEqualTo("9600.00000");
+        assertThat(testObject.getAsks().getSize(index).toPlainString()).isEqualTo("0.08000000");
+    }
+
+    @Test
+    public void shouldMoveOnToTheNextSequenceWhenAMatchListenerFails() {
+        OrderBookMessage matchedBuy = getOrderFromFile("/testdata/matchedBuy_001.json");
+        List<Long> notified = new ArrayList<>();
+        testObject.addMatchListener(match -> {
+            throw new IllegalStateException("listener bug");
+        });
+        testObject.addMatchListener(match -> notified.add(match.getSequence()));
+
+        testObject.handleMessages(matchedBuy);
+
+        assertThat(notified).containsExactly(matchedBuy.getSequence());
+        assertThat(testObject.nextMessageToExpect()).isEqualTo(matchedBuy.getSequence() + 1);
     }
 
     @Test
@@ -422,7 +480,7 @@ public class GdaxLiveOrderBookTest {
         // rounding necessary here since the big decimal doesn't compare how we'd expect otherwise.
         index = getPriceEntryIndex(testObject.getBids(), lookupPrice);
         assertThat(index).isEqualTo(4);
-        assertThat(testObject.getBids().getValueAt(index, SIZE_COL)).isEqualTo("0.88000000");
+        assertThat(testObject.getBids().getSize(index).toPlainString()).isEqualTo("0.88000000");
     }
 
     @Test
@@ -438,7 +496,7 @@ public class GdaxLiveOrderBookTest {
         // rounding necessary here since the big decimal doesn't compare how we'd expect otherwise.
         index = getPriceEntryIndex(testObject.getAsks(), new BigDecimal(9599.00).setScale(8, ROUND_HALF_UP));
         assertThat(index).isEqualTo(0);
-        assertThat(testObject.getAsks().getValueAt(index, SIZE_COL)).isEqualTo("1.25000000");
+        assertThat(testObject.getAsks().getSize(index).toPlainString()).isEqualTo("1.25000000");
     }
 
     @Test
@@ -451,7 +509,7 @@ public class GdaxLiveOrderBookTest {
         testObject.handleMessages(openBuy); // price: 9873.30, remaining_size: 0.09000000
 
         // rounding necessary here since the big decimal doesn't compare how we'd expect otherwise.
-        assertThat(testObject.getBids().getValueAt(index, SIZE_COL)).isEqualTo("0.20000000");
+        assertThat(testObject.getBids().getSize(index).toPlainString()).isEqualTo("0.20000000");
     }
 
     @Test
@@ -464,7 +522,7 @@ public class GdaxLiveOrderBookTest {
         testObject.handleMessages(openSell); // price: 9622.48, remaining_size: 0.43
 
         // rounding necessary here since the big decimal doesn't compare how we'd expect otherwise.
-        assertThat(testObject.getAsks().getValueAt(index, SIZE_COL)).isEqualTo("1.00000000");
+        assertThat(testObject.getAsks().getSize(index).toPlainString()).isEqualTo("1.00000000");
     }
 
     @Test
@@ -558,7 +616,32 @@ public class GdaxLiveOrderBookTest {
         // rounding necessary here since the big decimal doesn't compare how we'd expect otherwise.
         index = getPriceEntryIndex(testObject.getBids(), priceEntry);
         assertThat(index).isEqualTo(1);
-        assertThat(testObject.getBids().getValueAt(index, SIZE_COL)).isEqualTo("5.23512000");
+        assertThat(testObject.getBids().getSize(index).toPlainString()).isEqualTo("5.23512000");
+    }
+
+    @Test
+    public void shouldPassMatchesToListenersOnceInSequence() {
+        List<Long> matched = new ArrayList<>();
+        testObject.addMatchListener(match -> matched.add(match.getSequence()));
+        OrderBookMessage second = matchMessage(INITIAL_MAX_SEQUENCE_ID + 2);
+        OrderBookMessage first = matchMessage(INITIAL_MAX_SEQUENCE_ID + 1);
+
+        testObject.handleMessages(second);
+        assertThat(matched).isEmpty();
+        testObject.handleMessages(first);
+        testObject.handleMessages(first);
+
+        assertThat(matched).containsExactly(INITIAL_MAX_SEQUENCE_ID + 1, INITIAL_MAX_SEQUENCE_ID + 2);
+    }
+
+    private OrderBookMessage matchMessage(long sequence) {
+        OrderBookMessage message = new OrderBookMessage();
+        message.setType(MATCH);
+        message.setSide(SELL);
+        message.setSequence(sequence);
+        message.setPrice(new BigDecimal("1"));
+        message.setSize(new BigDecimal("0.00000001"));
+        return message;
     }
 
     private OrderBookMessage sellMessage() {
@@ -579,9 +662,9 @@ public class GdaxLiveOrderBookTest {
         return message;
     }
 
-    private int getPriceEntryIndex(OrderBookModel model, BigDecimal lookupPrice) {
-        for (int i=0; i<model.size(); i++) {
-            if (new BigDecimal((String) model.getValueAt(i, GdaxConstants.PRICE_COL)).compareTo(lookupPrice) == 0)
+    private int getPriceEntryIndex(PriceLadder model, BigDecimal lookupPrice) {
+        for (int i=0; i<model.depth(); i++) {
+            if (model.getPrice(i).compareTo(lookupPrice) == 0)
                 return i;
         }
         return -1; // not found
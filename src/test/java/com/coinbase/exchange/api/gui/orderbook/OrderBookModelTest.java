@@ -1,10 +1,15 @@
 package com.coinbase.exchange.api.gui.orderbook;
 
+import com.coinbase.exchange.api.orderbook.OrderBook;
+import com.coinbase.exchange.api.orderbook.PriceLadder;
 import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.swing.event.TableModelEvent;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.coinbase.exchange.api.constants.GdaxConstants.*;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -15,51 +20,49 @@ import static org.junit.Assert.assertThat;
  */
 public class OrderBookModelTest {
 
+    OrderBook orderBook;
+    PriceLadder ladder;
     OrderBookModel testObject;
 
     @Before
     public void setup(){
-        testObject = new OrderBookModel();
+        orderBook = new OrderBook();
+        ladder = orderBook.getBids();
+        testObject = new OrderBookModel(ladder.snapshot());
     }
 
     @Test
-    public void shouldAddItemToTable() {
-        testObject.setValueAt("Some Value", 0, 0);
+    public void shouldFormatPriceAndSizeToFixedDecimalPlaces() {
+        ladder.set(100000L, 87655000L, 1);
+        refresh();
 
-        assertThat(testObject.getValueAt(0, PRICE_COL), equalTo("Some Value"));
+        assertThat(testObject.getValueAt(0, PRICE_COL), equalTo("1.00000"));
+        assertThat(testObject.getValueAt(0, SIZE_COL), equalTo("0.87655000"));
+        assertThat(testObject.getValueAt(0, NUM_ORDERS_COL), equalTo("1"));
         assertThat(testObject.getRowCount(), equalTo(1));
     }
 
     @Test
     public void shouldUpdateExistingRowWhenPricePointExists(){
-        testObject.setValueAt("1.0", 0, PRICE_COL);
-        testObject.setValueAt("1.0", 0, SIZE_COL);
-        testObject.setValueAt("1", 0, NUM_ORDERS_COL);
-        String testResult = ((String)testObject.getValueAt(0,PRICE_COL));
+        ladder.set(100000L, 100000000L, 1);
+        refresh();
         assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat(testResult, equalTo("1.0"));
-        OrderBookMessage message1 = new OrderBookMessage();
-        message1.setType(LIMIT_ORDER_TYPE);
-        message1.setSide(BUY);
-        message1.setPrice(new BigDecimal(1.5));
-        message1.setSize(new BigDecimal(3.0));
+        OrderBookMessage message1 = openMessage(BUY, "1.5", "3.0");
         message1.setSequence(1L);
 
-        testObject.insertInto(message1);
+        orderBook.apply(message1);
+        refresh();
 
         int firstRow = 0;
         assertThat(testObject.getRowCount(), equalTo(2));
         assertThat(testObject.getValueAt(firstRow, PRICE_COL), equalTo("1.50000"));
         assertThat(testObject.getValueAt(firstRow, SIZE_COL), equalTo("3.00000000"));
         assertThat(testObject.getValueAt(firstRow, NUM_ORDERS_COL), equalTo("1"));
-        OrderBookMessage message2 = new OrderBookMessage();
-        message2.setType(LIMIT_ORDER_TYPE);
-        message2.setSide(BUY);
-        message2.setPrice(new BigDecimal(1.5));
-        message2.setSize(new BigDecimal(2.200));
+        OrderBookMessage message2 = openMessage(BUY, "1.5", "2.200");
         message2.setSequence(2L);
 
-        testObject.insertInto(message2);
+        orderBook.apply(message2);
+        refresh();
 
         assertThat(testObject.getRowCount(), equalTo(2));
         assertThat(testObject.getValueAt(firstRow, PRICE_COL), equalTo("1.50000"));
@@ -69,55 +72,42 @@ public class OrderBookModelTest {
 
     @Test
     public void shouldInsertBuyOrderAsNewRowWhenPriceIsUnique(){
-        testObject.setValueAt("1.0", 0, 0);
-        String testResult = ((String)testObject.getValueAt(0,0));
-        assertThat(testResult, equalTo("1.0"));
+        ladder.set(100000L, 100000000L, 1);
+        refresh();
+        assertThat(testObject.getValueAt(0, PRICE_COL), equalTo("1.00000"));
         assertThat(testObject.getRowCount(), equalTo(1));
-        OrderBookMessage message1 = new OrderBookMessage();
-        message1.setType(LIMIT_ORDER_TYPE);
-        message1.setSide(BUY);
-        message1.setPrice(new BigDecimal(1.5));
-        message1.setSize(new BigDecimal(3.0));
-        message1.setSequence(1L);
 
-        testObject.insertInto(message1);
+        orderBook.apply(openMessage(BUY, "1.5", "3.0"));
+        refresh();
 
         int firstRow = 0;
         assertThat(testObject.getValueAt(firstRow, 0), equalTo("1.50000"));
         assertThat(testObject.getValueAt(firstRow, 1), equalTo("3.00000000"));
         assertThat(testObject.getValueAt(firstRow, 2), equalTo("1"));
-        OrderBookMessage message2 = new OrderBookMessage();
-        message2.setPrice(new BigDecimal("3.8"));
-        message2.setSize(new BigDecimal("0.43400"));
-        message2.setSide(BUY);
-        message2.setType(LIMIT_ORDER_TYPE);
-        message2.setSequence(2L);
 
-        testObject.insertInto(message2);
+        orderBook.apply(openMessage(BUY, "3.8", "0.43400"));
+        refresh();
 
         // item should appear at the top of the list since it's a new highest bidder/buy order
         assertThat(testObject.getValueAt(0, 0), equalTo("3.80000"));
         assertThat(testObject.getValueAt(0, 1), equalTo("0.43400000"));
         assertThat(testObject.getValueAt(0, 2), equalTo("1"));
+        assertThat(testObject.getRowCount(), equalTo(3));
     }
 
     @Test
     public void shouldInsertSellOrderAsNewRowWhenPriceIsUnique(){
-        testObject.setValueAt("1.00000", 0, 0);
-        String testResult = ((String)testObject.getValueAt(0,0));
-        assertThat(testResult, equalTo("1.00000"));
+        ladder = orderBook.getAsks();
+        ladder.set(100000L, 100000000L, 1);
+        refresh();
+        assertThat(testObject.getValueAt(0, PRICE_COL), equalTo("1.00000"));
         assertThat(testObject.getRowCount(), equalTo(1));
-        OrderBookMessage message = new OrderBookMessage();
-        message.setOrder_type(LIMIT_ORDER_TYPE);
-        message.setPrice(new BigDecimal("3.8"));
-        message.setRemaining_size(new BigDecimal("0.43400"));
-        message.setSide(SELL);
-        message.setType(OPEN);
 
-        testObject.insertInto(message);
+        orderBook.apply(openMessage(SELL, "3.8", "0.43400"));
+        refresh();
 
         int lastRow = testObject.getRowCount()-1;
-        // item should appear at the top of the list since it's a new highest bidder/buy order
+        // lowest ask at the top, so the higher priced sell goes to the bottom
         assertThat(testObject.getValueAt(lastRow, PRICE_COL), equalTo("3.80000"));
         assertThat(testObject.getValueAt(lastRow, SIZE_COL), equalTo("0.43400000"));
         assertThat(testObject.getValueAt(lastRow, NUM_ORDERS_COL), equalTo("1"));
@@ -125,61 +115,37 @@ public class OrderBookModelTest {
 
     @Test
     public void shouldUpdateExistingSellOrderSizeWhenPriceEntryAlreadyExists(){
-        int firstRow = 0;
-        testObject.setValueAt("1.00000", firstRow, 0);
-        testObject.setValueAt("0.87655",firstRow, 1);
-        testObject.setValueAt("1",firstRow, 2);
-        assertThat(((String)testObject.getValueAt(firstRow, 0)), equalTo("1.00000"));
-        assertThat(((String)testObject.getValueAt(firstRow, 1)), equalTo("0.87655"));
-        assertThat(((String)testObject.getValueAt(firstRow, 2)), equalTo("1"));
+        ladder = orderBook.getAsks();
+        ladder.set(100000L, 87655000L, 1);
+        refresh();
         assertThat(testObject.getRowCount(), equalTo(1));
-        // create a new order
-        OrderBookMessage message = new OrderBookMessage();
-        message.setPrice(new BigDecimal("1.0"));
-        message.setRemaining_size(new BigDecimal("0.43400"));
-        message.setSide(SELL);
-        message.setType(OPEN);
 
-        // insert the new order
-        testObject.insertInto(message);
+        orderBook.apply(openMessage(SELL, "1.0", "0.43400"));
+        refresh();
 
-        // item should appear at the top of the list since it's a new highest bidder/buy order
         assertThat(testObject.getValueAt(0, SIZE_COL), equalTo("1.31055000"));
+        assertThat(testObject.getValueAt(0, NUM_ORDERS_COL), equalTo("2"));
     }
 
     @Test
     public void shouldUpdateExistingBuyOrderSizeAndQuantityWhenPriceEntryExists(){
-        int firstRow = 0;
-        testObject.setValueAt("1.00000", firstRow, PRICE_COL);
-        testObject.setValueAt("0.87655",firstRow, SIZE_COL);
-        testObject.setValueAt("1",firstRow, NUM_ORDERS_COL);
-        assertThat(((String)testObject.getValueAt(firstRow, PRICE_COL)), equalTo("1.00000"));
-        assertThat(((String)testObject.getValueAt(firstRow, SIZE_COL)), equalTo("0.87655"));
-        assertThat(((String)testObject.getValueAt(firstRow, NUM_ORDERS_COL)), equalTo("1"));
+        ladder.set(100000L, 87655000L, 1);
+        refresh();
         assertThat(testObject.getRowCount(), equalTo(1));
-        // create a new order
-        OrderBookMessage message = new OrderBookMessage();
-        message.setPrice(new BigDecimal("1.0"));
-        message.setRemaining_size(new BigDecimal("0.43400"));
-        message.setSide(BUY);
-        message.setType(OPEN);
 
-        // insert the new order
-        testObject.insertInto(message);
+        orderBook.apply(openMessage(BUY, "1.0", "0.43400"));
+        refresh();
 
-        // item should appear at the top of the list since it's a new highest bidder/buy order
+        assertThat(testObject.getRowCount(), equalTo(1));
         assertThat(testObject.getValueAt(0, SIZE_COL), equalTo("1.31055000"));
+        assertThat(testObject.getValueAt(0, NUM_ORDERS_COL), equalTo("2"));
     }
 
     @Test
     public void shouldReduceQtyByOneForDoneOrder(){
-        int firstRow = 0;
-        testObject.setValueAt("1.00000", firstRow, 0);
-        testObject.setValueAt("0.87655",firstRow, 1);
-        testObject.setValueAt("5",firstRow, 2);
-        assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat(((String)testObject.getValueAt(firstRow, 2)), equalTo("5"));
-        // create a new order
+        ladder.set(100000L, 87655000L, 5);
+        refresh();
+        assertThat(testObject.getValueAt(0, 2), equalTo("5"));
         OrderBookMessage message = new OrderBookMessage();
         message.setPrice(new BigDecimal("1.0"));
         message.setSize(new BigDecimal("0.43400"));
@@ -187,136 +153,119 @@ public class OrderBookModelTest {
         message.setType(DONE);
         message.setReason(FILLED);
 
-        // insert the new order
-        testObject.insertInto(message);
+        orderBook.apply(message);
+        refresh();
 
-        // item should appear at the top of the list since it's a new highest bidder/buy order
         assertThat(testObject.getRowCount(), equalTo(1));
         assertThat(testObject.getValueAt(0, 2), equalTo("4"));
     }
 
     @Test
     public void shouldNotAlterQtyForMatchedOrder(){
-        int firstRow = 0;
-        testObject.setValueAt("1.00000", firstRow, PRICE_COL);
-        testObject.setValueAt("0.87655",firstRow, SIZE_COL);
-        testObject.setValueAt("5",firstRow, NUM_ORDERS_COL);
-        assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat(((String)testObject.getValueAt(firstRow, NUM_ORDERS_COL)), equalTo("5"));
-        // create a MATCHED order
+        ladder.set(100000L, 87655000L, 5);
+        refresh();
         OrderBookMessage message = new OrderBookMessage();
         message.setPrice(new BigDecimal("1.0"));
         message.setSize(new BigDecimal("0.43400"));
         message.setSide(BUY);
         message.setType(MATCH);
 
-        // insert the new order
-        testObject.insertInto(message);
+        orderBook.apply(message);
+        refresh();
 
-        // item should appear at the top of the list since it's a new highest bidder/buy order
         assertThat(testObject.getRowCount(), equalTo(1));
+        assertThat(testObject.getValueAt(0, SIZE_COL), equalTo("0.44255000"));
         assertThat(testObject.getValueAt(0, NUM_ORDERS_COL), equalTo("5"));
     }
 
     @Test
-    public void shouldNotReduceQtyForMatchedOrder(){
-        int firstRow = 0;
-        testObject.setValueAt("1.00000", firstRow, PRICE_COL);
-        testObject.setValueAt("0.87655",firstRow, SIZE_COL);
-        testObject.setValueAt("5",firstRow, NUM_ORDERS_COL);
+    public void shouldInsertTwoBuyOrdersIntoTable(){
+        orderBook.apply(openMessage(BUY, "1.0", "0.43400"));
+        refresh();
         assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat(((String)testObject.getValueAt(firstRow, PRICE_COL)), equalTo("1.00000"));
-        assertThat(((String)testObject.getValueAt(firstRow, SIZE_COL)), equalTo("0.87655"));
-        assertThat(((String)testObject.getValueAt(firstRow, NUM_ORDERS_COL)), equalTo("5"));
-        // create a new order
-        OrderBookMessage message = new OrderBookMessage();
-        message.setPrice(new BigDecimal("1.0"));
-        message.setSize(new BigDecimal("0.43400"));
-        message.setSide(BUY);
-        message.setType(MATCH);
 
-        // insert the new order
-        testObject.insertInto(message);
+        orderBook.apply(openMessage(BUY, "1.1", "0.43400"));
+        refresh();
 
-        // item should appear at the top of the list since it's a new highest bidder/buy order
-        assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat(testObject.getValueAt(0, NUM_ORDERS_COL), equalTo("5"));
+        assertThat(testObject.getRowCount(), equalTo(2));
+        assertThat(testObject.getValueAt(0, PRICE_COL), equalTo("1.10000"));
+        assertThat(testObject.getValueAt(1, PRICE_COL), equalTo("1.00000"));
     }
 
     @Test
-    public void shouldInsertOneOrderIntoTable(){
-        // create a new order
-        OrderBookMessage message = new OrderBookMessage();
-        message.setType(LIMIT_ORDER_TYPE);
-        message.setPrice(new BigDecimal("1.0"));
-        message.setRemaining_size(new BigDecimal("0.43400"));
-        message.setSide(BUY);
-        message.setSequence(1L);
+    public void shouldNotUpdateTableWithANewEntryForDoneFilledOrdersWhenPriceEntryDoesNotExist() {
+        OrderBookMessage message1 = openMessage(BUY, "1.0", "0.43400");
+        message1.setType(DONE);
+        message1.setReason(FILLED);
 
-        testObject.insertInto(message);
+        orderBook.apply(message1);
+        refresh();
 
-        assertThat(testObject.getRowCount(), equalTo(1));
-        assertThat((new BigDecimal((String)testObject.getValueAt(0, PRICE_COL))).compareTo(new BigDecimal("1.0")), equalTo(0));
+        assertThat(testObject.getRowCount(), equalTo(0));
     }
 
     @Test
-    public void shouldInsertTwoBuyOrdersIntoTable(){
-        // create a new order
-        OrderBookMessage message1 = new OrderBookMessage();
-        message1.setOrder_type(LIMIT_ORDER_TYPE);
-        message1.setPrice(new BigDecimal("1.0"));
-        message1.setRemaining_size(new BigDecimal("0.43400"));
-        message1.setSide(BUY);
-        message1.setSequence(1L);
-        message1.setType(OPEN);
-        testObject.insertInto(message1);
-        assertThat(testObject.getRowCount(), equalTo(1));
-        OrderBookMessage message2 = new OrderBookMessage();
-        message2.setOrder_type(LIMIT_ORDER_TYPE);
-        message2.setPrice(new BigDecimal("1.1"));
-        message2.setRemaining_size(new BigDecimal("0.43400"));
-        message2.setSide(BUY);
-        message2.setSequence(2L);
-        message2.setType(OPEN);
+    public void shouldNotUpdateTableWithANewEntryForDoneCanceledOrdersWhenPriceEntryDoesNotExist() {
+        OrderBookMessage message1 = openMessage(BUY, "1.0", "0.43400");
+        message1.setType(DONE);
+        message1.setReason(CANCELED);
 
-        testObject.insertInto(message2);
+        orderBook.apply(message1);
+        refresh();
 
-        assertThat(testObject.getRowCount(), equalTo(2));
-        assertThat((new BigDecimal((String)testObject.getValueAt(0, PRICE_COL))).compareTo(new BigDecimal("1.1")), equalTo(0));
-        assertThat((new BigDecimal((String)testObject.getValueAt(1, PRICE_COL))).compareTo(new BigDecimal("1.0")), equalTo(0));
+        assertThat(testObject.getRowCount(), equalTo(0));
     }
 
     @Test
-    public void shouldNotUpdateTableWithANewEntryForDoneFilledOrdersWhenPriceEntryDoesNotExist() {
-        // create a new order
-        OrderBookMessage message1 = new OrderBookMessage();
-        message1.setOrder_type(LIMIT_ORDER_TYPE);
-        message1.setPrice(new BigDecimal("1.0"));
-        message1.setRemaining_size(new BigDecimal("0.43400"));
-        message1.setSide(BUY);
-        message1.setSequence(1L);
-        message1.setType(DONE);
-        message1.setReason(FILLED);
+    public void shouldRemoveRowWhenCanceledOrderTakesTheLastOfTheSize() {
+        orderBook.apply(openMessage(BUY, "1.0", "0.43400"));
+        refresh();
+        OrderBookMessage cancel = openMessage(BUY, "1.0", "0.43400");
+        cancel.setType(DONE);
+        cancel.setReason(CANCELED);
 
-        testObject.insertInto(message1);
+        orderBook.apply(cancel);
+        refresh();
 
         assertThat(testObject.getRowCount(), equalTo(0));
     }
 
     @Test
-    public void shouldNotUpdateTableWithANewEntryForDoneCanceledOrdersWhenPriceEntryDoesNotExist() {
-        // create a new order
-        OrderBookMessage message1 = new OrderBookMessage();
-        message1.setOrder_type(LIMIT_ORDER_TYPE);
-        message1.setPrice(new BigDecimal("1.0"));
-        message1.setRemaining_size(new BigDecimal("0.43400"));
-        message1.setSide(BUY);
-        message1.setSequence(1L);
-        message1.setType(DONE);
-        message1.setReason(CANCELED);
+    public void shouldNotifyTableListenersOncePerSnapshotNotOncePerMessage() {
+        List<TableModelEvent> events = new ArrayList<>();
+        testObject.addTableModelListener(events::add);
 
-        testObject.insertInto(message1);
+        orderBook.apply(openMessage(BUY, "1.0", "0.43400"));
+        orderBook.apply(openMessage(BUY, "1.1", "0.1"));
+        orderBook.apply(openMessage(BUY, "1.0", "0.1"));
+        refresh();
+
+        assertThat(events.size(), equalTo(1));
+        assertThat(testObject.getRowCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldKeepShowingTheLastSnapshotUntilItIsHandedANewOne() {
+        orderBook.apply(openMessage(BUY, "1.0", "0.43400"));
 
         assertThat(testObject.getRowCount(), equalTo(0));
+
+        refresh();
+
+        assertThat(testObject.getRowCount(), equalTo(1));
+    }
+
+    private void refresh() {
+        testObject.update(ladder.snapshot());
+    }
+
+    private OrderBookMessage openMessage(String side, String price, String remainingSize) {
+        OrderBookMessage message = new OrderBookMessage();
+        message.setOrder_type(LIMIT_ORDER_TYPE);
+        message.setType(OPEN);
+        message.setSide(side);
+        message.setPrice(new BigDecimal(price));
+        message.setRemaining_size(new BigDecimal(remainingSize));
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.coinbase.exchange.api.orderbook;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FixedPointTest {
+
+    @Test
+    public void shouldParsePlainDecimalsToScaledLongs() {
+        assertThat(FixedPoint.parse("9600.12", 5)).isEqualTo(960012000L);
+        assertThat(FixedPoint.parse("9600", 5)).isEqualTo(960000000L);
+        assertThat(FixedPoint.parse("0.00000001", 8)).isEqualTo(1L);
+        assertThat(FixedPoint.parse("-0.5", 8)).isEqualTo(-50000000L);
+        assertThat(FixedPoint.parse(".5", 1)).isEqualTo(5L);
+    }
+
+    @Test
+    public void shouldRoundHalfUpBeyondTheScale() {
+        assertThat(FixedPoint.parse("1.234565", 5)).isEqualTo(123457L);
+        assertThat(FixedPoint.parse("1.234564999", 5)).isEqualTo(123456L);
+        assertThat(FixedPoint.parse("1.23456", 5)).isEqualTo(FixedPoint.toScaled(new BigDecimal("1.23456"), 5));
+    }
+
+    @Test
+    public void shouldRejectNonNumericInput() {
+        assertThatThrownBy(() -> FixedPoint.parse("1.2.3", 5)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> FixedPoint.parse("abc", 5)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> FixedPoint.parse("", 5)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void shouldFormatWithExactlyTheScaleDecimalPlaces() {
+        assertThat(FixedPoint.toString(960012000L, 5)).isEqualTo("9600.12000");
+        assertThat(FixedPoint.toString(1L, 8)).isEqualTo("0.00000001");
+        assertThat(FixedPoint.toString(-50000000L, 8)).isEqualTo("-0.50000000");
+        assertThat(FixedPoint.toBigDecimal(960012000L, 5).toPlainString()).isEqualTo("9600.12000");
+    }
+
+    @Test
+    public void shouldConvertToAndFromDoubles() {
+        assertThat(FixedPoint.toDouble(960012000L, 5)).isEqualTo(9600.12);
+        assertThat(FixedPoint.fromDouble(9600.12, 5)).isEqualTo(960012000L);
+        assertThat(FixedPoint.fromDouble(0.1 + 0.2, 8)).isEqualTo(30000000L);
+    }
+}
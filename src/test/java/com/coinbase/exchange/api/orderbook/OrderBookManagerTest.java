@@ -0,0 +1,118 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.exchange.Signature;
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.marketdata.MarketDataService;
+import com.coinbase.exchange.api.websocketfeed.FeedIngestThread;
+import com.coinbase.exchange.api.websocketfeed.WebsocketFeed;
+import com.coinbase.exchange.api.websocketfeed.journal.FeedJournal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookManagerTest {
+
+    private static final String PRODUCTS = "BTC-GBP, BTC-EUR,BTC-USD,ETH-BTC,ETH-EUR";
+
+    WebsocketFeed websocketFeed;
+    OrderBookManager testObject;
+
+    @Before
+    public void setup() {
+        websocketFeed = new WebsocketFeed("wss://localhost/", false, "key", "passphrase", 16, 500, 30000,
+                new Signature("MTIzNDU2Nzg5MA=="), new FeedJournal(), new JsonCodec());
+        testObject = new OrderBookManager(false, PRODUCTS, 2, 16, new GdaxLiveOrderBook(), websocketFeed);
+    }
+
+    @After
+    public void tearDown() {
+        testObject.stop();
+        websocketFeed.getIngestThread().stop();
+    }
+
+    @Test
+    public void shouldGiveEachProductItsOwnBook() {
+        assertThat(testObject.getProductIds()).containsExactly("BTC-GBP", "BTC-EUR", "BTC-USD", "ETH-BTC", "ETH-EUR");
+
+        GdaxLiveOrderBook btcGbp = testObject.getOrderBook("BTC-GBP");
+        GdaxLiveOrderBook ethEur = testObject.getOrderBook("ETH-EUR");
+
+        assertThat(btcGbp).isNotSameAs(ethEur);
+        assertThat(btcGbp.getSelectedProductId()).isEqualTo("BTC-GBP");
+        assertThat(ethEur.getSelectedProductId()).isEqualTo("ETH-EUR");
+        assertThat(testObject.getOrderBook("LTC-EUR")).isNull();
+    }
+
+    @Test
+    public void shouldSpreadProductsAcrossWorkers() {
+        assertThat(testObject.getWorkerCount()).isEqualTo(2);
+        assertThat(testObject.getWorker("BTC-GBP")).isSameAs(testObject.getWorker("BTC-USD"));
+        assertThat(testObject.getWorker("BTC-GBP")).isSameAs(testObject.getWorker("ETH-EUR"));
+        assertThat(testObject.getWorker("BTC-EUR")).isSameAs(testObject.getWorker("ETH-BTC"));
+        assertThat(testObject.getWorker("BTC-GBP")).isNotSameAs(testObject.getWorker("BTC-EUR"));
+    }
+
+    @Test
+    public void shouldRouteFramesToTheWorkerOwningTheProduct() {
+        FeedIngestThread first = testObject.getWorker("BTC-GBP");
+        FeedIngestThread second = testObject.getWorker("BTC-EUR");
+
+        testObject.dispatch("{\"type\":\"open\",\"product_id\":\"BTC-GBP\",\"sequence\":1}");
+        testObject.dispatch("{\"type\":\"open\",\"product_id\": \"ETH-BTC\",\"sequence\":1}");
+        testObject.dispatch("{\"type\":\"open\",\"product_id\":\"BTC-GBPX\",\"sequence\":1}");
+        testObject.dispatch("{\"type\":\"heartbeat\",\"sequence\":1}");
+
+        assertThat(first.getFramesReceived()).isEqualTo(1);
+        assertThat(second.getFramesReceived()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldKeepFeedingTheSelectedBookAlongsideTheManagersBooks() throws InterruptedException {
+        MarketDataService marketDataService = new MarketDataService(null) {
+            @Override
+            public Long loadOrderBook(String productId, String level, OrderBook orderBook) {
+                return 0L;
+            }
+        };
+        GdaxLiveOrderBook selected = new GdaxLiveOrderBook(10, "BTC-GBP", 50, 16, 2000, marketDataService, websocketFeed);
+        testObject = new OrderBookManager(false, "BTC-EUR,ETH-EUR", 2, 16, selected, websocketFeed);
+        websocketFeed.getIngestThread().start();
+
+        testObject.start();
+        selected.loadLiveOrderBookModel("LTC-GBP");
+        selected.loadLiveOrderBookModel("BTC-GBP");
+        // loaded on the ingest thread
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!websocketFeed.getSubscribedChannels().contains("BTC-GBP") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        for (String productId : new String[]{"BTC-GBP", "BTC-EUR", "ETH-EUR"}) {
+            websocketFeed.onMessage("{\"type\":\"open\",\"side\":\"buy\",\"price\":\"100\",\"order_id\":\"" + productId
+                    + "\",\"remaining_size\":\"1\",\"product_id\":\"" + productId + "\",\"sequence\":1}");
+        }
+
+        awaitSequence(selected, 1);
+        awaitSequence(testObject.getOrderBook("BTC-EUR"), 1);
+        awaitSequence(testObject.getOrderBook("ETH-EUR"), 1);
+        assertThat(selected.getSelectedProductId()).isEqualTo("BTC-GBP");
+    }
+
+    @Test
+    public void shouldNotStartMoreWorkersThanProducts() {
+        WebsocketFeed websocketFeed = new WebsocketFeed("wss://localhost/", false, "key", "passphrase", 16, 500, 30000, null, new FeedJournal(), new JsonCodec());
+        OrderBookManager manager = new OrderBookManager(false, "BTC-GBP", 8, 16, new GdaxLiveOrderBook(), websocketFeed);
+
+        assertThat(manager.getWorkerCount()).isEqualTo(1);
+    }
+
+    private static void awaitSequence(GdaxLiveOrderBook book, long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (book.getSnapshot().getSequence() != sequence && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(book.getSnapshot().getSequence()).as(book.getSelectedProductId()).isEqualTo(sequence);
+    }
+}
@@ -0,0 +1,123 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.marketdata.MarketData;
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.BUY;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookSnapshotLoaderTest {
+
+    private static final String LEVEL_3 = "{\"sequence\":3051,"
+            + "\"bids\":[[\"9870.00\",\"0.5\",\"ba071c21-440b-4b85-aa66-98ba2b5652d2\"],"
+            + "[\"9870.00\",\"0.25\",\"37bf3d09-f503-4101-b281-fbec77e30c62\"],"
+            + "[\"9865.10\",\"1.2\",\"4b9e7c44-0d4a-4a13-b3a1-8fd2b1c2c7a3\"]],"
+            + "\"asks\":[[\"9880.00\",\"1.0\",\"7be4e21c-59f2-47b8-b034-5300a1dbc1d0\"],"
+            + "[\"9881.50\",\"0.3\",\"0c4e1f1b-2d1e-4f0d-9b45-3a4b5c6d7e8f\"]]}";
+
+    OrderBookSnapshotLoader testObject;
+    OrderBook book;
+
+    @Before
+    public void setup() {
+        testObject = new OrderBookSnapshotLoader();
+        book = new OrderBook();
+    }
+
+    @Test
+    public void shouldAggregateLevel3RowsIntoPriceLevels() throws IOException {
+        long sequence = testObject.load(LEVEL_3, book);
+
+        assertThat(sequence).isEqualTo(3051L);
+        assertThat(book.getSequence()).isEqualTo(3051L);
+        assertThat(book.getBids().depth()).isEqualTo(2);
+        assertThat(book.getBids().getPrice(0).toPlainString()).isEqualTo("9870.00000");
+        assertThat(book.getBids().getSize(0).toPlainString()).isEqualTo("0.75000000");
+        assertThat(book.getBids().orderCountAt(0)).isEqualTo(2);
+        assertThat(book.getBids().getPrice(1).toPlainString()).isEqualTo("9865.10000");
+        assertThat(book.getAsks().depth()).isEqualTo(2);
+        assertThat(book.getAsks().getPrice(0).toPlainString()).isEqualTo("9880.00000");
+        assertThat(book.getAsks().getPrice(1).toPlainString()).isEqualTo("9881.50000");
+    }
+
+    @Test
+    public void shouldIndexEveryOrderInALevel3Snapshot() throws IOException {
+        testObject.load(LEVEL_3, book);
+
+        assertThat(book.isLevel3()).isTrue();
+        assertThat(book.getOrderCount()).isEqualTo(5);
+        assertThat(book.containsOrder("37bf3d09-f503-4101-b281-fbec77e30c62")).isTrue();
+        assertThat(book.getRemainingSize("37bf3d09-f503-4101-b281-fbec77e30c62")).isEqualTo(25000000L);
+    }
+
+    @Test
+    public void shouldBuildTheSameBookAsBindingTheSnapshot() throws IOException {
+        MarketData data = new ObjectMapper().readValue(LEVEL_3, MarketData.class);
+        OrderBook expected = new OrderBook();
+        for (OrderItem bid : data.getBids()) {
+            expected.addSnapshotEntry(bid, BUY);
+        }
+        for (OrderItem ask : data.getAsks()) {
+            expected.addSnapshotEntry(ask, SELL);
+        }
+
+        testObject.load(LEVEL_3, book);
+
+        assertSameLadder(book.getBids(), expected.getBids());
+        assertSameLadder(book.getAsks(), expected.getAsks());
+        assertThat(book.getOrderCount()).isEqualTo(expected.getOrderCount());
+    }
+
+    @Test
+    public void shouldReadOrderCountsFromALevel2Snapshot() throws IOException {
+        testObject.load("{\"sequence\":\"12\",\"bids\":[[\"100.1\",\"2\",3],[\"99.9\",\"1\",\"1\"]],\"asks\":[]}", book);
+
+        assertThat(book.isLevel3()).isFalse();
+        assertThat(book.getOrderCount()).isZero();
+        assertThat(book.getBids().depth()).isEqualTo(2);
+        assertThat(book.getBids().orderCountAt(0)).isEqualTo(3);
+        assertThat(book.getBids().orderCountAt(1)).isEqualTo(1);
+        assertThat(book.getAsks().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldStillOrderTheLadderWhenRowsArriveOutOfOrder() throws IOException {
+        testObject.load("{\"sequence\":1,\"bids\":[],\"asks\":[[\"101\",\"1\",1],[\"100\",\"2\",1],[\"101\",\"0.5\",2]]}", book);
+
+        assertThat(book.getAsks().depth()).isEqualTo(2);
+        assertThat(book.getAsks().getPrice(0).toPlainString()).isEqualTo("100.00000");
+        assertThat(book.getAsks().getSize(1).toPlainString()).isEqualTo("1.50000000");
+        assertThat(book.getAsks().orderCountAt(1)).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldReplaceWhateverTheBookHeldBefore() throws IOException {
+        testObject.load(LEVEL_3, book);
+        testObject.load("{\"sequence\":3100,\"bids\":[[\"9000\",\"1\",\"new-order\"]],\"asks\":[]}", book);
+
+        assertThat(book.getSequence()).isEqualTo(3100L);
+        assertThat(book.getBids().depth()).isEqualTo(1);
+        assertThat(book.getAsks().isEmpty()).isTrue();
+        assertThat(book.getOrderCount()).isEqualTo(1);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectASnapshotWithoutASequence() throws IOException {
+        testObject.load("{\"bids\":[],\"asks\":[]}", book);
+    }
+
+    private void assertSameLadder(PriceLadder actual, PriceLadder expected) {
+        assertThat(actual.depth()).isEqualTo(expected.depth());
+        for (int level = 0; level < expected.depth(); level++) {
+            assertThat(actual.priceAt(level)).isEqualTo(expected.priceAt(level));
+            assertThat(actual.sizeAt(level)).isEqualTo(expected.sizeAt(level));
+            assertThat(actual.orderCountAt(level)).isEqualTo(expected.orderCountAt(level));
+        }
+    }
+}
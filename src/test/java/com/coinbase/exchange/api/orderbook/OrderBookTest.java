@@ -0,0 +1,132 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookTest {
+
+    private static final String ORDER_A = "ba071c21-440b-4b85-aa66-98ba2b5652d2";
+    private static final String ORDER_B = "37bf3d09-f503-4101-b281-fbec77e30c62";
+    private static final String ORDER_C = "7be4e21c-59f2-47b8-b034-5300a1dbc1d0";
+
+    OrderBook testObject;
+
+    @Before
+    public void setup() {
+        testObject = new OrderBook();
+        testObject.addSnapshotEntry(new OrderItem(Arrays.asList("9870.00", "0.5", ORDER_A)), BUY);
+        testObject.addSnapshotEntry(new OrderItem(Arrays.asList("9870.00", "0.25", ORDER_B)), BUY);
+        testObject.addSnapshotEntry(new OrderItem(Arrays.asList("9880.00", "1.0", ORDER_C)), SELL);
+        testObject.setSequence(100L);
+    }
+
+    @Test
+    public void shouldIndexEveryOrderFromALevel3Snapshot() {
+        assertThat(testObject.isLevel3()).isTrue();
+        assertThat(testObject.getOrderCount()).isEqualTo(3);
+        assertThat(testObject.getBids().depth()).isEqualTo(1);
+        assertThat(testObject.getBids().getSize(0).toPlainString()).isEqualTo("0.75000000");
+        assertThat(testObject.getBids().orderCountAt(0)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRemoveTheSizeTheBookHoldsForACanceledOrderRatherThanTheMessageSize() {
+        OrderBookMessage cancel = message(DONE, BUY, "9870.00", ORDER_A);
+        cancel.setReason(CANCELED);
+        cancel.setRemaining_size(new BigDecimal("0.016")); // stale/wrong - the book knows the order has 0.5 left
+
+        testObject.apply(cancel);
+
+        assertThat(testObject.containsOrder(ORDER_A)).isFalse();
+        assertThat(testObject.getBids().getSize(0).toPlainString()).isEqualTo("0.25000000");
+        assertThat(testObject.getBids().orderCountAt(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReduceTheMakerOrderOnAMatch() {
+        OrderBookMessage match = message(MATCH, BUY, "9870.00", null);
+        match.setMaker_order_id(ORDER_B);
+        match.setSize(new BigDecimal("0.1"));
+
+        testObject.apply(match);
+
+        assertThat(testObject.getRemainingSize(ORDER_B)).isEqualTo(15000000L);
+        assertThat(testObject.getBids().getSize(0).toPlainString()).isEqualTo("0.65000000");
+        assertThat(testObject.getBids().orderCountAt(0)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldTakeAFullyFilledMakerOffTheBookWithTheMatchAndIgnoreItsDone() {
+        OrderBookMessage match = message(MATCH, SELL, "9880.00", null);
+        match.setMaker_order_id(ORDER_C);
+        match.setSize(new BigDecimal("1.0"));
+        OrderBookMessage done = message(DONE, SELL, "9880.00", ORDER_C);
+        done.setReason(FILLED);
+        done.setRemaining_size(BigDecimal.ZERO);
+
+        testObject.apply(match);
+        testObject.apply(message(OPEN, SELL, "9880.00", "new-order", "0.3"));
+        testObject.apply(done);
+
+        assertThat(testObject.containsOrder(ORDER_C)).isFalse();
+        assertThat(testObject.getAsks().depth()).isEqualTo(1);
+        assertThat(testObject.getAsks().getSize(0).toPlainString()).isEqualTo("0.30000000");
+        assertThat(testObject.getAsks().orderCountAt(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldApplyChangesAgainstTheOrdersCurrentSize() {
+        OrderBookMessage change = message(CHANGE, BUY, "9870.00", ORDER_A);
+        change.setOld_size(new BigDecimal("0.9"));
+        change.setNew_size(new BigDecimal("0.2"));
+
+        testObject.apply(change);
+
+        assertThat(testObject.getRemainingSize(ORDER_A)).isEqualTo(20000000L);
+        assertThat(testObject.getBids().getSize(0).toPlainString()).isEqualTo("0.45000000");
+    }
+
+    @Test
+    public void shouldIgnoreDoneMessagesForOrdersThatNeverRested() {
+        OrderBookMessage done = message(DONE, BUY, "9870.00", "market-order");
+        done.setReason(CANCELED);
+        done.setRemaining_size(new BigDecimal("0.5"));
+
+        testObject.apply(done);
+
+        assertThat(testObject.getBids().getSize(0).toPlainString()).isEqualTo("0.75000000");
+        assertThat(testObject.getBids().orderCountAt(0)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldOpenNewOrdersAtNewLevels() {
+        testObject.apply(message(OPEN, BUY, "9875.10", "new-order", "0.88"));
+
+        assertThat(testObject.getBids().depth()).isEqualTo(2);
+        assertThat(testObject.getBids().getPrice(0).toPlainString()).isEqualTo("9875.10000");
+        assertThat(testObject.getRemainingSize("new-order")).isEqualTo(88000000L);
+    }
+
+    private OrderBookMessage message(String type, String side, String price, String orderId) {
+        OrderBookMessage message = new OrderBookMessage();
+        message.setType(type);
+        message.setSide(side);
+        message.setPrice(new BigDecimal(price));
+        message.setOrder_id(orderId);
+        return message;
+    }
+
+    private OrderBookMessage message(String type, String side, String price, String orderId, String remainingSize) {
+        OrderBookMessage message = message(type, side, price, orderId);
+        message.setRemaining_size(new BigDecimal(remainingSize));
+        return message;
+    }
+}
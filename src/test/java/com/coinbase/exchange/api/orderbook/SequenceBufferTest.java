@@ -0,0 +1,98 @@
+package com.coinbase.exchange.api.orderbook;
+
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessagePool;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SequenceBufferTest {
+
+    FeedMessagePool pool;
+    SequenceBuffer testObject;
+
+    @Before
+    public void setup() {
+        pool = new FeedMessagePool(16);
+        testObject = new SequenceBuffer(6);
+    }
+
+    @Test
+    public void shouldRoundCapacityUpToAPowerOfTwo() {
+        assertThat(testObject.capacity()).isEqualTo(8);
+        assertThat(new SequenceBuffer(8).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    public void shouldTakeMessagesBySequence() {
+        FeedMessage message = message(101);
+        testObject.put(message(102));
+        testObject.put(message);
+
+        assertThat(testObject.size()).isEqualTo(2);
+        assertThat(testObject.take(100)).isNull();
+        assertThat(testObject.take(101)).isSameAs(message);
+        assertThat(testObject.take(101)).isNull();
+        assertThat(testObject.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReplaceDuplicateSequences() {
+        FeedMessage first = message(5);
+        FeedMessage second = message(5);
+
+        assertThat(testObject.put(first)).isTrue();
+        assertThat(testObject.put(second)).isTrue();
+
+        assertThat(testObject.size()).isEqualTo(1);
+        assertThat(testObject.get(5)).isSameAs(second);
+    }
+
+    @Test
+    public void shouldEvictTheOlderMessageWhenTheSpanExceedsCapacity() {
+        testObject.put(message(1));
+
+        assertThat(testObject.put(message(9))).isFalse();
+        assertThat(testObject.get(1)).isNull();
+        assertThat(testObject.get(9)).isNotNull();
+
+        assertThat(testObject.put(message(1))).isFalse();
+        assertThat(testObject.get(9)).isNotNull();
+        assertThat(testObject.size()).isEqualTo(1);
+        assertThat(testObject.getEvicted()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDropMessagesOlderThanASequence() {
+        for (long sequence = 10; sequence < 16; sequence++) {
+            testObject.put(message(sequence));
+        }
+
+        assertThat(testObject.dropBefore(13)).isEqualTo(3);
+
+        assertThat(testObject.size()).isEqualTo(3);
+        assertThat(testObject.get(12)).isNull();
+        assertThat(testObject.get(13)).isNotNull();
+    }
+
+    @Test
+    public void shouldReleaseMessagesBackToThePoolWhenCleared() {
+        for (long sequence = 0; sequence < 4; sequence++) {
+            testObject.put(message(sequence));
+        }
+        testObject.clear();
+
+        assertThat(testObject.isEmpty()).isTrue();
+        for (long sequence = 0; sequence < 4; sequence++) {
+            pool.acquire();
+        }
+        assertThat(pool.getCreated()).isEqualTo(4);
+    }
+
+    private FeedMessage message(long sequence) {
+        FeedMessage message = pool.acquire();
+        message.setSequence(sequence);
+        return message;
+    }
+}
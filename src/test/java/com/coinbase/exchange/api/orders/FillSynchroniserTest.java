@@ -0,0 +1,182 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.entity.Fill;
+import com.coinbase.exchange.api.exchange.Page;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FillSynchroniserTest {
+
+    // every fill on the exchange, in any order
+    List<Fill> exchangeFills;
+    List<Long> cursorsRequested;
+    int newestPagesRequested;
+    boolean failRequests;
+    List<Integer> notified;
+    FillSynchroniser testObject;
+
+    @Before
+    public void setup() {
+        exchangeFills = new ArrayList<>();
+        cursorsRequested = new ArrayList<>();
+        notified = new ArrayList<>();
+        OrderService orderService = new OrderService(null) {
+            @Override
+            public Page<Fill> getFillsPage(String productId, String after) {
+                if (after == null) {
+                    newestPagesRequested++;
+                }
+                if (failRequests) {
+                    return null;
+                }
+                List<Fill> older = newestFirst(productId).stream()
+                        .filter(fill -> after == null || fill.getTrade_id() < Integer.parseInt(after))
+                        .collect(Collectors.toList());
+                List<Fill> page = older.subList(0, Math.min(PAGE_SIZE, older.size()));
+                return new Page<>(page, null,
+                        older.size() > PAGE_SIZE ? String.valueOf(page.get(page.size() - 1).getTrade_id()) : null);
+            }
+
+            @Override
+            public Page<Fill> getFillsAfterTrade(String productId, long tradeId) {
+                cursorsRequested.add(tradeId);
+                if (failRequests) {
+                    return null;
+                }
+                // the page of fills immediately newer than the cursor, newest first
+                List<Fill> newer = newestFirst(productId).stream()
+                        .filter(fill -> fill.getTrade_id() > tradeId)
+                        .collect(Collectors.toList());
+                return new Page<>(newer.subList(Math.max(0, newer.size() - PAGE_SIZE), newer.size()), null, null);
+            }
+        };
+        testObject = new FillSynchroniser(false, "BTC-GBP,ETH-GBP", 1000, orderService);
+        testObject.addFillListener(fill -> notified.add(fill.getTrade_id()));
+    }
+
+    @Test
+    public void shouldLoadTheHistoryOnceThenOnlyFetchNewerFills() {
+        fill(1, "a", "BTC-GBP");
+        fill(2, "a", "BTC-GBP");
+        fill(3, "b", "BTC-GBP");
+
+        assertThat(testObject.sync("BTC-GBP")).isEqualTo(3);
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(3L);
+        assertThat(notified).isEmpty();
+
+        assertThat(testObject.sync("BTC-GBP")).isZero();
+        fill(4, "b", "BTC-GBP");
+        fill(5, "c", "BTC-GBP");
+        assertThat(testObject.sync("BTC-GBP")).isEqualTo(2);
+
+        assertThat(newestPagesRequested).isEqualTo(1);
+        assertThat(cursorsRequested).containsExactly(3L, 3L);
+        assertThat(notified).containsExactly(4, 5);
+        assertThat(testObject.getFills("b")).extracting(Fill::getTrade_id).containsExactly(3, 4);
+        assertThat(testObject.getFillsForProduct("BTC-GBP")).extracting(Fill::getTrade_id).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void shouldPageForwardWhenThereAreMoreThanAPageOfNewFills() {
+        fill(1, "a", "BTC-GBP");
+        testObject.sync("BTC-GBP");
+        for (int tradeId = 2; tradeId <= OrderService.PAGE_SIZE + 11; tradeId++) {
+            fill(tradeId, "a", "BTC-GBP");
+        }
+
+        assertThat(testObject.sync("BTC-GBP")).isEqualTo(OrderService.PAGE_SIZE + 10);
+
+        assertThat(cursorsRequested).containsExactly(1L, (long) OrderService.PAGE_SIZE + 1);
+        assertThat(notified).hasSize(OrderService.PAGE_SIZE + 10);
+        assertThat(notified).isSorted();
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(OrderService.PAGE_SIZE + 11L);
+    }
+
+    @Test
+    public void shouldKeepEachProductsCursorAndCarryOnAfterAFailure() {
+        fill(7, "a", "BTC-GBP");
+        fill(3, "x", "ETH-GBP");
+        testObject.syncAll();
+        fill(8, "a", "BTC-GBP");
+        failRequests = true;
+
+        testObject.syncAll();
+
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(7L);
+        assertThat(testObject.getLastTradeId("ETH-GBP")).isEqualTo(3L);
+
+        failRequests = false;
+        testObject.syncAll();
+
+        assertThat(notified).containsExactly(8);
+        assertThat(testObject.getFills("x")).extracting(Fill::getProduct_id).containsExactly("ETH-GBP");
+    }
+
+    @Test
+    public void shouldLeaveAProductUnsyncedWhenTheNewestPageOfItsHistoryFails() {
+        fill(1, "a", "BTC-GBP");
+        fill(2, "a", "BTC-GBP");
+        failRequests = true;
+
+        assertThat(testObject.sync("BTC-GBP")).isZero();
+
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isNull();
+
+        failRequests = false;
+        testObject.sync("BTC-GBP");
+
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(2L);
+        assertThat(notified).isEmpty();
+        assertThat(cursorsRequested).isEmpty();
+    }
+
+    @Test
+    public void shouldWalkBackThroughEveryPageOfTheHistory() {
+        for (int tradeId = 1; tradeId <= OrderService.PAGE_SIZE * 2 + 5; tradeId++) {
+            fill(tradeId, "a", "BTC-GBP");
+        }
+
+        assertThat(testObject.sync("BTC-GBP")).isEqualTo(OrderService.PAGE_SIZE * 2 + 5);
+
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(OrderService.PAGE_SIZE * 2 + 5L);
+        assertThat(notified).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepBothSidesOfATradeBetweenTwoOfTheUsersOrders() {
+        testObject.sync("BTC-GBP");
+        fill(9, "maker", "BTC-GBP");
+        fill(9, "taker", "BTC-GBP");
+
+        assertThat(testObject.sync("BTC-GBP")).isEqualTo(2);
+
+        assertThat(testObject.getFills("maker")).hasSize(1);
+        assertThat(testObject.getFills("taker")).hasSize(1);
+        assertThat(testObject.getLastTradeId("BTC-GBP")).isEqualTo(9L);
+    }
+
+    private void fill(int tradeId, String orderId, String productId) {
+        Fill fill = new Fill();
+        fill.setTrade_id(tradeId);
+        fill.setOrder_id(orderId);
+        fill.setProduct_id(productId);
+        fill.setPrice(new BigDecimal("100"));
+        fill.setSize(new BigDecimal("0.1"));
+        exchangeFills.add(fill);
+    }
+
+    private List<Fill> newestFirst(String productId) {
+        return exchangeFills.stream()
+                .filter(fill -> fill.getProduct_id().equals(productId))
+                .sorted(Comparator.comparing(Fill::getTrade_id).reversed())
+                .collect(Collectors.toList());
+    }
+}
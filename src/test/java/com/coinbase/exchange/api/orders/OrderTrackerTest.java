@@ -0,0 +1,191 @@
+package com.coinbase.exchange.api.orders;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.CANCELED;
+import static com.coinbase.exchange.api.constants.GdaxConstants.FILLED;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class OrderTrackerTest {
+
+    List<Order> openOrders;
+    Map<String, Order> ordersById;
+    List<String> lookedUp;
+    Set<String> rateLimited;
+    List<String> updates;
+    OrderTracker testObject;
+
+    @Before
+    public void setup() {
+        openOrders = new ArrayList<>();
+        ordersById = new HashMap<>();
+        lookedUp = new ArrayList<>();
+        rateLimited = new HashSet<>();
+        updates = new ArrayList<>();
+        OrderService orderService = new OrderService(null) {
+            @Override
+            public List<Order> getOpenOrders() {
+                return new ArrayList<>(openOrders);
+            }
+
+            @Override
+            public Order findOrder(String orderId) {
+                lookedUp.add(orderId);
+                if (rateLimited.contains(orderId)) {
+                    throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS);
+                }
+                return ordersById.get(orderId);
+            }
+        };
+        testObject = new OrderTracker(false, "BTC-GBP", null, orderService);
+        testObject.addOrderListener((previous, order) ->
+                updates.add((previous == null ? "new" : previous.getState()) + "->" + order.getState()));
+    }
+
+    @Test
+    public void shouldMoveAnOrderFromReceivedThroughPartiallyFilledToDone() {
+        frame("{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"order_type\":\"limit\",\"price\":\"100.00\",\"size\":\"2.0\",\"sequence\":10,\"user_id\":\"u\"}");
+        frame("{\"type\":\"open\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"price\":\"100.00\",\"remaining_size\":\"2.0\",\"sequence\":11,\"user_id\":\"u\"}");
+
+        TrackedOrder open = testObject.getOrder("a");
+        assertThat(open.getState()).isEqualTo(OrderState.OPEN);
+        assertThat(open.isBuy()).isTrue();
+        assertThat(open.getSize()).isEqualTo(size("2"));
+
+        frame("{\"type\":\"match\",\"maker_order_id\":\"a\",\"taker_order_id\":\"z\",\"product_id\":\"BTC-GBP\","
+                + "\"side\":\"buy\",\"price\":\"100.00\",\"size\":\"0.5\",\"trade_id\":1,\"sequence\":12,\"user_id\":\"u\"}");
+
+        TrackedOrder partial = testObject.getOrder("a");
+        assertThat(partial.getState()).isEqualTo(OrderState.PARTIALLY_FILLED);
+        assertThat(partial.getFilledSize()).isEqualTo(size("0.5"));
+        assertThat(partial.getRemainingSize()).isEqualTo(size("1.5"));
+        // what was handed out before doesn't change
+        assertThat(open.getState()).isEqualTo(OrderState.OPEN);
+
+        frame("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"reason\":\"canceled\",\"remaining_size\":\"1.5\",\"sequence\":13,\"user_id\":\"u\"}");
+
+        assertThat(testObject.getOrder("a")).isNull();
+        assertThat(testObject.getOpenOrders()).isEmpty();
+        assertThat(updates).containsExactly("new->RECEIVED", "RECEIVED->OPEN", "OPEN->PARTIALLY_FILLED",
+                "PARTIALLY_FILLED->DONE");
+    }
+
+    @Test
+    public void shouldSkipMessagesSeenOnBothChannels() {
+        String received = "{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"sell\","
+                + "\"price\":\"100.00\",\"size\":\"1.0\",\"sequence\":10,\"user_id\":\"u\"}";
+        String match = "{\"type\":\"match\",\"maker_order_id\":\"m\",\"taker_order_id\":\"a\",\"product_id\":\"BTC-GBP\","
+                + "\"side\":\"buy\",\"price\":\"100.00\",\"size\":\"0.25\",\"sequence\":11,\"user_id\":\"u\"}";
+        frame(received);
+        frame(match);
+        frame(received);
+        frame(match);
+
+        assertThat(testObject.getOrder("a").getFilledSize()).isEqualTo(size("0.25"));
+        assertThat(testObject.getDuplicatesSkipped()).isEqualTo(2);
+        // the maker was someone else's order
+        assertThat(testObject.getOrder("m")).isNull();
+    }
+
+    @Test
+    public void shouldNotBringBackAnOrderTheFeedHasFinished() {
+        frame("{\"type\":\"received\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"side\":\"buy\","
+                + "\"price\":\"100.00\",\"size\":\"1.0\",\"sequence\":10}");
+        frame("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"reason\":\"filled\","
+                + "\"remaining_size\":\"0\",\"sequence\":12}");
+        openOrders.add(order("a", "open", "0"));
+
+        testObject.reconcile();
+
+        assertThat(testObject.getOrder("a")).isNull();
+    }
+
+    @Test
+    public void shouldLoadOpenOrdersAndReconcileThoseThatFinishedWhilstDisconnected() {
+        openOrders.add(order("a", "open", "0"));
+        openOrders.add(order("b", "open", "0.4"));
+        openOrders.add(order("c", "pending", "0"));
+        testObject.start();
+
+        assertThat(testObject.getOrder("a").getState()).isEqualTo(OrderState.OPEN);
+        assertThat(testObject.getOrder("b").getState()).isEqualTo(OrderState.PARTIALLY_FILLED);
+        assertThat(testObject.getOrder("b").getRemainingSize()).isEqualTo(size("0.6"));
+        assertThat(testObject.getOrder("c").getState()).isEqualTo(OrderState.RECEIVED);
+        assertThat(lookedUp).isEmpty();
+
+        // whilst disconnected: a filled, b was canceled outright, c opened
+        openOrders.clear();
+        openOrders.add(order("c", "open", "0"));
+        ordersById.put("a", order("a", "done", "1"));
+        List<TrackedOrder> finished = new ArrayList<>();
+        testObject.addOrderListener((previous, order) -> {
+            if (order.getState().isDone()) {
+                finished.add(order);
+            }
+        });
+
+        testObject.reconcile();
+
+        assertThat(lookedUp).containsExactlyInAnyOrder("a", "b");
+        assertThat(finished).extracting(TrackedOrder::getOrderId, TrackedOrder::getDoneReason)
+                .containsExactlyInAnyOrder(tuple("a", FILLED), tuple("b", CANCELED));
+        assertThat(testObject.getOpenOrders()).extracting(TrackedOrder::getOrderId).containsExactly("c");
+        assertThat(testObject.getOrder("c").getState()).isEqualTo(OrderState.OPEN);
+    }
+
+    @Test
+    public void shouldLeaveAnOrderThatCouldNotBeLookedUpUntilTheNextReconcile() {
+        openOrders.add(order("a", "open", "0"));
+        testObject.start();
+        openOrders.clear();
+        rateLimited.add("a");
+
+        testObject.reconcile();
+
+        assertThat(lookedUp).containsExactly("a");
+        assertThat(testObject.getOrder("a").getState()).isEqualTo(OrderState.OPEN);
+
+        // still tracked, so the feed's messages for it are applied
+        frame("{\"type\":\"done\",\"order_id\":\"a\",\"product_id\":\"BTC-GBP\",\"reason\":\"filled\","
+                + "\"remaining_size\":\"0\",\"sequence\":12}");
+
+        assertThat(updates).endsWith("OPEN->DONE");
+    }
+
+    private void frame(String json) {
+        testObject.handleMessage(json);
+    }
+
+    private static Order order(String id, String status, String filledSize) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProduct_id("BTC-GBP");
+        order.setSide("buy");
+        order.setType("limit");
+        order.setPrice("100.00");
+        order.setSize("1.0");
+        order.setFilled_size(filledSize);
+        order.setStatus(status);
+        return order;
+    }
+
+    private static long size(String size) {
+        return FixedPoint.parse(size, SIZE_DECIMAL_PLACES);
+    }
+}
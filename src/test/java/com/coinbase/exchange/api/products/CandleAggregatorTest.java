@@ -0,0 +1,136 @@
+package com.coinbase.exchange.api.products;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.MATCH;
+import static com.coinbase.exchange.api.constants.GdaxConstants.OPEN;
+import static com.coinbase.exchange.api.constants.GdaxConstants.PRICE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.constants.GdaxConstants.SIZE_DECIMAL_PLACES;
+import static com.coinbase.exchange.api.products.CandleGranularity.FIVE_MINUTES;
+import static com.coinbase.exchange.api.products.CandleGranularity.ONE_MINUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CandleAggregatorTest {
+
+    static final long MINUTE = 60_000_000L;
+    static final long T0 = 1_500_000_000L - 1_500_000_000L % 300;
+
+    List<String> events;
+    long tradeId;
+    CandleAggregator testObject;
+
+    @Before
+    public void setup() {
+        events = new ArrayList<>();
+        testObject = new CandleAggregator("BTC-GBP", ONE_MINUTE, FIVE_MINUTES);
+        testObject.addListener((granularity, candle, closed) ->
+                events.add(granularity.getSeconds() + ":" + (candle.getStart() - T0) + (closed ? " closed" : "")));
+    }
+
+    @Test
+    public void shouldBuildOpenHighLowCloseAndVolumeFromTrades() {
+        trade(micros(0) + 1, "100", "1");
+        trade(micros(0) + 2, "105.5", "0.5");
+        trade(micros(0) + 3, "98", "0.25");
+        trade(micros(0) + 4, "101", "2");
+
+        LiveCandle candle = testObject.getCurrent(ONE_MINUTE);
+        assertThat(candle.isOpen()).isTrue();
+        assertThat(candle.getStart()).isEqualTo(T0);
+        assertThat(candle.getOpen()).isEqualTo(100);
+        assertThat(candle.getHigh()).isEqualTo(105.5);
+        assertThat(candle.getLow()).isEqualTo(98);
+        assertThat(candle.getClose()).isEqualTo(101);
+        assertThat(candle.getVolumeAsDouble()).isEqualTo(3.75);
+        assertThat(candle.getTrades()).isEqualTo(4);
+        assertThat(testObject.getTradesAggregated()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldCloseACandleWhenATradeLandsInALaterInterval() {
+        trade(micros(0), "100", "1");
+        trade(micros(1) + 5, "110", "1");
+        trade(micros(7), "120", "1");
+
+        assertThat(events).containsExactly(
+                "60:0", "300:0",
+                "60:0 closed", "60:60", "300:0",
+                "60:60 closed", "60:420", "300:0 closed", "300:300");
+        CandleSeries minutes = testObject.getHistory(ONE_MINUTE);
+        assertThat(minutes.getTimes()).containsExactly(T0, T0 + 60);
+        assertThat(minutes.getCloses()).containsExactly(100, 110);
+        CandleSeries fiveMinutes = testObject.getHistory(FIVE_MINUTES);
+        assertThat(fiveMinutes.getTimes()).containsExactly(T0);
+        assertThat(fiveMinutes.getHighs()).containsExactly(110);
+        assertThat(fiveMinutes.getVolumes()).containsExactly(2);
+        assertThat(testObject.getCurrent(FIVE_MINUTES).getOpen()).isEqualTo(120);
+    }
+
+    @Test
+    public void shouldIgnoreRepeatedLateAndOtherTrades() {
+        trade(micros(2), "100", "1");
+        long firstTradeId = tradeId;
+        FeedMessage repeat = match(micros(2), "999", "1");
+        repeat.setTradeId(firstTradeId);
+        testObject.onMatch(repeat);
+        trade(micros(1), "50", "1");
+        FeedMessage otherProduct = match(micros(2), "999", "1");
+        otherProduct.setProductId("BTC-EUR");
+        testObject.onMatch(otherProduct);
+        FeedMessage open = match(micros(2), "999", "1");
+        open.setType(OPEN);
+        testObject.onMatch(open);
+
+        LiveCandle candle = testObject.getCurrent(ONE_MINUTE);
+        assertThat(candle.getHigh()).isEqualTo(100);
+        assertThat(candle.getLow()).isEqualTo(100);
+        assertThat(candle.getVolumeAsDouble()).isEqualTo(1);
+        assertThat(testObject.getLateTrades()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCarryOnFromBackfilledCandles() {
+        CandleSeries downloaded = new CandleSeries(ONE_MINUTE, 3);
+        downloaded.add(T0, 90, 95, 85, 92, 10);
+        downloaded.add(T0 + 60, 92, 99, 91, 98, 5);
+        downloaded.add(T0 + 120, 98, 100, 97, 99, 1);
+
+        testObject.backfill(downloaded, Instant.ofEpochSecond(T0 + 150));
+        trade(micros(2) + 20_000_000L, "80", "1");
+        trade(micros(2) + 40_000_000L, "101", "0.5");
+        trade(micros(3), "102", "1");
+
+        assertThat(testObject.getHistory(ONE_MINUTE).getTimes()).containsExactly(T0, T0 + 60, T0 + 120);
+        assertThat(testObject.getHistory(ONE_MINUTE).getOpens()).containsExactly(90, 92, 98);
+        assertThat(testObject.getHistory(ONE_MINUTE).getHighs()).containsExactly(95, 99, 101);
+        assertThat(testObject.getHistory(ONE_MINUTE).getLows()).containsExactly(85, 91, 97);
+        assertThat(testObject.getHistory(ONE_MINUTE).getVolumes()).containsExactly(10, 5, 1.5);
+        assertThat(testObject.getCurrent(ONE_MINUTE).getStart()).isEqualTo(T0 + 180);
+    }
+
+    private void trade(long timeMicros, String price, String size) {
+        testObject.onMatch(match(timeMicros, price, size));
+    }
+
+    private FeedMessage match(long timeMicros, String price, String size) {
+        FeedMessage message = new FeedMessage();
+        message.setType(MATCH);
+        message.setProductId("BTC-GBP");
+        message.setTradeId(++tradeId);
+        message.setTimeMicros(timeMicros);
+        message.setPrice(FixedPoint.parse(price, PRICE_DECIMAL_PLACES));
+        message.setSize(FixedPoint.parse(size, SIZE_DECIMAL_PLACES));
+        return message;
+    }
+
+    private static long micros(int minutes) {
+        return T0 * 1_000_000L + minutes * MINUTE;
+    }
+}
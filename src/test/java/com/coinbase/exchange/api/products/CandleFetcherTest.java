@@ -0,0 +1,199 @@
+package com.coinbase.exchange.api.products;
+
+import com.coinbase.exchange.api.exchange.GdaxExchangeImpl;
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.exchange.RateLimiter;
+import com.coinbase.exchange.api.exchange.ResponseCache;
+import com.coinbase.exchange.api.exchange.Signature;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CandleFetcherTest {
+
+    static final long START = 1_500_000_000L - 1_500_000_000L % 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    HttpServer server;
+    List<String> queries;
+    Map<Long, Boolean> failingChunks;
+    GdaxExchangeImpl exchange;
+    JsonCodec jsonCodec;
+    CandleFetcher testObject;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        queries = Collections.synchronizedList(new ArrayList<>());
+        failingChunks = new ConcurrentHashMap<>();
+        // a minute candle for every minute asked for, newest first, with the price rising a unit a minute
+        server.createContext("/products/BTC-GBP/candles", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            long start = Instant.parse(param(query, "start")).getEpochSecond();
+            long end = Instant.parse(param(query, "end")).getEpochSecond();
+            if (failingChunks.containsKey(start)) {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+                return;
+            }
+            StringBuilder body = new StringBuilder("[");
+            for (long time = end; time >= start; time -= 60) {
+                long price = (time - START) / 60;
+                body.append(body.length() > 1 ? "," : "")
+                        .append('[').append(time).append(',').append(price - 1).append(',').append(price + 1)
+                        .append(',').append(price).append(',').append(price + 0.5).append(",1.25]");
+            }
+            byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        jsonCodec = new JsonCodec();
+        exchange = new GdaxExchangeImpl("key", "passphrase",
+                "http://localhost:" + server.getAddress().getPort(), new Signature("MTIzNDU2Nzg5MA=="),
+                new RestTemplate(), new RateLimiter(), new ResponseCache(), jsonCodec);
+        testObject = new CandleFetcher(exchange, jsonCodec, new CandleStore(), 4);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldSplitTheRangeIntoChunksAndJoinThemInOrder() {
+        CandleSeries series = testObject.fetch("BTC-GBP", Instant.ofEpochSecond(START),
+                Instant.ofEpochSecond(START + 700 * 60), CandleGranularity.ONE_MINUTE);
+
+        assertThat(queries).hasSize(3);
+        assertThat(queries).allMatch(query -> query.endsWith("granularity=60"));
+        assertThat(series.size()).isEqualTo(700);
+        assertThat(series.getGranularity()).isEqualTo(CandleGranularity.ONE_MINUTE);
+        for (int i = 0; i < series.size(); i++) {
+            assertThat(series.timeAt(i)).isEqualTo(START + i * 60);
+            assertThat(series.openAt(i)).isEqualTo(i);
+        }
+        assertThat(series.lowAt(699)).isEqualTo(698);
+        assertThat(series.highAt(699)).isEqualTo(700);
+        assertThat(series.closeAt(699)).isEqualTo(699.5);
+        assertThat(series.volumeAt(699)).isEqualTo(1.25);
+    }
+
+    @Test
+    public void shouldLeaveAGapForAChunkThatFails() {
+        failingChunks.put(START + 300 * 60, true);
+
+        CandleSeries series = testObject.fetch("BTC-GBP", Instant.ofEpochSecond(START),
+                Instant.ofEpochSecond(START + 700 * 60), CandleGranularity.ONE_MINUTE);
+
+        assertThat(series.size()).isEqualTo(400);
+        assertThat(series.timeAt(299)).isEqualTo(START + 299 * 60);
+        assertThat(series.timeAt(300)).isEqualTo(START + 600 * 60);
+    }
+
+    @Test
+    public void shouldReadCandlesInEitherOrder() throws IOException {
+        String newestFirst = "[[120,1,4,2,3,10],[60,5,8,6,7,20]]";
+        String oldestFirst = "[[60,5,8,6,7,20],[120,1,4,2,3,10]]";
+
+        for (String body : new String[]{newestFirst, oldestFirst}) {
+            CandleSeries series = testObject.parse(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), CandleGranularity.ONE_MINUTE);
+            assertThat(series.getTimes()).containsExactly(60L, 120L);
+            assertThat(series.getOpens()).containsExactly(6, 2);
+            assertThat(series.getHighs()).containsExactly(8, 4);
+            assertThat(series.getLows()).containsExactly(5, 1);
+            assertThat(series.getCloses()).containsExactly(7, 3);
+            assertThat(series.getVolumes()).containsExactly(20, 10);
+        }
+    }
+
+    @Test
+    public void shouldIgnoreCandlesThatArentLaterThanTheLast() {
+        CandleSeries series = new CandleSeries(CandleGranularity.ONE_MINUTE, 1);
+
+        assertThat(series.add(60, 1, 1, 1, 1, 1)).isTrue();
+        assertThat(series.add(60, 2, 2, 2, 2, 2)).isFalse();
+        assertThat(series.add(120, 3, 3, 3, 3, 3)).isTrue();
+
+        assertThat(series.size()).isEqualTo(2);
+        assertThat(series.indexOf(120)).isEqualTo(1);
+        assertThat(series.indexOf(90)).isLessThan(0);
+    }
+
+    @Test
+    public void shouldOnlyDownloadWhatTheStoreIsMissing() throws IOException {
+        CandleStore candleStore = new CandleStore(true, folder.newFolder("candles").getPath());
+        CandleFetcher fetcher = new CandleFetcher(exchange, jsonCodec, candleStore, 4);
+        fetcher.fetch("BTC-GBP", Instant.ofEpochSecond(START + 300 * 60),
+                Instant.ofEpochSecond(START + 600 * 60), CandleGranularity.ONE_MINUTE);
+        queries.clear();
+
+        CandleSeries series = fetcher.fetch("BTC-GBP", Instant.ofEpochSecond(START),
+                Instant.ofEpochSecond(START + 700 * 60), CandleGranularity.ONE_MINUTE);
+
+        assertThat(queries).hasSize(2);
+        assertThat(queries).noneMatch(query -> query.contains("start=" + Instant.ofEpochSecond(START + 300 * 60)));
+        assertThat(series.size()).isEqualTo(700);
+        for (int i = 0; i < series.size(); i++) {
+            assertThat(series.timeAt(i)).isEqualTo(START + i * 60);
+        }
+
+        queries.clear();
+        assertThat(fetcher.fetch("BTC-GBP", Instant.ofEpochSecond(START), Instant.ofEpochSecond(START + 700 * 60),
+                CandleGranularity.ONE_MINUTE).size()).isEqualTo(700);
+        assertThat(queries).isEmpty();
+        candleStore.close();
+    }
+
+    @Test
+    public void shouldDownloadAFailedChunkAgain() throws IOException {
+        CandleStore candleStore = new CandleStore(true, folder.newFolder("candles").getPath());
+        CandleFetcher fetcher = new CandleFetcher(exchange, jsonCodec, candleStore, 4);
+        failingChunks.put(START, true);
+        fetcher.fetch("BTC-GBP", Instant.ofEpochSecond(START), Instant.ofEpochSecond(START + 600 * 60),
+                CandleGranularity.ONE_MINUTE);
+        failingChunks.clear();
+        queries.clear();
+
+        CandleSeries series = fetcher.fetch("BTC-GBP", Instant.ofEpochSecond(START),
+                Instant.ofEpochSecond(START + 600 * 60), CandleGranularity.ONE_MINUTE);
+
+        assertThat(queries).hasSize(1);
+        assertThat(series.size()).isEqualTo(600);
+        candleStore.close();
+    }
+
+    private static String param(String query, String name) {
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+}
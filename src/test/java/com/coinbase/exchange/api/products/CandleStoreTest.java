@@ -0,0 +1,142 @@
+package com.coinbase.exchange.api.products;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.coinbase.exchange.api.products.CandleGranularity.ONE_MINUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CandleStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path directory;
+    CandleStore testObject;
+
+    @Before
+    public void setup() {
+        directory = folder.getRoot().toPath().resolve("candles");
+        testObject = new CandleStore(true, directory.toString());
+    }
+
+    @After
+    public void tearDown() {
+        testObject.close();
+    }
+
+    @Test
+    public void shouldReadBackWhatWasWritten() {
+        assertThat(testObject.write("BTC-GBP", ONE_MINUTE, 0, 600, minutes(0, 600))).isTrue();
+
+        CandleSeries candles = testObject.read("BTC-GBP", ONE_MINUTE, 120, 360);
+
+        assertThat(candles.getTimes()).containsExactly(120L, 180L, 240L, 300L);
+        assertThat(candles.getOpens()).containsExactly(2, 3, 4, 5);
+        assertThat(candles.getHighs()).containsExactly(3, 4, 5, 6);
+        assertThat(candles.getLows()).containsExactly(1, 2, 3, 4);
+        assertThat(candles.getCloses()).containsExactly(2.5, 3.5, 4.5, 5.5);
+        assertThat(candles.getVolumes()).containsExactly(10, 10, 10, 10);
+    }
+
+    @Test
+    public void shouldOnlyReportTheRangesNotYetWritten() {
+        testObject.write("BTC-GBP", ONE_MINUTE, 600, 1200, minutes(600, 1200));
+        // an hour with no trades has no candles but still counts as downloaded
+        testObject.write("BTC-GBP", ONE_MINUTE, 1800, 2400, new CandleSeries(ONE_MINUTE, 0));
+
+        List<long[]> missing = testObject.missing("BTC-GBP", ONE_MINUTE, 0, 3000);
+
+        assertThat(missing).containsExactly(new long[]{0, 600}, new long[]{1200, 1800}, new long[]{2400, 3000});
+        assertThat(testObject.missing("BTC-GBP", ONE_MINUTE, 600, 1200)).isEmpty();
+        assertThat(testObject.missing("BTC-ETH", ONE_MINUTE, 600, 1200)).containsExactly(new long[]{600, 1200});
+    }
+
+    @Test
+    public void shouldMergeRangesWrittenOutOfOrder() {
+        testObject.write("BTC-GBP", ONE_MINUTE, 1200, 1800, minutes(1200, 1800));
+        testObject.write("BTC-GBP", ONE_MINUTE, 0, 600, minutes(0, 600));
+        testObject.write("BTC-GBP", ONE_MINUTE, 600, 1200, minutes(600, 1200));
+
+        CandleSeries candles = testObject.read("BTC-GBP", ONE_MINUTE, 0, 1800);
+
+        assertThat(candles.size()).isEqualTo(30);
+        for (int i = 0; i < candles.size(); i++) {
+            assertThat(candles.timeAt(i)).isEqualTo(i * 60L);
+            assertThat(candles.openAt(i)).isEqualTo(i);
+        }
+        assertThat(testObject.missing("BTC-GBP", ONE_MINUTE, 0, 1800)).isEmpty();
+    }
+
+    @Test
+    public void shouldReplaceTheCandlesInARangeWrittenAgain() {
+        testObject.write("BTC-GBP", ONE_MINUTE, 0, 600, minutes(0, 600));
+        CandleSeries sparse = new CandleSeries(ONE_MINUTE, 1);
+        sparse.add(240, 100, 100, 100, 100, 1);
+
+        testObject.write("BTC-GBP", ONE_MINUTE, 120, 360, sparse);
+
+        CandleSeries candles = testObject.read("BTC-GBP", ONE_MINUTE, 0, 600);
+        assertThat(candles.getTimes()).containsExactly(0L, 60L, 240L, 360L, 420L, 480L, 540L);
+        assertThat(candles.openAt(2)).isEqualTo(100);
+        assertThat(candles.openAt(3)).isEqualTo(6);
+    }
+
+    @Test
+    public void shouldGrowPastItsInitialCapacity() {
+        long candles = CandleFile.INITIAL_CAPACITY * 3;
+        long end = candles * 60;
+        // the second half first, so growing has to move what's already held
+        testObject.write("BTC-GBP", ONE_MINUTE, end / 2, end, minutes(end / 2, end));
+        testObject.write("BTC-GBP", ONE_MINUTE, 0, end / 2, minutes(0, end / 2));
+
+        CandleSeries read = testObject.read("BTC-GBP", ONE_MINUTE, 0, end);
+
+        assertThat(read.size()).isEqualTo((int) candles);
+        for (int i = 0; i < read.size(); i++) {
+            assertThat(read.timeAt(i)).isEqualTo(i * 60L);
+            assertThat(read.volumeAt(i)).isEqualTo(10);
+        }
+    }
+
+    @Test
+    public void shouldKeepItsCandlesBetweenSessions() throws Exception {
+        testObject.write("BTC-GBP", ONE_MINUTE, 0, 600, minutes(0, 600));
+        testObject.close();
+
+        CandleStore reopened = new CandleStore(true, directory.toString());
+
+        assertThat(reopened.missing("BTC-GBP", ONE_MINUTE, 0, 600)).isEmpty();
+        assertThat(reopened.read("BTC-GBP", ONE_MINUTE, 0, 600).getOpens()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(Files.exists(directory.resolve("BTC-GBP-60.candles"))).isTrue();
+        reopened.close();
+    }
+
+    @Test
+    public void shouldHoldNothingWhenDisabled() {
+        CandleStore disabled = new CandleStore();
+
+        assertThat(disabled.write("BTC-GBP", ONE_MINUTE, 0, 600, minutes(0, 600))).isFalse();
+        assertThat(disabled.missing("BTC-GBP", ONE_MINUTE, 0, 600)).containsExactly(new long[]{0, 600});
+        assertThat(disabled.read("BTC-GBP", ONE_MINUTE, 0, 600).isEmpty()).isTrue();
+    }
+
+    /**
+     * a candle a minute from start to end, opening at its minute number.
+     */
+    static CandleSeries minutes(long start, long end) {
+        CandleSeries series = new CandleSeries(ONE_MINUTE, (int) ((end - start) / 60));
+        for (long time = start; time < end; time += 60) {
+            double open = time / 60;
+            series.add(time, open, open + 1, open - 1, open + 0.5, 10);
+        }
+        return series;
+    }
+}
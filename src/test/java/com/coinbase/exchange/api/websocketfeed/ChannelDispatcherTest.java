@@ -0,0 +1,156 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.websocketfeed.message.ErrorOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.Level2UpdateMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderDoneOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderMatchOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderOpenOrderBookMessage;
+import com.coinbase.exchange.api.websocketfeed.message.TickerMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChannelDispatcherTest {
+
+    static final String TICKER = "{\"type\":\"ticker\",\"trade_id\":20,\"sequence\":50,\"product_id\":\"BTC-GBP\","
+            + "\"price\":\"100.5\",\"side\":\"buy\",\"last_size\":\"0.1\",\"best_bid\":\"100.4\",\"best_ask\":\"100.5\"}";
+    static final String MATCH = "{\"type\":\"match\",\"trade_id\":20,\"sequence\":50,\"product_id\":\"BTC-GBP\","
+            + "\"maker_order_id\":\"m\",\"taker_order_id\":\"t\",\"price\":\"100.5\",\"size\":\"0.1\",\"side\":\"sell\"}";
+
+    List<String> received;
+    ChannelDispatcher testObject;
+
+    @Before
+    public void setup() {
+        received = new ArrayList<>();
+        testObject = new ChannelDispatcher(new JsonCodec());
+    }
+
+    @Test
+    public void shouldFindTheTypeWithoutParsingTheFrame() {
+        assertThat(ChannelDispatcher.typeOf(TICKER)).isSameAs("ticker");
+        assertThat(ChannelDispatcher.typeOf("{ \"type\" : \"last_match\" }")).isEqualTo("last_match");
+        assertThat(ChannelDispatcher.typeOf("{\"order_type\":\"limit\",\"type\":\"open\"}")).isEqualTo("open");
+        assertThat(ChannelDispatcher.typeOf("{\"type\":\"matches\"}")).isNull();
+        assertThat(ChannelDispatcher.typeOf("{\"product_id\":\"BTC-GBP\"}")).isNull();
+    }
+
+    @Test
+    public void shouldOnlyWantTheTypesTheSubscribedChannelsCarry() {
+        assertThat(testObject.wants("ticker")).isFalse();
+
+        testObject.addListener(Channel.TICKER, Collections.singletonList("BTC-GBP"), new ChannelListener() { });
+
+        assertThat(testObject.wants("ticker")).isTrue();
+        assertThat(testObject.wants("error")).isTrue();
+        assertThat(testObject.wants("match")).isFalse();
+        assertThat(testObject.wants("subscriptions")).isFalse();
+        assertThat(testObject.wants(null)).isFalse();
+    }
+
+    @Test
+    public void shouldPassEachChannelsListenerItsOwnTypedMessages() {
+        List<TickerMessage> tickers = new ArrayList<>();
+        testObject.addListener(Channel.TICKER, Collections.singletonList("BTC-GBP"), new ChannelListener() {
+            @Override
+            public void onTicker(TickerMessage ticker) {
+                tickers.add(ticker);
+            }
+
+            @Override
+            public void onMatch(OrderMatchOrderBookMessage match) {
+                received.add("ticker listener got a match");
+            }
+        });
+        testObject.addListener(Channel.LEVEL2, Collections.singletonList("BTC-GBP"), new ChannelListener() {
+            @Override
+            public void onLevel2Update(Level2UpdateMessage update) {
+                received.add(update.getChanges()[0][0] + " " + update.getChanges()[0][1]);
+            }
+        });
+
+        testObject.handleMessage(TICKER);
+        testObject.handleMessage(TICKER.replace("BTC-GBP", "ETH-GBP"));
+        testObject.handleMessage(MATCH);
+        testObject.handleMessage("{\"type\":\"l2update\",\"product_id\":\"BTC-GBP\",\"changes\":[[\"buy\",\"100.4\",\"2\"]]}");
+
+        assertThat(tickers).hasSize(1);
+        assertThat(tickers.get(0).getBest_bid()).isEqualByComparingTo(new BigDecimal("100.4"));
+        assertThat(tickers.get(0).getPrice()).isEqualByComparingTo(new BigDecimal("100.5"));
+        assertThat(tickers.get(0).getProduct_id()).isEqualTo("BTC-GBP");
+        assertThat(received).containsExactly("buy 100.4");
+    }
+
+    @Test
+    public void shouldPassAMatchOnOnceWhenItArrivesOnMoreThanOneChannel() {
+        List<String> products = Arrays.asList("BTC-GBP");
+        testObject.addListener(Channel.MATCHES, products, new ChannelListener() {
+            @Override
+            public void onMatch(OrderMatchOrderBookMessage match) {
+                received.add("matches " + match.getSequence());
+            }
+        });
+        testObject.addListener(Channel.FULL, products, new ChannelListener() {
+            @Override
+            public void onMatch(OrderMatchOrderBookMessage match) {
+                received.add("full " + match.getSequence());
+            }
+
+            @Override
+            public void onOpen(OrderOpenOrderBookMessage open) {
+                received.add("full open " + open.getSequence());
+            }
+        });
+
+        testObject.handleMessage(MATCH);
+        testObject.handleMessage(MATCH);
+        testObject.handleMessage("{\"type\":\"open\",\"sequence\":51,\"product_id\":\"BTC-GBP\",\"order_id\":\"o\"}");
+        testObject.handleMessage(MATCH.replace("50", "49"));
+
+        assertThat(received).containsExactly("matches 50", "full 50", "full open 51", "matches 49", "full 49");
+    }
+
+    @Test
+    public void shouldOnlyPassTheUserChannelMessagesAboutTheUsersOrders() {
+        testObject.addListener(Channel.USER, Collections.singletonList("BTC-GBP"), new ChannelListener() {
+            @Override
+            public void onDone(OrderDoneOrderBookMessage done) {
+                received.add(done.getOrder_id() + " " + done.getReason());
+            }
+        });
+
+        testObject.handleMessage("{\"type\":\"done\",\"sequence\":60,\"product_id\":\"BTC-GBP\",\"order_id\":\"other\",\"reason\":\"filled\"}");
+        testObject.handleMessage("{\"type\":\"done\",\"sequence\":61,\"product_id\":\"BTC-GBP\",\"order_id\":\"mine\","
+                + "\"reason\":\"canceled\",\"user_id\":\"u\"}");
+
+        assertThat(received).containsExactly("mine canceled");
+    }
+
+    @Test
+    public void shouldPassErrorsToEveryListenerAndCarryOnWhenOneFails() {
+        testObject.addListener(Channel.HEARTBEAT, Collections.singletonList("BTC-GBP"), new ChannelListener() {
+            @Override
+            public void onError(ErrorOrderBookMessage error) {
+                throw new IllegalStateException("listener bug");
+            }
+        });
+        testObject.addListener(Channel.TICKER, Collections.singletonList("ETH-GBP"), new ChannelListener() {
+            @Override
+            public void onError(ErrorOrderBookMessage error) {
+                received.add(error.getMessage());
+            }
+        });
+
+        testObject.handleMessage("{\"type\":\"error\",\"message\":\"Failed to subscribe\"}");
+
+        assertThat(received).containsExactly("Failed to subscribe");
+    }
+}
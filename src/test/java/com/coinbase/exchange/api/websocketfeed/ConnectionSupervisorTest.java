@@ -0,0 +1,116 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionSupervisorTest {
+
+    // how many connection attempts should fail before one succeeds
+    AtomicInteger failuresLeft;
+    AtomicInteger connects;
+    AtomicInteger resubscribes;
+    List<Long> downtimes;
+    CountDownLatch reconnected;
+    ConnectionSupervisor testObject;
+
+    @Before
+    public void setup() {
+        failuresLeft = new AtomicInteger();
+        connects = new AtomicInteger();
+        resubscribes = new AtomicInteger();
+        downtimes = Collections.synchronizedList(new ArrayList<>());
+        reconnected = new CountDownLatch(1);
+        testObject = new ConnectionSupervisor("test-reconnect", 1, 8, () -> {
+            connects.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IOException("connection refused");
+            }
+            testObject.connected();
+        }, resubscribes::incrementAndGet);
+        testObject.addConnectionListener(downtimeMillis -> {
+            downtimes.add(downtimeMillis);
+            reconnected.countDown();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        testObject.stop();
+    }
+
+    @Test
+    public void shouldConnectOnStartWithoutTellingTheListeners() {
+        testObject.start();
+
+        assertThat(testObject.isConnected()).isTrue();
+        assertThat(connects.get()).isEqualTo(1);
+        assertThat(resubscribes.get()).isZero();
+        assertThat(downtimes).isEmpty();
+        assertThat(testObject.getMetrics().getDisconnects()).isZero();
+    }
+
+    @Test
+    public void shouldBackOffUntilReconnectedThenResubscribe() throws InterruptedException {
+        testObject.start();
+        failuresLeft.set(3);
+
+        testObject.disconnected();
+
+        assertThat(reconnected.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(testObject.isConnected()).isTrue();
+        assertThat(connects.get()).isEqualTo(5);
+        assertThat(resubscribes.get()).isEqualTo(1);
+        assertThat(downtimes).hasSize(1);
+        ConnectionMetrics metrics = testObject.getMetrics();
+        assertThat(metrics.getDisconnects()).isEqualTo(1);
+        assertThat(metrics.getReconnects()).isEqualTo(1);
+        assertThat(metrics.getFailedAttempts()).isEqualTo(3);
+        assertThat(metrics.getLastDowntimeMillis()).isEqualTo(downtimes.get(0));
+        assertThat(metrics.getTotalDowntimeMillis()).isEqualTo(downtimes.get(0));
+    }
+
+    @Test
+    public void shouldKeepTryingWhenTheFirstConnectFails() throws InterruptedException {
+        failuresLeft.set(1);
+
+        testObject.start();
+
+        assertThat(reconnected.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(connects.get()).isEqualTo(2);
+        assertThat(resubscribes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotReconnectOnceStopped() throws InterruptedException {
+        testObject.start();
+        testObject.stop();
+
+        testObject.disconnected();
+
+        assertThat(reconnected.await(50, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(connects.get()).isEqualTo(1);
+        assertThat(testObject.isConnected()).isFalse();
+    }
+
+    @Test
+    public void shouldDoubleTheJitteredDelayUpToTheMaximum() {
+        ConnectionSupervisor supervisor = new ConnectionSupervisor("unused", 100, 1000, () -> { }, () -> { });
+
+        for (long ceiling : new long[]{100, 200, 400, 800, 1000, 1000}) {
+            assertThat(supervisor.nextDelayMillis()).isBetween(ceiling / 2, ceiling);
+        }
+        supervisor.connected();
+        assertThat(supervisor.nextDelayMillis()).isBetween(50L, 100L);
+    }
+}
@@ -0,0 +1,72 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeedIngestThreadTest {
+
+    FeedIngestThread testObject;
+
+    @Before
+    public void setup() {
+        testObject = new FeedIngestThread(16);
+    }
+
+    @After
+    public void tearDown() {
+        testObject.stop();
+    }
+
+    @Test
+    public void shouldApplyFramesInArrivalOrderOnASingleThread() throws InterruptedException {
+        int frameCount = 1000;
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        CountDownLatch done = new CountDownLatch(frameCount);
+        testObject.setMessageHandler(frame -> {
+            handled.add(frame);
+            threads.add(Thread.currentThread());
+            done.countDown();
+        });
+        testObject.start();
+
+        // more frames than the buffer holds, so the producer has to wait for the writer
+        for (int i = 0; i < frameCount; i++) {
+            testObject.publish(Integer.toString(i));
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).hasSize(1);
+        for (int i = 0; i < frameCount; i++) {
+            assertThat(handled.get(i)).isEqualTo(Integer.toString(i));
+        }
+        assertThat(testObject.getFramesReceived()).isEqualTo(frameCount);
+    }
+
+    @Test
+    public void shouldRunTasksOnTheIngestThread() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<Boolean> onIngestThread = new ArrayList<>();
+        testObject.start();
+
+        testObject.execute(() -> {
+            onIngestThread.add(testObject.isIngestThread());
+            done.countDown();
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(onIngestThread).containsExactly(true);
+        assertThat(testObject.isIngestThread()).isFalse();
+    }
+}
@@ -0,0 +1,121 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.orderbook.FixedPoint;
+import com.coinbase.exchange.api.orderbook.OrderBook;
+import com.coinbase.exchange.api.orderbook.PriceLadder;
+import com.coinbase.exchange.api.websocketfeed.message.FeedMessage;
+import com.coinbase.exchange.api.websocketfeed.message.OrderBookMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+import static com.coinbase.exchange.api.constants.GdaxConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeedMessageDecoderTest {
+
+    FeedMessageDecoder testObject;
+
+    @Before
+    public void setup() {
+        testObject = new FeedMessageDecoder();
+    }
+
+    @Test
+    public void shouldDecodeMatchIntoScaledFields() throws Exception {
+        FeedMessage message = testObject.decode(read("/testdata/matchedBuy_001.json").get(0));
+
+        assertThat(message.getType()).isSameAs(MATCH);
+        assertThat(message.getSide()).isSameAs(BUY);
+        assertThat(message.getProductId()).isEqualTo("BTC-GBP");
+        assertThat(message.getSequence()).isEqualTo(123457L);
+        assertThat(message.getTradeId()).isEqualTo(3304703L);
+        assertThat(message.getMakerOrderId()).isEqualTo("d69a8fc4-c171-4537-ab58-513a9acdfc7d");
+        assertThat(message.getTakerOrderId()).isEqualTo("dfcb551e-d409-44c5-b746-bc71585e173d");
+        assertThat(message.getPrice()).isEqualTo(FixedPoint.toScaled(new BigDecimal("9879.00"), PRICE_DECIMAL_PLACES));
+        assertThat(message.getSize()).isEqualTo(FixedPoint.toScaled(new BigDecimal("0.001"), SIZE_DECIMAL_PLACES));
+        assertThat(message.hasPrice()).isTrue();
+        assertThat(message.getRemainingSize()).isEqualTo(FeedMessage.ABSENT);
+    }
+
+    @Test
+    public void shouldDecodeChange() throws Exception {
+        FeedMessage message = testObject.decode(read("/testdata/changeBuy_001.json").get(0));
+
+        assertThat(message.getType()).isSameAs(CHANGE);
+        assertThat(message.getOrderId()).isEqualTo("ac928c66-ca53-498f-9c13-a110027a60e8");
+        assertThat(message.getNewSize()).isEqualTo(FixedPoint.toScaled(new BigDecimal("5.23512"), SIZE_DECIMAL_PLACES));
+        assertThat(message.getOldSize()).isEqualTo(FixedPoint.toScaled(new BigDecimal("0.02"), SIZE_DECIMAL_PLACES));
+        assertThat(message.getPrice()).isEqualTo(FixedPoint.toScaled(new BigDecimal("9875.10"), PRICE_DECIMAL_PLACES));
+    }
+
+    @Test
+    public void shouldReuseReleasedMessagesAndProductIds() throws Exception {
+        List<String> frames = read("/testdata/incomingWebsocketFeed.json");
+
+        FeedMessage first = testObject.decode(frames.get(0));
+        String productId = first.getProductId();
+        first.release();
+        FeedMessage second = testObject.decode(frames.get(1));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getProductId()).isSameAs(productId);
+        assertThat(testObject.getPool().getCreated()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSkipFieldsItDoesNotUse() throws Exception {
+        FeedMessage message = testObject.decode("{\"type\":\"subscriptions\",\"channels\":[{\"name\":\"full\",\"product_ids\":[\"BTC-GBP\"]}]}");
+
+        assertThat(message.getType()).isEqualTo("subscriptions");
+        assertThat(message.hasSequence()).isFalse();
+        assertThat(testObject.decode("[]")).isNull();
+    }
+
+    @Test
+    public void shouldParseTimestampsToEpochMicros() {
+        String time = "2017-11-08T21:16:17.659000Z";
+        Instant instant = Instant.parse(time);
+
+        assertThat(FeedMessageDecoder.parseTimeMicros(time))
+                .isEqualTo(instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000);
+        assertThat(FeedMessageDecoder.parseTimeMicros("not a time")).isEqualTo(FeedMessage.ABSENT);
+    }
+
+    @Test
+    public void shouldBuildTheSameBookAsTheBoundMessages() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        OrderBook decoded = new OrderBook();
+        OrderBook bound = new OrderBook();
+
+        for (String frame : read("/testdata/incomingWebsocketFeed.json")) {
+            FeedMessage message = testObject.decode(frame);
+            decoded.apply(message);
+            message.release();
+            bound.apply(objectMapper.readValue(frame, OrderBookMessage.class));
+        }
+
+        assertSameLadder(decoded.getBids(), bound.getBids());
+        assertSameLadder(decoded.getAsks(), bound.getAsks());
+    }
+
+    private void assertSameLadder(PriceLadder actual, PriceLadder expected) {
+        assertThat(actual.depth()).isEqualTo(expected.depth());
+        for (int level = 0; level < expected.depth(); level++) {
+            assertThat(actual.priceAt(level)).isEqualTo(expected.priceAt(level));
+            assertThat(actual.sizeAt(level)).isEqualTo(expected.sizeAt(level));
+            assertThat(actual.orderCountAt(level)).isEqualTo(expected.orderCountAt(level));
+        }
+    }
+
+    private List<String> read(String file) throws Exception {
+        return Files.readAllLines(Paths.get(this.getClass().getResource(file).toURI()), StandardCharsets.UTF_8);
+    }
+}
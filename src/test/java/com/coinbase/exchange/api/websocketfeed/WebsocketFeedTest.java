@@ -0,0 +1,72 @@
+package com.coinbase.exchange.api.websocketfeed;
+
+import com.coinbase.exchange.api.exchange.JsonCodec;
+import com.coinbase.exchange.api.exchange.Signature;
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.websocketfeed.journal.FeedJournal;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WebsocketFeedTest {
+
+    WebsocketFeed testObject;
+
+    @Before
+    public void setup() {
+        testObject = new WebsocketFeed("wss://localhost/", false, "key", "passphrase", 16, 500, 30000,
+                new Signature("MTIzNDU2Nzg5MA=="), new FeedJournal(), new JsonCodec());
+        testObject.addSubscribedChannels("BTC-GBP");
+    }
+
+    @Test
+    public void shouldOnlyPassTheUsersOrdersToTheBooksForFullChannelProducts() {
+        testObject.onMessage("{\"type\":\"open\",\"product_id\":\"ETH-GBP\",\"sequence\":1,\"user_id\":\"u\"}");
+        testObject.onMessage("{\"type\":\"open\",\"product_id\":\"BTC-GBP-X\",\"sequence\":1,\"user_id\":\"u\"}");
+
+        assertThat(testObject.getIngestThread().getFramesReceived()).isZero();
+
+        testObject.onMessage("{\"type\":\"open\",\"product_id\":\"BTC-GBP\",\"sequence\":1,\"user_id\":\"u\"}");
+        testObject.onMessage("{\"type\":\"subscriptions\",\"channels\":[]}");
+        testObject.onMessage("{\"type\":\"error\",\"message\":\"Failed to subscribe\",\"user_id\":\"u\"}");
+
+        assertThat(testObject.getIngestThread().getFramesReceived()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldKeepMatchesForProductsOnlyOnTheMatchesChannelFromTheBooks() {
+        testObject.subscribe(Channel.MATCHES, Arrays.asList("BTC-GBP", "ETH-GBP"), new ChannelListener() { });
+
+        testObject.onMessage("{\"type\":\"last_match\",\"product_id\":\"ETH-GBP\",\"sequence\":1}");
+        testObject.onMessage("{\"type\":\"match\",\"product_id\":\"ETH-GBP\",\"sequence\":2}");
+
+        assertThat(testObject.getIngestThread().getFramesReceived()).isZero();
+
+        testObject.onMessage("{\"type\":\"match\",\"product_id\":\"BTC-GBP\",\"sequence\":1}");
+
+        assertThat(testObject.getIngestThread().getFramesReceived()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReplaceTheBooksProductRatherThanAddToIt() {
+        testObject.subscribe("ETH-GBP", (GdaxLiveOrderBook) null);
+        testObject.subscribe("LTC-GBP", (GdaxLiveOrderBook) null);
+
+        assertThat(testObject.getSubscribedChannels()).containsOnly("BTC-GBP", "LTC-GBP");
+        assertThat(testObject.isForFullChannelProduct("{\"product_id\":\"ETH-GBP\"}")).isFalse();
+
+        testObject.subscribe("BTC-GBP", (GdaxLiveOrderBook) null);
+
+        assertThat(testObject.getSubscribedChannels()).containsOnly("BTC-GBP");
+    }
+
+    @Test
+    public void shouldMatchTheProductIdWhereverItIsInTheFrame() {
+        assertThat(testObject.isForFullChannelProduct("{\"product_id\" : \"BTC-GBP\"}")).isTrue();
+        assertThat(testObject.isForFullChannelProduct("{\"product_id\":\"BTC-EUR\"}")).isFalse();
+        assertThat(testObject.isForFullChannelProduct("{\"type\":\"heartbeat\"}")).isTrue();
+    }
+}
@@ -0,0 +1,129 @@
+package com.coinbase.exchange.api.websocketfeed.journal;
+
+import com.coinbase.exchange.api.gui.orderbook.GdaxLiveOrderBook;
+import com.coinbase.exchange.api.marketdata.MarketData;
+import com.coinbase.exchange.api.marketdata.OrderItem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeedJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReplayFramesInTheOrderTheyWereAppended() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        FeedJournal journal = new FeedJournal(true, directory.toString(), 1 << 16);
+        List<String> frames = Arrays.asList("{\"type\":\"open\"}", "{\"type\":\"done\"}", "{\"product\":\"\u20ac \ud83d\ude00\"}");
+        for (String frame : frames) {
+            assertThat(journal.append(frame)).isTrue();
+        }
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        long count = new FeedJournalReader(directory).replay((sequence, receivedMicros, frame) -> {
+            sequences.add(sequence);
+            times.add(receivedMicros);
+            replayed.add(frame);
+        }, false);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(replayed).isEqualTo(frames);
+        assertThat(sequences).containsExactly(0L, 1L, 2L);
+        assertThat(times).isSorted();
+        assertThat(times.get(0)).isGreaterThan(0L);
+    }
+
+    @Test
+    public void shouldRollOntoNewSegmentsWhenOneFillsUp() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        FeedJournal journal = new FeedJournal(true, directory.toString(), 256);
+        for (int i = 0; i < 20; i++) {
+            journal.append("{\"type\":\"open\",\"sequence\":" + i + "}");
+        }
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        new FeedJournalReader(directory).replay((sequence, receivedMicros, frame) -> replayed.add(frame), false);
+
+        assertThat(FeedJournalReader.segments(directory).size()).isGreaterThan(1);
+        assertThat(replayed).hasSize(20);
+        assertThat(replayed.get(19)).isEqualTo("{\"type\":\"open\",\"sequence\":19}");
+    }
+
+    @Test
+    public void shouldDropFramesLargerThanASegment() {
+        FeedJournal journal = new FeedJournal(true, folder.getRoot().toString(), 64);
+
+        assertThat(journal.append(new String(new char[64]).replace('\0', 'x'))).isFalse();
+        assertThat(journal.getFramesDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCarryOnAfterAnEarlierSessionsSegments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        FeedJournal first = new FeedJournal(true, directory.toString(), 256);
+        first.append("{\"session\":1}");
+        first.close();
+        FeedJournal second = new FeedJournal(true, directory.toString(), 256);
+        second.append("{\"session\":2}");
+        second.close();
+
+        List<String> replayed = new ArrayList<>();
+        new FeedJournalReader(directory).replay((sequence, receivedMicros, frame) -> replayed.add(frame), false);
+
+        assertThat(replayed).containsExactly("{\"session\":1}", "{\"session\":2}");
+    }
+
+    @Test
+    public void shouldReplayARecordedSessionIntoALiveOrderBook() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        FeedJournal journal = new FeedJournal(true, directory.toString(), 1 << 16);
+        for (String frame : read("/testdata/incomingWebsocketFeed.json")) {
+            journal.append(frame);
+        }
+        journal.close();
+
+        GdaxLiveOrderBook liveOrderBook = new GdaxLiveOrderBook();
+        liveOrderBook.initBidsAndAsksAndMaxSequenceId(new MarketData(123456L,
+                orderItems("/testdata/testBids.csv"), orderItems("/testdata/testAsks.csv")));
+        liveOrderBook.setReady(true);
+
+        long count = new FeedJournalReader(directory).replay(liveOrderBook, false);
+
+        assertThat(count).isEqualTo(16);
+        assertThat(liveOrderBook.nextMessageToExpect()).isEqualTo(123473L);
+        assertThat(liveOrderBook.getSnapshot().getBids().depth()).isEqualTo(11);
+        assertThat(liveOrderBook.getSnapshot().getAsks().depth()).isEqualTo(6);
+    }
+
+    private List<OrderItem> orderItems(String file) throws Exception {
+        List<OrderItem> items = new ArrayList<>();
+        for (String line : read(file)) {
+            List<String> row = new ArrayList<>();
+            for (String column : line.split(",")) {
+                row.add(column.trim());
+            }
+            items.add(new OrderItem(row));
+        }
+        return items;
+    }
+
+    private List<String> read(String file) throws Exception {
+        return Files.readAllLines(Paths.get(this.getClass().getResource(file).toURI()), StandardCharsets.UTF_8);
+    }
+}